@@ -0,0 +1,77 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+/**
+ * BulkLoadBenchmark - Rows/sec of each BulkLoadStrategy loading the same E5.dat into E5TMP
+ *
+ * Usage: java BulkLoadBenchmark jdbcUrl dbUser dbPassword [E5.dat] [lineCount]
+ * If the data file does not exist, a synthetic one with lineCount records
+ * (default 1,000,000) is generated first. E5TMP is truncated before each run,
+ * so only run this against a development schema.
+ */
+public class BulkLoadBenchmark {
+
+    private static final int DEFAULT_LINES = 1_000_000;
+
+    // Strategy, batch size and commit interval combinations to compare
+    private static final BulkLoadSettings[] RUNS = {
+        new BulkLoadSettings(BulkLoadStrategy.CONVENTIONAL, 1000, 1000),
+        new BulkLoadSettings(BulkLoadStrategy.CONVENTIONAL, 1000, 50000),
+        new BulkLoadSettings(BulkLoadStrategy.CONVENTIONAL, 5000, 50000),
+        new BulkLoadSettings(BulkLoadStrategy.DIRECT_PATH, 10000, 10000),
+        new BulkLoadSettings(BulkLoadStrategy.DIRECT_PATH, 50000, 50000),
+    };
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: java BulkLoadBenchmark jdbcUrl dbUser dbPassword [E5.dat] [lineCount]");
+            System.exit(1);
+        }
+        Path datFile = args.length > 3 ? Paths.get(args[3]) : Files.createTempDirectory("e5load").resolve("E5.dat");
+        int lineCount = args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_LINES;
+
+        if (!Files.exists(datFile)) {
+            System.out.println("Generating " + lineCount + " E5 records in " + datFile);
+            E5DecoderBenchmark.generate(datFile, lineCount);
+        }
+
+        try (EntityDataSource dataSource = new EntityDataSource(args[0], args[1], args[2], 1)) {
+            for (BulkLoadSettings settings : RUNS) {
+                truncate(dataSource);
+                long start = System.nanoTime();
+                long rows = load(dataSource, datFile, settings);
+                double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+                System.out.printf("%-55s %,12d rows  %8.2f s  %,12.0f rows/s%n",
+                    settings, rows, seconds, rows / seconds);
+            }
+            truncate(dataSource);
+            System.out.println("Connection pool: " + dataSource.getMetrics());
+        }
+    }
+
+    private static long load(EntityDataSource dataSource, Path datFile, BulkLoadSettings settings) throws Exception {
+        Connection conn = null;
+        PreparedStatement ps = null;
+        try {
+            conn = dataSource.getConnection();
+            conn.setAutoCommit(false);
+            ps = conn.prepareStatement(settings.getStrategy().insertSql(
+                "E5TMP", ProcessE5Entity.E5TMP_COLUMNS, ProcessE5Entity.E5TMP_COLUMN_COUNT));
+            return new FixedWidthDecoder(ProcessE5Entity.E5_LAYOUT.getRecordLength()).load(datFile, conn, ps,
+                ProcessE5Entity.E5TMP_BINDER, settings.getBatchSize(), settings.getCommitInterval(), (lineNumber, record, reason) -> { });
+        } finally {
+            if (ps != null) try { ps.close(); } catch (Exception e) { /* ignore */ }
+            if (conn != null) try { conn.close(); } catch (Exception e) { /* ignore */ }
+        }
+    }
+
+    private static void truncate(EntityDataSource dataSource) throws Exception {
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("TRUNCATE TABLE E5TMP");
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * BulkLoadSettings - Staging insert tuning for one entity
+ *
+ * Read from system properties so each entity can be tuned without a rebuild:
+ *   dailyload.<entity>.loadStrategy    CONVENTIONAL or DIRECT_PATH (default CONVENTIONAL)
+ *   dailyload.<entity>.batchSize       rows per executeBatch
+ *   dailyload.<entity>.commitInterval  rows per commit (CONVENTIONAL only)
+ *   dailyload.<entity>.maxRejects      rejected records allowed before the load fails
+ */
+public class BulkLoadSettings {
+
+    // Direct-path commits every array, so it needs much larger arrays than a conventional batch
+    private static final int DEFAULT_DIRECT_PATH_BATCH = 10000;
+    private static final int DEFAULT_CONVENTIONAL_BATCH = 1000;
+
+    // Same as the SQL*Loader ERRORS default
+    static final int DEFAULT_MAX_REJECTS = 50;
+
+    private final BulkLoadStrategy strategy;
+    private final int batchSize;
+    private final int commitInterval;
+    private final int maxRejects;
+
+    public BulkLoadSettings(BulkLoadStrategy strategy, int batchSize, int commitInterval) {
+        this(strategy, batchSize, commitInterval, DEFAULT_MAX_REJECTS);
+    }
+
+    public BulkLoadSettings(BulkLoadStrategy strategy, int batchSize, int commitInterval, int maxRejects) {
+        if (batchSize < 1 || commitInterval < 1 || maxRejects < 0) {
+            throw new IllegalArgumentException("Invalid batchSize, commitInterval or maxRejects: " +
+                                               batchSize + ", " + commitInterval + ", " + maxRejects);
+        }
+        this.strategy = strategy;
+        this.batchSize = batchSize;
+        // Direct-path cannot span arrays in one transaction
+        this.commitInterval = strategy.commitsEveryBatch() ? batchSize : Math.max(commitInterval, batchSize);
+        this.maxRejects = maxRejects;
+    }
+
+    /**
+     * Settings for an entity from the dailyload.<entity>.* system properties
+     */
+    public static BulkLoadSettings forEntity(String entity) {
+        String prefix = "dailyload." + entity + ".";
+        BulkLoadStrategy strategy = BulkLoadStrategy.valueOf(
+            System.getProperty(prefix + "loadStrategy", BulkLoadStrategy.CONVENTIONAL.name()));
+        int defaultBatch = strategy == BulkLoadStrategy.DIRECT_PATH ? DEFAULT_DIRECT_PATH_BATCH : DEFAULT_CONVENTIONAL_BATCH;
+        int batchSize = Integer.getInteger(prefix + "batchSize", defaultBatch);
+        int commitInterval = Integer.getInteger(prefix + "commitInterval", batchSize);
+        int maxRejects = Integer.getInteger(prefix + "maxRejects", DEFAULT_MAX_REJECTS);
+        return new BulkLoadSettings(strategy, batchSize, commitInterval, maxRejects);
+    }
+
+    /**
+     * The same tuning with conventional inserts, used when direct-path fails
+     */
+    public BulkLoadSettings asConventional() {
+        return new BulkLoadSettings(BulkLoadStrategy.CONVENTIONAL, batchSize, commitInterval, maxRejects);
+    }
+
+    public BulkLoadStrategy getStrategy() {
+        return strategy;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getCommitInterval() {
+        return commitInterval;
+    }
+
+    public int getMaxRejects() {
+        return maxRejects;
+    }
+
+    @Override
+    public String toString() {
+        return strategy + " (batch " + batchSize + ", commit every " + commitInterval + " rows, " +
+               maxRejects + " rejects allowed)";
+    }
+}
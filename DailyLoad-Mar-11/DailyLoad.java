@@ -26,11 +26,14 @@ import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -75,6 +78,11 @@ public class DailyLoad {
     private String[] outFiles;       // List of output files (with .out extension)
     private String[] badFiles;       // List of bad record files (with .bad extension)
     private String[] logFiles;       // List of log files (with .log extension)
+    private int maxDbSessions;       // Maximum entity processors loading at once
+    private int extractQuietSeconds; // Seconds an extract must stay unchanged to count as arrived
+    private final ExtractStager extractStager = new ExtractStager();  // Copies, hashes and counts extracts
+    private boolean freshRun;        // Ignore the run journal and load every extract again
+    private RunJournal runJournal;   // Phases completed per entity by this and earlier runs for today
     
     // Directory paths
     private String entDir;           // Entity executables directory 
@@ -90,7 +98,6 @@ public class DailyLoad {
     private String yesterday;        // Yesterday's date 
     private String holiday;          // Holiday date (if any)
     private int days2Add;            // Number of days to add based on day of week
-    private String errChk;           // Error check file
     private String newExtractDate;   // Expected extract date for validation
     private String currE5;           // Current E5 extract date
     private String prevE9;           // Previous E9 extract date
@@ -148,6 +155,15 @@ public class DailyLoad {
         badFiles = new String[]{"E5.bad", "E3.bad", "E8.bad", "E7.bad", "EB.bad"};
         logFiles = new String[]{"loadE5.log", "loadE3.log", "loadE8.log", "loadE7.log", "loadEB.log"};
         
+        // Cap on concurrent entity loads (each holds its own database session)
+        maxDbSessions = Integer.getInteger("dailyload.maxDbSessions", 3);
+        
+        // An extract without a .done marker is complete once unchanged for this long
+        extractQuietSeconds = Integer.getInteger("dailyload.extractQuietSeconds", 30);
+        
+        // A rerun for the same day resumes from the run journal unless told to start over
+        freshRun = Boolean.getBoolean("dailyload.freshRun");
+        
         // Set application directories
         entDir = appBase + "/execloc/d.entity";
         loadDir = appBase + "/execloc/d.loads";
@@ -246,19 +262,17 @@ public class DailyLoad {
         // Process backup of previous files
         backupPreviousFiles();
         
-        // Check for extract files and wait if not present
-        checkForExtractFiles();
-        
-        // Copy daily extracts from FTP directory to LOAD directory with .dat extension
-        copyDailyExtracts();
-        
         // Get previous extract dates from LOGLOAD table
         getPreviousExtractDates();
         
-        // Calculate the new expected extract date and validate extract dates in files
+        // Calculate the new expected extract date
         calculateNewExtractDate();
         
-        // Load the daily extracts
+        // Open the run journal - a rerun keeps the first run's expected date and completed phases
+        openRunJournal();
+        
+        // Load each daily extract as soon as it arrives in the FTP directory;
+        // arrival handling validates its date and then stages it in the LOAD directory
         loadDailyExtracts();
         
         // Send final report and email notification
@@ -318,19 +332,10 @@ public class DailyLoad {
             System.exit(1); // Exit with error
         }
         
-        // Get E5 extract date from file - using position from datePositions map
-        String extractRange = datePositions.get("E5");
-        String[] range = extractRange.split("-");
-        int startPos = Integer.parseInt(range[0]);
-        int endPos = Integer.parseInt(range[1]);
-        
-        // Read the first line of the E5 file - replacing Unix head command
-        String e5FirstLine = readFirstLine(ftpDir + "/E5");
-        
-        // Extract the date portion based on position
-        if (e5FirstLine.length() >= endPos) {
-            currE5 = e5FirstLine.substring(startPos - 1, endPos);
-        } else {
+        // Get E5 extract date from file - positional read of the datePositions columns
+        try {
+            currE5 = ExtractDateProbe.forRange(datePositions.get("E5")).probe(e5File.toPath(), 0).getDate();
+        } catch (IOException e) {
             appendToFile(logFile, "Invalid E5 file format EXITING .................... " + 
                          getCurrentTime("HH:mm:ss") + "\n");
             System.exit(1);
@@ -428,14 +433,12 @@ public class DailyLoad {
         appendToFile(logFile, "Begin backing up previous days files......... " + 
                     getCurrentTime("HH:mm:ss") + "\n");
         
-        // Process data files backup (remove old .dat files)
+        // Previous .dat files are left in place: staging replaces each one as its
+        // extract arrives, or reuses it when a rerun sees the same content
         for (String file : dataFiles) {
             File sourceFile = new File(loadDir + "/" + file);
             if (sourceFile.exists()) {
-                deleteFile(loadDir + "/" + file);
-                appendToFile(logFile, file + " has been removed...\n");
-            } else {
-                appendToFile(logFile, "No " + file + " to remove...\n");
+                appendToFile(logFile, file + " kept until its extract is staged...\n");
             }
         }
         appendToFile(logFile, "\n");
@@ -487,71 +490,30 @@ public class DailyLoad {
     }
     
     /**
-     * Check for extract files and wait if they're not present
+     * Stage one daily extract from the FTP directory into the LOAD directory with a .dat extension
+     * The copy, SHA-256 and line count are done in a single pass; an unchanged
+     * extract from an earlier run is reused instead of copied again.
+     * 
+     * @return the staged extract, or null if it could not be staged
      */
-    private void checkForExtractFiles() throws IOException, InterruptedException {
-        appendToFile(logFile, "Begin checking for daily extracts............. " + 
-                    getCurrentTime("HH:mm:ss") + "\n");
-        
-        // Set default error flag
-        errChk = "0";
-        File errChkFile = new File(errChk);
-        if (!errChkFile.exists()) {
-            appendToFile(logFile, "0 > " + errChk + "\n");
+    private ExtractStager.StagedExtract stageDailyExtract(String entity) throws IOException {
+        File sourceFile = new File(ftpDir + "/" + entity);
+        if (!sourceFile.exists()) {
+            appendToFile(logFile, "ERROR: " + entity + " extract file not found in FTP directory\n");
+            return null;
         }
         
-        // Loop through each daily entity and check for file
-        for (String entity : dailyEntities) {
-            boolean fileFound = false;
-            
-            while (!fileFound) {
-                File extractFile = new File(ftpDir + "/" + entity);
-                if (extractFile.exists()) {
-                    appendToFile(logFile, entity + " extract file found...\n");
-                    fileFound = true;
-                } else {
-                    appendToFile(logFile, "ERROR: " + entity + " extract file not found...\n");
-                    // Sleep 5 minutes (300 seconds) and retry
-                    TimeUnit.SECONDS.sleep(300);
-                }
-            }
-        }
-        
-        appendToFile(logFile, "\nEnd checking for daily extracts.............. " + 
-                    getCurrentTime("HH:mm:ss") + "\n");
-        appendToFile(logFile, "\n-------------------------------------------------------\n");
-    }
-    
-    /**
-     * Copy daily extract files from FTP directory to LOAD directory
-     */
-    private void copyDailyExtracts() throws IOException {
-        appendToFile(logFile, "Begin copying daily extracts................. " + 
-                    getCurrentTime("HH:mm:ss") + "\n");
-        
-        for (String entity : dailyEntities) {
-            File sourceFile = new File(ftpDir + "/" + entity);
-            if (sourceFile.exists()) {
-                // Copy and add .dat extension
-                copyFile(ftpDir + "/" + entity, loadDir + "/" + entity + ".dat");
-                
-                // Verify copy was successful
-                File destFile = new File(loadDir + "/" + entity + ".dat");
-                if (destFile.exists()) {
-                    appendToFile(logFile, entity + " extract copied to " + entity + ".dat...\n");
-                } else {
-                    appendToFile(logFile, "ERROR: " + entity + " extract file not copied...EXITING\n");
-                    System.exit(1);
-                }
-            } else {
-                appendToFile(logFile, "ERROR: " + entity + " extract file not found in FTP directory\n");
-                System.exit(1);
-            }
+        ExtractStager.StagedExtract staged;
+        try {
+            staged = extractStager.stage(sourceFile.toPath(), Paths.get(loadDir, entity + ".dat"));
+        } catch (IOException e) {
+            appendToFile(logFile, "ERROR: " + entity + " extract file not copied: " + e.getMessage() + "...EXITING\n");
+            return null;
         }
         
-        appendToFile(logFile, "\nEnd copying daily extracts................... " + 
-                    getCurrentTime("HH:mm:ss") + "\n");
-        appendToFile(logFile, "\n-------------------------------------------------------\n");
+        appendToFile(logFile, entity + " extract " + (staged.isReused() ? "unchanged, reusing " : "copied to ") +
+                    entity + ".dat... " + staged.getLineCount() + " lines, sha256 " + staged.getSha256() + "\n");
+        return staged;
     }
     
     /**
@@ -614,43 +576,68 @@ public class DailyLoad {
         newExtractDate = executeSqlQuery(sql);
         
         appendToFile(logFile, "Current extract date should be... " + newExtractDate + "\n");
-        
-        // Get the extract dates from the current files and validate them
-        validateExtractDates();
+        appendToFile(logFile, "\n-------------------------------------------------------\n");
     }
     
     /**
-     * Validate extract dates from files against the expected date
+     * Open the run journal for today and record or restore the expected extract date
+     * Once an entity has written its LOGLOAD record the date calculated from
+     * LOGLOAD moves on a day, so a rerun uses the date the first run expected.
      */
-    private void validateExtractDates() throws IOException {
-        // For each entity, extract the date from the data file and compare to expected date
-        for (String entity : dailyEntities) {
-            String position = datePositions.get(entity);
-            String[] range = position.split("-");
-            int startPos = Integer.parseInt(range[0]);
-            int endPos = Integer.parseInt(range[1]);
-            
-            // Extract date from file
-            String firstLine = readFirstLine(loadDir + "/" + entity + ".dat");
-            String extractDate = firstLine.substring(startPos - 1, endPos);
-            
-            // Validate the date against expected date
-            if (extractDate.equals(newExtractDate)) {
-                appendToFile(logFile, entity + " extract date is correct....... " + extractDate + "\n");
-            } else {
-                appendToFile(logFile, "ERROR: " + entity + " extract date " + extractDate + " is incorrect...EXITING\n");
-                System.exit(1); // Exit if date is incorrect
-            }
+    private void openRunJournal() throws IOException {
+        runJournal = RunJournal.open(Paths.get(logDir, RunJournal.FILE_NAME), today, freshRun);
+        String journaledDate = runJournal.getExpectedExtractDate();
+        if (journaledDate == null) {
+            runJournal.recordExpectedExtractDate(newExtractDate);
+            appendToFile(logFile, (freshRun ? "Starting a fresh run" : "First run") + " for " + today +
+                        ", phases are journaled in " + RunJournal.FILE_NAME + "\n");
+        } else {
+            appendToFile(logFile, "Resuming the run for " + today + " from " + RunJournal.FILE_NAME +
+                        ", extract date should be... " + journaledDate + "\n");
+            newExtractDate = journaledDate;
         }
-        
-        appendToFile(logFile, "\nEnd comparing extract dates.................. " + 
-                    getCurrentTime("HH:mm:ss") + "\n");
         appendToFile(logFile, "\n-------------------------------------------------------\n");
     }
     
+    /**
+     * Validate the extract date of one FTP extract against the expected date
+     * Runs before the extract is staged, so a stale file is rejected without
+     * being copied. Only the date bytes of the first record and a few sampled
+     * records are read.
+     * 
+     * @return true if the date matches and the sampled records agree
+     */
+    private boolean validateExtractDate(String entity) throws IOException {
+        ExtractDateProbe.Result probe;
+        try {
+            probe = ExtractDateProbe.forRange(datePositions.get(entity)).probe(Paths.get(ftpDir, entity));
+        } catch (IOException e) {
+            appendToFile(logFile, "ERROR: " + entity + " extract date could not be read: " + e.getMessage() + "...EXITING\n");
+            return false;
+        }
+        String extractDate = probe.getDate();
+        
+        // Validate the date against expected date
+        if (!extractDate.equals(newExtractDate)) {
+            appendToFile(logFile, "ERROR: " + entity + " extract date " + extractDate + " is incorrect...EXITING\n");
+            return false;
+        }
+        if (!probe.isConsistent()) {
+            appendToFile(logFile, "ERROR: " + entity + " extract has mixed dates, sampled records " +
+                        probe.getMismatches() + " differ from " + extractDate + "...EXITING\n");
+            return false;
+        }
+        appendToFile(logFile, entity + " extract date is correct....... " + extractDate + 
+                    " (" + probe.getSampled() + " records sampled)\n");
+        return true;
+    }
+    
     /**
  * Modified loadDailyExtracts method to use the EntityProcessor interface and factory pattern
- * This allows for a clean way to add the remaining entity processors
+ * Entities are loaded concurrently through EntityLoadScheduler: each processor
+ * starts as soon as its extract has arrived (ExtractArrivalWatcher) and the
+ * entities it declares in getDependencies() have loaded, with at most
+ * maxDbSessions processors connected to the database at once.
  */
 private void loadDailyExtracts() throws Exception {
     appendToFile(logFile, "Begin loading daily extracts..... " + 
@@ -660,88 +647,168 @@ private void loadDailyExtracts() throws Exception {
     String jdbcUrl = "jdbc:oracle:thin:@localhost:1521:XE"; // Adjust as necessary
     String dbUser = "als";
     
-    // Process each entity
-    for (String entity : dailyEntities) {
-        appendToFile(logFile, entity + " extract loading............... " + 
-                    getCurrentTime("HH:mm:ss") + "\n");
-        
-        try {
-            // Create the appropriate entity processor using the factory
-            EntityProcessor processor = null;
-            
+    // One pool for every entity - a session per concurrent load, logged on once
+    try (EntityDataSource dataSource = new EntityDataSource(jdbcUrl, dbUser, dbPassword, maxDbSessions)) {
+        // Create the entity processors using the factory
+        List<EntityProcessor> processors = new ArrayList<>();
+        Map<String, EntityProcessor> processorsByEntity = new HashMap<>();
+        for (String entity : dailyEntities) {
             try {
-                processor = EntityProcessorFactory.createProcessor(
+                EntityProcessor processor = EntityProcessorFactory.createProcessor(
                     entity,
                     loadDir,
                     logDir,
-                    dbUser,
-                    dbPassword,
-                    jdbcUrl
+                    dataSource
                 );
+                processors.add(processor);
+                processorsByEntity.put(entity, processor);
             } catch (UnsupportedOperationException e) {
                 // If processor is not implemented yet, log and continue to next entity
-                appendToFile(logFile, "WARNING: " + entity + " processor not yet implemented. Skipping.\n");
-                continue;
+                appendToFile(logFile, "WARNING: " + entity + " processor not available (" + e.getMessage() + "). Skipping.\n");
             }
+        }
+    
+        // Journal of each staged extract, by entity
+        Map<String, RunJournal.EntityJournal> entityJournals = new ConcurrentHashMap<>();
+    
+        // Extracts turned away on arrival - one with no processor has no result to report it
+        Set<String> rejectedExtracts = ConcurrentHashMap.newKeySet();
+    
+        // Process the entities - a processor that returns true but wrote ERROR/ERR
+        // to its output file counts as failed so its dependents are not started.
+        // An extract the journal shows fully loaded by an earlier run is not loaded again.
+        EntityLoadScheduler scheduler = new EntityLoadScheduler(maxDbSessions);
+        List<String> extracts = Arrays.asList(dailyEntities);
+        Map<String, EntityLoadScheduler.Result> results;
+        try (ExtractArrivalWatcher watcher = new ExtractArrivalWatcher(
+                Paths.get(ftpDir), extracts, TimeUnit.SECONDS.toMillis(extractQuietSeconds), scheduler::arrived)) {
+            watcher.start();
+            results = scheduler.runAll(
+                processors,
+                extracts,
+                processor -> {
+                    RunJournal.EntityJournal journal = entityJournals.get(processor.getEntityCode());
+                    if (journal != null && journal.isComplete(RunJournal.Phase.LOGLOAD)) {
+                        appendToFile(logFile, processor.getEntityCode() + " extract already loaded by an earlier run, skipping\n");
+                        return true;
+                    }
+                    return processor.process() && !hasOutputErrors(processor.getOutputFilePath());
+                },
+                new EntityLoadScheduler.Listener() {
+                    @Override
+                    public void onStart(String entity) throws IOException {
+                        appendToFile(logFile, entity + " extract loading............... " + 
+                                    getCurrentTime("HH:mm:ss") + "\n");
+                    }
             
-            // Process the entity
-            boolean success = processor.process();
-            
-            if (!success) {
-                appendToFile(logFile, "ERROR: " + entity + " processing failed...EXITING - " + 
-                            getCurrentTime("HH:mm:ss") + "\n");
-                appendToFile(logFile, "\n");
+                    @Override
+                    public void onFinish(EntityLoadScheduler.Result result) throws IOException {
+                        if (result.getStatus() == EntityLoadScheduler.Status.SUCCEEDED) {
+                            appendToFile(logFile, result.getEntity() + " extract loaded successfully..... " + 
+                                        getCurrentTime("HH:mm:ss") + "\n\n");
+                        }
+                    }
                 
-                // Add any error lines to the log
-                String outputFilePath = processor.getOutputFilePath();
-                List<String> errorLines = findLinesContaining(outputFilePath, "ERROR");
-                for (String line : errorLines) {
-                    appendToFile(logFile, line + "\n");
-                }
-                System.exit(1);
-            }
-            
-            // Check for errors in the output file after processing
-            String outputFilePath = processor.getOutputFilePath();
-            File outFile = new File(outputFilePath);
-            if (outFile.exists()) {
-                // First check for ERROR keyword
-                int errorCount = countOccurrencesInFile(outputFilePath, "ERROR");
-                if (errorCount > 0) {
-                    appendToFile(logFile, "ERROR: Errors found in " + entity + ".out file...EXITING - " + 
-                                getCurrentTime("HH:mm:ss") + "\n");
-                    appendToFile(logFile, "\n");
-                    
-                    // Add the error lines to the log
-                    List<String> errorLines = findLinesContaining(outputFilePath, "ERROR");
-                    for (String line : errorLines) {
-                        appendToFile(logFile, line + "\n");
+                    @Override
+                    public boolean onArrival(String entity) throws IOException {
+                        appendToFile(logFile, entity + " extract file found... " + 
+                                    getCurrentTime("HH:mm:ss") + "\n");
+                        if (!validateExtractDate(entity)) {
+                            rejectedExtracts.add(entity);
+                            return false;
+                        }
+                        ExtractStager.StagedExtract staged = stageDailyExtract(entity);
+                        if (staged == null) {
+                            rejectedExtracts.add(entity);
+                            return false;
+                        }
+                        
+                        // Phases journaled for the same content carry over from an earlier run
+                        String earlier = runJournal.describe(entity);
+                        RunJournal.EntityJournal journal = runJournal.forEntity(entity, staged.getSha256());
+                        if (journal.isComplete(RunJournal.Phase.COPY)) {
+                            appendToFile(logFile, entity + " extract unchanged since an earlier run, " + earlier + "\n");
+                        }
+                        journal.complete(RunJournal.Phase.VALIDATE);
+                        journal.complete(RunJournal.Phase.COPY);
+                        entityJournals.put(entity, journal);
+                        
+                        if (processorsByEntity.containsKey(entity)) {
+                            processorsByEntity.get(entity).setStagedExtract(staged);
+                            processorsByEntity.get(entity).setRunJournal(journal);
+                        }
+                        return true;
                     }
-                    System.exit(1);
-                }
                 
-                // Also check for ERR keyword
-                int errCount = countOccurrencesInFile(outputFilePath, "ERR", true); // Case insensitive
-                if (errCount > 0) {
-                    appendToFile(logFile, "ERROR: Errors found in " + entity + ".out file...EXITING - " + 
-                                getCurrentTime("HH:mm:ss") + "\n");
-                    appendToFile(logFile, "\n");
-                    
-                    // Add the error lines to the log
-                    List<String> errLines = findLinesContaining(outputFilePath, "ERR", true);
-                    for (String line : errLines) {
-                        appendToFile(logFile, line + "\n");
+                    @Override
+                    public void onWaiting(Collection<String> missing) throws IOException {
+                        for (String entity : missing) {
+                            appendToFile(logFile, "ERROR: " + entity + " extract file not found...\n");
+                        }
                     }
-                    System.exit(1);
                 }
+            );
+        }
+    
+        // Report failures in entity order and exit, as the sequential load did
+        boolean failed = false;
+        for (String entity : rejectedExtracts) {
+            if (!processorsByEntity.containsKey(entity)) {
+                failed = true;
+                appendToFile(logFile, "ERROR: " + entity + " extract rejected...EXITING - " +
+                            getCurrentTime("HH:mm:ss") + "\n");
+            }
+        }
+        for (EntityProcessor processor : processors) {
+            String entity = processor.getEntityCode();
+            EntityLoadScheduler.Result result = results.get(entity);
+        
+            if (result.getStatus() == EntityLoadScheduler.Status.SKIPPED) {
+                failed = true;
+                appendToFile(logFile, "ERROR: " + entity + " not loaded because an earlier entity failed\n");
+                continue;
+            }
+            if (result.getStatus() != EntityLoadScheduler.Status.FAILED) {
+                continue;
+            }
+        
+            failed = true;
+            appendToFile(logFile, "ERROR: " + entity + " processing failed...EXITING - " + 
+                        getCurrentTime("HH:mm:ss") + "\n");
+            appendToFile(logFile, "\n");
+            if (result.getError() != null) {
+                appendToFile(logFile, "ERROR: " + result.getError().getMessage() + "\n");
             }
         
+            // Add the error lines to the log
+            String outputFilePath = processor.getOutputFilePath();
+            if (new File(outputFilePath).exists()) {
+                List<String> errLines = findLinesContaining(outputFilePath, "ERR", true);
+                for (String line : errLines) {
+                    appendToFile(logFile, line + "\n");
+                }
+            }
+        }
+    
+        appendToFile(logFile, "Connection pool: " + dataSource.getMetrics() + "\n");
+        if (failed) {
+            System.exit(1);
         }
-        appendToFile(logFile, entity + " extract loaded successfully..... " + 
-                    getCurrentTime("HH:mm:ss") + "\n\n");
     }
     
     appendToFile(logFile, "End loading daily extracts..... " + 
                 getCurrentTime("HH:mm:ss") + "\n");
     appendToFile(logFile, "\n-------------------------------------------------------\n");
+}
+
+/**
+ * Check an entity output file for ERROR or ERR (case insensitive) lines
+ * Called from the load threads, so it only reads the file.
+ */
+private boolean hasOutputErrors(String outputFilePath) throws IOException {
+    if (!new File(outputFilePath).exists()) {
+        return false;
+    }
+    return countOccurrencesInFile(outputFilePath, "ERROR") > 0
+        || countOccurrencesInFile(outputFilePath, "ERR", true) > 0;
 }
\ No newline at end of file
@@ -0,0 +1,264 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * E5DecoderBenchmark - Compares the original List-based E5 parser with the
+ * streaming FixedWidthDecoder on a synthetic E5.dat, and the binder compiled
+ * from ProcessE5Entity.E5_LAYOUT with the equivalent hand-written binder
+ *
+ * Usage: java E5DecoderBenchmark [lineCount] [workDir]
+ * Defaults to 3,000,000 lines in the system temp directory. Run with a fixed
+ * heap (for example -Xms4g -Xmx4g) so the retained-heap figures are comparable.
+ */
+public class E5DecoderBenchmark {
+
+    private static final int DEFAULT_LINES = 3_000_000;
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        int lineCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_LINES;
+        Path workDir = args.length > 1 ? Paths.get(args[1]) : Files.createTempDirectory("e5bench");
+        Path datFile = workDir.resolve("E5.dat");
+
+        System.out.println("Generating " + lineCount + " E5 records in " + datFile);
+        generate(datFile, lineCount);
+        System.out.println("File size: " + (Files.size(datFile) / (1024 * 1024)) + " MB");
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            System.out.println("\nRound " + round);
+            runLegacy(workDir, datFile);
+            runStreaming(datFile);
+            runBinder("Hand-written E5TMP binder", datFile, new HandWrittenBinder());
+            runBinder("Compiled E5_LAYOUT binder", datFile, ProcessE5Entity.E5TMP_BINDER);
+        }
+    }
+
+    /**
+     * Original parser: whole extract materialised as List<E5Record>
+     */
+    private static void runLegacy(Path workDir, Path datFile) throws IOException {
+        ProcessE5Entity processor = new ProcessE5Entity(workDir.toString(), workDir.toString(), null);
+
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        List<?> records = processor.parseE5DataFile(datFile.toString());
+        long elapsed = System.nanoTime() - start;
+        long retained = usedHeap() - heapBefore;
+
+        report("ArrayList<E5Record> parser", records.size(), elapsed, retained);
+    }
+
+    /**
+     * Streaming decoder: every field decoded as it would be bound, nothing retained
+     */
+    private static void runStreaming(Path datFile) throws IOException, SQLException {
+        Checksum checksum = new Checksum();
+
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        long records = newDecoder().decode(datFile, checksum);
+        long elapsed = System.nanoTime() - start;
+        long retained = usedHeap() - heapBefore;
+
+        report("FixedWidthDecoder", records, elapsed, retained);
+        System.out.println("    (checksum " + checksum.value + ")");
+    }
+
+    /**
+     * Decoder plus binder into a PreparedStatement stub that hashes every bound value
+     * Both binders pay the same stub cost, so the difference is the binding itself.
+     */
+    private static void runBinder(String name, Path datFile, FixedWidthDecoder.RowBinder binder)
+            throws IOException, SQLException {
+        long[] hash = new long[1];
+        PreparedStatement ps = (PreparedStatement) Proxy.newProxyInstance(
+            PreparedStatement.class.getClassLoader(), new Class<?>[] {PreparedStatement.class},
+            (proxy, method, methodArgs) -> {
+                hash[0] = hash[0] * 31 + methodArgs[0].hashCode() * 17 + String.valueOf(methodArgs[1]).hashCode();
+                return null;
+            });
+
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        long records = newDecoder().decode(datFile, new FixedWidthDecoder.RecordHandler() {
+            @Override
+            public void onRecord(FixedWidthDecoder.Row row) throws SQLException {
+                binder.bind(row, ps);
+            }
+
+            @Override
+            public void onShortLine(FixedWidthDecoder.Row row) {
+                // Synthetic file has no short lines
+            }
+        });
+        long elapsed = System.nanoTime() - start;
+        long retained = usedHeap() - heapBefore;
+
+        report(name, records, elapsed, retained);
+        System.out.println("    (checksum " + hash[0] + ")");
+    }
+
+    private static FixedWidthDecoder newDecoder() {
+        return new FixedWidthDecoder(ProcessE5Entity.E5_LAYOUT.getRecordLength());
+    }
+
+    private static void report(String name, long records, long elapsedNanos, long retainedBytes) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        System.out.printf("  %-28s %,12d rows  %8.2f s  %,12.0f rows/s  %,8d MB retained%n",
+            name, records, seconds, records / seconds, Math.max(0, retainedBytes) / (1024 * 1024));
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Reads every field the E5TMP insert binds so the decoder does the same work as a real load
+     */
+    private static class Checksum implements FixedWidthDecoder.RecordHandler {
+        long value;
+
+        @Override
+        public void onRecord(FixedWidthDecoder.Row row) {
+            long h = value;
+            h = h * 31 + row.text(0, 2).hashCode();
+            h = h * 31 + row.intValue(2, 10, 0);
+            h = h * 31 + row.text(10, 45).length();
+            h = h * 31 + row.text(45, 47).length();
+            for (int pos = 47; pos < 56; pos++) {
+                h = h * 31 + row.text(pos, pos + 1).hashCode();
+            }
+            h = h * 31 + row.date(56, 64).getTime();
+            h = h * 31 + row.date(64, 72).getTime();
+            h = h * 31 + row.text(72, 82).length();
+            h = h * 31 + row.text(82, 107).length();
+            h = h * 31 + row.intValue(107, 110, 0);
+            h = h * 31 + row.intValue(110, 117, 0);
+            h = h * 31 + row.intValue(117, 124, 0);
+            h = h * 31 + row.intValue(124, 132, 0);
+            h = h * 31 + row.text(132, 137).length();
+            h = h * 31 + row.text(141, 186).length();
+            h = h * 31 + row.text(186, 187).length();
+            h = h * 31 + row.text(187, 190).length();
+            h = h * 31 + row.intValue(190, 194, 0);
+            h = h * 31 + row.intValue(194, 198, 0);
+            h = h * 31 + row.intValue(198, 202, 0);
+            h = h * 31 + row.intValue(202, 206, 0);
+            value = h;
+        }
+
+        @Override
+        public void onShortLine(FixedWidthDecoder.Row row) {
+            // Synthetic file has no short lines
+        }
+    }
+
+    /**
+     * The E5TMP binder as it would be written by hand, for comparison with the compiled one
+     */
+    private static class HandWrittenBinder implements FixedWidthDecoder.RowBinder {
+
+        @Override
+        public void bind(FixedWidthDecoder.Row row, PreparedStatement ps) throws SQLException {
+            ps.setString(1, row.text(0, 2));               // OUTPUTCD
+            ps.setInt(2, row.intValue(2, 10, 0));          // EMPASGMTNUM
+            ps.setString(3, row.text(10, 45));             // EMPNAME
+            ps.setString(4, row.text(45, 47));             // EMPGRADECD
+            ps.setString(5, row.text(47, 48));             // EMPTYPECD
+            ps.setString(6, row.text(48, 49));             // TOUROFDUTY
+            ps.setString(7, row.text(49, 50));             // EMPWORKAREA
+            ps.setString(8, row.text(50, 51));             // TPSPODIND
+            ps.setString(9, row.text(51, 52));             // CSUPODIND
+            ps.setString(10, row.text(52, 53));            // PARAPODIND
+            ps.setString(11, row.text(53, 54));            // MNGRPODIND
+            ps.setString(12, row.text(54, 55));            // EMPPOSITTYPECD
+            ps.setString(13, row.text(55, 56));            // FLEXPLACEIND
+            ps.setDate(14, row.date(56, 64));              // EMPUPDATEDT
+            ps.setDate(15, row.date(64, 72));              // ENTEXTRACTDT
+            ps.setString(16, row.text(72, 82));            // EMPIDNUM
+            ps.setString(17, row.text(82, 107));           // EMPTITLE
+            ps.setInt(18, row.intValue(107, 110, 0));      // AREACD
+            ps.setInt(19, row.intValue(110, 117, 0));      // PHONE
+            ps.setInt(20, row.intValue(117, 124, 0));      // EXT
+            ps.setInt(21, row.intValue(124, 132, 0));      // PREVID
+            ps.setString(22, row.text(132, 137));          // SEID
+            ps.setString(23, row.text(141, 186));          // EMAIL
+            ps.setString(24, row.text(186, 187));          // ICSACC
+            ps.setString(25, row.text(187, 190));          // EMPPODCD
+            ps.setInt(26, row.intValue(190, 194, 0));      // GS9CNT
+            ps.setInt(27, row.intValue(194, 198, 0));      // GS11CNT
+            ps.setInt(28, row.intValue(198, 202, 0));      // GS12CNT
+            ps.setInt(29, row.intValue(202, 206, 0));      // GS13CNT
+        }
+    }
+
+    /**
+     * Write a synthetic E5.dat following the loadE5.ctl layout
+     */
+    static void generate(Path datFile, int lineCount) throws IOException {
+        String[] names = {"SMITH JOHN A", "GARCIA MARIA", "NGUYEN THANH", "JOHNSON PAT", "OBRIEN KATHLEEN M"};
+        String[] titles = {"REVENUE OFFICER", "GROUP MANAGER", "TAX COMPLIANCE OFFICER", "CLERK"};
+        StringBuilder line = new StringBuilder(ProcessE5Entity.E5_LAYOUT.getRecordLength());
+
+        try (BufferedWriter writer = Files.newBufferedWriter(datFile, StandardCharsets.ISO_8859_1)) {
+            for (int i = 0; i < lineCount; i++) {
+                line.setLength(0);
+                pad(line, "E5", 2);
+                pad(line, String.format("%08d", 21000000 + (i % 9000000)), 8);
+                pad(line, names[i % names.length], 35);
+                pad(line, String.format("%02d", 5 + (i % 10)), 2);
+                line.append("ABCD".charAt(i % 4));
+                line.append('F');
+                line.append((char) ('1' + (i % 5)));
+                line.append(i % 3 == 0 ? 'T' : '0');
+                line.append(i % 7 == 0 ? 'T' : '0');
+                line.append('0');
+                line.append(i % 11 == 0 ? 'T' : '0');
+                line.append("BVRS".charAt(i % 4));
+                line.append(i % 2 == 0 ? 'Y' : 'N');
+                pad(line, i % 50 == 0 ? "00000000" : String.format("2025%02d%02d", 1 + (i % 12), 1 + (i % 28)), 8);
+                pad(line, "20251015", 8);
+                pad(line, i % 100 == 0 ? "-" : String.format("%02d-%06d", i % 99, i % 999999), 10);
+                pad(line, titles[i % titles.length], 25);
+                pad(line, String.valueOf(200 + (i % 800)), 3);
+                pad(line, String.format("%07d", i % 10000000), 7);
+                pad(line, i % 4 == 0 ? "" : String.valueOf(i % 9999), 7);
+                pad(line, String.format("%08d", i % 100000000), 8);
+                pad(line, String.format("%05d", i % 100000), 5);
+                pad(line, "", 4);
+                pad(line, "employee" + i + "@agency.example", 45);
+                line.append(i % 2 == 0 ? 'Y' : 'N');
+                pad(line, String.format("%03d", i % 1000), 3);
+                pad(line, String.valueOf(i % 40), 4);
+                pad(line, String.valueOf(i % 30), 4);
+                pad(line, String.valueOf(i % 20), 4);
+                pad(line, String.valueOf(i % 10), 4);
+                writer.write(line.toString());
+                writer.newLine();
+            }
+        }
+    }
+
+    private static void pad(StringBuilder line, String value, int width) {
+        if (value.length() >= width) {
+            line.append(value, 0, width);
+        } else {
+            line.append(value);
+            for (int i = value.length(); i < width; i++) {
+                line.append(' ');
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * EntityDataSource - Shared connection pool for the daily entity processors
+ *
+ * One Hikari pool is created per daily load and handed to every processor by
+ * EntityProcessorFactory, so each load phase borrows an already logged-on
+ * session instead of calling DriverManager.getConnection.
+ *
+ * Each physical connection is set up once when the pool opens it:
+ * - NLS_DATE_FORMAT is set to the format the load SQL expects
+ * - the session client identifier is set so its statistics can be found in v$sesstat
+ * - Oracle implicit statement caching keeps parsed cursors across borrows
+ */
+public class EntityDataSource extends HikariDataSource {
+
+    // Client identifier set on every pooled session
+    static final String CLIENT_IDENTIFIER = "DAILYLOAD";
+
+    // Statements cached per physical connection
+    private static final int STATEMENT_CACHE_SIZE = 50;
+
+    // Runs once per physical connection
+    private static final String SESSION_INIT_SQL =
+        "BEGIN " +
+        "  DBMS_SESSION.SET_IDENTIFIER('" + CLIENT_IDENTIFIER + "'); " +
+        "  EXECUTE IMMEDIATE 'ALTER SESSION SET NLS_DATE_FORMAT = ''MM/DD/YYYY HH24:MI:SS'''; " +
+        "END;";
+
+    // Parse and cursor cache statistics for the pooled sessions
+    private static final String CURSOR_STATS_SQL =
+        "SELECT n.name, SUM(s.value) " +
+        "FROM v$sesstat s " +
+        "JOIN v$statname n ON n.statistic# = s.statistic# " +
+        "JOIN v$session v ON v.sid = s.sid " +
+        "WHERE v.client_identifier = '" + CLIENT_IDENTIFIER + "' " +
+        "AND n.name IN ('parse count (total)', 'parse count (hard)', 'session cursor cache hits') " +
+        "GROUP BY n.name";
+
+    private final AtomicLong borrows = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * Create the pool
+     *
+     * @param jdbcUrl JDBC URL for database connection
+     * @param dbUser Database username
+     * @param dbPassword Database password
+     * @param maxPoolSize Maximum number of physical connections
+     */
+    public EntityDataSource(String jdbcUrl, String dbUser, String dbPassword, int maxPoolSize) {
+        super(buildConfig(jdbcUrl, dbUser, dbPassword, maxPoolSize));
+    }
+
+    private static HikariConfig buildConfig(String jdbcUrl, String dbUser, String dbPassword, int maxPoolSize) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(jdbcUrl);
+        config.setUsername(dbUser);
+        config.setPassword(dbPassword);
+        config.setMaximumPoolSize(maxPoolSize);
+        config.setMinimumIdle(1);
+        config.setConnectionTimeout(TimeUnit.MINUTES.toMillis(5));  // Long loads may hold every session
+        config.setConnectionInitSql(SESSION_INIT_SQL);
+        config.addDataSourceProperty("oracle.jdbc.implicitStatementCacheSize", String.valueOf(STATEMENT_CACHE_SIZE));
+        config.setPoolName("dailyLoadPool");
+        return config;
+    }
+
+    /**
+     * Borrow a connection, recording how long the caller waited for it
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection conn = super.getConnection();
+        long waited = System.nanoTime() - start;
+
+        borrows.incrementAndGet();
+        totalWaitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        return conn;
+    }
+
+    /**
+     * Snapshot of the pool and statement cache statistics
+     */
+    public PoolMetrics getMetrics() {
+        PoolMetrics metrics = new PoolMetrics();
+        HikariPoolMXBean pool = getHikariPoolMXBean();
+        if (pool != null) {
+            metrics.activeConnections = pool.getActiveConnections();
+            metrics.idleConnections = pool.getIdleConnections();
+            metrics.threadsAwaiting = pool.getThreadsAwaitingConnection();
+        }
+        metrics.borrows = borrows.get();
+        metrics.totalWaitMillis = TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get());
+        metrics.maxWaitMillis = TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+        readCursorStatistics(metrics);
+        return metrics;
+    }
+
+    /**
+     * Read parse counts for the pooled sessions
+     * Needs SELECT on the v$ views; the ratio is left unknown without it.
+     */
+    private void readCursorStatistics(PoolMetrics metrics) {
+        Connection conn = null;
+        Statement stmt = null;
+        ResultSet rs = null;
+        try {
+            conn = super.getConnection();
+            stmt = conn.createStatement();
+            rs = stmt.executeQuery(CURSOR_STATS_SQL);
+            while (rs.next()) {
+                String name = rs.getString(1);
+                long value = rs.getLong(2);
+                if ("parse count (total)".equals(name)) {
+                    metrics.parseCount = value;
+                } else if ("parse count (hard)".equals(name)) {
+                    metrics.hardParseCount = value;
+                } else if ("session cursor cache hits".equals(name)) {
+                    metrics.cursorCacheHits = value;
+                }
+            }
+        } catch (SQLException e) {
+            metrics.parseCount = -1;
+        } finally {
+            if (rs != null) try { rs.close(); } catch (Exception e) { /* ignore */ }
+            if (stmt != null) try { stmt.close(); } catch (Exception e) { /* ignore */ }
+            if (conn != null) try { conn.close(); } catch (Exception e) { /* ignore */ }
+        }
+    }
+
+    /**
+     * Pool metrics for the daily load log
+     */
+    public static class PoolMetrics {
+        int activeConnections;
+        int idleConnections;
+        int threadsAwaiting;
+        long borrows;
+        long totalWaitMillis;
+        long maxWaitMillis;
+        long parseCount;       // -1 when the v$ views are not readable
+        long hardParseCount;
+        long cursorCacheHits;
+
+        public int getActiveConnections() {
+            return activeConnections;
+        }
+
+        public int getThreadsAwaiting() {
+            return threadsAwaiting;
+        }
+
+        public long getTotalWaitMillis() {
+            return totalWaitMillis;
+        }
+
+        /**
+         * Fraction of parse calls satisfied from the session cursor cache, or -1 if unknown
+         */
+        public double getCacheHitRatio() {
+            if (parseCount <= 0) {
+                return -1;
+            }
+            return (double) cursorCacheHits / parseCount;
+        }
+
+        @Override
+        public String toString() {
+            double ratio = getCacheHitRatio();
+            return "active=" + activeConnections +
+                   " idle=" + idleConnections +
+                   " waiting=" + threadsAwaiting +
+                   " borrows=" + borrows +
+                   " totalWaitMs=" + totalWaitMillis +
+                   " maxWaitMs=" + maxWaitMillis +
+                   " parses=" + (parseCount < 0 ? "n/a" : String.valueOf(parseCount)) +
+                   " hardParses=" + (parseCount < 0 ? "n/a" : String.valueOf(hardParseCount)) +
+                   " cacheHitRatio=" + (ratio < 0 ? "n/a" : String.format("%.2f", ratio));
+        }
+    }
+}
@@ -0,0 +1,223 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * EntityLayout - Declarative fixed-width layout of a daily extract
+ *
+ * Mirrors the loadXX.ctl SQL*Loader control files: the staging table and, for
+ * each column, its POSITION(start:end) and type. A layout can be declared in
+ * code or read from a control file with fromCtl, and is turned into a binder
+ * for the staging insert by LayoutCompiler.
+ */
+public class EntityLayout {
+
+    /**
+     * Supported SQL*Loader field types
+     */
+    public enum FieldType {
+        CHAR,       // Trimmed text, blank loads as NULL
+        INTEGER,    // INTEGER EXTERNAL, blank or non-numeric loads as 0
+        DATE        // DATE "YYYYMMDD", 00000000 loads as 01/01/1900
+    }
+
+    /**
+     * One column of the layout
+     */
+    public static final class Field {
+        private final String column;
+        private final int start;     // 1-based first position, as in POSITION(start:end)
+        private final int end;       // 1-based last position
+        private final FieldType type;
+
+        public Field(String column, int start, int end, FieldType type) {
+            if (start < 1 || end < start) {
+                throw new IllegalArgumentException("Invalid POSITION(" + start + ":" + end + ") for " + column);
+            }
+            this.column = column;
+            this.start = start;
+            this.end = end;
+            this.type = type;
+        }
+
+        public String getColumn() {
+            return column;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+
+        public FieldType getType() {
+            return type;
+        }
+    }
+
+    // INTO TABLE E5TMP
+    private static final Pattern TABLE_PATTERN = Pattern.compile("INTO\\s+TABLE\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+
+    // EMPNAME POSITION(11:45) CHAR / GS9CNT POSITION(191:194) INTEGER EXTERNAL / X FILLER POSITION(...),
+    // then a DATE mask and/or a SQL expression in double quotes
+    private static final Pattern FIELD_PATTERN = Pattern.compile(
+        "(\\w+)\\s+(FILLER\\s+)?POSITION\\s*\\(\\s*(\\d+)\\s*[:-]\\s*(\\d+)\\s*\\)" +
+        "\\s*(CHAR|INTEGER\\s+EXTERNAL|DECIMAL\\s+EXTERNAL|DATE)?(?:\\s*(?:\\(\\s*\\d+\\s*\\))?\\s*\"([^\"]*)\")?" +
+        "(?:\\s*\"([^\"]*)\")?",
+        Pattern.CASE_INSENSITIVE);
+
+    // SQL expressions that load what the decoder already loads for the type, written with
+    // no spaces and :C for the field; "NVL(:GS9CNT, 0)" on an INTEGER field is NVL(:C,0)
+    private static final Map<FieldType, Set<String>> EQUIVALENT_EXPRESSIONS = new EnumMap<>(FieldType.class);
+    static {
+        EQUIVALENT_EXPRESSIONS.put(FieldType.CHAR, new HashSet<>(Arrays.asList(
+            "TRIM(:C)", "LTRIM(RTRIM(:C))", "RTRIM(LTRIM(:C))")));
+        EQUIVALENT_EXPRESSIONS.put(FieldType.INTEGER, new HashSet<>(Arrays.asList(
+            "NVL(:C,0)", "NVL(TRIM(:C),0)", "NVL(:C,'0')", "NVL(TRIM(:C),'0')")));
+        EQUIVALENT_EXPRESSIONS.put(FieldType.DATE, new HashSet<>(Arrays.asList(
+            "DECODE(:C,'00000000','19000101',:C)",
+            "DECODE(:C,'00000000',TO_DATE('19000101','YYYYMMDD'),TO_DATE(:C,'YYYYMMDD'))")));
+    }
+
+    private final String table;
+    private final List<Field> fields;
+
+    public EntityLayout(String table, List<Field> fields) {
+        if (fields.isEmpty()) {
+            throw new IllegalArgumentException("Layout for " + table + " has no fields");
+        }
+        this.table = table;
+        this.fields = Collections.unmodifiableList(new ArrayList<>(fields));
+    }
+
+    /**
+     * Read a layout from a SQL*Loader control file
+     * Only positional fields are supported. FILLER fields are skipped. A SQL
+     * expression after a field is accepted only if it is one of the blank and
+     * 00000000 defaults the decoder already applies to that type (trimming,
+     * NVL to 0, DECODE of 00000000 to 19000101); any other would change what is
+     * loaded and is rejected.
+     *
+     * @throws IllegalArgumentException if the file uses a type, date mask or SQL expression the decoder cannot load
+     */
+    public static EntityLayout fromCtl(Path ctlFile) throws IOException {
+        String ctl = new String(Files.readAllBytes(ctlFile), StandardCharsets.ISO_8859_1);
+
+        Matcher tableMatcher = TABLE_PATTERN.matcher(ctl);
+        if (!tableMatcher.find()) {
+            throw new IllegalArgumentException("No INTO TABLE clause in " + ctlFile);
+        }
+        String table = tableMatcher.group(1).toUpperCase(Locale.ROOT);
+
+        List<Field> fields = new ArrayList<>();
+        Matcher fieldMatcher = FIELD_PATTERN.matcher(ctl);
+        while (fieldMatcher.find()) {
+            if (fieldMatcher.group(2) != null) {
+                continue;  // FILLER
+            }
+            String column = fieldMatcher.group(1).toUpperCase(Locale.ROOT);
+            int start = Integer.parseInt(fieldMatcher.group(3));
+            int end = Integer.parseInt(fieldMatcher.group(4));
+            // A DATE's first quoted string is its mask; on other types it is the SQL expression
+            boolean date = fieldMatcher.group(5) != null && "DATE".equalsIgnoreCase(fieldMatcher.group(5));
+            String mask = date ? fieldMatcher.group(6) : null;
+            String expression = date ? fieldMatcher.group(7) : fieldMatcher.group(6);
+            if (!date && fieldMatcher.group(7) != null) {
+                throw new IllegalArgumentException("Unsupported SQL expression \"" + fieldMatcher.group(7) + "\" for " + column);
+            }
+            FieldType type = toFieldType(column, fieldMatcher.group(5), mask);
+            checkExpression(column, type, expression);
+            fields.add(new Field(column, start, end, type));
+        }
+        return new EntityLayout(table, fields);
+    }
+
+    private static FieldType toFieldType(String column, String ctlType, String mask) {
+        String type = ctlType == null ? "CHAR" : ctlType.toUpperCase(Locale.ROOT).replaceAll("\\s+", " ");
+        switch (type) {
+            case "CHAR":
+                return FieldType.CHAR;
+            case "INTEGER EXTERNAL":
+                return FieldType.INTEGER;
+            case "DATE":
+                if (mask != null && !"YYYYMMDD".equalsIgnoreCase(mask.trim())) {
+                    throw new IllegalArgumentException("Unsupported date mask \"" + mask + "\" for " + column);
+                }
+                return FieldType.DATE;
+            default:
+                throw new IllegalArgumentException("Unsupported field type " + type + " for " + column);
+        }
+    }
+
+    private static void checkExpression(String column, FieldType type, String expression) {
+        if (expression == null) {
+            return;
+        }
+        String normalized = expression.replaceAll("\\s+", "").toUpperCase(Locale.ROOT)
+            .replaceAll(":" + Pattern.quote(column) + "\\b", ":C");
+        if (!EQUIVALENT_EXPRESSIONS.get(type).contains(normalized)) {
+            throw new IllegalArgumentException("Unsupported SQL expression \"" + expression + "\" for " + column);
+        }
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public List<Field> getFields() {
+        return fields;
+    }
+
+    /**
+     * Shortest line that holds every field
+     */
+    public int getRecordLength() {
+        int length = 0;
+        for (Field field : fields) {
+            length = Math.max(length, field.getEnd());
+        }
+        return length;
+    }
+
+    /**
+     * Comma separated column list for the staging insert
+     */
+    public String getColumnList() {
+        StringBuilder columns = new StringBuilder();
+        for (Field field : fields) {
+            if (columns.length() > 0) {
+                columns.append(", ");
+            }
+            columns.append(field.getColumn());
+        }
+        return columns.toString();
+    }
+
+    /**
+     * The field holding the extract date, by the *EXTRACTDT naming convention
+     *
+     * @return the field, or null if the layout has none
+     */
+    public Field getExtractDateField() {
+        for (Field field : fields) {
+            if (field.getType() == FieldType.DATE && field.getColumn().endsWith("EXTRACTDT")) {
+                return field;
+            }
+        }
+        return null;
+    }
+}
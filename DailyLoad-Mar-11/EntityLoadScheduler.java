@@ -0,0 +1,342 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EntityLoadScheduler - Runs entity processors concurrently in dependency order
+ *
+ * Each processor declares the entity codes it depends on through
+ * EntityProcessor.getDependencies(). A processor is started once all of its
+ * dependencies have loaded successfully, and no more than maxConcurrency
+ * processors (and therefore database sessions) run at the same time.
+ *
+ * Processors can also be held until their extract file has arrived (see
+ * ExtractArrivalWatcher), so each entity loads as soon as its own extract
+ * lands rather than after every file is present.
+ *
+ * The first failure stops any further processors from starting; processors
+ * already running are allowed to finish so their tables are not left mid-load.
+ * Listener callbacks are made on the calling thread, so callers can write to
+ * non thread-safe logs from them.
+ */
+public class EntityLoadScheduler {
+
+    /**
+     * Work done for each processor on a pool thread
+     */
+    public interface EntityTask {
+        /**
+         * @return true if the entity loaded successfully
+         */
+        boolean run(EntityProcessor processor) throws Exception;
+    }
+
+    /**
+     * Progress callbacks, made on the thread that called runAll
+     */
+    public interface Listener {
+        void onStart(String entity) throws IOException;
+
+        void onFinish(Result result) throws IOException;
+
+        /**
+         * Called when an awaited extract has arrived, before its processor can start
+         *
+         * @return false to fail the entity (for example, a bad extract date)
+         */
+        default boolean onArrival(String entity) throws IOException {
+            return true;
+        }
+
+        /**
+         * Called periodically while extracts are still outstanding
+         */
+        default void onWaiting(Collection<String> missing) throws IOException {
+        }
+    }
+
+    /**
+     * Final state of each entity
+     */
+    public enum Status {
+        SUCCEEDED,   // Task returned true
+        FAILED,      // Task returned false or threw
+        SKIPPED      // Not started because a dependency or an earlier entity failed
+    }
+
+    /**
+     * Outcome of one entity in the run
+     */
+    public static final class Result {
+        private final String entity;
+        private final Status status;
+        private final Throwable error;
+        private final long elapsedMillis;
+
+        Result(String entity, Status status, Throwable error, long elapsedMillis) {
+            this.entity = entity;
+            this.status = status;
+            this.error = error;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public String getEntity() {
+            return entity;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * @return the exception thrown by the task, or null
+         */
+        public Throwable getError() {
+            return error;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+
+    // Interval between onWaiting callbacks while extracts are outstanding
+    private static final long WAITING_REPORT_MINUTES = 5;
+
+    private final int maxConcurrency;
+
+    // Task completions and extract arrivals, consumed by the runAll thread
+    private final BlockingQueue<Object> events = new LinkedBlockingQueue<>();
+
+    /**
+     * @param maxConcurrency maximum number of processors running at once
+     */
+    public EntityLoadScheduler(int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1: " + maxConcurrency);
+        }
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * Report that an entity's extract is complete and ready to load
+     * Safe to call from any thread, typically an ExtractArrivalWatcher.
+     */
+    public void arrived(String entity) {
+        events.add(entity);
+    }
+
+    /**
+     * Run every processor once, respecting declared dependencies
+     *
+     * @see #runAll(List, Collection, EntityTask, Listener)
+     */
+    public Map<String, Result> runAll(List<EntityProcessor> processors, EntityTask task, Listener listener)
+            throws IOException, InterruptedException {
+        return runAll(processors, Collections.<String>emptyList(), task, listener);
+    }
+
+    /**
+     * Run every processor once, respecting declared dependencies and extract arrivals
+     * A processor in awaitedExtracts starts only after arrived() has been called
+     * for it and Listener.onArrival accepted it. Entities in awaitedExtracts
+     * without a processor are still waited for, so the run ends only when every
+     * extract has been handled. Dependencies on entities that are not in the
+     * list (for example an entity with no processor yet) are treated as already
+     * satisfied.
+     *
+     * @param processors processors to run, in the preferred start order
+     * @param awaitedExtracts entities whose extract must arrive before loading
+     * @param task work to do for each processor
+     * @param listener progress callbacks
+     * @return result for every processor, in the order given
+     * @throws IllegalArgumentException if the dependencies contain a cycle
+     */
+    public Map<String, Result> runAll(List<EntityProcessor> processors, Collection<String> awaitedExtracts,
+                                      EntityTask task, Listener listener)
+            throws IOException, InterruptedException {
+        Map<String, EntityProcessor> byEntity = new LinkedHashMap<>();
+        for (EntityProcessor processor : processors) {
+            byEntity.put(processor.getEntityCode(), processor);
+        }
+
+        // Count unmet dependencies and record who is waiting on whom
+        Map<String, Integer> pending = new HashMap<>();
+        Map<String, List<String>> dependents = new HashMap<>();
+        for (EntityProcessor processor : processors) {
+            int count = 0;
+            for (String dependency : processor.getDependencies()) {
+                if (byEntity.containsKey(dependency)) {
+                    count++;
+                    dependents.computeIfAbsent(dependency, k -> new ArrayList<>()).add(processor.getEntityCode());
+                }
+            }
+            pending.put(processor.getEntityCode(), count);
+        }
+        checkForCycles(byEntity.keySet(), pending, dependents);
+
+        // An awaited extract counts as one more unmet dependency
+        Set<String> missing = new LinkedHashSet<>(awaitedExtracts);
+        for (String entity : missing) {
+            pending.computeIfPresent(entity, (k, count) -> count + 1);
+        }
+
+        Map<String, Result> results = new HashMap<>();
+        Set<String> running = new HashSet<>();
+        Map<String, Long> startTimes = new HashMap<>();
+        boolean failed = false;
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(maxConcurrency, Math.max(1, processors.size())));
+        try {
+            while (results.size() < byEntity.size() || (!failed && !missing.isEmpty())) {
+                // Start everything that is ready, in the order given, up to the cap
+                if (!failed) {
+                    for (EntityProcessor processor : byEntity.values()) {
+                        String entity = processor.getEntityCode();
+                        if (running.size() >= maxConcurrency) {
+                            break;
+                        }
+                        if (pending.get(entity) == 0 && !results.containsKey(entity) && !startTimes.containsKey(entity)) {
+                            listener.onStart(entity);
+                            startTimes.put(entity, System.currentTimeMillis());
+                            running.add(entity);
+                            pool.execute(() -> events.add(runTask(entity, processor, task)));
+                        }
+                    }
+                }
+
+                if (running.isEmpty() && (failed || missing.isEmpty())) {
+                    // Nothing left that can start - skip whatever is still waiting
+                    for (String entity : byEntity.keySet()) {
+                        if (!results.containsKey(entity)) {
+                            Result skipped = new Result(entity, Status.SKIPPED, null, 0);
+                            results.put(entity, skipped);
+                            listener.onFinish(skipped);
+                        }
+                    }
+                    break;
+                }
+
+                Object event = events.poll(WAITING_REPORT_MINUTES, TimeUnit.MINUTES);
+                if (event == null) {
+                    if (!missing.isEmpty()) {
+                        listener.onWaiting(Collections.unmodifiableSet(missing));
+                    }
+                    continue;
+                }
+
+                if (event instanceof String) {
+                    // Extract arrival
+                    String entity = (String) event;
+                    if (failed || !missing.remove(entity)) {
+                        continue;
+                    }
+                    if (!listener.onArrival(entity)) {
+                        failed = true;
+                        if (byEntity.containsKey(entity)) {
+                            Result rejected = new Result(entity, Status.FAILED, null, 0);
+                            results.put(entity, rejected);
+                            listener.onFinish(rejected);
+                        }
+                    } else if (byEntity.containsKey(entity)) {
+                        pending.put(entity, pending.get(entity) - 1);
+                    }
+                    continue;
+                }
+
+                // Task completion
+                Completion done = (Completion) event;
+                running.remove(done.entity);
+                Result result = new Result(done.entity, done.status, done.error,
+                    System.currentTimeMillis() - startTimes.get(done.entity));
+                results.put(done.entity, result);
+                listener.onFinish(result);
+
+                if (done.status == Status.SUCCEEDED) {
+                    for (String dependent : dependents.getOrDefault(done.entity, new ArrayList<>())) {
+                        pending.put(dependent, pending.get(dependent) - 1);
+                    }
+                } else {
+                    failed = true;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Return results in the order the processors were given
+        Map<String, Result> ordered = new LinkedHashMap<>();
+        for (String entity : byEntity.keySet()) {
+            ordered.put(entity, results.get(entity));
+        }
+        return ordered;
+    }
+
+    /**
+     * Run one task on a pool thread and capture its outcome
+     */
+    private static Completion runTask(String entity, EntityProcessor processor, EntityTask task) {
+        try {
+            return new Completion(entity, task.run(processor) ? Status.SUCCEEDED : Status.FAILED, null);
+        } catch (Throwable t) {
+            return new Completion(entity, Status.FAILED, t);
+        }
+    }
+
+    /**
+     * Task outcome posted back to the runAll thread
+     */
+    private static final class Completion {
+        final String entity;
+        final Status status;
+        final Throwable error;
+
+        Completion(String entity, Status status, Throwable error) {
+            this.entity = entity;
+            this.status = status;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Reject dependency graphs that could never finish
+     */
+    private static void checkForCycles(Iterable<String> entities, Map<String, Integer> pending,
+                                       Map<String, List<String>> dependents) {
+        Map<String, Integer> remaining = new HashMap<>(pending);
+        List<String> ready = new ArrayList<>();
+        for (String entity : entities) {
+            if (remaining.get(entity) == 0) {
+                ready.add(entity);
+            }
+        }
+        int visited = 0;
+        while (!ready.isEmpty()) {
+            String entity = ready.remove(ready.size() - 1);
+            visited++;
+            for (String dependent : dependents.getOrDefault(entity, new ArrayList<>())) {
+                int left = remaining.get(dependent) - 1;
+                remaining.put(dependent, left);
+                if (left == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        if (visited < remaining.size()) {
+            throw new IllegalArgumentException("Entity dependencies contain a cycle: " + remaining);
+        }
+    }
+}
@@ -1,3 +1,6 @@
+import java.util.Collections;
+import java.util.List;
+
 /**
  * EntityProcessor - Interface for all entity processors
  * This defines the common methods that all entity processors must implement
@@ -25,4 +28,42 @@ public interface EntityProcessor {
      * @return the path to the output file
      */
     String getOutputFilePath();
+    
+    /**
+     * Get the entity codes that must finish loading before this entity starts
+     * Entities with no dependencies can load at the same time as any other.
+     * 
+     * @return the entity codes this entity depends on
+     */
+    default List<String> getDependencies() {
+        return Collections.emptyList();
+    }
+    
+    /**
+     * Get the bulk-load strategy and batch tuning for the staging insert
+     * 
+     * @return the settings from the dailyload.<entity>.* system properties
+     */
+    default BulkLoadSettings getBulkLoadSettings() {
+        return BulkLoadSettings.forEntity(getEntityCode());
+    }
+    
+    /**
+     * Receive the staged data file details before process() is called
+     * Processors can use the line count instead of counting the file again.
+     * 
+     * @param extract the staged .dat file with its hash and line count
+     */
+    default void setStagedExtract(ExtractStager.StagedExtract extract) {
+    }
+    
+    /**
+     * Receive the run journal for the staged extract before process() is called
+     * Processors skip the phases it shows complete and record each phase they finish,
+     * so a rerun resumes at the phase that failed.
+     * 
+     * @param journal the entity's journal for this extract
+     */
+    default void setRunJournal(RunJournal.EntityJournal journal) {
+    }
 }
\ No newline at end of file
@@ -1,3 +1,9 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import javax.sql.DataSource;
+
 /**
  * EntityProcessorFactory - Factory for creating entity processors
  * This class creates the appropriate entity processor for a given entity code
@@ -10,45 +16,45 @@ public class EntityProcessorFactory {
      * @param entity The entity code (E5, E3, E8, E7, EB)
      * @param loadDir Directory containing the data files
      * @param logDir Directory for log files
-     * @param dbUser Database username
-     * @param dbPassword Database password
-     * @param jdbcUrl JDBC URL for database connection
+     * @param dataSource Shared connection pool used by every processor
      * @return An entity processor for the given entity
      */
     public static EntityProcessor createProcessor(
             String entity,
             String loadDir,
             String logDir,
-            String dbUser,
-            String dbPassword,
-            String jdbcUrl) {
+            DataSource dataSource) {
         
         // Create the appropriate processor based on entity code
         switch (entity) {
             case "E5":
-                return new ProcessE5Entity(loadDir, logDir, dbUser, dbPassword, jdbcUrl);
+                return new ProcessE5Entity(loadDir, logDir, dataSource);
             case "E3":
-                // Return E3 processor when implemented
-                // return new ProcessE3Entity(loadDir, logDir, dbUser, dbPassword, jdbcUrl);
-                // For now, throw exception
-                throw new UnsupportedOperationException("E3 processor not yet implemented");
+                return new ProcessE3Entity(loadDir, logDir, dataSource);
             case "E8":
-                // Return E8 processor when implemented
-                // return new ProcessE8Entity(loadDir, logDir, dbUser, dbPassword, jdbcUrl);
-                // For now, throw exception
-                throw new UnsupportedOperationException("E8 processor not yet implemented");
             case "E7":
-                // Return E7 processor when implemented
-                // return new ProcessE7Entity(loadDir, logDir, dbUser, dbPassword, jdbcUrl);
-                // For now, throw exception
-                throw new UnsupportedOperationException("E7 processor not yet implemented");
             case "EB":
-                // Return EB processor when implemented
-                // return new ProcessEBEntity(loadDir, logDir, dbUser, dbPassword, jdbcUrl);
-                // For now, throw exception
-                throw new UnsupportedOperationException("EB processor not yet implemented");
+                // No hand-written processor - load from the SQL*Loader layout in loadXX.ctl
+                return new LayoutEntityProcessor(entity, loadLayout(entity, loadDir), loadDir, logDir, dataSource);
             default:
                 throw new IllegalArgumentException("Unknown entity code: " + entity);
         }
     }
+    
+    /**
+     * Read the layout of an entity from load<entity>.ctl in the load directory
+     * 
+     * @throws UnsupportedOperationException if there is no usable control file, so the entity is skipped
+     */
+    private static EntityLayout loadLayout(String entity, String loadDir) {
+        Path ctlFile = Paths.get(loadDir, "load" + entity + ".ctl");
+        if (!Files.exists(ctlFile)) {
+            throw new UnsupportedOperationException(entity + " processor needs " + ctlFile);
+        }
+        try {
+            return EntityLayout.fromCtl(ctlFile);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new UnsupportedOperationException("Cannot use " + ctlFile + ": " + e.getMessage(), e);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,170 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * ExtractArrivalWatcher - Detects when daily extract files have fully arrived
+ *
+ * Watches the FTP directory with a WatchService (inotify on Linux) and reports
+ * each extract exactly once, as soon as it is complete. A file is complete when
+ * either:
+ * - a marker file named after it with a ".done" suffix exists (for example E5.done)
+ *   and was written no earlier than the extract itself, or
+ * - its size and modification time have not changed for the quiet period
+ *
+ * A marker older than the extract is left over from an earlier run and is ignored,
+ * so a new extract being written over the old one is not reported early.
+ *
+ * The directory is also rescanned on every poll, so files that were already
+ * present at start-up, or that arrive on filesystems that do not deliver watch
+ * events (NFS), are still picked up within a second.
+ */
+public class ExtractArrivalWatcher implements Closeable {
+
+    // Marker suffix an FTP job can write once a transfer has finished
+    static final String MARKER_SUFFIX = ".done";
+
+    private static final long POLL_MILLIS = 1000;  // Upper bound on detection delay
+
+    private final Path directory;
+    private final Set<String> outstanding;
+    private final long quietMillis;
+    private final Consumer<String> onArrival;
+    private final Map<String, FileState> lastSeen = new HashMap<>();
+
+    private WatchService watchService;
+    private Thread thread;
+    private volatile boolean running;
+
+    /**
+     * @param directory directory the extracts are delivered to
+     * @param fileNames extract file names to wait for (the entity codes)
+     * @param quietMillis how long a file must stay unchanged to count as complete
+     * @param onArrival called once per file, from the watcher thread
+     */
+    public ExtractArrivalWatcher(Path directory, Collection<String> fileNames, long quietMillis,
+                                 Consumer<String> onArrival) {
+        this.directory = directory;
+        this.outstanding = new LinkedHashSet<>(fileNames);
+        this.quietMillis = quietMillis;
+        this.onArrival = onArrival;
+    }
+
+    /**
+     * Start watching on a background thread
+     */
+    public void start() throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        directory.register(watchService,
+            StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_MODIFY);
+
+        running = true;
+        thread = new Thread(this::watch, "extract-arrival-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop watching
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        if (watchService != null) {
+            watchService.close();
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void watch() {
+        try {
+            while (running && !outstanding.isEmpty()) {
+                // Events only shorten the wait; the scan below decides completeness
+                WatchKey key = watchService.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    key.pollEvents();
+                    key.reset();
+                }
+                scan(System.currentTimeMillis());
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed by the caller
+        }
+    }
+
+    /**
+     * Check every outstanding extract and report the ones that are complete
+     */
+    void scan(long now) {
+        for (String name : outstanding.toArray(new String[0])) {
+            if (isComplete(name, now)) {
+                outstanding.remove(name);
+                lastSeen.remove(name);
+                onArrival.accept(name);
+            }
+        }
+    }
+
+    private boolean isComplete(String name, long now) {
+        Path file = directory.resolve(name);
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            lastSeen.remove(name);
+            return false;  // Not there yet
+        }
+
+        // A marker counts only if it was written after the extract (not left from an earlier run)
+        try {
+            BasicFileAttributes marker = Files.readAttributes(directory.resolve(name + MARKER_SUFFIX),
+                BasicFileAttributes.class);
+            if (marker.lastModifiedTime().compareTo(attrs.lastModifiedTime()) >= 0) {
+                return true;
+            }
+        } catch (IOException e) {
+            // No marker
+        }
+
+        // Otherwise wait for the size and timestamp to settle
+        FileState current = new FileState(attrs.size(), attrs.lastModifiedTime().toMillis(), now);
+        FileState previous = lastSeen.get(name);
+        if (previous == null || previous.size != current.size || previous.modified != current.modified) {
+            lastSeen.put(name, current);
+            return false;
+        }
+        return current.size > 0 && now - previous.since >= quietMillis;
+    }
+
+    /**
+     * Size and timestamp of a file, and when they were first seen
+     */
+    private static final class FileState {
+        final long size;
+        final long modified;
+        final long since;
+
+        FileState(long size, long modified, long since) {
+            this.size = size;
+            this.modified = modified;
+            this.since = since;
+        }
+    }
+}
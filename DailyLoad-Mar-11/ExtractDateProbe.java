@@ -0,0 +1,181 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ExtractDateProbe - Reads the extract date of a fixed-width extract without scanning it
+ *
+ * Uses positional FileChannel reads to fetch only the date bytes of the first
+ * record, plus a handful of records sampled evenly through the file to check
+ * the whole extract carries the same date. The cost is a few small reads no
+ * matter how large the extract is, so a stale file can be rejected before it
+ * is staged or loaded.
+ */
+public class ExtractDateProbe {
+
+    // Records sampled after the first one
+    static final int DEFAULT_SAMPLES = 8;
+
+    // Bytes read around each sample point; must hold at least one full record
+    private static final int WINDOW_SIZE = 8 * 1024;
+
+    private final int offset;   // 0-based offset of the date within a record
+    private final int length;   // Date length in bytes
+
+    /**
+     * Outcome of probing one extract
+     */
+    public static final class Result {
+        private final String date;
+        private final int sampled;
+        private final List<String> mismatches;
+
+        Result(String date, int sampled, List<String> mismatches) {
+            this.date = date;
+            this.sampled = sampled;
+            this.mismatches = mismatches;
+        }
+
+        /**
+         * Extract date of the first record
+         */
+        public String getDate() {
+            return date;
+        }
+
+        /**
+         * Number of records checked after the first one
+         */
+        public int getSampled() {
+            return sampled;
+        }
+
+        /**
+         * Sampled records whose date differs from the first, as "byte offset: date"
+         */
+        public List<String> getMismatches() {
+            return Collections.unmodifiableList(mismatches);
+        }
+
+        public boolean isConsistent() {
+            return mismatches.isEmpty();
+        }
+    }
+
+    /**
+     * @param startPos 1-based first column of the date, as in the .ctl files
+     * @param endPos 1-based last column of the date
+     */
+    public ExtractDateProbe(int startPos, int endPos) {
+        if (startPos < 1 || endPos < startPos) {
+            throw new IllegalArgumentException("Invalid date columns: " + startPos + "-" + endPos);
+        }
+        this.offset = startPos - 1;
+        this.length = endPos - startPos + 1;
+    }
+
+    /**
+     * Create a probe from a DailyLoad datePositions entry such as "65-72"
+     */
+    public static ExtractDateProbe forRange(String range) {
+        String[] bounds = range.split("-");
+        return new ExtractDateProbe(Integer.parseInt(bounds[0].trim()), Integer.parseInt(bounds[1].trim()));
+    }
+
+    /**
+     * Probe the first record and DEFAULT_SAMPLES sampled records
+     */
+    public Result probe(Path file) throws IOException {
+        return probe(file, DEFAULT_SAMPLES);
+    }
+
+    /**
+     * Probe the first record and the given number of sampled records
+     *
+     * @throws IOException if the file is empty or its first record is too short to hold a date
+     */
+    public Result probe(Path file, int samples) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer window = ByteBuffer.allocate(WINDOW_SIZE);
+
+            String date = readDate(channel, 0, window);
+            if (date == null) {
+                throw new IOException("First record of " + file + " is too short to hold a date at columns " +
+                                      (offset + 1) + "-" + (offset + length));
+            }
+
+            List<String> mismatches = new ArrayList<>();
+            int sampled = 0;
+            for (int i = 1; i <= samples; i++) {
+                long point = size * i / (samples + 1);
+                long recordStart = nextRecordStart(channel, point, window);
+                if (recordStart < 0 || recordStart >= size) {
+                    continue;
+                }
+                String sampleDate = readDate(channel, recordStart, window);
+                if (sampleDate == null) {
+                    continue;  // Short or partial record
+                }
+                sampled++;
+                if (!sampleDate.equals(date)) {
+                    mismatches.add(recordStart + ": " + sampleDate);
+                }
+            }
+            return new Result(date, sampled, mismatches);
+        }
+    }
+
+    /**
+     * Read the date bytes of the record starting at recordStart
+     *
+     * @return the date, or null if the record ends before the date does
+     */
+    private String readDate(FileChannel channel, long recordStart, ByteBuffer window) throws IOException {
+        window.clear();
+        window.limit(offset + length);
+        fill(channel, recordStart, window);
+        if (window.position() < offset + length) {
+            return null;
+        }
+        byte[] bytes = window.array();
+        for (int i = 0; i < offset + length; i++) {
+            if (bytes[i] == '\n' || bytes[i] == '\r') {
+                return null;
+            }
+        }
+        return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Find the start of the first record after position
+     *
+     * @return the file offset, or -1 if no line break was found within the window
+     */
+    private long nextRecordStart(FileChannel channel, long position, ByteBuffer window) throws IOException {
+        window.clear();
+        fill(channel, position, window);
+        byte[] bytes = window.array();
+        for (int i = 0; i < window.position(); i++) {
+            if (bytes[i] == '\n') {
+                return position + i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static void fill(FileChannel channel, long position, ByteBuffer window) throws IOException {
+        while (window.hasRemaining()) {
+            int read = channel.read(window, position + window.position());
+            if (read < 0) {
+                break;
+            }
+        }
+    }
+}
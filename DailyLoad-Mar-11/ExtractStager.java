@@ -0,0 +1,200 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * ExtractStager - Stages an FTP extract into the LOAD directory in one pass
+ *
+ * The extract is read once through a direct buffer; each block is fed to a
+ * SHA-256 digest, scanned for line breaks and written to a temporary file that
+ * is atomically renamed over the .dat file. The hash, line count and source
+ * size/time are recorded in a manifest next to the .dat (E5.dat.sha256), so:
+ * - a rerun whose FTP file is unchanged reuses the staged file without reading it
+ * - a re-delivered file with identical content is not rewritten
+ * - processors get the line count without counting the file again
+ */
+public class ExtractStager {
+
+    // Manifest suffix appended to the staged file name
+    static final String MANIFEST_SUFFIX = ".sha256";
+
+    private static final int BLOCK_SIZE = 1024 * 1024;  // Bytes per channel read
+
+    /**
+     * Result of staging one extract
+     */
+    public static final class StagedExtract {
+        private final Path path;
+        private final String sha256;
+        private final long lineCount;
+        private final long size;
+        private final boolean reused;
+
+        StagedExtract(Path path, String sha256, long lineCount, long size, boolean reused) {
+            this.path = path;
+            this.sha256 = sha256;
+            this.lineCount = lineCount;
+            this.size = size;
+            this.reused = reused;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public String getSha256() {
+            return sha256;
+        }
+
+        /**
+         * Number of lines, counting a final line without a trailing newline
+         */
+        public long getLineCount() {
+            return lineCount;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * @return true if the staged file from an earlier run was kept as is
+         */
+        public boolean isReused() {
+            return reused;
+        }
+    }
+
+    /**
+     * Stage source as target, reusing an earlier staging when the content is unchanged
+     *
+     * @param source extract in the FTP directory
+     * @param target .dat file in the LOAD directory
+     * @return the staged extract
+     */
+    public StagedExtract stage(Path source, Path target) throws IOException {
+        BasicFileAttributes sourceAttrs = Files.readAttributes(source, BasicFileAttributes.class);
+        long sourceSize = sourceAttrs.size();
+        long sourceModified = sourceAttrs.lastModifiedTime().toMillis();
+        Path manifest = target.resolveSibling(target.getFileName() + MANIFEST_SUFFIX);
+        Manifest previous = Files.exists(target) ? Manifest.read(manifest) : null;
+
+        // Same file as last time - nothing to read or copy
+        if (previous != null && previous.sourceSize == sourceSize && previous.sourceModified == sourceModified
+                && Files.size(target) == sourceSize) {
+            return new StagedExtract(target, previous.sha256, previous.lineCount, sourceSize, true);
+        }
+
+        MessageDigest digest = newDigest();
+        long lineCount = 0;
+        long size = 0;
+        byte last = '\n';
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer block = ByteBuffer.allocateDirect(BLOCK_SIZE);
+            byte[] scan = new byte[BLOCK_SIZE];
+            while (in.read(block) >= 0) {
+                block.flip();
+                int n = block.remaining();
+                if (n == 0) {
+                    block.clear();
+                    continue;
+                }
+                block.get(scan, 0, n);
+                digest.update(scan, 0, n);
+                for (int i = 0; i < n; i++) {
+                    if (scan[i] == '\n') {
+                        lineCount++;
+                    }
+                }
+                last = scan[n - 1];
+                size += n;
+
+                block.flip();
+                while (block.hasRemaining()) {
+                    out.write(block);
+                }
+                block.clear();
+            }
+            out.force(false);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        if (last != '\n') {
+            lineCount++;  // Final line without a newline
+        }
+        String sha256 = toHex(digest.digest());
+
+        boolean reused = previous != null && previous.sha256.equals(sha256) && Files.size(target) == size;
+        if (reused) {
+            // Re-delivered with the same content - keep the staged file
+            Files.delete(temp);
+        } else {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        new Manifest(sha256, lineCount, sourceSize, sourceModified).write(manifest);
+        return new StagedExtract(target, sha256, lineCount, size, reused);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Manifest line: sha256 lineCount sourceSize sourceModifiedMillis
+     */
+    private static final class Manifest {
+        final String sha256;
+        final long lineCount;
+        final long sourceSize;
+        final long sourceModified;
+
+        Manifest(String sha256, long lineCount, long sourceSize, long sourceModified) {
+            this.sha256 = sha256;
+            this.lineCount = lineCount;
+            this.sourceSize = sourceSize;
+            this.sourceModified = sourceModified;
+        }
+
+        static Manifest read(Path file) {
+            try {
+                List<String> lines = Files.readAllLines(file, StandardCharsets.US_ASCII);
+                String[] fields = lines.get(0).trim().split(" ");
+                return new Manifest(fields[0], Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+                                    Long.parseLong(fields[3]));
+            } catch (IOException | RuntimeException e) {
+                return null;  // Missing or unreadable - stage from scratch
+            }
+        }
+
+        void write(Path file) throws IOException {
+            String line = sha256 + " " + lineCount + " " + sourceSize + " " + sourceModified + "\n";
+            Files.write(file, line.getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+}
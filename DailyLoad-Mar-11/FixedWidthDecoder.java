@@ -0,0 +1,501 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * FixedWidthDecoder - Streaming decoder for fixed-width daily extracts
+ *
+ * Reads a .dat file through a FileChannel in large direct-buffer blocks and
+ * exposes each line as a reusable Row view over the raw bytes. Values are
+ * decoded straight from the bytes into the staging insert binds by a
+ * RowBinder (normally compiled from an EntityLayout by LayoutCompiler), so no
+ * more than one JDBC batch is ever held in memory.
+ *
+ * Lines that cannot be loaded - too short, or refused by the database - are
+ * passed to a RejectHandler and the rest of the load carries on.
+ */
+public class FixedWidthDecoder {
+
+    private static final int BLOCK_SIZE = 4 * 1024 * 1024;  // Bytes per channel read
+
+    private final int blockSize;
+    private final int recordLength;
+
+    /**
+     * Callback for each decoded line of the extract
+     */
+    public interface RecordHandler {
+
+        /**
+         * Called for every line that is long enough to hold a record.
+         * The row is reused for the next line, so it must not be retained.
+         */
+        void onRecord(Row row) throws IOException, SQLException;
+
+        /**
+         * Called for every line shorter than the record length
+         * Only length(), lineNumber() and line() may be used on the row.
+         */
+        void onShortLine(Row row) throws IOException, SQLException;
+    }
+
+    /**
+     * Binds one decoded row into the staging insert
+     */
+    public interface RowBinder {
+        void bind(Row row, PreparedStatement ps) throws SQLException;
+    }
+
+    /**
+     * Create a decoder with the default 4MB read block
+     *
+     * @param recordLength minimum line length of a loadable record
+     */
+    public FixedWidthDecoder(int recordLength) {
+        this(recordLength, BLOCK_SIZE);
+    }
+
+    /**
+     * Create a decoder with a specific read block size
+     *
+     * @param recordLength minimum line length of a loadable record
+     * @param blockSize number of bytes per channel read; must exceed the longest line
+     */
+    public FixedWidthDecoder(int recordLength, int blockSize) {
+        this.recordLength = recordLength;
+        this.blockSize = blockSize;
+    }
+
+    public int getRecordLength() {
+        return recordLength;
+    }
+
+    /**
+     * Stream the data file through the handler one line at a time
+     *
+     * @param datFile the .dat file
+     * @param handler receives each record or short line
+     * @return number of records passed to onRecord
+     */
+    public long decode(Path datFile, RecordHandler handler) throws IOException, SQLException {
+        ByteBuffer block = ByteBuffer.allocateDirect(blockSize);
+        byte[] window = new byte[blockSize];
+        Row row = new Row();
+        long records = 0;
+        long lineNumber = 0;
+        int filled = 0;
+
+        try (FileChannel channel = FileChannel.open(datFile, StandardOpenOption.READ)) {
+            boolean eof = false;
+            while (!eof) {
+                block.clear();
+                block.limit(window.length - filled);
+                int read = channel.read(block);
+                if (read < 0) {
+                    eof = true;
+                } else {
+                    block.flip();
+                    block.get(window, filled, read);
+                    filled += read;
+                }
+
+                // Hand every complete line in the window to the handler
+                int lineStart = 0;
+                for (int i = 0; i < filled; i++) {
+                    if (window[i] == '\n') {
+                        lineNumber++;
+                        if (emit(window, lineStart, i, lineNumber, recordLength, row, handler)) {
+                            records++;
+                        }
+                        lineStart = i + 1;
+                    }
+                }
+
+                // Last line without a trailing newline
+                if (eof && lineStart < filled) {
+                    lineNumber++;
+                    if (emit(window, lineStart, filled, lineNumber, recordLength, row, handler)) {
+                        records++;
+                    }
+                    lineStart = filled;
+                }
+
+                // Carry the partial line over to the front of the window
+                int remaining = filled - lineStart;
+                if (remaining == window.length) {
+                    throw new IOException("Line " + (lineNumber + 1) + " exceeds read block of " + window.length + " bytes");
+                }
+                System.arraycopy(window, lineStart, window, 0, remaining);
+                filled = remaining;
+            }
+        }
+
+        return records;
+    }
+
+    /**
+     * Stream the data file straight into the staging insert
+     * Executes every batchSize rows, so only one batch is pending at a time, and
+     * commits once at least commitInterval rows have been executed since the last commit.
+     * A commitInterval no larger than batchSize (as for DIRECT_PATH) commits after every
+     * executeBatch, the smaller retries of a failed batch included, so no direct-path
+     * insert is ever followed by another in the same transaction (ORA-12838).
+     * Short lines and rows the database refuses are passed to rejects; the other
+     * rows of a failed batch are executed again without them.
+     *
+     * @param datFile the .dat file
+     * @param conn connection with auto-commit disabled
+     * @param ps prepared staging insert
+     * @param binder binds each row into ps
+     * @param batchSize rows per executeBatch
+     * @param commitInterval rows per commit
+     * @param rejects receives every line that was not loaded
+     * @return number of rows inserted
+     */
+    public long load(Path datFile, Connection conn, PreparedStatement ps, RowBinder binder,
+                     int batchSize, int commitInterval,
+                     RejectHandler rejects) throws IOException, SQLException {
+        BatchLoader loader = new BatchLoader(conn, ps, binder, batchSize, commitInterval, rejects, recordLength);
+        decode(datFile, loader);
+        loader.flush();
+        return loader.inserted;
+    }
+
+    /**
+     * Callback for lines that were not loaded
+     */
+    public interface RejectHandler {
+
+        /**
+         * @param lineNumber 1-based line number in the data file
+         * @param record the line as read, without its line ending
+         * @param reason why the line was not loaded
+         */
+        void reject(long lineNumber, String record, String reason) throws IOException;
+    }
+
+    private static boolean emit(byte[] window, int start, int end, long lineNumber, int recordLength,
+                                Row row, RecordHandler handler) throws IOException, SQLException {
+        // Drop the carriage return of CRLF line endings
+        if (end > start && window[end - 1] == '\r') {
+            end--;
+        }
+        int length = end - start;
+        row.reset(window, start, length, lineNumber);
+        if (length < recordLength) {
+            handler.onShortLine(row);
+            return false;
+        }
+        handler.onRecord(row);
+        return true;
+    }
+
+    /**
+     * Binds each record into the insert, executing per batch and committing per interval
+     * A copy of each pending row is kept so a batch can be re-bound without its failed rows.
+     */
+    private static class BatchLoader implements RecordHandler {
+        private final Connection conn;
+        private final PreparedStatement ps;
+        private final RowBinder binder;
+        private final int batchSize;
+        private final int commitInterval;
+        private final boolean commitEveryBatch;
+        private final RejectHandler rejects;
+        private final int recordLength;
+
+        // Pending rows: bytes packed end to end, with each row's offset, length and line number
+        private byte[] batchBytes;
+        private final int[] rowOffsets;
+        private final int[] rowLengths;
+        private final long[] lineNumbers;
+        private final Row batchRow = new Row();
+        private int batchEnd;
+        private int pending;
+
+        private int uncommitted;
+        long inserted;
+
+        BatchLoader(Connection conn, PreparedStatement ps, RowBinder binder, int batchSize, int commitInterval,
+                    RejectHandler rejects, int recordLength) {
+            this.conn = conn;
+            this.ps = ps;
+            this.binder = binder;
+            this.batchSize = batchSize;
+            this.commitInterval = commitInterval;
+            this.commitEveryBatch = commitInterval <= batchSize;
+            this.rejects = rejects;
+            this.recordLength = recordLength;
+            this.batchBytes = new byte[batchSize * Math.max(recordLength, 1)];
+            this.rowOffsets = new int[batchSize];
+            this.rowLengths = new int[batchSize];
+            this.lineNumbers = new long[batchSize];
+        }
+
+        @Override
+        public void onRecord(Row row) throws SQLException, IOException {
+            binder.bind(row, ps);
+            ps.addBatch();
+            keep(row);
+            if (pending >= batchSize) {
+                execute();
+            }
+        }
+
+        @Override
+        public void onShortLine(Row row) throws IOException {
+            rejects.reject(row.lineNumber(), row.line(),
+                "Record length " + row.length() + " is shorter than the record length " + recordLength);
+        }
+
+        private void keep(Row row) {
+            if (batchEnd + row.length > batchBytes.length) {
+                batchBytes = Arrays.copyOf(batchBytes, Math.max(batchBytes.length * 2, batchEnd + row.length));
+            }
+            System.arraycopy(row.bytes, row.offset, batchBytes, batchEnd, row.length);
+            rowOffsets[pending] = batchEnd;
+            rowLengths[pending] = row.length;
+            lineNumbers[pending] = row.lineNumber;
+            batchEnd += row.length;
+            pending++;
+        }
+
+        /**
+         * Execute the pending batch, rejecting the rows the database refuses
+         * Drivers either stop at the first failed row (Oracle) or run the whole
+         * batch and mark failed rows EXECUTE_FAILED; both are handled.
+         */
+        private void execute() throws SQLException, IOException {
+            int from = 0;
+            while (from < pending) {
+                try {
+                    ps.executeBatch();
+                    uncommitted += pending - from;
+                    inserted += pending - from;
+                    break;
+                } catch (BatchUpdateException e) {
+                    int[] counts = e.getUpdateCounts();
+                    int processed = counts == null ? 0 : counts.length;
+                    int remaining = pending - from;
+                    for (int i = 0; i < Math.min(processed, remaining); i++) {
+                        if (counts[i] == Statement.EXECUTE_FAILED) {
+                            rejectPending(from + i, e);
+                        } else {
+                            uncommitted++;
+                            inserted++;
+                        }
+                    }
+                    if (processed >= remaining) {
+                        break;  // Driver ran the whole batch
+                    }
+
+                    // Stopped at the failed row: reject it and re-bind the rest
+                    rejectPending(from + processed, e);
+                    from += processed + 1;
+                    ps.clearBatch();
+
+                    // Commit the rows that made it, so a direct-path retry starts a new transaction
+                    if (uncommitted > 0) {
+                        conn.commit();
+                        uncommitted = 0;
+                    }
+                    for (int i = from; i < pending; i++) {
+                        batchRow.reset(batchBytes, rowOffsets[i], rowLengths[i], lineNumbers[i]);
+                        binder.bind(batchRow, ps);
+                        ps.addBatch();
+                    }
+                }
+            }
+            pending = 0;
+            batchEnd = 0;
+            if (uncommitted > 0 && (commitEveryBatch || uncommitted >= commitInterval)) {
+                conn.commit();
+                uncommitted = 0;
+            }
+        }
+
+        private void rejectPending(int index, BatchUpdateException e) throws IOException {
+            batchRow.reset(batchBytes, rowOffsets[index], rowLengths[index], lineNumbers[index]);
+            rejects.reject(lineNumbers[index], batchRow.line(), e.getMessage() == null ? e.toString() : e.getMessage());
+        }
+
+        void flush() throws SQLException, IOException {
+            if (pending > 0) {
+                execute();
+            }
+            if (uncommitted > 0) {
+                conn.commit();
+                uncommitted = 0;
+            }
+        }
+    }
+
+    /**
+     * Reusable view over one extract line
+     * Offsets are 0-based with an exclusive end, matching String.substring, so
+     * a loadXX.ctl POSITION(s:e) is text(s - 1, e).
+     */
+    public static final class Row {
+
+        private static final String[] SINGLE_CHARS = new String[256];
+        static {
+            for (int i = 0; i < SINGLE_CHARS.length; i++) {
+                SINGLE_CHARS[i] = String.valueOf((char) i);
+            }
+        }
+
+        private byte[] bytes;
+        private int offset;
+        private int length;
+        private long lineNumber;
+
+        void reset(byte[] bytes, int offset, int length, long lineNumber) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+            this.lineNumber = lineNumber;
+        }
+
+        public int length() {
+            return length;
+        }
+
+        public long lineNumber() {
+            return lineNumber;
+        }
+
+        /**
+         * The whole line as read, for reject files
+         */
+        public String line() {
+            return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+        }
+
+        /**
+         * Trimmed text of a field; single characters come from a shared table
+         */
+        public String text(int start, int end) {
+            int s = offset + start;
+            int e = offset + end;
+            while (s < e && (bytes[s] & 0xFF) <= ' ') s++;
+            while (e > s && (bytes[e - 1] & 0xFF) <= ' ') e--;
+            if (s == e) {
+                return "";
+            }
+            if (e - s == 1) {
+                return SINGLE_CHARS[bytes[s] & 0xFF];
+            }
+            return new String(bytes, s, e - s, StandardCharsets.ISO_8859_1);
+        }
+
+        /**
+         * Integer value of a field, or the default when blank or not numeric
+         */
+        public int intValue(int start, int end, int defaultValue) {
+            int s = offset + start;
+            int e = offset + end;
+            while (s < e && (bytes[s] & 0xFF) <= ' ') s++;
+            while (e > s && (bytes[e - 1] & 0xFF) <= ' ') e--;
+            if (s == e) {
+                return defaultValue;
+            }
+            boolean negative = false;
+            if (bytes[s] == '-' || bytes[s] == '+') {
+                negative = bytes[s] == '-';
+                if (++s == e) {
+                    return defaultValue;
+                }
+            }
+            int value = 0;
+            for (int i = s; i < e; i++) {
+                int digit = bytes[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    return defaultValue;
+                }
+                value = value * 10 + digit;
+            }
+            return negative ? -value : value;
+        }
+
+        /**
+         * yyyyMMdd date of a field; "00000000" becomes 01/01/1900 as in the .ctl files
+         */
+        public java.sql.Date date(int start, int end) {
+            return DateCache.decode(bytes, offset + start, offset + end);
+        }
+    }
+
+    /**
+     * Decodes yyyyMMdd bytes into shared java.sql.Date instances
+     * Dates are cached by calendar slot, so repeated values (the extract date in
+     * particular) cost no allocation after the first row.
+     */
+    static final class DateCache {
+
+        private static final int FIRST_YEAR = 1900;
+        private static final int YEARS = 300;
+        private static final java.sql.Date[] CACHE = new java.sql.Date[YEARS * 12 * 31];
+
+        // Same fallbacks as the original parser
+        static final java.sql.Date DEFAULT_DATE = java.sql.Date.valueOf(LocalDate.of(1900, 1, 1));
+        static final java.sql.Date INVALID_DATE = new java.sql.Date(0);
+
+        private DateCache() {
+        }
+
+        static java.sql.Date decode(byte[] bytes, int start, int end) {
+            while (start < end && (bytes[start] & 0xFF) <= ' ') start++;
+            while (end > start && (bytes[end - 1] & 0xFF) <= ' ') end--;
+            if (end - start != 8) {
+                return INVALID_DATE;
+            }
+            int value = 0;
+            for (int i = start; i < end; i++) {
+                int digit = bytes[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    return INVALID_DATE;
+                }
+                value = value * 10 + digit;
+            }
+            if (value == 0) {
+                return DEFAULT_DATE;
+            }
+
+            int year = value / 10000;
+            int month = (value / 100) % 100;
+            int day = value % 100;
+
+            if (year < FIRST_YEAR || year >= FIRST_YEAR + YEARS || month < 1 || month > 12 || day < 1 || day > 31) {
+                return toDate(year, month, day);
+            }
+            int slot = ((year - FIRST_YEAR) * 12 + (month - 1)) * 31 + (day - 1);
+            java.sql.Date cached = CACHE[slot];
+            if (cached == null) {
+                cached = toDate(year, month, day);
+                CACHE[slot] = cached;
+            }
+            return cached;
+        }
+
+        /**
+         * Lenient conversion matching SimpleDateFormat: out-of-range months
+         * and days roll over into the neighbouring month or year.
+         */
+        private static java.sql.Date toDate(int year, int month, int day) {
+            if (year == 0) {
+                return INVALID_DATE;
+            }
+            return java.sql.Date.valueOf(LocalDate.of(year, 1, 1).plusMonths(month - 1L).plusDays(day - 1L));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * FixedWidthDecoderTest - Batch loading against a fake direct-path staging insert
+ *
+ * The fake statement behaves as Oracle does with APPEND_VALUES: executeBatch stops
+ * at the first bad row, reporting the rows before it, and a second direct-path
+ * executeBatch in a transaction that has not been committed fails with ORA-12838.
+ */
+class FixedWidthDecoderTest {
+
+    private static final int RECORD_LENGTH = 4;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void rejectedRowDoesNotFailTheNextFullBatch() throws Exception {
+        Path datFile = dir.resolve("E5.dat");
+        Files.write(datFile, Arrays.asList("AAAA", "BAD!", "CCCC", "DDDD", "EEEE", "FFFF"), StandardCharsets.US_ASCII);
+
+        FakeDirectPathTable table = new FakeDirectPathTable();
+        List<Long> rejectedLines = new ArrayList<>();
+        long inserted = new FixedWidthDecoder(RECORD_LENGTH).load(datFile, table.connection(), table.statement(),
+            (row, ps) -> ps.setString(1, row.line()), 3, 3,
+            (lineNumber, record, reason) -> rejectedLines.add(lineNumber));
+
+        assertEquals(Arrays.asList(2L), rejectedLines);
+        assertEquals(5, inserted);
+        assertEquals(Arrays.asList("AAAA", "CCCC", "DDDD", "EEEE", "FFFF"), table.committed);
+    }
+
+    /**
+     * Staging table behind a fake Connection and PreparedStatement
+     */
+    private static final class FakeDirectPathTable {
+        final List<String> committed = new ArrayList<>();
+        final List<String> uncommitted = new ArrayList<>();
+        final List<String> batch = new ArrayList<>();
+        boolean directPathInTransaction;
+        String bound;
+
+        Connection connection() {
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("commit")) {
+                        committed.addAll(uncommitted);
+                        uncommitted.clear();
+                        directPathInTransaction = false;
+                    }
+                    return null;
+                });
+        }
+
+        PreparedStatement statement() {
+            return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {PreparedStatement.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "setString":
+                            bound = (String) args[1];
+                            return null;
+                        case "addBatch":
+                            batch.add(bound);
+                            return null;
+                        case "clearBatch":
+                            batch.clear();
+                            return null;
+                        case "executeBatch":
+                            return executeBatch();
+                        default:
+                            return null;
+                    }
+                });
+        }
+
+        private int[] executeBatch() throws SQLException {
+            try {
+                if (directPathInTransaction) {
+                    throw new BatchUpdateException("ORA-12838: cannot read/modify an object after modifying it in parallel",
+                        new int[0]);
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    if (batch.get(i).startsWith("BAD")) {
+                        uncommitted.addAll(batch.subList(0, i));
+                        directPathInTransaction |= i > 0;
+                        throw new BatchUpdateException("ORA-01722: invalid number", new int[i]);
+                    }
+                }
+                uncommitted.addAll(batch);
+                directPathInTransaction = true;
+                int[] counts = new int[batch.size()];
+                Arrays.fill(counts, 1);
+                return counts;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * LayoutCompiler - Turns an EntityLayout into a RowBinder for the staging insert
+ *
+ * Each field is compiled once, up front, into a method handle that decodes the
+ * field from the Row at its fixed offsets and binds it at its fixed parameter
+ * index. The field handles are chained into a single (Row, PreparedStatement)
+ * handle, so binding a row walks no layout metadata, does no type dispatch and
+ * allocates nothing beyond the values themselves - the same work as a binder
+ * written by hand for the layout.
+ */
+public class LayoutCompiler {
+
+    private static final MethodType BIND_TYPE =
+        MethodType.methodType(void.class, FixedWidthDecoder.Row.class, PreparedStatement.class);
+
+    private static final MethodHandle TEXT;
+    private static final MethodHandle INT_VALUE;
+    private static final MethodHandle DATE;
+    private static final MethodHandle SET_STRING;
+    private static final MethodHandle SET_INT;
+    private static final MethodHandle SET_DATE;
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> row = FixedWidthDecoder.Row.class;
+            TEXT = lookup.findVirtual(row, "text",
+                MethodType.methodType(String.class, int.class, int.class));
+            INT_VALUE = lookup.findVirtual(row, "intValue",
+                MethodType.methodType(int.class, int.class, int.class, int.class));
+            DATE = lookup.findVirtual(row, "date",
+                MethodType.methodType(java.sql.Date.class, int.class, int.class));
+            SET_STRING = lookup.findVirtual(PreparedStatement.class, "setString",
+                MethodType.methodType(void.class, int.class, String.class));
+            SET_INT = lookup.findVirtual(PreparedStatement.class, "setInt",
+                MethodType.methodType(void.class, int.class, int.class));
+            SET_DATE = lookup.findVirtual(PreparedStatement.class, "setDate",
+                MethodType.methodType(void.class, int.class, java.sql.Date.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private LayoutCompiler() {
+    }
+
+    /**
+     * Compile a binder that binds every layout field, in order, to parameters 1..n
+     */
+    public static FixedWidthDecoder.RowBinder compile(EntityLayout layout) {
+        List<EntityLayout.Field> fields = layout.getFields();
+
+        // foldArguments runs the folded handle first, so fold from the last field back
+        MethodHandle bind = MethodHandles.empty(BIND_TYPE);
+        for (int i = fields.size() - 1; i >= 0; i--) {
+            bind = MethodHandles.foldArguments(bind, compileField(fields.get(i), i + 1));
+        }
+        return new CompiledBinder(bind);
+    }
+
+    /**
+     * (Row, PreparedStatement) handle that decodes one field and binds it at index
+     */
+    private static MethodHandle compileField(EntityLayout.Field field, int index) {
+        int start = field.getStart() - 1;  // Row offsets are 0-based with an exclusive end
+        int end = field.getEnd();
+
+        MethodHandle extract;
+        MethodHandle set;
+        switch (field.getType()) {
+            case INTEGER:
+                extract = MethodHandles.insertArguments(INT_VALUE, 1, start, end, 0);
+                set = SET_INT;
+                break;
+            case DATE:
+                extract = MethodHandles.insertArguments(DATE, 1, start, end);
+                set = SET_DATE;
+                break;
+            default:
+                extract = MethodHandles.insertArguments(TEXT, 1, start, end);
+                set = SET_STRING;
+                break;
+        }
+
+        // (PreparedStatement, value) -> (PreparedStatement, Row) -> (Row, PreparedStatement)
+        MethodHandle bindField = MethodHandles.filterArguments(
+            MethodHandles.insertArguments(set, 1, index), 1, extract);
+        return MethodHandles.permuteArguments(bindField, BIND_TYPE, 1, 0);
+    }
+
+    /**
+     * RowBinder backed by the compiled handle
+     */
+    private static final class CompiledBinder implements FixedWidthDecoder.RowBinder {
+        private final MethodHandle bind;
+
+        CompiledBinder(MethodHandle bind) {
+            this.bind = bind;
+        }
+
+        @Override
+        public void bind(FixedWidthDecoder.Row row, PreparedStatement ps) throws SQLException {
+            try {
+                bind.invokeExact(row, ps);
+            } catch (SQLException | RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException("Unexpected exception binding line " + row.lineNumber(), t);
+            }
+        }
+    }
+}
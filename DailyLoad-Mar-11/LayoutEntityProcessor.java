@@ -0,0 +1,323 @@
+import java.io.*;
+import java.nio.file.Paths;
+import java.sql.*;
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * LayoutEntityProcessor - Generic processor for entities described by an EntityLayout
+ * Loads <entity>.dat into the layout's staging table with a binder compiled by
+ * LayoutCompiler and records the load in LOGLOAD.
+ * Used for the entities without a hand-written processor (E8, E7, EB). An entity
+ * that needs SQL run after the load gets its own processor, as E5 and E3 have.
+ */
+public class LayoutEntityProcessor implements EntityProcessor {
+
+    private String entity;       // Entity code
+    private String loadDir;      // Load directory where data files are located
+    private String logDir;       // Log directory
+    private DataSource dataSource;  // Shared connection pool from EntityProcessorFactory
+    private EntityLayout layout;    // Staging table layout
+    private FixedWidthDecoder.RowBinder binder;  // Compiled once per processor
+    private String outFile;      // Output file path
+    private String badFile;      // Bad records file path
+    private String logFile;      // Load log file path, with the reject reasons
+    private String datFile;      // Data file to load
+    private ExtractStager.StagedExtract stagedExtract;  // Staging details, if DailyLoad staged the file
+    private RunJournal.EntityJournal runJournal = RunJournal.EntityJournal.UNTRACKED;  // Phases already completed for the extract
+    private long rejectedRecords;  // Records written to the bad file by the last load
+
+    /**
+     * Constructor for a layout-driven processor
+     *
+     * @param entity The entity code
+     * @param layout Layout of <entity>.dat and its staging table
+     * @param loadDir Directory containing the data files
+     * @param logDir Directory for log files
+     * @param dataSource Pooled connections for the als schema
+     */
+    public LayoutEntityProcessor(String entity, EntityLayout layout, String loadDir, String logDir,
+                                 DataSource dataSource) {
+        this.entity = entity;
+        this.layout = layout;
+        this.binder = LayoutCompiler.compile(layout);
+        this.loadDir = loadDir;
+        this.logDir = logDir;
+        this.dataSource = dataSource;
+
+        // Set file paths
+        this.outFile = loadDir + "/" + entity + ".out";
+        this.badFile = loadDir + "/" + entity + ".bad";
+        this.logFile = loadDir + "/load" + entity + ".log";
+        this.datFile = loadDir + "/" + entity + ".dat";
+    }
+
+    /**
+     * Get the entity code
+     *
+     * @return the entity code
+     */
+    @Override
+    public String getEntityCode() {
+        return entity;
+    }
+
+    /**
+     * Keep the staging details so the load can check every line was accounted for
+     */
+    @Override
+    public void setStagedExtract(ExtractStager.StagedExtract extract) {
+        this.stagedExtract = extract;
+    }
+    
+    /**
+     * Keep the journal so a rerun of the same extract resumes at the failed phase
+     */
+    @Override
+    public void setRunJournal(RunJournal.EntityJournal journal) {
+        this.runJournal = journal;
+    }
+
+    /**
+     * Get the output file path
+     *
+     * @return the path to the output file
+     */
+    @Override
+    public String getOutputFilePath() {
+        return outFile;
+    }
+
+    /**
+     * Process the entity extract
+     *
+     * @return true if processing was successful, false otherwise
+     */
+    @Override
+    public boolean process() throws Exception {
+        try {
+            // Start logging
+            writeToFile(outFile, "Begin process " + entity + "..........." + getCurrentDateTime() + "\n\n");
+
+            // A rerun of the same extract skips the phases the run journal shows complete
+            if (runJournal.isComplete(RunJournal.Phase.STAGE)) {
+                writeToFile(outFile, layout.getTable() + " already loaded from this extract, skipping the load\n");
+            } else {
+                boolean loadSuccess = loadDataFile();
+                if (!loadSuccess) {
+                    writeToFile(outFile, "ERROR: Failed to load " + entity + " data\n");
+                    return false;
+                }
+
+                int maxRejects = getBulkLoadSettings().getMaxRejects();
+                if (rejectedRecords > maxRejects) {
+                    writeToFile(outFile, "ERROR: " + entity + " sqldr - " + rejectedRecords + " records in " +
+                                entity + ".bad, limit is " + maxRejects + "\n");
+                    return false;
+                }
+                runJournal.complete(RunJournal.Phase.STAGE);
+            }
+
+            boolean logSuccess = createLogloadRecord();
+            if (!logSuccess) {
+                writeToFile(outFile, "ERROR: Failed to create LOGLOAD record\n");
+                return false;
+            }
+            runJournal.complete(RunJournal.Phase.LOGLOAD);
+
+            // Complete processing
+            writeToFile(outFile, "End process " + entity + "..........." + getCurrentDateTime() + "\n");
+            writeToFile(outFile, "PROCESS COMPLETE\n");
+
+            return true;
+        } catch (Exception e) {
+            try {
+                writeToFile(outFile, "ERROR: Exception in " + entity + " processing: " + e.getMessage() + "\n");
+                e.printStackTrace();
+            } catch (IOException ioe) {
+                // Can't even write to output file
+                System.err.println("Error writing to output file: " + ioe.getMessage());
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Load the data file, falling back to conventional inserts if a direct-path load fails
+     */
+    private boolean loadDataFile() throws SQLException, IOException {
+        BulkLoadSettings settings = getBulkLoadSettings();
+        try {
+            return loadDataFile(settings);
+        } catch (SQLException e) {
+            if (settings.getStrategy() == BulkLoadStrategy.CONVENTIONAL) {
+                throw e;
+            }
+            // The reload truncates the table, so rows committed by the failed attempt are discarded
+            // The reason goes to the load log: DailyLoad fails an entity whose .out file has "ERR" in it
+            writeToFile(outFile, "WARNING: " + settings.getStrategy() + " load of " + layout.getTable() +
+                        " failed - reloading with conventional inserts, reason in " + new File(logFile).getName() + "\n");
+            try {
+                return loadDataFile(settings.asConventional());
+            } finally {
+                // Written after the reload, which starts the load log again for its rejects
+                writeToFile(logFile, settings.getStrategy() + " load of " + layout.getTable() +
+                            " failed, reloaded with conventional inserts: " + e.getMessage() + "\n");
+            }
+        }
+    }
+
+    /**
+     * Truncate the staging table and load the data file with the given strategy
+     */
+    private boolean loadDataFile(BulkLoadSettings settings) throws SQLException, IOException {
+        String table = layout.getTable();
+        Connection conn = null;
+        Statement truncateStmt = null;
+        PreparedStatement ps = null;
+        RejectFile rejects = null;
+
+        try {
+            // Borrow a pooled connection
+            conn = dataSource.getConnection();
+
+            writeToFile(outFile, "Truncate " + table + " Table\n");
+            truncateStmt = conn.createStatement();
+            truncateStmt.executeUpdate("TRUNCATE TABLE " + table);
+
+            writeToFile(outFile, "Loading " + table + " using " + settings + "\n");
+            if (settings.getStrategy() == BulkLoadStrategy.DIRECT_PATH && !BulkLoadStrategy.isNologging(conn, table)) {
+                writeToFile(outFile, table + " is LOGGING - direct-path rows will still generate full redo\n");
+            }
+            ps = conn.prepareStatement(settings.getStrategy().insertSql(
+                table, layout.getColumnList(), layout.getFields().size()));
+
+            // Set auto-commit to false for batch processing
+            conn.setAutoCommit(false);
+
+            // Short lines and rows the database refuses go to the bad file, with the
+            // reasons in the load log, and the rest of the load carries on
+            rejects = new RejectFile(Paths.get(badFile), Paths.get(logFile), settings.getMaxRejects());
+            FixedWidthDecoder decoder = new FixedWidthDecoder(layout.getRecordLength());
+            long totalRecords = decoder.load(Paths.get(datFile), conn, ps, binder,
+                settings.getBatchSize(), settings.getCommitInterval(), rejects);
+            rejectedRecords = rejects.getCount();
+
+            writeToFile(outFile, "Loaded " + totalRecords + " records into " + table + " table\n");
+            if (rejectedRecords > 0) {
+                writeToFile(outFile, "WARNING: " + rejectedRecords + " records rejected to " + entity +
+                            ".bad - reasons in load" + entity + ".log\n");
+            }
+
+            // Every line counted while staging must have been loaded or rejected
+            if (stagedExtract != null && totalRecords + rejectedRecords != stagedExtract.getLineCount()) {
+                writeToFile(outFile, "ERROR: " + entity + ".dat has " + stagedExtract.getLineCount() +
+                            " lines but " + (totalRecords + rejectedRecords) + " were read\n");
+                return false;
+            }
+
+            return true;
+        } finally {
+            if (rejects != null) try { rejects.close(); } catch (Exception e) { /* ignore */ }
+            if (ps != null) try { ps.close(); } catch (Exception e) { /* ignore */ }
+            if (truncateStmt != null) try { truncateStmt.close(); } catch (Exception e) { /* ignore */ }
+            if (conn != null) try { conn.close(); } catch (Exception e) { /* ignore */ }
+        }
+    }
+
+    /**
+     * Create a LOGLOAD record for tracking the load
+     */
+    private boolean createLogloadRecord() throws SQLException, IOException {
+        EntityLayout.Field extractDateField = layout.getExtractDateField();
+        if (extractDateField == null) {
+            writeToFile(outFile, "ERROR: " + layout.getTable() + " layout has no *EXTRACTDT field\n");
+            return false;
+        }
+
+        Connection conn = null;
+        Statement stmt = null;
+        PreparedStatement ps = null;
+
+        try {
+            // Borrow a pooled connection
+            conn = dataSource.getConnection();
+            stmt = conn.createStatement();
+
+            // Get the extract date from the staging table
+            String extractDate = null;
+            ResultSet rs = stmt.executeQuery("SELECT " + extractDateField.getColumn() + " FROM " +
+                                             layout.getTable() + " WHERE ROWNUM = 1");
+            if (rs.next()) {
+                java.sql.Date date = rs.getDate(1);
+                if (date != null) {
+                    java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("MM/dd/yyyy");
+                    extractDate = sdf.format(date);
+                }
+            }
+            rs.close();
+
+            if (extractDate == null) {
+                writeToFile(outFile, "ERROR: Could not determine extract date from " + layout.getTable() + "\n");
+                return false;
+            }
+
+            // Get record count
+            int recordCount = 0;
+            rs = stmt.executeQuery("SELECT COUNT(*) FROM " + layout.getTable());
+            if (rs.next()) {
+                recordCount = rs.getInt(1);
+            }
+            rs.close();
+
+            String currentTime = LocalDateTime.now().format(DateTimeFormatter.ofPattern("HH:mm:ss"));
+
+            // Get hostname
+            String hostname = "localhost";
+            try {
+                hostname = java.net.InetAddress.getLocalHost().getHostName();
+            } catch (Exception e) {
+                // Use default if hostname can't be determined
+            }
+
+            // Insert LOGLOAD record
+            String insertSql = "INSERT INTO LOGLOAD VALUES (?, ?, TO_DATE(? || ' ' || ?, 'MM/DD/YYYY HH24:MI:SS'), ?, ?)";
+            ps = conn.prepareStatement(insertSql);
+            ps.setString(1, getEntityCode());
+            ps.setString(2, extractDate);
+            ps.setString(3, extractDate);
+            ps.setString(4, currentTime);
+            ps.setString(5, hostname);
+            ps.setInt(6, recordCount);
+
+            int inserted = ps.executeUpdate();
+            writeToFile(outFile, "Inserted " + inserted + " LOGLOAD record\n");
+
+            return true;
+        } finally {
+            if (ps != null) try { ps.close(); } catch (Exception e) { /* ignore */ }
+            if (stmt != null) try { stmt.close(); } catch (Exception e) { /* ignore */ }
+            if (conn != null) try { conn.close(); } catch (Exception e) { /* ignore */ }
+        }
+    }
+
+    /**
+     * Write text to a file
+     */
+    private void writeToFile(String filePath, String text) throws IOException {
+        try (FileWriter fw = new FileWriter(filePath, true);
+             BufferedWriter bw = new BufferedWriter(fw)) {
+            bw.write(text);
+        }
+    }
+
+    /**
+     * Get current date and time formatted as "MM/dd/yyyy HH:mm:ss"
+     */
+    private String getCurrentDateTime() {
+        LocalDateTime now = LocalDateTime.now();
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm:ss");
+        return now.format(formatter);
+    }
+}
@@ -1,31 +1,15 @@
 import java.io.*;
 import java.sql.*;
+import javax.sql.DataSource;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.GregorianCalendar;
 import java.util.List;
 
-/**
- * Interface for entity processors
- * All entity processors must implement this interface
- */
-interface EntityProcessor {
-    /**
-     * Get the entity code
-     */
-    String getEntityCode();
-    
-    /**
-     * Get the output file path
-     */
-    String getOutputFilePath();
-    
-    /**
-     * Process the entity extract
-     */
-    boolean process() throws Exception;
-}
-
 /**
  * ProcessE3Entity - Java implementation of the c.procE3 script
  * This class handles the loading and processing of E3 entity data
@@ -34,35 +18,110 @@ public class ProcessE3Entity implements EntityProcessor {
     
     private String loadDir;      // Load directory where data files are located
     private String logDir;       // Log directory
-    private String dbPassword;   // Database password
-    private String jdbcUrl;      // JDBC connection URL
-    private String dbUser;       // Database username (als)
+    private DataSource dataSource;  // Shared connection pool from EntityProcessorFactory
     private String e3OutFile;    // E3 output file path
     private String e3BadFile;    // E3 bad records file path
     private String e3LogFile;    // E3 load log file path
     private String e3DatFile;    // E3 data file to load
+    private ExtractStager.StagedExtract stagedExtract;  // Staging details, if DailyLoad staged the file
+    private RunJournal.EntityJournal runJournal = RunJournal.EntityJournal.UNTRACKED;  // Phases already completed for the extract
+    private final List<E3RecordRule> recordRules = new ArrayList<>(NORMALIZATION_RULES);  // Applied while parsing
+    private boolean verifyNormalization;  // Load raw rows and compare the rules with the SQL path
+    
+    // E3TMP columns in loadE3.ctl order
+    static final String E3TMP_COLUMNS =
+        "OUTPUTCD, EXTRACTDT, TIN, FILESOURCECD, TINTYPE, " +
+        "TXPYRMODLNINM, IIASGMTNUM, ACTIONASGMTNUM, ACTIONDATE, ENTCASECD, " +
+        "ENTSUBCASECD, MFTCD, TAXPRD, TRANSAMT, RECEIPTNUM, SECUREDIND, " +
+        "MODDISPCD, ICSGRPIND, CLOSINGCD, TRANSCD, REPORTCD, REPORTDEFINERCD, " +
+        "MODTYPEIND, EMPIDNUM, INPUTDATE, INPUTTIME, TYPEID, ACTNCD";
+    static final int E3TMP_COLUMN_COUNT = 28;
+    
+    // ACTSID for rows whose TIN is not in ENT yet, resolved again once ENT is built from E3TMP
+    private static final long UNRESOLVED_ACTSID = 88888888L;
+    
+    // Scratch table holding the rule-normalized rows in verification mode
+    private static final String VERIFY_TABLE = "E3TMP_VERIFY";
+    
+    /**
+     * Row-level rule applied to each E3 record after it is parsed and before it is inserted
+     */
+    interface E3RecordRule {
+        void apply(E3Record record);
+    }
+    
+    // 01/01/1900, the date the .ctl files and E3TMP updates use for "no date"
+    private static final long NO_DATE = new GregorianCalendar(1900, Calendar.JANUARY, 1).getTimeInMillis();
+    
+    // MFT codes whose tax period is not moved to the end of the month
+    private static final List<String> NON_MONTH_END_MFTS = Arrays.asList("52", "53", "60");
+    
+    /**
+     * The E3TMP UPDATEs of c.procE3 that only look at the row itself, in script order
+     * Applying them while parsing writes E3TMP once in its final form. TYPEID is
+     * bound from a long and is never NULL, so "SET TYPEID = '0' WHERE TYPEID IS NULL"
+     * has nothing to do and needs no rule.
+     */
+    static final List<E3RecordRule> NORMALIZATION_RULES = Collections.unmodifiableList(Arrays.asList(
+        // UPDATE E3TMP SET ACTIONDATE = EXTRACTDT WHERE ACTIONDATE = '01/01/1900'
+        record -> {
+            if (record.actiondate.getTime() == NO_DATE) {
+                record.actiondate = record.extractdt;
+            }
+        },
+        // UPDATE E3TMP SET reportdefinercd = ' ' WHERE reportdefinercd = 'S'
+        record -> {
+            if ("S".equals(record.reportdefinercd)) {
+                record.reportdefinercd = " ";
+            }
+        },
+        // UPDATE E3TMP SET TAXPRD = last_day(TAXPRD) WHERE MFTCD NOT IN ('52','53','60')
+        // A blank MFTCD loads as NULL, which NOT IN does not match
+        record -> {
+            if (!record.mftcd.isEmpty() && !NON_MONTH_END_MFTS.contains(record.mftcd)) {
+                Calendar cal = Calendar.getInstance();
+                cal.setTime(record.taxprd);
+                cal.set(Calendar.DAY_OF_MONTH, cal.getActualMaximum(Calendar.DAY_OF_MONTH));
+                record.taxprd = cal.getTime();
+            }
+        },
+        // UPDATE E3TMP SET TAXPRD = '01/01/1900' WHERE NVL(TAXPRD,'01/01/1900') <= '01/01/1900'
+        record -> {
+            if (record.taxprd == null || record.taxprd.getTime() <= NO_DATE) {
+                record.taxprd = new java.util.Date(NO_DATE);
+            }
+        }
+    ));
 
     /**
      * Constructor for the E3 processing class
      * 
      * @param loadDir Directory containing the data files
      * @param logDir Directory for log files
-     * @param dbUser Database username
-     * @param dbPassword Database password
-     * @param jdbcUrl JDBC URL for database connection
+     * @param dataSource Pooled connections for the als schema
      */
-    public ProcessE3Entity(String loadDir, String logDir, String dbUser, String dbPassword, String jdbcUrl) {
+    public ProcessE3Entity(String loadDir, String logDir, DataSource dataSource) {
         this.loadDir = loadDir;
         this.logDir = logDir;
-        this.dbUser = dbUser;
-        this.dbPassword = dbPassword;
-        this.jdbcUrl = jdbcUrl;
+        this.dataSource = dataSource;
         
         // Set file paths
         this.e3OutFile = loadDir + "/E3.out";
         this.e3BadFile = loadDir + "/E3.bad";
         this.e3LogFile = loadDir + "/loadE3.log";
         this.e3DatFile = loadDir + "/E3.dat";
+        
+        // Verification loads E3TMP unnormalized so the SQL path can run against it
+        this.verifyNormalization = Boolean.getBoolean("dailyload.E3.verifyNormalization");
+    }
+    
+    /**
+     * Add a rule to run on every parsed record after the normalization rules
+     * 
+     * @param rule the rule to add
+     */
+    void addRecordRule(E3RecordRule rule) {
+        recordRules.add(rule);
     }
     
     /**
@@ -75,6 +134,32 @@ public class ProcessE3Entity implements EntityProcessor {
         return "E3";
     }
     
+    /**
+     * E3 resolves ACTSID against ENT, so E5's ENTEMP merge must be complete first
+     * 
+     * @return the entity codes E3 depends on
+     */
+    @Override
+    public List<String> getDependencies() {
+        return Arrays.asList("E5");
+    }
+    
+    /**
+     * Keep the staging details so the load can check every line was accounted for
+     */
+    @Override
+    public void setStagedExtract(ExtractStager.StagedExtract extract) {
+        this.stagedExtract = extract;
+    }
+    
+    /**
+     * Keep the journal so a rerun of the same extract resumes at the failed phase
+     */
+    @Override
+    public void setRunJournal(RunJournal.EntityJournal journal) {
+        this.runJournal = journal;
+    }
+    
     /**
      * Get the output file path
      * 
@@ -103,26 +188,39 @@ public class ProcessE3Entity implements EntityProcessor {
                 return false;
             }
             
-            // First, use JDBC to directly load data using prepared statements
-            // This replaces the SQL*Loader operation from the shell script
-            boolean loadSuccess = loadE3DataFile();
-            if (!loadSuccess) {
-                writeToFile(e3OutFile, "ERROR: Failed to load E3 data\n");
-                return false;
-            }
-            
-            // Check for bad records in E3.bad file
-            int badRecords = checkForBadRecords();
-            if (badRecords > 0) {
-                writeToFile(e3OutFile, "ERROR: c.procE3 sqldr - " + badRecords + " records in E3.bad\n");
-                return false;
+            // A rerun of the same extract skips the phases the run journal shows complete.
+            // The SQL operations rewrite E3TMP in place (deletes, and a truncate and refill
+            // through HOLDE3TMP), so E3TMP is loaded again unless they completed as well.
+            if (runJournal.isComplete(RunJournal.Phase.SQL_OPS)) {
+                writeToFile(e3OutFile, "E3TMP already loaded from this extract, skipping the load\n");
+            } else {
+                // First, use JDBC to directly load data using prepared statements
+                // This replaces the SQL*Loader operation from the shell script
+                boolean loadSuccess = loadE3DataFile();
+                if (!loadSuccess) {
+                    writeToFile(e3OutFile, "ERROR: Failed to load E3 data\n");
+                    return false;
+                }
+                
+                // Check for bad records in E3.bad file
+                int badRecords = checkForBadRecords();
+                if (badRecords > 0) {
+                    writeToFile(e3OutFile, "ERROR: c.procE3 sqldr - " + badRecords + " records in E3.bad\n");
+                    return false;
+                }
+                runJournal.complete(RunJournal.Phase.STAGE);
             }
             
-            // Run the SQL operations
-            boolean sqlSuccess = executeE3SqlOperations();
-            if (!sqlSuccess) {
-                writeToFile(e3OutFile, "ERROR: SQL operations failed\n");
-                return false;
+            if (runJournal.isComplete(RunJournal.Phase.SQL_OPS)) {
+                writeToFile(e3OutFile, "E3 SQL operations already committed for this extract, skipping them\n");
+            } else {
+                // Run the SQL operations
+                boolean sqlSuccess = executeE3SqlOperations();
+                if (!sqlSuccess) {
+                    writeToFile(e3OutFile, "ERROR: SQL operations failed\n");
+                    return false;
+                }
+                runJournal.complete(RunJournal.Phase.SQL_OPS);
             }
             
             // Create LOGLOAD record
@@ -131,6 +229,7 @@ public class ProcessE3Entity implements EntityProcessor {
                 writeToFile(e3OutFile, "ERROR: Failed to create LOGLOAD record\n");
                 return false;
             }
+            runJournal.complete(RunJournal.Phase.LOGLOAD);
             
             // Complete processing
             writeToFile(e3OutFile, "End process c.procE3..........." + getCurrentDateTime() + "\n");
@@ -154,13 +253,45 @@ public class ProcessE3Entity implements EntityProcessor {
      * This replaces the SQL*Loader operation from the shell script
      */
     private boolean loadE3DataFile() throws SQLException, IOException {
+        BulkLoadSettings settings = getBulkLoadSettings();
+        try {
+            return loadE3DataFile(settings);
+        } catch (SQLException e) {
+            if (settings.getStrategy() == BulkLoadStrategy.CONVENTIONAL) {
+                throw e;
+            }
+            // The reload truncates E3TMP, so rows committed by the failed attempt are discarded
+            // The reason goes to the load log: DailyLoad fails an entity whose .out file has "ERR" in it
+            writeToFile(e3OutFile, "WARNING: " + settings.getStrategy() + " load of E3TMP" +
+                        " failed - reloading with conventional inserts, reason in loadE3.log\n");
+            try {
+                return loadE3DataFile(settings.asConventional());
+            } finally {
+                // Written after the reload, which starts the load log again for its rejects
+                writeToFile(e3LogFile, settings.getStrategy() + " load of E3TMP" +
+                            " failed, reloaded with conventional inserts: " + e.getMessage() + "\n");
+            }
+        }
+    }
+    
+    /**
+     * Truncate E3TMP and load E3.dat with the given strategy
+     */
+    private boolean loadE3DataFile(BulkLoadSettings settings) throws SQLException, IOException {
         Connection conn = null;
         PreparedStatement truncateStmt = null;
-        PreparedStatement ps = null;
+        Statement verifyStmt = null;
         
         try {
-            // Connect to database
-            conn = DriverManager.getConnection(jdbcUrl, dbUser, dbPassword);
+            // ACTSID is stamped from ENT as the rows are inserted. The resolver reads ENT on its
+            // own connection, so it is built before this load borrows one from the pool.
+            long resolveStart = System.currentTimeMillis();
+            TinsidResolver actsids = TinsidResolver.load(dataSource);
+            writeToFile(e3OutFile, "Read " + actsids.size() + " ENT keys for ACTSID in " +
+                        (System.currentTimeMillis() - resolveStart) + " ms\n");
+            
+            // Borrow a pooled connection
+            conn = dataSource.getConnection();
             
             // First truncate the E3TMP table
             writeToFile(e3OutFile, "Truncate E3TMP Table\n");
@@ -172,21 +303,60 @@ public class ProcessE3Entity implements EntityProcessor {
             List<E3Record> records = parseE3DataFile(e3DatFile);
             
             // Prepare the insert statement
-            String insertSql = "INSERT INTO E3TMP (OUTPUTCD, EXTRACTDT, TIN, FILESOURCECD, TINTYPE, " +
-                              "TXPYRMODLNINM, IIASGMTNUM, ACTIONASGMTNUM, ACTIONDATE, ENTCASECD, " +
-                              "ENTSUBCASECD, MFTCD, TAXPRD, TRANSAMT, RECEIPTNUM, SECUREDIND, " +
-                              "MODDISPCD, ICSGRPIND, CLOSINGCD, TRANSCD, REPORTCD, REPORTDEFINERCD, " +
-                              "MODTYPEIND, EMPIDNUM, INPUTDATE, INPUTTIME, TYPEID, ACTNCD) " +
-                              "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-            
-            ps = conn.prepareStatement(insertSql);
+            writeToFile(e3OutFile, "Loading E3TMP using " + settings + "\n");
+            if (settings.getStrategy() == BulkLoadStrategy.DIRECT_PATH && !BulkLoadStrategy.isNologging(conn, "E3TMP")) {
+                writeToFile(e3OutFile, "E3TMP is LOGGING - direct-path rows will still generate full redo\n");
+            }
             
             // Set auto-commit to false for batch processing
             conn.setAutoCommit(false);
             
+            int totalRecords = insertE3Records(conn, "E3TMP", records, actsids, settings);
+            
+            // Verification: the SQL path normalizes E3TMP, and the rules fill the scratch table to compare with
+            if (verifyNormalization) {
+                writeToFile(e3OutFile, "Verification mode: loading rule-normalized rows into " + VERIFY_TABLE + "\n");
+                verifyStmt = conn.createStatement();
+                executeSafely(verifyStmt, "DROP TABLE " + VERIFY_TABLE);
+                verifyStmt.execute("CREATE TABLE " + VERIFY_TABLE + " AS SELECT * FROM E3TMP WHERE 1 = 0");
+                for (E3Record record : records) {
+                    applyRules(record);
+                }
+                insertE3Records(conn, VERIFY_TABLE, records, actsids, settings.asConventional());
+            }
+            
+            // Create E3.bad file (empty) to indicate successful processing
+            new File(e3BadFile).createNewFile();
+            
+            writeToFile(e3OutFile, "Loaded " + totalRecords + " records into E3TMP table\n");
+            
+            return true;
+        } finally {
+            if (verifyStmt != null) try { verifyStmt.close(); } catch (Exception e) { /* ignore */ }
+            if (truncateStmt != null) try { truncateStmt.close(); } catch (Exception e) { /* ignore */ }
+            if (conn != null) try { conn.close(); } catch (Exception e) { /* ignore */ }
+        }
+    }
+    
+    /**
+     * Insert the parsed records into table, executing per batch and committing per interval
+     * ACTSID is the TINSID of the first ENT row for the TIN, TINTYPE and FILESOURCECD,
+     * or 88888888 when ENT has none - what the ACTSID UPDATEs of c.procE3 left
+     * 
+     * @return number of records inserted
+     */
+    private int insertE3Records(Connection conn, String table, List<E3Record> records,
+                                TinsidResolver actsids, BulkLoadSettings settings) throws SQLException {
+        PreparedStatement ps = null;
+        
+        try {
+            ps = conn.prepareStatement(settings.getStrategy().insertSql(
+                table, E3TMP_COLUMNS + ", ACTSID", E3TMP_COLUMN_COUNT + 1));
+            
             int batchSize = 0;
+            int uncommitted = 0;
             int totalRecords = 0;
-            
+        
             // Process each record
             for (E3Record record : records) {
                 ps.setString(1, record.outputcd);
@@ -217,41 +387,44 @@ public class ProcessE3Entity implements EntityProcessor {
                 ps.setInt(26, record.inputtime);
                 ps.setLong(27, record.typeid);
                 ps.setString(28, record.actncd);
-                
+                long actsid = actsids.resolve(record.tin, record.tintype, record.filesourcecd);
+                ps.setLong(29, actsid == TinsidResolver.NOT_FOUND ? UNRESOLVED_ACTSID : actsid);
+            
                 ps.addBatch();
                 batchSize++;
                 totalRecords++;
-                
-                // Execute batch at specified size
-                if (batchSize >= 1000) {
+            
+                // Execute batch at specified size, commit at the commit interval
+                if (batchSize >= settings.getBatchSize()) {
                     ps.executeBatch();
-                    conn.commit();
+                    uncommitted += batchSize;
                     batchSize = 0;
+                    if (uncommitted >= settings.getCommitInterval()) {
+                        conn.commit();
+                        uncommitted = 0;
+                    }
                 }
             }
-            
+        
             // Execute remaining batch
             if (batchSize > 0) {
                 ps.executeBatch();
+                uncommitted += batchSize;
+            }
+            if (uncommitted > 0) {
                 conn.commit();
             }
             
-            // Create E3.bad file (empty) to indicate successful processing
-            new File(e3BadFile).createNewFile();
-            
-            writeToFile(e3OutFile, "Loaded " + totalRecords + " records into E3TMP table\n");
-            
-            return true;
+            return totalRecords;
         } finally {
             if (ps != null) try { ps.close(); } catch (Exception e) { /* ignore */ }
-            if (truncateStmt != null) try { truncateStmt.close(); } catch (Exception e) { /* ignore */ }
-            if (conn != null) try { conn.close(); } catch (Exception e) { /* ignore */ }
         }
     }
+    
     /**
      * Class representing an E3 record
      */
-    private static class E3Record {
+    static class E3Record {
         String outputcd;
         java.util.Date extractdt;
         long tin;
@@ -286,7 +459,10 @@ public class ProcessE3Entity implements EntityProcessor {
      * Parse the E3 data file according to the loadE3.ctl fixed-width specifications
      */
     private List<E3Record> parseE3DataFile(String filePath) throws IOException {
-        List<E3Record> records = new ArrayList<>();
+        // Size the list from the staged line count rather than growing it record by record
+        List<E3Record> records = stagedExtract != null
+            ? new ArrayList<>((int) Math.min(stagedExtract.getLineCount(), Integer.MAX_VALUE - 8))
+            : new ArrayList<>();
         
         try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
             String line;
@@ -387,6 +563,11 @@ public class ProcessE3Entity implements EntityProcessor {
                 record.typeid = parseLongOrDefault(line.substring(157, 165).trim(), 0);
                 record.actncd = line.substring(165, 168).trim();
                 
+                // Normalize in-stream so E3TMP is written once in its final form
+                if (!verifyNormalization) {
+                    applyRules(record);
+                }
+                
                 records.add(record);
             }
         }
@@ -394,6 +575,15 @@ public class ProcessE3Entity implements EntityProcessor {
         return records;
     }
     
+    /**
+     * Run every record rule on a parsed record
+     */
+    private void applyRules(E3Record record) {
+        for (E3RecordRule rule : recordRules) {
+            rule.apply(record);
+        }
+    }
+    
     /**
      * Utility method to parse an integer with a default value
      */
@@ -459,69 +649,70 @@ public class ProcessE3Entity implements EntityProcessor {
         Statement stmt = null;
         
         try {
-            // Connect to database
-            conn = DriverManager.getConnection(jdbcUrl, dbUser, dbPassword);
+            // Borrow a pooled connection
+            conn = dataSource.getConnection();
             conn.setAutoCommit(false);  // Start transaction
             stmt = conn.createStatement();
             
             try {
-                // Set NLS date format for consistency
-                writeToFile(e3OutFile, "Setting NLS_DATE_FORMAT\n");
-                stmt.execute("ALTER SESSION SET NLS_DATE_FORMAT = 'MM/DD/YYYY HH24:MI:SS'");
+                // NLS_DATE_FORMAT is set once per pooled session by EntityDataSource
                 
                 // First, drop indexes
                 writeToFile(e3OutFile, "Dropping Indexes\n");
                 executeSafely(stmt, "DROP INDEX ENT_GRADE_IX");
                 executeSafely(stmt, "DROP INDEX ENT_CODE_IX");
                 
-                // Update TYPEID and ACTIONDATE in E3TMP Table
-                writeToFile(e3OutFile, "Updating TYPEID and ACTIONDATE in E3TMP Table\n");
-                int updatedRows = stmt.executeUpdate("UPDATE E3TMP SET TYPEID = '0' WHERE TYPEID IS NULL");
-                writeToFile(e3OutFile, "Updated " + updatedRows + " rows setting TYPEID to '0'\n");
-                
-                updatedRows = stmt.executeUpdate("UPDATE E3TMP SET ACTIONDATE = EXTRACTDT WHERE ACTIONDATE = '01/01/1900'");
-                writeToFile(e3OutFile, "Updated " + updatedRows + " rows setting ACTIONDATE\n");
+                // TYPEID, ACTIONDATE, REPORTDEFINERCD and TAXPRD were normalized while parsing,
+                // unless verification mode loaded the raw rows for these UPDATEs to run on
+                int updatedRows;
+                if (verifyNormalization) {
+                    // Update TYPEID and ACTIONDATE in E3TMP Table
+                    writeToFile(e3OutFile, "Updating TYPEID and ACTIONDATE in E3TMP Table\n");
+                    updatedRows = stmt.executeUpdate("UPDATE E3TMP SET TYPEID = '0' WHERE TYPEID IS NULL");
+                    writeToFile(e3OutFile, "Updated " + updatedRows + " rows setting TYPEID to '0'\n");
+                    
+                    updatedRows = stmt.executeUpdate("UPDATE E3TMP SET ACTIONDATE = EXTRACTDT WHERE ACTIONDATE = '01/01/1900'");
+                    writeToFile(e3OutFile, "Updated " + updatedRows + " rows setting ACTIONDATE\n");
+                }
                 
-                // Update ACTSID in E3TMP Table
-                writeToFile(e3OutFile, "Updating ACTSID in E3TMP Table\n");
-                updatedRows = stmt.executeUpdate(
-                    "UPDATE E3TMP SET actsid = (" +
-                    "  SELECT tinsid " +
-                    "  FROM ENT " +
-                    "  WHERE E3TMP.TIN = ENT.TIN and " +
-                    "        E3TMP.TINTYPE = ENT.TINIT and " +
-                    "        E3TMP.FILESOURCECD = ENT.TINFS and " +
-                    "        rownum = 1)"
-                );
-                writeToFile(e3OutFile, "Updated " + updatedRows + " rows setting ACTSID\n");
+                // ACTSID was stamped from ENT while loading, 88888888 where ENT has no row
                 
-                // Update REPORTDEFINERCD in E3TMP Table
-                writeToFile(e3OutFile, "Updating REPORTDEFINERCD in E3TMP Table\n");
-                updatedRows = stmt.executeUpdate("UPDATE E3TMP SET reportdefinercd = ' ' WHERE reportdefinercd = 'S'");
-                writeToFile(e3OutFile, "Updated " + updatedRows + " rows setting REPORTDEFINERCD\n");
+                if (verifyNormalization) {
+                    // Update REPORTDEFINERCD in E3TMP Table
+                    writeToFile(e3OutFile, "Updating REPORTDEFINERCD in E3TMP Table\n");
+                    updatedRows = stmt.executeUpdate("UPDATE E3TMP SET reportdefinercd = ' ' WHERE reportdefinercd = 'S'");
+                    writeToFile(e3OutFile, "Updated " + updatedRows + " rows setting REPORTDEFINERCD\n");
+                }
                 
                 // Commit changes
                 conn.commit();
                 
-                // Update TAXPRD in E3TMP table
-                writeToFile(e3OutFile, "Updating TAXPRD in E3TMP table 1\n");
-                updatedRows = stmt.executeUpdate(
-                    "UPDATE E3TMP SET TAXPRD = last_day(TAXPRD) " +
-                    "WHERE MFTCD NOT IN ('52','53','60')"
-                );
-                writeToFile(e3OutFile, "Updated " + updatedRows + " rows setting TAXPRD to last_day\n");
-                
-                writeToFile(e3OutFile, "Updating TAXPRD in E3TMP Table 2\n");
-                updatedRows = stmt.executeUpdate(
-                    "UPDATE E3TMP SET TAXPRD = '01/01/1900' " +
-                    "WHERE NVL(TAXPRD,'01/01/1900') <= '01/01/1900'"
-                );
-                writeToFile(e3OutFile, "Updated " + updatedRows + " rows setting TAXPRD to '01/01/1900'\n");
-                
-                // Update ACTSID in E3TMP Table where null
-                writeToFile(e3OutFile, "Updating ACTSID in E3TMP Table\n");
-                updatedRows = stmt.executeUpdate("UPDATE E3TMP SET actsid = 88888888 WHERE actsid is NULL");
-                writeToFile(e3OutFile, "Updated " + updatedRows + " rows setting ACTSID to 88888888\n");
+                if (verifyNormalization) {
+                    // Update TAXPRD in E3TMP table
+                    writeToFile(e3OutFile, "Updating TAXPRD in E3TMP table 1\n");
+                    updatedRows = stmt.executeUpdate(
+                        "UPDATE E3TMP SET TAXPRD = last_day(TAXPRD) " +
+                        "WHERE MFTCD NOT IN ('52','53','60')"
+                    );
+                    writeToFile(e3OutFile, "Updated " + updatedRows + " rows setting TAXPRD to last_day\n");
+                    
+                    writeToFile(e3OutFile, "Updating TAXPRD in E3TMP Table 2\n");
+                    updatedRows = stmt.executeUpdate(
+                        "UPDATE E3TMP SET TAXPRD = '01/01/1900' " +
+                        "WHERE NVL(TAXPRD,'01/01/1900') <= '01/01/1900'"
+                    );
+                    writeToFile(e3OutFile, "Updated " + updatedRows + " rows setting TAXPRD to '01/01/1900'\n");
+                    
+                    // The SQL path is done with these columns - the rules must have produced the same rows
+                    long mismatches = countNormalizationMismatches(stmt);
+                    if (mismatches > 0) {
+                        writeToFile(e3OutFile, "ERROR: In-stream normalization differs from the SQL path in " +
+                                    mismatches + " row groups - compare E3TMP with " + VERIFY_TABLE + "\n");
+                        conn.rollback();
+                        return false;
+                    }
+                    writeToFile(e3OutFile, "Verified: in-stream normalization matches the SQL path row for row\n");
+                }
                 
                 // Update MODDISPCD in E3TMP Table
                 writeToFile(e3OutFile, "Updating MODDISPCD in E3TMP Table\n");
@@ -665,27 +856,33 @@ public class ProcessE3Entity implements EntityProcessor {
                 // Commit changes
                 conn.commit();
                 
-                // Populate ENT Table
+                // Populate ENT Table - a TIN already in ENT was added by an earlier attempt
+                // at this extract that failed after committing, so it is not added twice
                 writeToFile(e3OutFile, "Populating ENT Table\n");
-                stmt.execute(
+                updatedRows = stmt.executeUpdate(
                     "INSERT INTO ENT(TINSID, EXTRDT, TIN, TINFS, TINIT, TP, TP2, TPCTRL, " +
                     "               STATE, CASECODE, SUBCODE, GRADE, TOTASSD, ASSNGRP, " +
                     "               TOTTOUCH, TOTHRS, CASEIND, LFIIND, LDIND, " +
                     "               PDTIND, RPTIND, SELIND, PVRIND, ASSNCPP, DVICTCD, INSPCIND, " +
                     "               ERRPDIND, FMSLVIND, IA_REJDT, BODCD, STATUS, " +
                     "               CLOSEDT, RISK, PREDCD) " +
-                    "VALUES (TINSIDcnt.nextval, EXTRACTDT, TIN, FILESOURCECD, " +
-                    "        TINTYPE, TXPYRMODLNINM, 'BUILT FROM ACTIVITY E3', 'E3', " +
-                    "        '.', ENTCASECD, 000, GRADE, '0', '0', " +
-                    "        '0', '0', 'P', '0', 'F', '0', 'F', '0', " +
-                    "        '0', '01/01/1900', '0', 'F', 'F', 'F', " +
-                    "        '01/01/1900', 'XX', 'P', '01/01/1900', '.', '0' " +
-                    "        FROM TMPE3TMP)");
+                    "SELECT TINSIDcnt.nextval, EXTRACTDT, TIN, FILESOURCECD, " +
+                    "       TINTYPE, TXPYRMODLNINM, 'BUILT FROM ACTIVITY E3', 'E3', " +
+                    "       '.', ENTCASECD, 000, GRADE, '0', '0', " +
+                    "       '0', '0', 'P', '0', 'F', '0', 'F', '0', " +
+                    "       '0', '01/01/1900', '0', 'F', 'F', 'F', " +
+                    "       '01/01/1900', 'XX', 'P', '01/01/1900', '.', '0' " +
+                    "FROM TMPE3TMP " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM ENT " +
+                    "                  WHERE ENT.TIN = TMPE3TMP.TIN and " +
+                    "                        ENT.TINFS = TMPE3TMP.FILESOURCECD and " +
+                    "                        ENT.TINIT = TMPE3TMP.TINTYPE)");
+                writeToFile(e3OutFile, "Inserted " + updatedRows + " rows into ENT\n");
                 
                 // Commit changes
                 conn.commit();
                 
-                // Update ACTSIDS in E3TMP that were all 8's 
+                // Update ACTSIDS in E3TMP that were all 8's - the rows stamped from ENT already hold the same TINSID
                 writeToFile(e3OutFile, "Updating ACTSID in E3TMP Table\n");
                 updatedRows = stmt.executeUpdate(
                     "UPDATE E3TMP SET actsid = (" +
@@ -694,7 +891,8 @@ public class ProcessE3Entity implements EntityProcessor {
                     "  WHERE E3TMP.TIN = ENT.TIN and " +
                     "        E3TMP.TINTYPE = ENT.TINIT and " +
                     "        E3TMP.FILESOURCECD = ENT.TINFS and " +
-                    "        rownum = 1)"
+                    "        rownum = 1) " +
+                    "WHERE actsid = 88888888"
                 );
                 writeToFile(e3OutFile, "Updated " + updatedRows + " rows setting ACTSID\n");
                 
@@ -728,9 +926,10 @@ public class ProcessE3Entity implements EntityProcessor {
                 updatedRows = stmt.executeUpdate("UPDATE E3TMP SET SECUREDIND = 'F' WHERE SECUREDIND <> 'T'");
                 writeToFile(e3OutFile, "Updated " + updatedRows + " rows setting SECUREDIND to 'F'\n");
                 
-                // Populate ENTACT Table
+                // Populate ENTACT Table - an ACTSID with actions for this extract date already
+                // got them from an earlier attempt that failed after committing
                 writeToFile(e3OutFile, "Populating ENTACT Table\n");
-                stmt.execute(
+                updatedRows = stmt.executeUpdate(
                     "INSERT INTO ENTACT(ACTSID, TP, TIN, TINIT, TINFS, " +
                     "                  ROID, ACTDT, MFT, PERIOD, AMOUNT, " +
                     "                  FORM869, RTNSEC, DISPCODE, GRPIND, TC, " +
@@ -745,8 +944,12 @@ public class ProcessE3Entity implements EntityProcessor {
                     "       INPUTDATE, INPUTTIME, ACTIONASGMTNUM, TYPEID, ACTNCD " +
                     "FROM E3TMP " +
                     "WHERE actsid is not NULL and " +
-                    "      actsid <> 88888888)"
+                    "      actsid <> 88888888 and " +
+                    "      NOT EXISTS (SELECT 1 FROM ENTACT " +
+                    "                  WHERE ENTACT.ACTSID = E3TMP.ACTSID and " +
+                    "                        ENTACT.EXTRDT = E3TMP.EXTRACTDT)"
                 );
+                writeToFile(e3OutFile, "Inserted " + updatedRows + " rows into ENTACT\n");
                 
                 // Commit changes
                 conn.commit();
@@ -787,9 +990,28 @@ public class ProcessE3Entity implements EntityProcessor {
         } finally {
             if (stmt != null) try { stmt.close(); } catch (Exception e) { /* ignore */ }
             if (conn != null) try { conn.close(); } catch (Exception e) { /* ignore */ }
+        }
+    }
+    
+    /**
+     * Compare E3TMP after the normalization UPDATEs with the rule-normalized rows in E3TMP_VERIFY
+     * Rows are compared as multisets over every loaded column, so a missing,
+     * extra or duplicated row counts as well as a differing one.
+     * 
+     * @return number of distinct rows whose count differs between the two tables
+     */
+    private long countNormalizationMismatches(Statement stmt) throws SQLException {
+        String e3tmpRows = "SELECT " + E3TMP_COLUMNS + ", COUNT(*) FROM E3TMP GROUP BY " + E3TMP_COLUMNS;
+        String verifyRows = "SELECT " + E3TMP_COLUMNS + ", COUNT(*) FROM " + VERIFY_TABLE + " GROUP BY " + E3TMP_COLUMNS;
+        String sql = "SELECT COUNT(*) FROM (" +
+                     "(" + e3tmpRows + " MINUS " + verifyRows + ") UNION ALL " +
+                     "(" + verifyRows + " MINUS " + e3tmpRows + "))";
+        ResultSet rs = stmt.executeQuery(sql);
+        try {
+            rs.next();
+            return rs.getLong(1);
         } finally {
-            if (stmt != null) try { stmt.close(); } catch (Exception e) { /* ignore */ }
-            if (conn != null) try { conn.close(); } catch (Exception e) { /* ignore */ }
+            rs.close();
         }
     }
     
@@ -815,8 +1037,8 @@ public class ProcessE3Entity implements EntityProcessor {
         PreparedStatement ps = null;
         
         try {
-            // Connect to database
-            conn = DriverManager.getConnection(jdbcUrl, dbUser, dbPassword);
+            // Borrow a pooled connection
+            conn = dataSource.getConnection();
             
             String sql = "INSERT INTO LOGLOAD (ENTITY, LOADDATE, LOADTIME, STATUS) VALUES (?, SYSDATE, ?, 'C')";
             ps = conn.prepareStatement(sql);
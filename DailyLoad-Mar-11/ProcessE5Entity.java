@@ -1,8 +1,11 @@
 import java.io.*;
+import java.nio.file.Paths;
 import java.sql.*;
+import javax.sql.DataSource;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -13,29 +16,65 @@ public class ProcessE5Entity implements EntityProcessor {
     
     private String loadDir;      // Load directory where data files are located
     private String logDir;       // Log directory
-    private String dbPassword;   // Database password
-    private String jdbcUrl;      // JDBC connection URL
-    private String dbUser;       // Database username (als)
+    private DataSource dataSource;  // Shared connection pool from EntityProcessorFactory
     private String e5OutFile;    // E5 output file path
     private String e5BadFile;    // E5 bad records file path
     private String e5LogFile;    // E5 load log file path
     private String e5DatFile;    // E5 data file to load
+    private ExtractStager.StagedExtract stagedExtract;  // Staging details, if DailyLoad staged the file
+    private long rejectedRecords;  // Records written to E5.bad by the last load
+    private RunJournal.EntityJournal runJournal = RunJournal.EntityJournal.UNTRACKED;  // Phases already completed for the extract
+    
+    // E5.dat layout, from the positions in loadE5.ctl (columns 138-141 are not loaded)
+    static final EntityLayout E5_LAYOUT = new EntityLayout("E5TMP", Arrays.asList(
+        new EntityLayout.Field("OUTPUTCD", 1, 2, EntityLayout.FieldType.CHAR),
+        new EntityLayout.Field("EMPASGMTNUM", 3, 10, EntityLayout.FieldType.INTEGER),
+        new EntityLayout.Field("EMPNAME", 11, 45, EntityLayout.FieldType.CHAR),
+        new EntityLayout.Field("EMPGRADECD", 46, 47, EntityLayout.FieldType.CHAR),
+        new EntityLayout.Field("EMPTYPECD", 48, 48, EntityLayout.FieldType.CHAR),
+        new EntityLayout.Field("TOUROFDUTY", 49, 49, EntityLayout.FieldType.CHAR),
+        new EntityLayout.Field("EMPWORKAREA", 50, 50, EntityLayout.FieldType.CHAR),
+        new EntityLayout.Field("TPSPODIND", 51, 51, EntityLayout.FieldType.CHAR),
+        new EntityLayout.Field("CSUPODIND", 52, 52, EntityLayout.FieldType.CHAR),
+        new EntityLayout.Field("PARAPODIND", 53, 53, EntityLayout.FieldType.CHAR),
+        new EntityLayout.Field("MNGRPODIND", 54, 54, EntityLayout.FieldType.CHAR),
+        new EntityLayout.Field("EMPPOSITTYPECD", 55, 55, EntityLayout.FieldType.CHAR),
+        new EntityLayout.Field("FLEXPLACEIND", 56, 56, EntityLayout.FieldType.CHAR),
+        new EntityLayout.Field("EMPUPDATEDT", 57, 64, EntityLayout.FieldType.DATE),
+        new EntityLayout.Field("ENTEXTRACTDT", 65, 72, EntityLayout.FieldType.DATE),
+        new EntityLayout.Field("EMPIDNUM", 73, 82, EntityLayout.FieldType.CHAR),
+        new EntityLayout.Field("EMPTITLE", 83, 107, EntityLayout.FieldType.CHAR),
+        new EntityLayout.Field("AREACD", 108, 110, EntityLayout.FieldType.INTEGER),
+        new EntityLayout.Field("PHONE", 111, 117, EntityLayout.FieldType.INTEGER),
+        new EntityLayout.Field("EXT", 118, 124, EntityLayout.FieldType.INTEGER),
+        new EntityLayout.Field("PREVID", 125, 132, EntityLayout.FieldType.INTEGER),
+        new EntityLayout.Field("SEID", 133, 137, EntityLayout.FieldType.CHAR),
+        new EntityLayout.Field("EMAIL", 142, 186, EntityLayout.FieldType.CHAR),
+        new EntityLayout.Field("ICSACC", 187, 187, EntityLayout.FieldType.CHAR),
+        new EntityLayout.Field("EMPPODCD", 188, 190, EntityLayout.FieldType.CHAR),
+        new EntityLayout.Field("GS9CNT", 191, 194, EntityLayout.FieldType.INTEGER),
+        new EntityLayout.Field("GS11CNT", 195, 198, EntityLayout.FieldType.INTEGER),
+        new EntityLayout.Field("GS12CNT", 199, 202, EntityLayout.FieldType.INTEGER),
+        new EntityLayout.Field("GS13CNT", 203, 206, EntityLayout.FieldType.INTEGER)));
+    
+    // E5TMP columns in loadE5.ctl order
+    static final String E5TMP_COLUMNS = E5_LAYOUT.getColumnList();
+    static final int E5TMP_COLUMN_COUNT = E5_LAYOUT.getFields().size();
+    
+    // Binds E5_LAYOUT into the E5TMP insert, compiled once
+    static final FixedWidthDecoder.RowBinder E5TMP_BINDER = LayoutCompiler.compile(E5_LAYOUT);
 
     /**
      * Constructor for the E5 processing class
      * 
      * @param loadDir Directory containing the data files
      * @param logDir Directory for log files
-     * @param dbUser Database username
-     * @param dbPassword Database password
-     * @param jdbcUrl JDBC URL for database connection
+     * @param dataSource Pooled connections for the als schema
      */
-    public ProcessE5Entity(String loadDir, String logDir, String dbUser, String dbPassword, String jdbcUrl) {
+    public ProcessE5Entity(String loadDir, String logDir, DataSource dataSource) {
         this.loadDir = loadDir;
         this.logDir = logDir;
-        this.dbUser = dbUser;
-        this.dbPassword = dbPassword;
-        this.jdbcUrl = jdbcUrl;
+        this.dataSource = dataSource;
         
         // Set file paths
         this.e5OutFile = loadDir + "/E5.out";
@@ -54,6 +93,22 @@ public class ProcessE5Entity implements EntityProcessor {
         return "E5";
     }
     
+    /**
+     * Keep the staging details so the load can check every line was accounted for
+     */
+    @Override
+    public void setStagedExtract(ExtractStager.StagedExtract extract) {
+        this.stagedExtract = extract;
+    }
+    
+    /**
+     * Keep the journal so a rerun of the same extract resumes at the failed phase
+     */
+    @Override
+    public void setRunJournal(RunJournal.EntityJournal journal) {
+        this.runJournal = journal;
+    }
+    
     /**
      * Get the output file path
      * 
@@ -75,26 +130,39 @@ public class ProcessE5Entity implements EntityProcessor {
             // Start logging
             writeToFile(e5OutFile, "Begin process E5..........." + getCurrentDateTime() + "\n\n");
             
-            // First, use JDBC to directly load data using prepared statements
-            // This replaces the SQL*Loader operation from the shell script
-            boolean loadSuccess = loadE5DataFile();
-            if (!loadSuccess) {
-                writeToFile(e5OutFile, "ERROR: Failed to load E5 data\n");
-                return false;
-            }
-            
-            // Check for bad records in E5.bad file
-            int badRecords = checkForBadRecords();
-            if (badRecords > 0) {
-                writeToFile(e5OutFile, "ERROR: E5 sqldr - " + badRecords + " records in E5.bad\n");
-                return false;
+            // A rerun of the same extract skips the phases the run journal shows complete
+            if (runJournal.isComplete(RunJournal.Phase.STAGE)) {
+                writeToFile(e5OutFile, "E5TMP already loaded from this extract, skipping the load\n");
+            } else {
+                // First, use JDBC to directly load data using prepared statements
+                // This replaces the SQL*Loader operation from the shell script
+                boolean loadSuccess = loadE5DataFile();
+                if (!loadSuccess) {
+                    writeToFile(e5OutFile, "ERROR: Failed to load E5 data\n");
+                    return false;
+                }
+                
+                // Check for bad records in E5.bad file
+                long badRecords = checkForBadRecords();
+                int maxRejects = getBulkLoadSettings().getMaxRejects();
+                if (badRecords > maxRejects) {
+                    writeToFile(e5OutFile, "ERROR: E5 sqldr - " + badRecords + " records in E5.bad, limit is " +
+                                maxRejects + "\n");
+                    return false;
+                }
+                runJournal.complete(RunJournal.Phase.STAGE);
             }
             
-            // Run the SQL operations
-            boolean sqlSuccess = executeE5SqlOperations();
-            if (!sqlSuccess) {
-                writeToFile(e5OutFile, "ERROR: SQL operations failed\n");
-                return false;
+            if (runJournal.isComplete(RunJournal.Phase.SQL_OPS)) {
+                writeToFile(e5OutFile, "E5 SQL operations already committed for this extract, skipping them\n");
+            } else {
+                // Run the SQL operations
+                boolean sqlSuccess = executeE5SqlOperations();
+                if (!sqlSuccess) {
+                    writeToFile(e5OutFile, "ERROR: SQL operations failed\n");
+                    return false;
+                }
+                runJournal.complete(RunJournal.Phase.SQL_OPS);
             }
             
             // Create LOGLOAD record
@@ -103,6 +171,7 @@ public class ProcessE5Entity implements EntityProcessor {
                 writeToFile(e5OutFile, "ERROR: Failed to create LOGLOAD record\n");
                 return false;
             }
+            runJournal.complete(RunJournal.Phase.LOGLOAD);
             
             // Complete processing
             writeToFile(e5OutFile, "End process E5..........." + getCurrentDateTime() + "\n");
@@ -126,12 +195,39 @@ public class ProcessE5Entity implements EntityProcessor {
      * This replaces the SQL*Loader operation from the shell script
      */
     private boolean loadE5DataFile() throws SQLException, IOException {
+        BulkLoadSettings settings = getBulkLoadSettings();
+        try {
+            return loadE5DataFile(settings);
+        } catch (SQLException e) {
+            if (settings.getStrategy() == BulkLoadStrategy.CONVENTIONAL) {
+                throw e;
+            }
+            // The reload truncates E5TMP, so rows committed by the failed attempt are discarded
+            // The reason goes to the load log: DailyLoad fails an entity whose .out file has "ERR" in it
+            writeToFile(e5OutFile, "WARNING: " + settings.getStrategy() + " load of E5TMP" +
+                        " failed - reloading with conventional inserts, reason in loadE5.log\n");
+            try {
+                return loadE5DataFile(settings.asConventional());
+            } finally {
+                // Written after the reload, which starts the load log again for its rejects
+                writeToFile(e5LogFile, settings.getStrategy() + " load of E5TMP" +
+                            " failed, reloaded with conventional inserts: " + e.getMessage() + "\n");
+            }
+        }
+    }
+    
+    /**
+     * Truncate E5TMP and load E5.dat with the given strategy
+     */
+    private boolean loadE5DataFile(BulkLoadSettings settings) throws SQLException, IOException {
         Connection conn = null;
         PreparedStatement truncateStmt = null;
+        PreparedStatement ps = null;
+        RejectFile rejects = null;
         
         try {
-            // Connect to database
-            conn = DriverManager.getConnection(jdbcUrl, dbUser, dbPassword);
+            // Borrow a pooled connection
+            conn = dataSource.getConnection();
             
             // First truncate the E5TMP table
             writeToFile(e5OutFile, "Truncate E5TMP Table\n");
@@ -139,82 +235,43 @@ public class ProcessE5Entity implements EntityProcessor {
             truncateStmt.executeUpdate();
             
             // Now load the data - this is a direct replacement for SQL*Loader functionality
-            // We'll use a custom function to read fixed-width data from E5.dat and insert into E5TMP
-            List<E5Record> records = parseE5DataFile(e5DatFile);
-            
-            // Prepare the insert statement
-            String insertSql = "INSERT INTO E5TMP (OUTPUTCD, EMPASGMTNUM, EMPNAME, EMPGRADECD, EMPTYPECD, " +
-                              "TOUROFDUTY, EMPWORKAREA, TPSPODIND, CSUPODIND, PARAPODIND, MNGRPODIND, " +
-                              "EMPPOSITTYPECD, FLEXPLACEIND, EMPUPDATEDT, ENTEXTRACTDT, EMPIDNUM, " +
-                              "EMPTITLE, AREACD, PHONE, EXT, PREVID, SEID, EMAIL, ICSACC, EMPPODCD, " +
-                              "GS9CNT, GS11CNT, GS12CNT, GS13CNT) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, " +
-                              "?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+            // E5.dat is streamed through the fixed-width decoder straight into the insert binds,
+            // so only the current batch is held in memory instead of the whole extract
+            writeToFile(e5OutFile, "Loading E5TMP using " + settings + "\n");
+            if (settings.getStrategy() == BulkLoadStrategy.DIRECT_PATH && !BulkLoadStrategy.isNologging(conn, "E5TMP")) {
+                writeToFile(e5OutFile, "E5TMP is LOGGING - direct-path rows will still generate full redo\n");
+            }
+            String insertSql = settings.getStrategy().insertSql("E5TMP", E5TMP_COLUMNS, E5TMP_COLUMN_COUNT);
             
-            PreparedStatement ps = conn.prepareStatement(insertSql);
+            ps = conn.prepareStatement(insertSql);
             
             // Set auto-commit to false for batch processing
             conn.setAutoCommit(false);
             
-            int batchSize = 0;
-            int totalRecords = 0;
-            
-            // Process each record
-            for (E5Record record : records) {
-                ps.setString(1, record.outputcd);
-                ps.setInt(2, record.empasgmtnum);
-                ps.setString(3, record.empname);
-                ps.setString(4, record.empgradecd);
-                ps.setString(5, record.emptypecd);
-                ps.setString(6, record.tourofduty);
-                ps.setString(7, record.empworkarea);
-                ps.setString(8, record.tpspodind);
-                ps.setString(9, record.csupodind);
-                ps.setString(10, record.parapodind);
-                ps.setString(11, record.mngrpodind);
-                ps.setString(12, record.empposittypecd);
-                ps.setString(13, record.flexplaceind);
-                ps.setDate(14, new java.sql.Date(record.empupdatedt.getTime()));
-                ps.setDate(15, new java.sql.Date(record.entextractdt.getTime()));
-                ps.setString(16, record.empidnum);
-                ps.setString(17, record.emptitle);
-                ps.setInt(18, record.areacd);
-                ps.setInt(19, record.phone);
-                ps.setInt(20, record.ext);
-                ps.setInt(21, record.previd);
-                ps.setString(22, record.seid);
-                ps.setString(23, record.email);
-                ps.setString(24, record.icsacc);
-                ps.setString(25, record.emppodcd);
-                ps.setInt(26, record.gs9cnt);
-                ps.setInt(27, record.gs11cnt);
-                ps.setInt(28, record.gs12cnt);
-                ps.setInt(29, record.gs13cnt);
-                
-                ps.addBatch();
-                batchSize++;
-                totalRecords++;
-                
-                // Execute batch at specified size
-                if (batchSize >= 1000) {
-                    ps.executeBatch();
-                    conn.commit();
-                    batchSize = 0;
-                }
-            }
+            // Short lines and rows the database refuses go to E5.bad, with the reasons
+            // in loadE5.log, and the rest of the load carries on
+            rejects = new RejectFile(Paths.get(e5BadFile), Paths.get(e5LogFile), settings.getMaxRejects());
+            FixedWidthDecoder decoder = new FixedWidthDecoder(E5_LAYOUT.getRecordLength());
+            long totalRecords = decoder.load(Paths.get(e5DatFile), conn, ps, E5TMP_BINDER,
+                settings.getBatchSize(), settings.getCommitInterval(), rejects);
+            rejectedRecords = rejects.getCount();
             
-            // Execute remaining batch
-            if (batchSize > 0) {
-                ps.executeBatch();
-                conn.commit();
+            writeToFile(e5OutFile, "Loaded " + totalRecords + " records into E5TMP table\n");
+            if (rejectedRecords > 0) {
+                writeToFile(e5OutFile, "WARNING: " + rejectedRecords + " records rejected to E5.bad - reasons in loadE5.log\n");
             }
             
-            // Create E5.bad file (empty) to indicate successful processing
-            new File(e5BadFile).createNewFile();
-            
-            writeToFile(e5OutFile, "Loaded " + totalRecords + " records into E5TMP table\n");
+            // Every line counted while staging must have been loaded or rejected
+            if (stagedExtract != null && totalRecords + rejectedRecords != stagedExtract.getLineCount()) {
+                writeToFile(e5OutFile, "ERROR: E5.dat has " + stagedExtract.getLineCount() + " lines but " +
+                            (totalRecords + rejectedRecords) + " were read\n");
+                return false;
+            }
             
             return true;
         } finally {
+            if (rejects != null) try { rejects.close(); } catch (Exception e) { /* ignore */ }
+            if (ps != null) try { ps.close(); } catch (Exception e) { /* ignore */ }
             if (truncateStmt != null) try { truncateStmt.close(); } catch (Exception e) { /* ignore */ }
             if (conn != null) try { conn.close(); } catch (Exception e) { /* ignore */ }
         }
@@ -222,8 +279,9 @@ public class ProcessE5Entity implements EntityProcessor {
     
     /**
      * Parse the E5 data file according to the loadE5.ctl fixed-width specifications
+     * No longer used by the load - kept as the reference parser for E5DecoderBenchmark
      */
-    private List<E5Record> parseE5DataFile(String filePath) throws IOException {
+    List<E5Record> parseE5DataFile(String filePath) throws IOException {
         List<E5Record> records = new ArrayList<>();
         
         try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
@@ -240,7 +298,7 @@ public class ProcessE5Entity implements EntityProcessor {
                 
                 // Parse each field from the fixed-width format
                 // This follows the positions defined in loadE5.ctl
-                record.outpucd = line.substring(0, 2).trim();
+                record.outputcd = line.substring(0, 2).trim();
                 record.empasgmtnum = parseIntOrDefault(line.substring(2, 10).trim(), 0);
                 record.empname = line.substring(10, 45).trim();
                 record.empgradecd = line.substring(45, 47).trim();
@@ -314,25 +372,12 @@ public class ProcessE5Entity implements EntityProcessor {
     }
     
     /**
-     * Check for bad records in the E5.bad file
+     * Get the number of records the load rejected to the E5.bad file
      * 
      * @return number of bad records found
      */
-    private int checkForBadRecords() throws IOException {
-        File badFile = new File(e5BadFile);
-        if (!badFile.exists() || badFile.length() == 0) {
-            return 0;
-        }
-        
-        // Count lines in the bad file to determine number of bad records
-        int lineCount = 0;
-        try (BufferedReader reader = new BufferedReader(new FileReader(badFile))) {
-            while (reader.readLine() != null) {
-                lineCount++;
-            }
-        }
-        
-        return lineCount;
+    private long checkForBadRecords() {
+        return rejectedRecords;
     }
     
     /**
@@ -343,13 +388,10 @@ public class ProcessE5Entity implements EntityProcessor {
         Statement stmt = null;
         
         try {
-            // Connect to database
-            conn = DriverManager.getConnection(jdbcUrl, dbUser, dbPassword);
+            // Borrow a pooled connection
+            conn = dataSource.getConnection();
             stmt = conn.createStatement();
-            
-            // Set NLS date format for consistency
-            writeToFile(e5OutFile, "Setting NLS_DATE_FORMAT\n");
-            stmt.execute("ALTER SESSION SET NLS_DATE_FORMAT = 'MM/DD/YYYY HH24:MI:SS'");
+            // NLS_DATE_FORMAT is set once per pooled session by EntityDataSource
             
             // Count before delete
             writeToFile(e5OutFile, "Count Before Delete EMPASGMTNUM From E5TMP Table\n");
@@ -518,12 +560,10 @@ public class ProcessE5Entity implements EntityProcessor {
         PreparedStatement ps = null;
         
         try {
-            // Connect to database
-            conn = DriverManager.getConnection(jdbcUrl, dbUser, dbPassword);
+            // Borrow a pooled connection
+            conn = dataSource.getConnection();
             
-            // Set NLS date format
             Statement stmt = conn.createStatement();
-            stmt.execute("ALTER SESSION SET NLS_DATE_FORMAT = 'MM/DD/YYYY HH24:MI:SS'");
             
             // Get the extract date from E5TMP
             String extractDate = null;
@@ -567,7 +607,7 @@ public class ProcessE5Entity implements EntityProcessor {
             // Insert LOGLOAD record
             String insertSql = "INSERT INTO LOGLOAD VALUES (?, ?, TO_DATE(? || ' ' || ?, 'MM/DD/YYYY HH24:MI:SS'), ?, ?)";
             ps = conn.prepareStatement(insertSql);
-            ps.setString(1, record.outpucd);
+            ps.setString(1, getEntityCode());
             ps.setString(2, extractDate);
             ps.setString(3, extractDate);
             ps.setString(4, currentTime);
@@ -606,7 +646,7 @@ public class ProcessE5Entity implements EntityProcessor {
     /**
      * Inner class to represent an E5 record with all its fields
      */
-    private static class E5Record {
+    static class E5Record {
         String outputcd;
         int empasgmtnum;
         String empname;
@@ -0,0 +1,89 @@
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * RejectFile - Streaming reject channel for a staging load
+ *
+ * Takes the place of the SQL*Loader bad and log files: each rejected record is
+ * written unchanged to the .bad file, so the file can be corrected and
+ * reloaded, and the record number and reason are written to the load log
+ * ("Record 12: Rejected - ORA-01722: invalid number"). The load carries on
+ * past rejected records until more than maxRejects have been rejected, like
+ * the SQL*Loader ERRORS parameter.
+ */
+public class RejectFile implements FixedWidthDecoder.RejectHandler, Closeable {
+
+    private final Path badFile;
+    private final Path logFile;
+    private final int maxRejects;
+    private final BufferedWriter bad;
+    private final BufferedWriter log;
+    private long count;
+
+    /**
+     * Open the reject channel, truncating any bad and log files from an earlier load
+     *
+     * @param badFile receives the rejected records
+     * @param logFile receives the reason for each reject
+     * @param maxRejects rejects allowed before the load is stopped
+     */
+    public RejectFile(Path badFile, Path logFile, int maxRejects) throws IOException {
+        this.badFile = badFile;
+        this.logFile = logFile;
+        this.maxRejects = maxRejects;
+        this.bad = Files.newBufferedWriter(badFile, StandardCharsets.ISO_8859_1);
+        try {
+            this.log = Files.newBufferedWriter(logFile, StandardCharsets.ISO_8859_1);
+        } catch (IOException e) {
+            try { bad.close(); } catch (Exception ce) { /* ignore */ }
+            throw e;
+        }
+    }
+
+    /**
+     * Write a rejected record and its reason
+     *
+     * @throws IOException once more than maxRejects records have been rejected
+     */
+    @Override
+    public void reject(long lineNumber, String record, String reason) throws IOException {
+        bad.write(record);
+        bad.newLine();
+        log.write("Record " + lineNumber + ": Rejected - " + reason.replace('\n', ' ').trim());
+        log.newLine();
+        if (++count > maxRejects) {
+            bad.flush();
+            log.flush();
+            throw new IOException("MAXIMUM REJECT COUNT EXCEEDED - " + count + " records rejected to " +
+                                  badFile.getFileName() + ", limit is " + maxRejects);
+        }
+    }
+
+    /**
+     * Number of records rejected so far
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public Path getBadFile() {
+        return badFile;
+    }
+
+    public Path getLogFile() {
+        return logFile;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            bad.close();
+        } finally {
+            log.close();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * RunJournal - Durable record of the daily load phases completed per entity
+ *
+ * Each completed phase is appended to a tab separated journal file and synced
+ * to disk before the load moves on:
+ *   run date, entity, phase, extract SHA-256, completion time
+ * A rerun for the same run date reads the journal back, so an entity whose
+ * extract has the same content hash resumes at the phase that failed instead
+ * of being loaded again, and an entity that reached LOGLOAD is not touched.
+ * A different hash means a new extract, which starts again from the beginning.
+ * The expected extract date is journaled as well, since once an entity has
+ * written its LOGLOAD record the date can no longer be worked out from LOGLOAD.
+ */
+public class RunJournal {
+
+    /**
+     * Daily load phases, in the order they complete
+     */
+    public enum Phase {
+        VALIDATE,   // Extract date checked against the expected date
+        COPY,       // Extract staged in the LOAD directory
+        STAGE,      // Staging table loaded and its rejects within the limit
+        SQL_OPS,    // Entity SQL operations committed
+        LOGLOAD     // LOGLOAD record written - the entity is done
+    }
+
+    // Journal file kept in the log directory
+    public static final String FILE_NAME = "dailyload.journal";
+
+    // Pseudo-entity for run-level records
+    private static final String RUN = "RUN";
+    private static final String EXPECTED_DATE = "EXPECTED_DATE";
+    private static final String RESET = "RESET";
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm:ss");
+
+    private final Path file;
+    private final String runDate;
+    private String expectedExtractDate;
+    private final Map<String, String> entityHashes = new HashMap<>();
+    private final Map<String, Set<Phase>> completed = new HashMap<>();
+
+    private RunJournal(Path file, String runDate) {
+        this.file = file;
+        this.runDate = runDate;
+    }
+
+    /**
+     * Open the journal for a run date, reading back what earlier runs for that date completed
+     *
+     * @param file journal file, created if it does not exist
+     * @param runDate the MM/DD/YYYY date the daily load is run for
+     * @param fresh true to ignore earlier runs for the date and load everything again
+     */
+    public static RunJournal open(Path file, String runDate, boolean fresh) throws IOException {
+        RunJournal journal = new RunJournal(file, runDate.replace('\t', ' '));
+        if (fresh) {
+            journal.append(RUN, RESET, "-");
+            return journal;
+        }
+        if (Files.exists(file)) {
+            for (String line : Files.readAllLines(file, StandardCharsets.ISO_8859_1)) {
+                String[] fields = line.split("\t");
+                if (fields.length >= 4 && fields[0].equals(journal.runDate)) {
+                    journal.replay(fields[1], fields[2], fields[3]);
+                }
+            }
+        }
+        return journal;
+    }
+
+    private void replay(String entity, String phase, String value) {
+        if (RUN.equals(entity)) {
+            if (RESET.equals(phase)) {
+                expectedExtractDate = null;
+                entityHashes.clear();
+                completed.clear();
+            } else if (EXPECTED_DATE.equals(phase)) {
+                expectedExtractDate = value;
+            }
+            return;
+        }
+        Phase completedPhase;
+        try {
+            completedPhase = Phase.valueOf(phase);
+        } catch (IllegalArgumentException e) {
+            return;  // Written by a later version
+        }
+        if (!value.equals(entityHashes.get(entity))) {
+            entityHashes.put(entity, value);  // New extract content - earlier phases no longer count
+            completed.put(entity, EnumSet.noneOf(Phase.class));
+        }
+        completed.get(entity).add(completedPhase);
+    }
+
+    /**
+     * Expected extract date recorded by an earlier run for this date
+     *
+     * @return the YYYYMMDD date, or null if this is the first run for the date
+     */
+    public synchronized String getExpectedExtractDate() {
+        return expectedExtractDate;
+    }
+
+    public synchronized void recordExpectedExtractDate(String extractDate) throws IOException {
+        append(RUN, EXPECTED_DATE, extractDate);
+        expectedExtractDate = extractDate;
+    }
+
+    /**
+     * Phases an earlier run for this date completed for an entity, as a log message
+     */
+    public synchronized String describe(String entity) {
+        Set<Phase> phases = completed.get(entity);
+        return phases == null || phases.isEmpty() ? "no phases completed" : "completed " + phases;
+    }
+
+    /**
+     * Journal for one entity's extract
+     * Phases completed earlier for the same content hash count as done; any
+     * earlier phases for other content are discarded.
+     */
+    public synchronized EntityJournal forEntity(String entity, String sha256) {
+        if (!sha256.equals(entityHashes.get(entity))) {
+            entityHashes.put(entity, sha256);
+            completed.put(entity, EnumSet.noneOf(Phase.class));
+        }
+        return new EntityJournal(this, entity, sha256);
+    }
+
+    private synchronized boolean isComplete(String entity, String sha256, Phase phase) {
+        Set<Phase> phases = completed.get(entity);
+        return sha256.equals(entityHashes.get(entity)) && phases != null && phases.contains(phase);
+    }
+
+    private synchronized void complete(String entity, String sha256, Phase phase) throws IOException {
+        if (isComplete(entity, sha256, phase)) {
+            return;
+        }
+        append(entity, phase.name(), sha256);
+        entityHashes.put(entity, sha256);
+        completed.computeIfAbsent(entity, e -> EnumSet.noneOf(Phase.class)).add(phase);
+    }
+
+    /**
+     * Append one record and sync it to disk before returning
+     */
+    private void append(String entity, String phase, String value) throws IOException {
+        List<String> record = new ArrayList<>(1);
+        record.add(runDate + "\t" + entity + "\t" + phase + "\t" + value + "\t" +
+                   LocalDateTime.now().format(TIME_FORMAT));
+        Files.write(file, record, StandardCharsets.ISO_8859_1,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.DSYNC);
+    }
+
+    /**
+     * Completed phases of one entity's extract, as seen by its processor
+     */
+    public static class EntityJournal {
+
+        /** Journal for a processor run outside DailyLoad - nothing is complete and nothing is recorded */
+        public static final EntityJournal UNTRACKED = new EntityJournal(null, null, null);
+
+        private final RunJournal journal;
+        private final String entity;
+        private final String sha256;
+
+        private EntityJournal(RunJournal journal, String entity, String sha256) {
+            this.journal = journal;
+            this.entity = entity;
+            this.sha256 = sha256;
+        }
+
+        /**
+         * @return true if the phase was completed for this extract, by this run or an earlier one
+         */
+        public boolean isComplete(Phase phase) {
+            return journal != null && journal.isComplete(entity, sha256, phase);
+        }
+
+        /**
+         * Record the phase as complete
+         */
+        public void complete(Phase phase) throws IOException {
+            if (journal != null) {
+                journal.complete(entity, sha256, phase);
+            }
+        }
+    }
+}
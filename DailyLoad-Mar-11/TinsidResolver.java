@@ -0,0 +1,206 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+
+/**
+ * TinsidResolver - In-memory (TIN, TINIT, TINFS) to TINSID lookup over ENT
+ * Replaces the correlated "SELECT tinsid FROM ENT WHERE ... and rownum = 1"
+ * UPDATE of E3TMP.ACTSID: ENT is read once and ProcessE3Entity stamps the id
+ * on each row as it is inserted. As with rownum = 1, the first ENT row read for
+ * a key wins.
+ *
+ * The table is off-heap (one direct buffer of 16-byte slots holding the packed
+ * key and the TINSID), so 20M+ ENT rows cost no GC work and no per-entry
+ * objects. Keys are packed as TIN * 100 + TINIT * 10 + TINFS; the few ENT rows
+ * that do not fit that shape are kept in a small on-heap map.
+ *
+ * The table is read once per load and never refreshed, so a resolver must not
+ * be kept across loads.
+ */
+public class TinsidResolver {
+
+    // Returned by resolve when ENT has no row for the key
+    public static final long NOT_FOUND = -1L;
+
+    private static final int SLOT_BYTES = 16;          // Packed key + 1, TINSID
+    private static final int MAX_SLOTS = 1 << 26;      // 1 GiB, slot offsets stay within an int
+    private static final double MAX_LOAD = 0.7;
+    private static final long MAX_PACKED_TIN = 1_000_000_000_000_000L;
+    private static final int FETCH_SIZE = 10000;
+
+    private ByteBuffer slots;
+    private int mask;
+    private int size;
+    private final Map<String, Long> unpacked = new HashMap<>();
+
+    private TinsidResolver(int capacity) {
+        this.slots = ByteBuffer.allocateDirect(capacity * SLOT_BYTES).order(ByteOrder.nativeOrder());
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Read ENT into a new resolver
+     *
+     * @param dataSource Pooled connections for the als schema
+     * @return the resolver, holding the first TINSID of every key in ENT
+     */
+    public static TinsidResolver load(DataSource dataSource) throws SQLException {
+        Connection conn = null;
+        Statement countStmt = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+
+        try {
+            // Borrow a pooled connection
+            conn = dataSource.getConnection();
+
+            // Size the table from the row count so it rarely has to grow
+            countStmt = conn.createStatement();
+            rs = countStmt.executeQuery("SELECT COUNT(*) FROM ENT");
+            rs.next();
+            TinsidResolver resolver = new TinsidResolver(capacityFor(rs.getLong(1)));
+            rs.close();
+            rs = null;
+
+            ps = conn.prepareStatement("SELECT TIN, TINIT, TINFS, TINSID FROM ENT");
+            ps.setFetchSize(FETCH_SIZE);
+            rs = ps.executeQuery();
+            while (rs.next()) {
+                long tin = rs.getLong(1);
+                boolean tinNull = rs.wasNull();
+                int tinType = rs.getInt(2);
+                boolean tinTypeNull = rs.wasNull();
+                int fileSource = rs.getInt(3);
+                boolean fileSourceNull = rs.wasNull();
+                long tinsid = rs.getLong(4);
+                if (tinNull || tinTypeNull || fileSourceNull || rs.wasNull()) {
+                    continue;  // NULL never matches the E3TMP columns
+                }
+                resolver.put(tin, tinType, fileSource, tinsid);
+            }
+
+            return resolver;
+        } finally {
+            if (rs != null) try { rs.close(); } catch (Exception e) { /* ignore */ }
+            if (ps != null) try { ps.close(); } catch (Exception e) { /* ignore */ }
+            if (countStmt != null) try { countStmt.close(); } catch (Exception e) { /* ignore */ }
+            if (conn != null) try { conn.close(); } catch (Exception e) { /* ignore */ }
+        }
+    }
+
+    /**
+     * TINSID of the first ENT row for the key
+     *
+     * @return the TINSID, or NOT_FOUND
+     */
+    public long resolve(long tin, int tinType, int fileSource) {
+        if (!packable(tin, tinType, fileSource)) {
+            Long tinsid = unpacked.get(tin + "|" + tinType + "|" + fileSource);
+            return tinsid == null ? NOT_FOUND : tinsid;
+        }
+        long stored = (tin * 100 + tinType * 10 + fileSource) + 1;
+        int slot = hash(stored) & mask;
+        while (true) {
+            long key = slots.getLong(slot * SLOT_BYTES);
+            if (key == stored) {
+                return slots.getLong(slot * SLOT_BYTES + 8);
+            }
+            if (key == 0) {
+                return NOT_FOUND;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Number of distinct keys held
+     */
+    public int size() {
+        return size + unpacked.size();
+    }
+
+    /**
+     * Add a key unless it is already held, so the first row read wins
+     */
+    private void put(long tin, int tinType, int fileSource, long tinsid) {
+        if (!packable(tin, tinType, fileSource)) {
+            unpacked.putIfAbsent(tin + "|" + tinType + "|" + fileSource, tinsid);
+            return;
+        }
+        if (putPacked((tin * 100 + tinType * 10 + fileSource) + 1, tinsid) && size > (mask + 1) * MAX_LOAD) {
+            grow();  // ENT gained rows between the count and the read
+        }
+    }
+
+    private boolean putPacked(long stored, long tinsid) {
+        int slot = hash(stored) & mask;
+        while (true) {
+            long key = slots.getLong(slot * SLOT_BYTES);
+            if (key == 0) {
+                slots.putLong(slot * SLOT_BYTES + 8, tinsid);
+                slots.putLong(slot * SLOT_BYTES, stored);
+                size++;
+                return true;
+            }
+            if (key == stored) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Move every key to a table with twice the slots
+     */
+    private void grow() {
+        if ((mask + 1) >= MAX_SLOTS) {
+            throw new IllegalStateException("ENT has too many rows for the resolver: " + size);
+        }
+        ByteBuffer old = slots;
+        int oldSlots = mask + 1;
+        slots = ByteBuffer.allocateDirect(oldSlots * 2 * SLOT_BYTES).order(ByteOrder.nativeOrder());
+        mask = oldSlots * 2 - 1;
+        size = 0;
+        for (int slot = 0; slot < oldSlots; slot++) {
+            long key = old.getLong(slot * SLOT_BYTES);
+            if (key != 0) {
+                putPacked(key, old.getLong(slot * SLOT_BYTES + 8));
+            }
+        }
+    }
+
+    private static boolean packable(long tin, int tinType, int fileSource) {
+        return tin >= 0 && tin < MAX_PACKED_TIN && tinType >= 0 && tinType <= 9 && fileSource >= 0 && fileSource <= 9;
+    }
+
+    /**
+     * Smallest power of two that keeps entries under MAX_LOAD, plus growth room
+     */
+    private static int capacityFor(long entries) {
+        long needed = (long) ((entries + entries / 16 + 1024) / MAX_LOAD) + 1;
+        if (needed > MAX_SLOTS) {
+            throw new IllegalStateException("ENT has too many rows for the resolver: " + entries);
+        }
+        int capacity = Integer.highestOneBit((int) needed);
+        return capacity < needed ? capacity << 1 : capacity;
+    }
+
+    /**
+     * 64-bit finalizer from MurmurHash3, folded to an int
+     */
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb93e53fe1a85L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
@@ -5,6 +5,7 @@ import gov.irs.sbse.os.ts.csp.alsentity.ale.model.TableValidationResult;
 import gov.irs.sbse.os.ts.csp.alsentity.ale.repository.EntityRepository;
 import gov.irs.sbse.os.ts.csp.alsentity.ale.service.BatchRunJobService;
 import gov.irs.sbse.os.ts.csp.alsentity.ale.service.DatabaseSnapshotService;
+import gov.irs.sbse.os.ts.csp.alsentity.ale.service.LoadCountService;
 import gov.irs.sbse.os.ts.csp.alsentity.ale.service.LogLoadService;
 import gov.irs.sbse.os.ts.csp.alsentity.ale.service.MaterializedViewService;
 import gov.irs.sbse.os.ts.csp.alsentity.ale.IntegrationTestUtil;
@@ -50,6 +51,9 @@ public class DailyRunner {
     @Autowired
     private LogLoadService logLoadService;
     
+    @Autowired
+    private LoadCountService loadCountService;
+    
     @Autowired
     private JdbcTemplate jdbcTemplate;
     
@@ -187,9 +191,8 @@ public class DailyRunner {
                                     CompletableFuture<Void> e5Future = CompletableFuture.runAsync(() -> {
                                         try {
                                             batchRunJobService.runE5Job();
-                                            Thread.sleep(100);
-                                            Integer recordCount = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ENTMGR", Integer.class);
-                                            insertLogLoadRecord(jobCode, getPriorSnapshotDate(), recordCount != null ? recordCount : 0);
+                                            int recordCount = loadCountService.getRecordCount(jobCode, "ENTMGR");
+                                            insertLogLoadRecord(jobCode, getPriorSnapshotDate(), recordCount);
                                         } catch (Exception e) {
                                             System.out.println("Error executing E5 job: " + e.getMessage());
                                             e.printStackTrace();
@@ -202,9 +205,8 @@ public class DailyRunner {
                                     CompletableFuture<Void> e3Future = CompletableFuture.runAsync(() -> {
                                         try {
                                             batchRunJobService.runE3Job(true);
-                                            Thread.sleep(100);
-                                            Integer recordCount = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ENTACT", Integer.class);
-                                            insertLogLoadRecord(jobCode, getPriorSnapshotDate(), recordCount != null ? recordCount : 0);
+                                            int recordCount = loadCountService.getRecordCount(jobCode, "ENTACT");
+                                            insertLogLoadRecord(jobCode, getPriorSnapshotDate(), recordCount);
                                         } catch (Exception e) {
                                             System.out.println("Error executing E3 job: " + e.getMessage());
                                             e.printStackTrace();
@@ -217,9 +219,8 @@ public class DailyRunner {
                                     CompletableFuture<Void> e8Future = CompletableFuture.runAsync(() -> {
                                         try {
                                             batchRunJobService.runE8Job();
-                                            Thread.sleep(100);
-                                            Integer recordCount = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM TIMENTM", Integer.class);
-                                            insertLogLoadRecord(jobCode, getPriorSnapshotDate(), recordCount != null ? recordCount : 0);
+                                            int recordCount = loadCountService.getRecordCount(jobCode, "TIMENTM");
+                                            insertLogLoadRecord(jobCode, getPriorSnapshotDate(), recordCount);
                                         } catch (Exception e) {
                                             System.out.println("Error executing E8 job: " + e.getMessage());
                                             e.printStackTrace();
@@ -232,9 +233,8 @@ public class DailyRunner {
                                     CompletableFuture<Void> e7Future = CompletableFuture.runAsync(() -> {
                                         try {
                                             batchRunJobService.runE7Job();
-                                            Thread.sleep(100);
-                                            Integer recordCount = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM TIMENTIN", Integer.class);
-                                            insertLogLoadRecord(jobCode, getPriorSnapshotDate(), recordCount != null ? recordCount : 0);
+                                            int recordCount = loadCountService.getRecordCount(jobCode, "TIMENTIN");
+                                            insertLogLoadRecord(jobCode, getPriorSnapshotDate(), recordCount);
                                         } catch (Exception e) {
                                             System.out.println("Error executing E7 job: " + e.getMessage());
                                             e.printStackTrace();
@@ -247,9 +247,8 @@ public class DailyRunner {
                                     CompletableFuture<Void> e9Future = CompletableFuture.runAsync(() -> {
                                         try {
                                             batchRunJobService.runE9Job();
-                                            Thread.sleep(100);
-                                            Integer recordCount = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM entmod", Integer.class);
-                                            insertLogLoadRecord(jobCode, getPriorSnapshotDate(), recordCount != null ? recordCount : 0);
+                                            int recordCount = loadCountService.getRecordCount(jobCode, "entmod");
+                                            insertLogLoadRecord(jobCode, getPriorSnapshotDate(), recordCount);
                                         } catch (Exception e) {
                                             System.out.println("Error executing E9 job: " + e.getMessage());
                                             e.printStackTrace();
@@ -1,33 +1,38 @@
 package com.abc.sbse.os.ts.csp.alsentity.ale.config;
 
+import java.nio.file.Paths;
+
 import javax.sql.DataSource;
 
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
 import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
 import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.SimpleStepBuilder;
 import org.springframework.batch.core.step.builder.StepBuilder;
-import org.springframework.batch.item.database.BeanPropertyItemSqlParameterSourceProvider;
+import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.database.JdbcBatchItemWriter;
 import org.springframework.batch.item.file.FlatFileItemReader;
 import org.springframework.batch.item.file.LineMapper;
-import org.springframework.batch.item.file.mapping.DefaultLineMapper;
-import org.springframework.batch.item.file.transform.FixedLengthTokenizer;
-import org.springframework.batch.item.file.transform.Range;
 import org.springframework.batch.repeat.RepeatStatus;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.transaction.PlatformTransactionManager;
 
 import com.abc.sbse.os.ts.csp.alsentity.ale.data.E9Record;
 import com.abc.sbse.os.ts.csp.alsentity.ale.listener.JobCompletionNotificationListener;
-import com.abc.sbse.os.ts.csp.alsentity.ale.mapper.E9RecordFieldSetMapper;
+import com.abc.sbse.os.ts.csp.alsentity.ale.mapper.E9RecordLineMapper;
+import com.abc.sbse.os.ts.csp.alsentity.ale.service.TinsidResolver;
+import com.abc.sbse.os.ts.csp.alsentity.ale.util.IndexedItemPreparedStatementSetter;
+import com.abc.sbse.os.ts.csp.alsentity.ale.util.InputFileRestartGuard;
 
 /**
  * Configuration for loading E9 data files into database
@@ -43,16 +48,32 @@ public class E9LoadConfiguration {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    @Lazy
+    private TinsidResolver entTinsidResolver;
+
     @Value("${E9:./data/E9.dat}")
     private String E9_FILE_PATH;
 
+    /**
+     * staging (default) inserts into E9TMP for the processE9Job MERGEs,
+     * merge writes each chunk straight into TRANTRAIL and ENT
+     */
+    @Value("${E9_LOAD_MODE:staging}")
+    private String e9LoadMode;
+
     /**
      * Creates a reader for E9 data files
      * Configures according to the CTL file specifications
+     * The line count is saved with each chunk so a restart resumes after the last committed
+     * chunk. Merge mode reads the whole file again on restart instead, as the job restores
+     * TRANTRAIL and ENT before it runs and the chunk MERGEs can be replayed.
      */
     @Bean
     public FlatFileItemReader<E9Record> E9Reader() {
         FlatFileItemReader<E9Record> reader = new FlatFileItemReader<>();
+        reader.setName("E9Reader");
+        reader.setSaveState(!E9MergeItemWriter.isMergeMode(e9LoadMode));
         reader.setResource(new FileSystemResource(E9_FILE_PATH));
         reader.setLineMapper(E9LineMapper());
         reader.setStrict(false); // Allow for recovery on parsing errors
@@ -64,73 +85,20 @@ public class E9LoadConfiguration {
      */
     @Bean
     public LineMapper<E9Record> E9LineMapper() {
-        DefaultLineMapper<E9Record> lineMapper = new DefaultLineMapper<>();
-        lineMapper.setLineTokenizer(E9FixedLengthTokenizer());
-        lineMapper.setFieldSetMapper(E9FieldSetMapper());
-        return lineMapper;
+        return new E9RecordLineMapper();
     }
 
     /**
-     * Configures the fixed length tokenizer according to the CTL file
+     * Stamps CASESID with the TINSID of the first ENT row for the TIN, TINTYPE and FILESOURCECD,
+     * left NULL when ENT has none, in place of a correlated UPDATE over E9TMP
      */
     @Bean
-    public FixedLengthTokenizer E9FixedLengthTokenizer() {
-        FixedLengthTokenizer tokenizer = new FixedLengthTokenizer();
-        tokenizer.setStrict(false); // Allow for flexibility in line length
-        
-        // Define field names as specified in CTL file
-        tokenizer.setNames(
-            "OUTPUTCD", "ENTEXTRACTDT", "RPTENDINGDT", "TIN", "FILESOURCECD", 
-            "TINTYPE", "ASGMNTNUM", "TXPVRNUMTRLCD", "TXPVRMCTRLCD", "ENTCASECD", 
-            "ENTSUBCASECD", "CYCTOUCHCNT", "TOUCHCNT", "LATESTTOUCHDT", "INPUTHRS", 
-            "TOTALCASEHRS", "CASEIDCD", "INVITENSTATECD", "INVITEMCLSDT", "INVITEMTYPECD", 
-            "INVITEMCTRLID", "NDSUBCASECD", "RCPTEXT", "CASESTATUS", "CASEROCLOSEDDT", 
-            "CASEHOSTCLSDT", "ENTMODDISPCD", "ENTMODCLSNGCD", "INITCONTCTDT", "INITCONTCTDUDT"
-        );
-
-        // Set column ranges exactly as defined in CTL file
-        tokenizer.setColumns(
-            new Range(1, 2),      // OUTPUTCD
-            new Range(3, 10),     // ENTEXTRACTDT
-            new Range(11, 18),    // RPTENDINGDT
-            new Range(19, 27),    // TIN
-            new Range(28, 28),    // FILESOURCECD
-            new Range(29, 29),    // TINTYPE
-            new Range(30, 37),    // ASGMNTNUM
-            new Range(38, 72),    // TXPVRNUMTRLCD
-            new Range(73, 76),    // TXPVRMCTRLCD
-            new Range(77, 79),    // ENTCASECD
-            new Range(80, 82),    // ENTSUBCASECD
-            new Range(83, 84),    // CYCTOUCHCNT
-            new Range(85, 88),    // TOUCHCNT
-            new Range(89, 96),    // LATESTTOUCHDT
-            new Range(97, 102),   // INPUTHRS
-            new Range(103, 108),  // TOTALCASEHRS
-            new Range(109, 109),  // CASEIDCD
-            new Range(110, 110),  // INVITENSTATECD
-            new Range(111, 118),  // INVITEMCLSDT
-            new Range(119, 119),  // INVITEMTYPECD
-            new Range(120, 127),  // INVITEMCTRLID
-            new Range(128, 130),  // NDSUBCASECD
-            new Range(131, 133),  // RCPTEXT
-            new Range(134, 134),  // CASESTATUS
-            new Range(135, 142),  // CASEROCLOSEDDT
-            new Range(143, 150),  // CASEHOSTCLSDT
-            new Range(151, 152),  // ENTMODDISPCD
-            new Range(153, 155),  // ENTMODCLSNGCD
-            new Range(156, 163),  // INITCONTCTDT
-            new Range(164, 171)   // INITCONTCTDUDT
-        );
-        
-        return tokenizer;
-    }
-
-    /**
-     * Creates field set mapper for E9 records
-     */
-    @Bean
-    public E9RecordFieldSetMapper E9FieldSetMapper() {
-        return new E9RecordFieldSetMapper();
+    public ItemProcessor<E9Record, E9Record> E9TinsidProcessor() {
+        return record -> {
+            long tinsid = entTinsidResolver.resolve(record.getTin(), record.getTinType(), record.getFileSourceCd());
+            record.setCaseSid(tinsid == TinsidResolver.NOT_FOUND ? null : String.valueOf(tinsid));
+            return record;
+        };
     }
 
     /**
@@ -139,27 +107,37 @@ public class E9LoadConfiguration {
     @Bean
     public JdbcBatchItemWriter<E9Record> E9Writer() {
         JdbcBatchItemWriter<E9Record> writer = new JdbcBatchItemWriter<>();
-        writer.setItemSqlParameterSourceProvider(new BeanPropertyItemSqlParameterSourceProvider<>());
         writer.setDataSource(dataSource);
         
         // SQL insert statement with all fields from the E9 record
-        writer.setSql("INSERT INTO E9TMP (" +
+        IndexedItemPreparedStatementSetter<E9Record> setter = IndexedItemPreparedStatementSetter.forNamedSql(E9Record.class,
+                "INSERT INTO E9TMP (" +
                 "OUTPUTCD, TIN, FILESOURCECD, TINTYPE, ASGMNTNUM, TXPVRNUMTRLCD, TXPVRMCTRLCD, " +
                 "ENTCASECD, ENTSUBCASECD, CYCTOUCHCNT, TOUCHCNT, INPUTHRS, TOTALCASEHRS, " +
                 "CASEIDCD, INVITENSTATECD, INVITEMTYPECD, INVITEMCTRLID, NDSUBCASECD, RCPTEXT, " +
                 "CASESTATUS, ENTMODDISPCD, ENTMODCLSNGCD, ENTEXTRACTDT, RPTENDINGDT, LATESTTOUCHDT, " +
-                "INVITEMCLSDT, CASEROCLOSEDDT, CASEHOSTCLSDT, INITCONTCTDT, INITCONTCTDUDT" +
+                "INVITEMCLSDT, CASEROCLOSEDDT, CASEHOSTCLSDT, INITCONTCTDT, INITCONTCTDUDT, CASESID" +
                 ") VALUES (" +
                 ":outputCd, :tin, :fileSourceCd, :tinType, :asgmntNum, :txpVrNumTrlCd, :txpVrMCtrlCd, " +
                 ":entCaseCd, :entSubCaseCd, :cycTouchCnt, :touchCnt, :inputHrs, :totalCaseHrs, " +
                 ":caseIdCd, :invItenStateCd, :invItemTypeCd, :invItemCtrlId, :ndSubCaseCd, :rcpText, " +
                 ":caseStatus, :entModDispCd, :entModClsngCd, :entExtractDt, :rptEndingDt, :latestTouchDt, " +
-                ":invItemClsDt, :caseRoClosedDt, :caseHostClsDt, :initContCtDt, :initContCtDuDt" +
+                ":invItemClsDt, :caseRoClosedDt, :caseHostClsDt, :initContCtDt, :initContCtDuDt, :caseSid" +
                 ")");
+        writer.setSql(setter.getSql());
+        writer.setItemPreparedStatementSetter(setter);
         
         return writer;
     }
 
+    /**
+     * Chunk MERGE writer for E9_LOAD_MODE=merge, which bypasses E9TMP
+     */
+    @Bean
+    public E9MergeItemWriter E9MergeWriter() {
+        return new E9MergeItemWriter(jdbcTemplate);
+    }
+
     /**
      * Step to clear E9TMP table before loading
      */
@@ -174,16 +152,27 @@ public class E9LoadConfiguration {
 
     /**
      * Step to load E9 data file into table
+     * A restart of a failed load resumes after the last committed chunk of the same file
+     * In merge mode the chunks are merged into TRANTRAIL and ENT instead of E9TMP
      */
     @Bean(name = "loadE9FileToTableStep")
     public Step loadE9FileToTableStep(JobRepository jobRepository, PlatformTransactionManager transactionManager,
                                      FlatFileItemReader<E9Record> E9Reader, 
-                                     JdbcBatchItemWriter<E9Record> E9Writer) {
-        return new StepBuilder("loadE9FileToTableStep", jobRepository)
+                                     ItemProcessor<E9Record, E9Record> E9TinsidProcessor,
+                                     JdbcBatchItemWriter<E9Record> E9Writer,
+                                     E9MergeItemWriter E9MergeWriter,
+                                     StepExecutionListener entTinsidRefreshListener) {
+        boolean mergeMode = E9MergeItemWriter.isMergeMode(e9LoadMode);
+        SimpleStepBuilder<E9Record, E9Record> step = new StepBuilder("loadE9FileToTableStep", jobRepository)
                 .<E9Record, E9Record>chunk(5000, transactionManager)
                 .reader(E9Reader)
-                .writer(E9Writer)
-                .build();
+                .processor(E9TinsidProcessor)
+                .writer(mergeMode ? E9MergeWriter : E9Writer)
+                .listener(entTinsidRefreshListener);
+        if (!mergeMode) {
+            step.listener(new InputFileRestartGuard(Paths.get(E9_FILE_PATH)));
+        }
+        return step.build();
     }
 
     /**
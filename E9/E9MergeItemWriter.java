@@ -0,0 +1,320 @@
+package com.abc.sbse.os.ts.csp.alsentity.ale.config;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.abc.sbse.os.ts.csp.alsentity.ale.data.E9Record;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes each chunk of E9 records straight into TRANTRAIL and ENT, in place of the
+ * E9TMP insert and the set-based MERGEs that read E9TMP back after validation
+ *
+ * A chunk is grouped in memory the way the staging MERGEs group E9TMP, then each
+ * group is bound as one row of a JDBC batch of single-row MERGEs, so a chunk is two
+ * round trips whatever its size and the rows are written once. The groups keep the
+ * max touch count and hours of their records. A row matched by an earlier chunk of
+ * the same extract date keeps the greater of its values and the chunk's, so the
+ * result over the whole file is the max over the file, as with the staging MERGEs.
+ * Rows last set by another extract date take the chunk's values.
+ *
+ * Two records of one chunk for the same ENT key or TRANTRAIL case and assignment
+ * that disagree on extract date or case codes fail the chunk, as ORA-30926 fails the
+ * staging MERGE. The same disagreement across chunks is not detected: the later
+ * chunk's codes win. A rerun of an extract date that lowers a count or hours does
+ * not lower them; use the staging mode to reload such a file.
+ *
+ * The writer is a listener of its step, registered by the step builder. It counts
+ * the records it writes and keeps their extract date for the LOGLOAD record of the run.
+ */
+@Slf4j
+public class E9MergeItemWriter implements ItemWriter<E9Record>, StepExecutionListener {
+
+    /**
+     * Value of E9_LOAD_MODE that selects this writer, in place of the default staging
+     */
+    public static final String MERGE_MODE = "merge";
+
+    static final String TRANTRAIL_MERGE_SQL =
+            "MERGE INTO TRANTRAIL t " +
+            "USING (SELECT ? CASESID, ? ASGMNTNUM, ? TOUCHCNT, ? INPUTHRS, ? ENTEXTRACTDT FROM dual) s " +
+            "ON (t.TINSID = s.CASESID AND t.ROID = s.ASGMNTNUM AND t.STATUS = 'O') " +
+            "WHEN MATCHED THEN UPDATE SET " +
+            "    t.TOUCH = CASE WHEN t.EXTRDT = s.ENTEXTRACTDT " +
+            "        THEN GREATEST(NVL(t.TOUCH, s.TOUCHCNT), NVL(s.TOUCHCNT, t.TOUCH)) ELSE s.TOUCHCNT END, " +
+            "    t.HRS = CASE WHEN t.EXTRDT = s.ENTEXTRACTDT " +
+            "        THEN GREATEST(NVL(t.HRS, s.INPUTHRS), NVL(s.INPUTHRS, t.HRS)) ELSE s.INPUTHRS END, " +
+            "    t.EXTRDT = s.ENTEXTRACTDT";
+
+    static final String ENT_MERGE_SQL =
+            "MERGE INTO ENT e " +
+            "USING (SELECT ? TMPTIN, ? FILESOURCECD, ? TINTYPE, ? ENTEXTRACTDT, ? TOUCHCNT, ? CASEHRS, " +
+            "    ? CASEIDCD, ? ENTCASECD, ? ENTSUBCASECD FROM dual) s " +
+            "ON (e.TIN = s.TMPTIN AND e.TINFS = s.FILESOURCECD AND e.TINTT = s.TINTYPE) " +
+            "WHEN MATCHED THEN UPDATE SET " +
+            "    e.TOTTOUCH = CASE WHEN e.EXTRDT = s.ENTEXTRACTDT " +
+            "        THEN GREATEST(NVL(e.TOTTOUCH, s.TOUCHCNT), NVL(s.TOUCHCNT, e.TOTTOUCH)) ELSE s.TOUCHCNT END, " +
+            "    e.TOTHRS = CASE WHEN e.EXTRDT = s.ENTEXTRACTDT " +
+            "        THEN GREATEST(NVL(e.TOTHRS, s.CASEHRS), NVL(s.CASEHRS, e.TOTHRS)) ELSE s.CASEHRS END, " +
+            "    e.CASEIID = s.CASEIDCD, " +
+            "    e.CASECODE = s.ENTCASECD, " +
+            "    e.SUBCODE = s.ENTSUBCASECD, " +
+            "    e.EXTRDT = s.ENTEXTRACTDT";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Read by the LOGLOAD step, which runs on another thread after the load step
+    private volatile boolean started;
+    private volatile long recordCount;
+    private volatile LocalDate extractDate;
+
+    public E9MergeItemWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * True when E9_LOAD_MODE selects the chunk MERGE writer
+     */
+    public static boolean isMergeMode(String loadMode) {
+        return MERGE_MODE.equalsIgnoreCase(loadMode == null ? null : loadMode.trim());
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        started = true;
+        recordCount = 0;
+        extractDate = null;
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        log.info("Merged {} E9 records for extract date {} into TRANTRAIL and ENT", recordCount, extractDate);
+        return stepExecution.getExitStatus();
+    }
+
+    @Override
+    public void write(Chunk<? extends E9Record> chunk) throws Exception {
+        Map<List<Object>, TranTrailRow> tranTrailRows = new LinkedHashMap<>();
+        Map<List<Object>, EntRow> entRows = new LinkedHashMap<>();
+        LocalDate chunkExtractDate = null;
+
+        for (E9Record record : chunk) {
+            if (record.getEntExtractDt() != null
+                    && (chunkExtractDate == null || record.getEntExtractDt().isAfter(chunkExtractDate))) {
+                chunkExtractDate = record.getEntExtractDt();
+            }
+
+            // TINSID = NULL matches no TRANTRAIL row, as in the staging MERGE
+            if (record.getCaseSid() != null) {
+                List<Object> caseKey = Arrays.asList(record.getCaseSid(), record.getAsgmntNum());
+                TranTrailRow row = tranTrailRows.get(caseKey);
+                if (row == null) {
+                    tranTrailRows.put(caseKey, new TranTrailRow(record));
+                } else {
+                    row.add(record);
+                }
+            }
+
+            List<Object> entKey = Arrays.asList(record.getTin(), record.getFileSourceCd(), record.getTinType());
+            EntRow row = entRows.get(entKey);
+            if (row == null) {
+                entRows.put(entKey, new EntRow(record));
+            } else {
+                row.add(record);
+            }
+        }
+
+        mergeTranTrail(new ArrayList<>(tranTrailRows.values()));
+        mergeEnt(new ArrayList<>(entRows.values()));
+
+        recordCount += chunk.size();
+        if (chunkExtractDate != null && (extractDate == null || chunkExtractDate.isAfter(extractDate))) {
+            extractDate = chunkExtractDate;
+        }
+        log.debug("Merged chunk of {} E9 records as {} TRANTRAIL and {} ENT rows",
+                chunk.size(), tranTrailRows.size(), entRows.size());
+    }
+
+    /**
+     * True once the load step has started in this run, so the counts below are the run's
+     */
+    public boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * Records written by the load step of this run
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Latest extract date of the records written, null when none had one
+     */
+    public LocalDate getExtractDate() {
+        return extractDate;
+    }
+
+    private void mergeTranTrail(List<TranTrailRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(TRANTRAIL_MERGE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                TranTrailRow row = rows.get(i);
+                ps.setString(1, row.caseSid);
+                setNumber(ps, 2, row.asgmntNum);
+                setNumber(ps, 3, row.touchCnt);
+                setNumber(ps, 4, row.inputHrs);
+                setDate(ps, 5, row.extractDt);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    private void mergeEnt(List<EntRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(ENT_MERGE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                EntRow row = rows.get(i);
+                setNumber(ps, 1, row.tin);
+                setNumber(ps, 2, row.fileSourceCd);
+                setNumber(ps, 3, row.tinType);
+                setDate(ps, 4, row.extractDt);
+                setNumber(ps, 5, row.touchCnt);
+                setNumber(ps, 6, row.caseHrs);
+                ps.setString(7, row.caseIdCd);
+                ps.setString(8, row.entCaseCd);
+                ps.setString(9, row.entSubCaseCd);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    private static void setNumber(PreparedStatement ps, int index, BigDecimal value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.NUMERIC);
+        } else {
+            ps.setBigDecimal(index, value);
+        }
+    }
+
+    private static void setDate(PreparedStatement ps, int index, LocalDate value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.DATE);
+        } else {
+            ps.setDate(index, Date.valueOf(value));
+        }
+    }
+
+    /**
+     * Greater of two values, ignoring null as SQL max() does
+     */
+    private static BigDecimal max(BigDecimal a, BigDecimal b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null || a.compareTo(b) >= 0 ? a : b;
+    }
+
+    /**
+     * The staging MERGE source row of a CASESID and ASGMNTNUM: max(CYCTOUCHCNT) and max(INPUTHRS)
+     */
+    private static final class TranTrailRow {
+        final String caseSid;
+        final BigDecimal asgmntNum;
+        final LocalDate extractDt;
+        BigDecimal touchCnt;
+        BigDecimal inputHrs;
+
+        TranTrailRow(E9Record record) {
+            this.caseSid = record.getCaseSid();
+            this.asgmntNum = record.getAsgmntNum();
+            this.extractDt = record.getEntExtractDt();
+            this.touchCnt = record.getCycTouchCnt();
+            this.inputHrs = record.getInputHrs();
+        }
+
+        void add(E9Record record) {
+            if (!Objects.equals(extractDt, record.getEntExtractDt())) {
+                throw new IllegalStateException("E9 records for CASESID " + caseSid + " and ASGMNTNUM " + asgmntNum
+                        + " have extract dates " + extractDt + " and " + record.getEntExtractDt()
+                        + "; unable to get a stable set of TRANTRAIL rows");
+            }
+            touchCnt = max(touchCnt, record.getCycTouchCnt());
+            inputHrs = max(inputHrs, record.getInputHrs());
+        }
+    }
+
+    /**
+     * The staging MERGE source row of a TIN, FILESOURCECD and TINTYPE: max(TOUCHCNT) and max(TOTALCASEHRS)
+     */
+    private static final class EntRow {
+        final BigDecimal tin;
+        final BigDecimal fileSourceCd;
+        final BigDecimal tinType;
+        final LocalDate extractDt;
+        final String caseIdCd;
+        final String entCaseCd;
+        final String entSubCaseCd;
+        BigDecimal touchCnt;
+        BigDecimal caseHrs;
+
+        EntRow(E9Record record) {
+            this.tin = record.getTin();
+            this.fileSourceCd = record.getFileSourceCd();
+            this.tinType = record.getTinType();
+            this.extractDt = record.getEntExtractDt();
+            this.caseIdCd = record.getCaseIdCd();
+            this.entCaseCd = record.getEntCaseCd();
+            this.entSubCaseCd = record.getEntSubCaseCd();
+            this.touchCnt = record.getTouchCnt();
+            this.caseHrs = record.getTotalCaseHrs();
+        }
+
+        void add(E9Record record) {
+            if (!Objects.equals(extractDt, record.getEntExtractDt())
+                    || !Objects.equals(caseIdCd, record.getCaseIdCd())
+                    || !Objects.equals(entCaseCd, record.getEntCaseCd())
+                    || !Objects.equals(entSubCaseCd, record.getEntSubCaseCd())) {
+                throw new IllegalStateException("E9 records for ENT TINSID " + record.getCaseSid()
+                        + " disagree on extract date or case codes"
+                        + "; unable to get a stable set of ENT rows");
+            }
+            touchCnt = max(touchCnt, record.getTouchCnt());
+            caseHrs = max(caseHrs, record.getTotalCaseHrs());
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.abc.sbse.os.ts.csp.alsentity.ale.config;
 
+import java.sql.Date;
+import java.time.LocalDate;
+
 import org.slf4j.Logger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -7,6 +10,7 @@ import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
 import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.job.flow.Flow;
 import org.springframework.batch.core.launch.JobLauncher;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
 import org.springframework.batch.core.repository.JobRepository;
@@ -26,6 +30,7 @@ import com.abc.sbse.os.ts.csp.alsentity.ale.batch.commontasklet.SqlRunnerTasklet
 import com.abc.sbse.os.ts.csp.alsentity.ale.batch.commontasklet.ValidationTasklet;
 import com.abc.sbse.os.ts.csp.alsentity.ale.listener.JobCompletionNotificationListener;
 import com.abc.sbse.os.ts.csp.alsentity.ale.util.SqlExecutionUtil;
+import com.abc.sbse.os.ts.csp.alsentity.ale.util.StepGraph;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -41,6 +46,12 @@ public class E9ProcessorConfig {
     @Value("${LOGDIR:./logs}")
     private String logDir;
 
+    @Value("${MAX_DB_SESSIONS:4}")
+    private int maxDbSessions;
+
+    @Value("${E9_LOAD_MODE:staging}")
+    private String e9LoadMode;
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
@@ -50,12 +61,22 @@ public class E9ProcessorConfig {
     @Autowired
     private SqlExecutionUtil sqlExecutionUtil;
 
+    @Autowired
+    private E9MergeItemWriter E9MergeWriter;
+
     @Autowired
     @Qualifier("importE9Job")
     private Job importE9Job; // The job we already defined for Loading E9 data
 
     /**
      * Main processing job definition that orchestrates the entire flow
+     * Steps on disjoint tables run side by side after the load is validated,
+     * such as the CNTE2 and CNTE4 rebuilds and the TRANTRAIL and ENT merges
+     * With E9_LOAD_MODE=merge the import merges into TRANTRAIL and ENT as it reads,
+     * so the E9TMP merges are left out and LOGLOAD is recorded from the import.
+     * A line that does not map fails its chunk before it is merged; the load is
+     * validated after the import, as in staging mode, and a failed validation stops
+     * the job before the steps that read TRANTRAIL or ENT
      */
     @Bean(name = "processE9Job")
     public Job processE9Job(JobRepository jobRepository,
@@ -63,7 +84,6 @@ public class E9ProcessorConfig {
                            Step truncateE9TmpStep,
                            Step importE9JobStep,
                            Step validateE9LoadStep,
-                           Step updateCasesIdStep,
                            Step mergeIntoTranTrailStep,
                            Step mergeIntoEntStep,
                            Step updateHinfIndStep,
@@ -74,25 +94,40 @@ public class E9ProcessorConfig {
                            Step updateTranTrailCountsStep,
                            Step updateTranTrailSegindStep,
                            Step truncateSegmodsStep,
-                           Step createLogLoadRecordE9Step) {
+                           Step createLogLoadRecordE9Step,
+                           Step createLogLoadRecordE9MergeStep) {
+        boolean mergeMode = E9MergeItemWriter.isMergeMode(e9LoadMode);
+        log.info("processE9Job loads E9 in {} mode", mergeMode ? "merge" : "staging");
+
+        StepGraph graph = StepGraph.named("processE9Job")
+                .step(truncateE9TmpStep).writes("E9TMP");
+        if (mergeMode) {
+            graph.step(importE9JobStep).reads("ENT").writes("E9TMP", "TRANTRAIL", "ENT")
+                    .barrier(validateE9LoadStep);
+        } else {
+            graph.step(importE9JobStep).reads("ENT").writes("E9TMP")
+                    .barrier(validateE9LoadStep)
+                    .step(mergeIntoTranTrailStep).reads("E9TMP").writes("TRANTRAIL")
+                    .step(mergeIntoEntStep).reads("E9TMP").writes("ENT");
+        }
+        Flow flow = graph
+                .step(updateHinfIndStep).reads("TRANTRAIL", "ENTMOD").writes("ENT")
+                .step(truncateCnte2Step).writes("CNTE2")
+                .step(insertIntoCnte2Step).reads("ENTMOD").writes("CNTE2")
+                .step(truncateCnte4Step).writes("CNTE4")
+                .step(insertIntoCnte4Step).reads("ENTMOD").writes("CNTE4")
+                .step(updateTranTrailCountsStep).reads("CNTE2", "CNTE4", "ENTMOD").writes("TRANTRAIL")
+                .step(updateTranTrailSegindStep).writes("TRANTRAIL")
+                .step(truncateSegmodsStep).writes("SEGMODS")
+                .barrier(mergeMode ? createLogLoadRecordE9MergeStep : createLogLoadRecordE9Step)
+                .maxConcurrentSessions(maxDbSessions)
+                .build();
+
         return new JobBuilder("processE9Job", jobRepository)
                 .incrementer(new RunIdIncrementer())
                 .listener(listener)
-                .start(truncateE9TmpStep)
-                .next(importE9JobStep)
-                .next(validateE9LoadStep)
-                .next(updateCasesIdStep)
-                .next(mergeIntoTranTrailStep) 
-                .next(mergeIntoEntStep)
-                .next(updateHinfIndStep)
-                .next(truncateCnte2Step)
-                .next(insertIntoCnte2Step)
-                .next(truncateCnte4Step)
-                .next(insertIntoCnte4Step)
-                .next(updateTranTrailCountsStep)
-                .next(updateTranTrailSegindStep)
-                .next(truncateSegmodsStep)
-                .next(createLogLoadRecordE9Step)
+                .start(flow)
+                .end()
                 .build();
     }
 
@@ -128,24 +163,6 @@ public class E9ProcessorConfig {
                 .build();
     }
 
-    /**
-     * Step to update CASESID in E9TMP table
-     */
-    @Bean
-    public Step updateCasesIdStep(JobRepository jobRepository, PlatformTransactionManager transactionManager) {
-        return new StepBuilder("updateCasesIdStep", jobRepository)
-                .tasklet(new SqlRunnerTasklet(jdbcTemplate,
-                        "UPDATE E9TMP set CASESID = " +
-                        "(SELECT tinsid " +
-                        "FROM ENT " +
-                        "WHERE E9TMP.TIN = ENT.TIN and " +
-                        "E9TMP.TINTYPE = ENT.TINTT and " +
-                        "E9TMP.FILESOURCECD = ENT.TINFS and " +
-                        "rownum = 1)"
-                ), transactionManager)
-                .build();
-    }
-
     /**
      * Step to merge data into TRANTRAIL table
      */
@@ -380,4 +397,34 @@ public class E9ProcessorConfig {
                 .tasklet(new CreateLogLoadRecordTasklet(jdbcTemplate, "E9", "EXTRACTDT", "E9TMP"), transactionManager)
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Step to create the log load record for E9 loaded in merge mode
+     * E9TMP is empty in that mode, so the count and extract date come from the merge writer
+     */
+    @Bean
+    public Step createLogLoadRecordE9MergeStep(JobRepository jobRepository, PlatformTransactionManager transactionManager) {
+        return new StepBuilder("createLogLoadRecordE9MergeStep", jobRepository)
+                .tasklet((contribution, chunkContext) -> {
+                    if (!E9MergeWriter.isStarted()) {
+                        // A restart that skips the completed import has no counts to record
+                        throw new IllegalStateException("E9 was not merged in this run, so its LOGLOAD count is unknown;"
+                                + " start a new processE9Job instance");
+                    }
+                    LocalDate extractDate = E9MergeWriter.getExtractDate();
+                    String username = System.getProperty("user.name");
+                    if (username == null || username.isEmpty()) {
+                        username = "SYSTEM";
+                    }
+                    jdbcTemplate.update("INSERT INTO LOGLOAD (LOADNAME, EXTRTDT, LOADDT, UNIX, NUMREC) VALUES (?, ?, ?, ?, ?)",
+                            "E9",
+                            extractDate == null ? null : Date.valueOf(extractDate),
+                            new Date(System.currentTimeMillis()),
+                            username,
+                            E9MergeWriter.getRecordCount());
+                    log.info("Inserted LOGLOAD record for E9 with count {} and extract date {}",
+                            E9MergeWriter.getRecordCount(), extractDate);
+                    return RepeatStatus.FINISHED;
+                }, transactionManager).build();
+    }
+}
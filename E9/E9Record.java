@@ -101,7 +101,7 @@ public class E9Record {
     private LocalDate initContCtDuDt;
     
     // Additional fields used in processing but not directly from the input file
-    private String caseSid;  // Used in SQL updates
+    private String caseSid;  // CASESID - Stamped from ENT before insert
     private LocalDate roAsgmnDt;  // Calculated from rptEndingDt
     private BigDecimal mftCd;     // Default set to null, updated later
     private LocalDate taxPrd;     // Default set to null, updated later
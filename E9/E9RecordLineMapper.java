@@ -0,0 +1,108 @@
+package com.abc.sbse.os.ts.csp.alsentity.ale.mapper;
+
+import static com.abc.sbse.os.ts.csp.alsentity.ale.mapper.FixedLengthFields.text;
+
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+import org.springframework.batch.item.file.LineMapper;
+import org.springframework.validation.BindException;
+
+import com.abc.sbse.os.ts.csp.alsentity.ale.data.E9Record;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Maps lines of the fixed-length E9 file to E9Record objects
+ * Reads each field straight from the line at its CTL position, with the data
+ * type conversions and default values of the load file CTL, in place of a
+ * FixedLengthTokenizer and FieldSetMapper.
+ */
+@Slf4j
+public class E9RecordLineMapper implements LineMapper<E9Record> {
+
+    @Override
+    public E9Record mapLine(String line, int lineNumber) throws BindException {
+        E9Record record = new E9Record();
+
+        try {
+            // Map String fields directly
+            record.setOutputCd(text(line, 1, 2));
+            record.setTxpVrNumTrlCd(text(line, 38, 72));
+            record.setTxpVrMCtrlCd(text(line, 73, 76));
+            record.setEntCaseCd(text(line, 77, 79));
+            record.setEntSubCaseCd(text(line, 80, 82));
+            record.setCaseIdCd(text(line, 109, 109));
+            record.setInvItenStateCd(text(line, 110, 110));
+            record.setInvItemTypeCd(text(line, 119, 119));
+            record.setInvItemCtrlId(text(line, 120, 127));
+            record.setNdSubCaseCd(text(line, 128, 130));
+            record.setRcpText(text(line, 131, 133));
+            record.setCaseStatus(text(line, 134, 134));
+            record.setEntModDispCd(text(line, 151, 152));
+            record.setEntModClsngCd(text(line, 153, 155));
+
+            // Map BigDecimal fields with null handling
+            mapBigDecimalField(line, 19, 27, "TIN", record::setTin);
+            mapBigDecimalField(line, 28, 28, "FILESOURCECD", record::setFileSourceCd);
+            mapBigDecimalField(line, 29, 29, "TINTYPE", record::setTinType);
+            mapBigDecimalField(line, 30, 37, "ASGMNTNUM", record::setAsgmntNum);
+            mapBigDecimalField(line, 83, 84, "CYCTOUCHCNT", record::setCycTouchCnt);
+            mapBigDecimalField(line, 85, 88, "TOUCHCNT", record::setTouchCnt);
+            mapBigDecimalField(line, 97, 102, "INPUTHRS", record::setInputHrs);
+            mapBigDecimalField(line, 103, 108, "TOTALCASEHRS", record::setTotalCaseHrs);
+
+            // Map date fields with default date replacement as specified in CTL file
+            mapDateField(line, 3, 10, "ENTEXTRACTDT", record::setEntExtractDt);
+            mapDateField(line, 11, 18, "RPTENDINGDT", record::setRptEndingDt);
+            mapDateField(line, 89, 96, "LATESTTOUCHDT", record::setLatestTouchDt);
+            mapDateField(line, 111, 118, "INVITEMCLSDT", record::setInvItemClsDt);
+            mapDateField(line, 135, 142, "CASEROCLOSEDDT", record::setCaseRoClosedDt);
+            mapDateField(line, 143, 150, "CASEHOSTCLSDT", record::setCaseHostClsDt);
+            mapDateField(line, 156, 163, "INITCONTCTDT", record::setInitContCtDt);
+            mapDateField(line, 164, 171, "INITCONTCTDUDT", record::setInitContCtDuDt);
+
+            // Set extractDt from entExtractDt for consistency
+            record.setExtractDt(record.getEntExtractDt());
+
+            // Set roAsgmnDt from rptEndingDt as per business logic
+            record.setRoAsgmnDt(record.getRptEndingDt());
+
+        } catch (Exception e) {
+            log.error("Error mapping line {} to E9Record: {}", lineNumber, e.getMessage(), e);
+            throw new BindException(record, "E9Record");
+        }
+
+        return record;
+    }
+
+    /**
+     * Maps a yyyyMMdd date field, replacing zeros with the default date as the CTL REPLACE does
+     */
+    private void mapDateField(String line, int start, int end, String fieldName, Consumer<LocalDate> setter) {
+        try {
+            LocalDate date = FixedLengthFields.date(line, start, end, true);
+            if (date != null) {
+                setter.accept(date);
+            }
+        } catch (DateTimeException e) {
+            log.warn("Invalid date format for field {}: {}", fieldName, e.getMessage());
+        }
+    }
+
+    /**
+     * Maps a BigDecimal field with null handling
+     */
+    private void mapBigDecimalField(String line, int start, int end, String fieldName, Consumer<BigDecimal> setter) {
+        try {
+            BigDecimal value = FixedLengthFields.decimal(line, start, end);
+            if (value != null) {
+                setter.accept(value);
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Invalid number format for field {}: {}", fieldName, e.getMessage());
+        }
+    }
+}
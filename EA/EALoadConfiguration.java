@@ -1,33 +1,39 @@
 package com.abc.sbse.os.ts.csp.alsentity.ale.config;
 
+import java.nio.file.Paths;
+
 import javax.sql.DataSource;
 
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
 import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.step.builder.StepBuilder;
-import org.springframework.batch.item.database.BeanPropertyItemSqlParameterSourceProvider;
+import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.database.JdbcBatchItemWriter;
 import org.springframework.batch.item.file.FlatFileItemReader;
 import org.springframework.batch.item.file.LineMapper;
-import org.springframework.batch.item.file.mapping.DefaultLineMapper;
-import org.springframework.batch.item.file.transform.FixedLengthTokenizer;
-import org.springframework.batch.item.file.transform.Range;
+import org.springframework.batch.item.support.CompositeItemProcessor;
 import org.springframework.batch.repeat.RepeatStatus;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.transaction.PlatformTransactionManager;
 
 import com.abc.sbse.os.ts.csp.alsentity.ale.data.EARecord;
 import com.abc.sbse.os.ts.csp.alsentity.ale.listener.JobCompletionNotificationListener;
-import com.abc.sbse.os.ts.csp.alsentity.ale.mapper.EARecordFieldSetMapper;
+import com.abc.sbse.os.ts.csp.alsentity.ale.mapper.EARecordLineMapper;
+import com.abc.sbse.os.ts.csp.alsentity.ale.mapper.RecordTransform;
+import com.abc.sbse.os.ts.csp.alsentity.ale.service.TinsidResolver;
+import com.abc.sbse.os.ts.csp.alsentity.ale.util.IndexedItemPreparedStatementSetter;
+import com.abc.sbse.os.ts.csp.alsentity.ale.util.InputFileRestartGuard;
 
 /**
  * Configuration for loading EA data files into database
@@ -43,16 +49,23 @@ public class EALoadConfiguration {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    @Lazy
+    private TinsidResolver entTinsidResolver;
+
     @Value("${EA:./data/EA.dat}")
     private String EA_FILE_PATH;
 
     /**
      * Creates a reader for EA data files
      * Configures according to the CTL file specifications
+     * The line count is saved with each chunk so a restart resumes after the last committed chunk
      */
     @Bean
     public FlatFileItemReader<EARecord> EAReader() {
         FlatFileItemReader<EARecord> reader = new FlatFileItemReader<>();
+        reader.setName("EAReader");
+        reader.setSaveState(true);
         reader.setResource(new FileSystemResource(EA_FILE_PATH));
         reader.setLineMapper(EALineMapper());
         reader.setStrict(false); // Allow for recovery on parsing errors
@@ -64,58 +77,33 @@ public class EALoadConfiguration {
      */
     @Bean
     public LineMapper<EARecord> EALineMapper() {
-        DefaultLineMapper<EARecord> lineMapper = new DefaultLineMapper<>();
-        lineMapper.setLineTokenizer(EAFixedLengthTokenizer());
-        lineMapper.setFieldSetMapper(EAFieldSetMapper());
-        return lineMapper;
+        return new EARecordLineMapper();
     }
 
     /**
-     * Configures the fixed length tokenizer according to the CTL file
+     * Stamps EASID with the TINSID of the first ENT row for the TIN, TINTYPE and FILESOURCECD,
+     * left NULL when ENT has none, in place of a correlated UPDATE over EATMP
      */
     @Bean
-    public FixedLengthTokenizer EAFixedLengthTokenizer() {
-        FixedLengthTokenizer tokenizer = new FixedLengthTokenizer();
-        tokenizer.setStrict(false); // Allow for flexibility in line length
-        
-        // Define field names as specified in CTL file
-        tokenizer.setNames(
-            "OUTPUTCD", "EXTRACTDT", "TIN", "FILESOURCECD", "TINTYPE", 
-            "MFTCD", "TAXPRD", "INVITEMCTRLID", "ASGMNTNUM", "MODTYPEIND",
-            "TAXMODASSNDT", "ROCLOSEDDT", "ICSCLOSINGCD", "TDICLOSECD", 
-            "CLOSINGTRANSCD", "MODDISPCD", "ICSSTATUSCD"
-        );
-
-        // Set column ranges exactly as defined in CTL file
-        tokenizer.setColumns(
-            new Range(1, 2),      // OUTPUTCD
-            new Range(3, 10),     // EXTRACTDT
-            new Range(11, 19),    // TIN
-            new Range(20, 20),    // FILESOURCECD
-            new Range(21, 21),    // TINTYPE
-            new Range(22, 23),    // MFTCD
-            new Range(24, 29),    // TAXPRD
-            new Range(30, 37),    // INVITEMCTRLID
-            new Range(38, 45),    // ASGMNTNUM
-            new Range(46, 46),    // MODTYPEIND
-            new Range(47, 54),    // TAXMODASSNDT
-            new Range(55, 62),    // ROCLOSEDDT
-            new Range(63, 65),    // ICSCLOSINGCD
-            new Range(66, 68),    // TDICLOSECD
-            new Range(69, 71),    // CLOSINGTRANSCD
-            new Range(72, 73),    // MODDISPCD
-            new Range(74, 74)     // ICSSTATUSCD
-        );
-        
-        return tokenizer;
+    public ItemProcessor<EARecord, EARecord> EATinsidProcessor() {
+        return record -> {
+            long tinsid = entTinsidResolver.resolve(record.getTin(), record.getTinType(), record.getFileSourceCd());
+            record.setCaseSid(tinsid == TinsidResolver.NOT_FOUND ? null : String.valueOf(tinsid));
+            return record;
+        };
     }
 
     /**
-     * Creates field set mapper for EA records
+     * TAXPRD rules of the former updateTaxPrdStep and updateDefaultTaxPrdStep, applied before insert:
+     * the last day of the month unless MFTCD is 52, 53 or 60, then 01/01/1900 when missing or earlier
      */
     @Bean
-    public EARecordFieldSetMapper EAFieldSetMapper() {
-        return new EARecordFieldSetMapper();
+    public RecordTransform<EARecord> EAColumnRules() {
+        return RecordTransform.forType(EARecord.class)
+                .set("TAXPRD", "CASE WHEN :MFTCD NOT IN ('52','53','60') THEN LAST_DAY(:TAXPRD) ELSE :TAXPRD END")
+                .set("TAXPRD", "CASE WHEN NVL(:TAXPRD, DATE '1900-01-01') <= DATE '1900-01-01' " +
+                        "THEN DATE '1900-01-01' ELSE :TAXPRD END")
+                .build();
     }
 
     /**
@@ -124,21 +112,23 @@ public class EALoadConfiguration {
     @Bean
     public JdbcBatchItemWriter<EARecord> EAWriter() {
         JdbcBatchItemWriter<EARecord> writer = new JdbcBatchItemWriter<>();
-        writer.setItemSqlParameterSourceProvider(new BeanPropertyItemSqlParameterSourceProvider<>());
         writer.setDataSource(dataSource);
         
         // SQL insert statement with all fields from the EA record
-        writer.setSql("INSERT INTO EATMP (" +
+        IndexedItemPreparedStatementSetter<EARecord> setter = IndexedItemPreparedStatementSetter.forNamedSql(EARecord.class,
+                "INSERT INTO EATMP (" +
                 "OUTPUTCD, TIN, FILESOURCECD, TINTYPE, MFTCD, TAXPRD, " +
                 "INVITEMCTRLID, ASGMNTNUM, MODTYPEIND, TAXMODASSNDT, ROCLOSEDDT, " +
                 "ICSCLOSINGCD, TDICLOSECD, CLOSINGTRANSCD, MODDISPCD, ICSSTATUSCD, " +
-                "EXTRACTDT, STATUS" +
+                "EXTRACTDT, STATUS, EASID" +
                 ") VALUES (" +
                 ":outputCd, :tin, :fileSourceCd, :tinType, :mftCd, :taxPrd, " +
                 ":invItemCtrlId, :asgmntNum, :modTypeInd, :taxModAssnDt, :roClosedDt, " +
                 ":icsClosingCd, :tdiCloseCd, :closingTranScd, :modDispCd, :icsStatusCd, " +
-                ":extractDt, :status" +
+                ":extractDt, :status, :caseSid" +
                 ")");
+        writer.setSql(setter.getSql());
+        writer.setItemPreparedStatementSetter(setter);
         
         return writer;
     }
@@ -157,15 +147,22 @@ public class EALoadConfiguration {
 
     /**
      * Step to load EA data file into table
+     * A restart of a failed load resumes after the last committed chunk of the same file
      */
     @Bean(name = "loadEAFileToTableStep")
     public Step loadEAFileToTableStep(JobRepository jobRepository, PlatformTransactionManager transactionManager,
                                     FlatFileItemReader<EARecord> EAReader, 
-                                    JdbcBatchItemWriter<EARecord> EAWriter) {
+                                    ItemProcessor<EARecord, EARecord> EATinsidProcessor,
+                                    RecordTransform<EARecord> EAColumnRules,
+                                    JdbcBatchItemWriter<EARecord> EAWriter,
+                                    StepExecutionListener entTinsidRefreshListener) {
         return new StepBuilder("loadEAFileToTableStep", jobRepository)
                 .<EARecord, EARecord>chunk(5000, transactionManager)
                 .reader(EAReader)
+                .processor(new CompositeItemProcessor<>(EATinsidProcessor, EAColumnRules))
                 .writer(EAWriter)
+                .listener(entTinsidRefreshListener)
+                .listener(new InputFileRestartGuard(Paths.get(EA_FILE_PATH)))
                 .build();
     }
 
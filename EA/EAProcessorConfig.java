@@ -6,6 +6,7 @@ import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
 import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.job.flow.Flow;
 import org.springframework.batch.core.launch.JobLauncher;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
 import org.springframework.batch.core.repository.JobRepository;
@@ -23,6 +24,7 @@ import com.abc.sbse.os.ts.csp.alsentity.ale.batch.commontasklet.CreateLogLoadRec
 import com.abc.sbse.os.ts.csp.alsentity.ale.batch.commontasklet.SqlRunnerTasklet;
 import com.abc.sbse.os.ts.csp.alsentity.ale.batch.commontasklet.ValidationTasklet;
 import com.abc.sbse.os.ts.csp.alsentity.ale.listener.JobCompletionNotificationListener;
+import com.abc.sbse.os.ts.csp.alsentity.ale.util.StepGraph;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -38,6 +40,9 @@ public class EAProcessorConfig {
     @Value("${LOGDIR:./logs}")
     private String logDir;
 
+    @Value("${MAX_DB_SESSIONS:4}")
+    private int maxDbSessions;
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
@@ -50,6 +55,7 @@ public class EAProcessorConfig {
 
     /**
      * Main processing job definition that orchestrates the entire flow
+     * Every step works on EATMP, so the graph keeps them in sequence
      */
     @Bean(name = "processEAJob")
     public Job processEAJob(JobRepository jobRepository,
@@ -58,23 +64,23 @@ public class EAProcessorConfig {
                            Step preprocessEADataStep,
                            Step importEAJobStep,
                            Step validateEALoadStep,
-                           Step updateEasIdStep,
-                           Step updateTaxPrdStep,
-                           Step updateDefaultTaxPrdStep,
                            Step updateIcsStatusCdStep,
                            Step createLogLoadRecordEAStep) {
+        Flow flow = StepGraph.named("processEAJob")
+                .step(truncateEATmpStep).writes("EATMP")
+                .step(preprocessEADataStep).writes("EATMP")
+                .step(importEAJobStep).writes("EATMP")
+                .barrier(validateEALoadStep)
+                .step(updateIcsStatusCdStep).writes("EATMP")
+                .barrier(createLogLoadRecordEAStep)
+                .maxConcurrentSessions(maxDbSessions)
+                .build();
+
         return new JobBuilder("processEAJob", jobRepository)
                 .incrementer(new RunIdIncrementer())
                 .listener(listener)
-                .start(truncateEATmpStep)
-                .next(preprocessEADataStep)
-                .next(importEAJobStep)
-                .next(validateEALoadStep)
-                .next(updateEasIdStep)
-                .next(updateTaxPrdStep)
-                .next(updateDefaultTaxPrdStep)
-                .next(updateIcsStatusCdStep)
-                .next(createLogLoadRecordEAStep)
+                .start(flow)
+                .end()
                 .build();
     }
 
@@ -124,49 +130,6 @@ public class EAProcessorConfig {
                 .build();
     }
 
-    /**
-     * Step to update EASID in EATMP table based on matching ENT record
-     */
-    @Bean
-    public Step updateEasIdStep(JobRepository jobRepository, PlatformTransactionManager transactionManager) {
-        return new StepBuilder("updateEasIdStep", jobRepository)
-                .tasklet(new SqlRunnerTasklet(jdbcTemplate,
-                        "UPDATE EATMP set EASID = " +
-                        "(SELECT TINSID FROM ENT WHERE " +
-                        "EATMP.TIN = ENT.TIN and " +
-                        "EATMP.TINTYPE = ENT.TINTT and " +
-                        "EATMP.FILESOURCECD = ENT.TINFS and " +
-                        "rownum = 1)"
-                ), transactionManager)
-                .build();
-    }
-
-    /**
-     * Step to update TAXPRD in EATMP table for specific MFTCD values
-     */
-    @Bean
-    public Step updateTaxPrdStep(JobRepository jobRepository, PlatformTransactionManager transactionManager) {
-        return new StepBuilder("updateTaxPrdStep", jobRepository)
-                .tasklet(new SqlRunnerTasklet(jdbcTemplate,
-                        "UPDATE EATMP set TAXPRD = last_day(TAXPRD) " +
-                        "WHERE MFTCD NOT IN ('52','53','60')"
-                ), transactionManager)
-                .build();
-    }
-
-    /**
-     * Step to update TAXPRD in EATMP table to default value where needed
-     */
-    @Bean
-    public Step updateDefaultTaxPrdStep(JobRepository jobRepository, PlatformTransactionManager transactionManager) {
-        return new StepBuilder("updateDefaultTaxPrdStep", jobRepository)
-                .tasklet(new SqlRunnerTasklet(jdbcTemplate,
-                        "UPDATE EATMP set TAXPRD = '01/01/1900' " +
-                        "WHERE NVL(TAXPRD,'01/01/1900') <= '01/01/1900'"
-                ), transactionManager)
-                .build();
-    }
-
     /**
      * Step to update ICSSTATUSCD in EATMP table based on MODDISPCD
      */
@@ -62,7 +62,7 @@ public class EARecord {
     private String icsStatusCd;
     
     // Additional fields used in processing but not directly from the input file
-    private String caseSid;          // EASID - Used in SQL updates
+    private String caseSid;          // EASID - Stamped from ENT before insert
     private String actionCd;         // Not directly in file but used for processing
     private LocalDate actionDt;      // Not directly in file but used for processing
     private String contactCd;        // Not directly in file but used for processing
@@ -0,0 +1,98 @@
+package com.abc.sbse.os.ts.csp.alsentity.ale.mapper;
+
+import static com.abc.sbse.os.ts.csp.alsentity.ale.mapper.FixedLengthFields.text;
+
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+import org.springframework.batch.item.file.LineMapper;
+import org.springframework.validation.BindException;
+
+import com.abc.sbse.os.ts.csp.alsentity.ale.data.EARecord;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Maps lines of the fixed-length EA file to EARecord objects
+ * Reads each field straight from the line at its CTL position, with the data
+ * type conversions and default values of the load file CTL, in place of a
+ * FixedLengthTokenizer and FieldSetMapper.
+ */
+@Slf4j
+public class EARecordLineMapper implements LineMapper<EARecord> {
+
+    @Override
+    public EARecord mapLine(String line, int lineNumber) throws BindException {
+        EARecord record = new EARecord();
+
+        try {
+            // Map String fields directly
+            record.setOutputCd(text(line, 1, 2));
+            record.setInvItemCtrlId(text(line, 30, 37));
+            record.setAsgmntNum(text(line, 38, 45));
+            record.setModTypeInd(text(line, 46, 46));
+            record.setIcsClosingCd(text(line, 63, 65));
+            record.setTdiCloseCd(text(line, 66, 68));
+            record.setClosingTranScd(text(line, 69, 71));
+            record.setModDispCd(text(line, 72, 73));
+            record.setIcsStatusCd(text(line, 74, 74));
+
+            // Map BigDecimal fields with null handling
+            mapBigDecimalField(line, 11, 19, "TIN", record::setTin);
+            mapBigDecimalField(line, 20, 20, "FILESOURCECD", record::setFileSourceCd);
+            mapBigDecimalField(line, 21, 21, "TINTYPE", record::setTinType);
+
+            // Special handling for MFTCD as per CTL file - NVL logic, "0" is no MFT
+            if (!FixedLengthFields.isBlank(line, 22, 23)) {
+                record.setMftCd("0".equals(text(line, 22, 23)) ? null : FixedLengthFields.decimal(line, 22, 23));
+            }
+
+            // Map date fields with default date replacement
+            mapDateField(line, 3, 10, "EXTRACTDT", record::setExtractDt);
+            mapDateField(line, 47, 54, "TAXMODASSNDT", record::setTaxModAssnDt);
+            mapDateField(line, 55, 62, "ROCLOSEDDT", record::setRoClosedDt);
+
+            // TAXPRD is left NULL, as the former FieldSetMapper never parsed its 6 characters;
+            // the insert transform loads it as 01/01/1900
+
+            // Action-related fields - will be set later in processing
+            record.setStatus("O"); // Default status, will be updated based on ACTIONCD
+
+        } catch (Exception e) {
+            log.error("Error mapping line {} to EARecord: {}", lineNumber, e.getMessage(), e);
+            throw new BindException(record, "EARecord");
+        }
+
+        return record;
+    }
+
+    /**
+     * Maps a yyyyMMdd date field, replacing zeros with the default date as the CTL REPLACE does
+     */
+    private void mapDateField(String line, int start, int end, String fieldName, Consumer<LocalDate> setter) {
+        try {
+            LocalDate date = FixedLengthFields.date(line, start, end, true);
+            if (date != null) {
+                setter.accept(date);
+            }
+        } catch (DateTimeException e) {
+            log.warn("Invalid date format for field {}: {}", fieldName, e.getMessage());
+        }
+    }
+
+    /**
+     * Maps a BigDecimal field with null handling
+     */
+    private void mapBigDecimalField(String line, int start, int end, String fieldName, Consumer<BigDecimal> setter) {
+        try {
+            BigDecimal value = FixedLengthFields.decimal(line, start, end);
+            if (value != null) {
+                setter.accept(value);
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Invalid number format for field {}: {}", fieldName, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,708 @@
+package com.abc.sbse.os.ts.csp.alsentity.ale.mapper;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * A SQL expression over the fields of a record, compiled once into a tree of
+ * evaluators, for the column transforms of the CTL files and the post-load UPDATEs
+ *
+ * The syntax is the Oracle subset those use: :FIELD references, 'text', numbers,
+ * DATE 'yyyy-mm-dd', NULL, + - * / ||, comparisons, BETWEEN, IN, IS NULL, AND, OR,
+ * NOT, CASE WHEN ... THEN ... ELSE ... END and the functions NVL, COALESCE, DECODE,
+ * REPLACE, TRIM, LTRIM, RTRIM, UPPER, LOWER, SUBSTR, CHR, LAST_DAY, TO_DATE and
+ * TO_NUMBER. Constant sub-expressions, such as CHR(9) or TO_DATE('19000101','YYYYMMDD'),
+ * are evaluated when compiled.
+ *
+ * Values are String, BigDecimal or LocalDate. As in Oracle an empty string is NULL,
+ * a comparison with NULL is unknown, DECODE matches NULL with NULL, and text compared
+ * with a number is converted to a number.
+ */
+public final class FieldExpression {
+
+    /**
+     * A compiled expression, evaluated against one record
+     */
+    public interface Evaluator {
+        Object eval(Object record);
+    }
+
+    private final String source;
+    private final Evaluator evaluator;
+
+    private FieldExpression(String source, Evaluator evaluator) {
+        this.source = source;
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * Compiles an expression; each :FIELD is resolved once by fieldResolver, which
+     * returns the reader of that field's value or throws if the field is unknown
+     */
+    public static FieldExpression compile(String source, Function<String, Evaluator> fieldResolver) {
+        Parser parser = new Parser(source, fieldResolver);
+        Evaluator evaluator = parser.parseExpression();
+        parser.expectEnd();
+        return new FieldExpression(source, evaluator);
+    }
+
+    /**
+     * Value of the expression for the record: a String, BigDecimal, LocalDate or null
+     */
+    public Object evaluate(Object record) {
+        return evaluator.eval(record);
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    /**
+     * A field value as an expression value: empty text is NULL and whole numbers are BigDecimal
+     */
+    public static Object value(Object fieldValue) {
+        if (fieldValue == null || fieldValue instanceof BigDecimal || fieldValue instanceof LocalDate) {
+            return fieldValue;
+        }
+        if (fieldValue instanceof String) {
+            return ((String) fieldValue).isEmpty() ? null : fieldValue;
+        }
+        if (fieldValue instanceof Integer || fieldValue instanceof Long || fieldValue instanceof Short) {
+            return BigDecimal.valueOf(((Number) fieldValue).longValue());
+        }
+        if (fieldValue instanceof Character) {
+            return String.valueOf(fieldValue);
+        }
+        throw new IllegalArgumentException("Unsupported field value type: " + fieldValue.getClass().getName());
+    }
+
+    // ---- evaluation ----
+
+    private static final class Constant implements Evaluator {
+        final Object value;
+
+        Constant(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public Object eval(Object record) {
+            return value;
+        }
+    }
+
+    /**
+     * Evaluates the node once when all its operands are constant
+     */
+    private static Evaluator fold(Evaluator node, List<Evaluator> operands) {
+        for (Evaluator operand : operands) {
+            if (!(operand instanceof Constant)) {
+                return node;
+            }
+        }
+        return new Constant(node.eval(null));
+    }
+
+    private static Evaluator fold(Evaluator node, Evaluator... operands) {
+        List<Evaluator> list = new ArrayList<>(operands.length);
+        for (Evaluator operand : operands) {
+            list.add(operand);
+        }
+        return fold(node, list);
+    }
+
+    private static boolean isTrue(Object condition) {
+        return Boolean.TRUE.equals(condition);
+    }
+
+    /**
+     * Compares two non-null values, converting text to a number when the other is a number
+     */
+    private static int compare(Object a, Object b) {
+        if (a instanceof BigDecimal || b instanceof BigDecimal) {
+            return toNumber(a).compareTo(toNumber(b));
+        }
+        if (a instanceof LocalDate && b instanceof LocalDate) {
+            return ((LocalDate) a).compareTo((LocalDate) b);
+        }
+        if (a instanceof String && b instanceof String) {
+            return ((String) a).compareTo((String) b);
+        }
+        throw new IllegalArgumentException("Cannot compare " + a + " with " + b);
+    }
+
+    private static BigDecimal toNumber(Object value) {
+        if (value == null || value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        if (value instanceof String) {
+            try {
+                return new BigDecimal(((String) value).trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid number: '" + value + "'");
+            }
+        }
+        throw new IllegalArgumentException("Not a number: " + value);
+    }
+
+    private static String toText(Object value) {
+        if (value == null || value instanceof String) {
+            return (String) value;
+        }
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        }
+        throw new IllegalArgumentException("Not text: " + value);
+    }
+
+    private static LocalDate toDate(Object value) {
+        if (value == null || value instanceof LocalDate) {
+            return (LocalDate) value;
+        }
+        throw new IllegalArgumentException("Not a date: " + value);
+    }
+
+    private static String emptyToNull(String text) {
+        return text == null || text.isEmpty() ? null : text;
+    }
+
+    // ---- parsing ----
+
+    private static final class Parser {
+        private final String source;
+        private final Function<String, Evaluator> fieldResolver;
+        private final List<String> tokens = new ArrayList<>();
+        private int position;
+
+        Parser(String source, Function<String, Evaluator> fieldResolver) {
+            this.source = source;
+            this.fieldResolver = fieldResolver;
+            tokenize();
+        }
+
+        private void tokenize() {
+            int i = 0;
+            while (i < source.length()) {
+                char c = source.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    i++;
+                } else if (c == '\'') {
+                    StringBuilder text = new StringBuilder("'");
+                    int j = i + 1;
+                    while (true) {
+                        if (j >= source.length()) {
+                            throw error("unterminated text literal");
+                        }
+                        if (source.charAt(j) == '\'') {
+                            if (j + 1 < source.length() && source.charAt(j + 1) == '\'') {
+                                text.append('\'');
+                                j += 2;
+                                continue;
+                            }
+                            break;
+                        }
+                        text.append(source.charAt(j++));
+                    }
+                    tokens.add(text.toString());
+                    i = j + 1;
+                } else if (Character.isDigit(c) || (c == '.' && i + 1 < source.length() && Character.isDigit(source.charAt(i + 1)))) {
+                    int j = i;
+                    while (j < source.length() && (Character.isDigit(source.charAt(j)) || source.charAt(j) == '.')) {
+                        j++;
+                    }
+                    tokens.add(source.substring(i, j));
+                    i = j;
+                } else if (c == ':' || Character.isLetter(c)) {
+                    int j = i + 1;
+                    while (j < source.length() && (Character.isLetterOrDigit(source.charAt(j))
+                            || source.charAt(j) == '_' || source.charAt(j) == '$' || source.charAt(j) == '#')) {
+                        j++;
+                    }
+                    tokens.add(source.substring(i, j));
+                    i = j;
+                } else if (source.startsWith("<=", i) || source.startsWith(">=", i) || source.startsWith("<>", i)
+                        || source.startsWith("!=", i) || source.startsWith("||", i)) {
+                    tokens.add(source.substring(i, i + 2));
+                    i += 2;
+                } else if ("=<>+-*/(),".indexOf(c) >= 0) {
+                    tokens.add(String.valueOf(c));
+                    i++;
+                } else {
+                    throw error("unexpected character '" + c + "'");
+                }
+            }
+        }
+
+        Evaluator parseExpression() {
+            return parseOr();
+        }
+
+        void expectEnd() {
+            if (position < tokens.size()) {
+                throw error("unexpected " + tokens.get(position));
+            }
+        }
+
+        private Evaluator parseOr() {
+            Evaluator left = parseAnd();
+            while (accept("OR")) {
+                final Evaluator a = left;
+                final Evaluator b = parseAnd();
+                left = fold(record -> {
+                    Object x = a.eval(record);
+                    if (isTrue(x)) {
+                        return Boolean.TRUE;
+                    }
+                    Object y = b.eval(record);
+                    if (isTrue(y)) {
+                        return Boolean.TRUE;
+                    }
+                    return x == null || y == null ? null : Boolean.FALSE;
+                }, a, b);
+            }
+            return left;
+        }
+
+        private Evaluator parseAnd() {
+            Evaluator left = parseNot();
+            while (accept("AND")) {
+                final Evaluator a = left;
+                final Evaluator b = parseNot();
+                left = fold(record -> {
+                    Object x = a.eval(record);
+                    if (Boolean.FALSE.equals(x)) {
+                        return Boolean.FALSE;
+                    }
+                    Object y = b.eval(record);
+                    if (Boolean.FALSE.equals(y)) {
+                        return Boolean.FALSE;
+                    }
+                    return x == null || y == null ? null : Boolean.TRUE;
+                }, a, b);
+            }
+            return left;
+        }
+
+        private Evaluator parseNot() {
+            if (accept("NOT")) {
+                final Evaluator operand = parseNot();
+                return fold(record -> {
+                    Object x = operand.eval(record);
+                    return x == null ? null : !isTrue(x);
+                }, operand);
+            }
+            return parsePredicate();
+        }
+
+        private Evaluator parsePredicate() {
+            final Evaluator left = parseAdditive();
+            if (accept("IS")) {
+                final boolean negated = accept("NOT");
+                expect("NULL");
+                return fold(record -> (left.eval(record) == null) != negated, left);
+            }
+            boolean negated = accept("NOT");
+            if (accept("BETWEEN")) {
+                final Evaluator low = parseAdditive();
+                expect("AND");
+                final Evaluator high = parseAdditive();
+                return negate(fold(record -> {
+                    Object x = left.eval(record);
+                    Object l = low.eval(record);
+                    Object h = high.eval(record);
+                    if (x == null || l == null || h == null) {
+                        return null;
+                    }
+                    return compare(x, l) >= 0 && compare(x, h) <= 0;
+                }, left, low, high), negated);
+            }
+            if (accept("IN")) {
+                final List<Evaluator> values = parseArguments();
+                List<Evaluator> operands = new ArrayList<>(values);
+                operands.add(left);
+                return negate(fold(record -> {
+                    Object x = left.eval(record);
+                    if (x == null) {
+                        return null;
+                    }
+                    boolean unknown = false;
+                    for (Evaluator value : values) {
+                        Object v = value.eval(record);
+                        if (v == null) {
+                            unknown = true;
+                        } else if (compare(x, v) == 0) {
+                            return Boolean.TRUE;
+                        }
+                    }
+                    return unknown ? null : Boolean.FALSE;
+                }, operands), negated);
+            }
+            if (negated) {
+                throw error("expected BETWEEN or IN after NOT");
+            }
+            String operator = peek();
+            if ("=".equals(operator) || "<>".equals(operator) || "!=".equals(operator)
+                    || "<".equals(operator) || "<=".equals(operator) || ">".equals(operator) || ">=".equals(operator)) {
+                position++;
+                final Evaluator right = parseAdditive();
+                final String op = operator;
+                return fold(record -> {
+                    Object x = left.eval(record);
+                    Object y = right.eval(record);
+                    if (x == null || y == null) {
+                        return null;
+                    }
+                    int c = compare(x, y);
+                    switch (op) {
+                        case "=": return c == 0;
+                        case "<": return c < 0;
+                        case "<=": return c <= 0;
+                        case ">": return c > 0;
+                        case ">=": return c >= 0;
+                        default: return c != 0;
+                    }
+                }, left, right);
+            }
+            return left;
+        }
+
+        private Evaluator negate(Evaluator condition, boolean negated) {
+            if (!negated) {
+                return condition;
+            }
+            return fold(record -> {
+                Object x = condition.eval(record);
+                return x == null ? null : !isTrue(x);
+            }, condition);
+        }
+
+        private Evaluator parseAdditive() {
+            Evaluator left = parseMultiplicative();
+            while (true) {
+                final Evaluator a = left;
+                if (accept("||")) {
+                    final Evaluator b = parseMultiplicative();
+                    left = fold(record -> {
+                        String x = toText(a.eval(record));
+                        String y = toText(b.eval(record));
+                        return emptyToNull((x == null ? "" : x) + (y == null ? "" : y));
+                    }, a, b);
+                } else if (accept("+")) {
+                    final Evaluator b = parseMultiplicative();
+                    left = fold(record -> arithmetic(a.eval(record), b.eval(record), '+'), a, b);
+                } else if (accept("-")) {
+                    final Evaluator b = parseMultiplicative();
+                    left = fold(record -> arithmetic(a.eval(record), b.eval(record), '-'), a, b);
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        private Evaluator parseMultiplicative() {
+            Evaluator left = parseUnary();
+            while (true) {
+                final Evaluator a = left;
+                if (accept("*")) {
+                    final Evaluator b = parseUnary();
+                    left = fold(record -> arithmetic(a.eval(record), b.eval(record), '*'), a, b);
+                } else if (accept("/")) {
+                    final Evaluator b = parseUnary();
+                    left = fold(record -> arithmetic(a.eval(record), b.eval(record), '/'), a, b);
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        private Evaluator parseUnary() {
+            if (accept("-")) {
+                final Evaluator operand = parseUnary();
+                return fold(record -> {
+                    BigDecimal x = toNumber(operand.eval(record));
+                    return x == null ? null : x.negate();
+                }, operand);
+            }
+            return parsePrimary();
+        }
+
+        private Evaluator parsePrimary() {
+            String token = next();
+            if (token.startsWith("'")) {
+                return new Constant(emptyToNull(token.substring(1)));
+            }
+            if (Character.isDigit(token.charAt(0)) || token.charAt(0) == '.') {
+                return new Constant(new BigDecimal(token));
+            }
+            if (token.startsWith(":")) {
+                return fieldResolver.apply(token.substring(1));
+            }
+            if ("(".equals(token)) {
+                Evaluator inner = parseExpression();
+                expect(")");
+                return inner;
+            }
+            String keyword = token.toUpperCase(Locale.ROOT);
+            switch (keyword) {
+                case "NULL":
+                    return new Constant(null);
+                case "DATE": {
+                    String literal = next();
+                    if (!literal.startsWith("'")) {
+                        throw error("expected 'yyyy-mm-dd' after DATE");
+                    }
+                    return new Constant(LocalDate.parse(literal.substring(1)));
+                }
+                case "CASE":
+                    return parseCase();
+                default:
+                    if ("(".equals(peek())) {
+                        return function(keyword, parseArguments());
+                    }
+                    throw error("unknown name " + token + " (fields are written :NAME)");
+            }
+        }
+
+        private Evaluator parseCase() {
+            final List<Evaluator> conditions = new ArrayList<>();
+            final List<Evaluator> results = new ArrayList<>();
+            while (accept("WHEN")) {
+                conditions.add(parseExpression());
+                expect("THEN");
+                results.add(parseExpression());
+            }
+            if (conditions.isEmpty()) {
+                throw error("expected WHEN after CASE");
+            }
+            final Evaluator otherwise = accept("ELSE") ? parseExpression() : new Constant(null);
+            expect("END");
+            List<Evaluator> operands = new ArrayList<>(conditions);
+            operands.addAll(results);
+            operands.add(otherwise);
+            return fold(record -> {
+                for (int i = 0; i < conditions.size(); i++) {
+                    if (isTrue(conditions.get(i).eval(record))) {
+                        return results.get(i).eval(record);
+                    }
+                }
+                return otherwise.eval(record);
+            }, operands);
+        }
+
+        private List<Evaluator> parseArguments() {
+            expect("(");
+            List<Evaluator> arguments = new ArrayList<>();
+            if (!accept(")")) {
+                do {
+                    arguments.add(parseExpression());
+                } while (accept(","));
+                expect(")");
+            }
+            return arguments;
+        }
+
+        private Evaluator function(String name, final List<Evaluator> args) {
+            switch (name) {
+                case "NVL":
+                    arity(name, args, 2, 2);
+                    return fold(record -> {
+                        Object x = args.get(0).eval(record);
+                        return x != null ? x : args.get(1).eval(record);
+                    }, args);
+                case "COALESCE":
+                    arity(name, args, 1, Integer.MAX_VALUE);
+                    return fold(record -> {
+                        for (Evaluator arg : args) {
+                            Object x = arg.eval(record);
+                            if (x != null) {
+                                return x;
+                            }
+                        }
+                        return null;
+                    }, args);
+                case "DECODE":
+                    arity(name, args, 3, Integer.MAX_VALUE);
+                    return fold(record -> {
+                        Object x = args.get(0).eval(record);
+                        int i = 1;
+                        for (; i + 1 < args.size(); i += 2) {
+                            Object search = args.get(i).eval(record);
+                            if (x == null ? search == null : search != null && compare(x, search) == 0) {
+                                return args.get(i + 1).eval(record);
+                            }
+                        }
+                        return i < args.size() ? args.get(i).eval(record) : null;
+                    }, args);
+                case "REPLACE":
+                    arity(name, args, 2, 3);
+                    return fold(record -> {
+                        String text = toText(args.get(0).eval(record));
+                        String search = toText(args.get(1).eval(record));
+                        String replacement = args.size() > 2 ? toText(args.get(2).eval(record)) : null;
+                        if (text == null || search == null) {
+                            return text;
+                        }
+                        return emptyToNull(text.replace(search, replacement == null ? "" : replacement));
+                    }, args);
+                case "TRIM":
+                    arity(name, args, 1, 1);
+                    return fold(record -> {
+                        String text = toText(args.get(0).eval(record));
+                        return text == null ? null : emptyToNull(rtrim(ltrim(text)));
+                    }, args);
+                case "LTRIM":
+                    arity(name, args, 1, 1);
+                    return fold(record -> {
+                        String text = toText(args.get(0).eval(record));
+                        return text == null ? null : emptyToNull(ltrim(text));
+                    }, args);
+                case "RTRIM":
+                    arity(name, args, 1, 1);
+                    return fold(record -> {
+                        String text = toText(args.get(0).eval(record));
+                        return text == null ? null : emptyToNull(rtrim(text));
+                    }, args);
+                case "UPPER":
+                    arity(name, args, 1, 1);
+                    return fold(record -> {
+                        String text = toText(args.get(0).eval(record));
+                        return text == null ? null : text.toUpperCase(Locale.ROOT);
+                    }, args);
+                case "LOWER":
+                    arity(name, args, 1, 1);
+                    return fold(record -> {
+                        String text = toText(args.get(0).eval(record));
+                        return text == null ? null : text.toLowerCase(Locale.ROOT);
+                    }, args);
+                case "SUBSTR":
+                    arity(name, args, 2, 3);
+                    return fold(record -> {
+                        String text = toText(args.get(0).eval(record));
+                        BigDecimal start = toNumber(args.get(1).eval(record));
+                        BigDecimal length = args.size() > 2 ? toNumber(args.get(2).eval(record)) : null;
+                        if (text == null || start == null || (args.size() > 2 && length == null)) {
+                            return null;
+                        }
+                        int from = start.intValue();
+                        from = from > 0 ? from - 1 : from < 0 ? text.length() + from : 0;
+                        if (from < 0 || from >= text.length()) {
+                            return null;
+                        }
+                        int to = length == null ? text.length() : Math.min(text.length(), from + length.intValue());
+                        return to <= from ? null : text.substring(from, to);
+                    }, args);
+                case "CHR":
+                    arity(name, args, 1, 1);
+                    return fold(record -> {
+                        BigDecimal code = toNumber(args.get(0).eval(record));
+                        return code == null ? null : String.valueOf((char) code.intValueExact());
+                    }, args);
+                case "LAST_DAY":
+                    arity(name, args, 1, 1);
+                    return fold(record -> {
+                        LocalDate date = toDate(args.get(0).eval(record));
+                        return date == null ? null : date.with(TemporalAdjusters.lastDayOfMonth());
+                    }, args);
+                case "TO_DATE":
+                    arity(name, args, 2, 2);
+                    return fold(record -> {
+                        String text = toText(args.get(0).eval(record));
+                        String format = toText(args.get(1).eval(record));
+                        if (text == null) {
+                            return null;
+                        }
+                        return LocalDate.parse(text, DateTimeFormatter.ofPattern(javaDatePattern(format)));
+                    }, args);
+                case "TO_NUMBER":
+                    arity(name, args, 1, 1);
+                    return fold(record -> toNumber(args.get(0).eval(record)), args);
+                default:
+                    throw error("unknown function " + name);
+            }
+        }
+
+        private void arity(String name, List<Evaluator> args, int min, int max) {
+            if (args.size() < min || args.size() > max) {
+                throw error(name + " takes " + (min == max ? String.valueOf(min) : min + " or more")
+                        + " arguments, not " + args.size());
+            }
+        }
+
+        private String peek() {
+            return position < tokens.size() ? tokens.get(position) : null;
+        }
+
+        private String next() {
+            if (position >= tokens.size()) {
+                throw error("unexpected end");
+            }
+            return tokens.get(position++);
+        }
+
+        private boolean accept(String token) {
+            String current = peek();
+            if (current != null && !current.startsWith("'") && current.equalsIgnoreCase(token)) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(String token) {
+            if (!accept(token)) {
+                throw error("expected " + token + (peek() == null ? " at end" : " before " + peek()));
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Invalid expression \"" + source + "\": " + message);
+        }
+    }
+
+    private static Object arithmetic(Object a, Object b, char operator) {
+        BigDecimal x = toNumber(a);
+        BigDecimal y = toNumber(b);
+        if (x == null || y == null) {
+            return null;
+        }
+        switch (operator) {
+            case '+': return x.add(y);
+            case '-': return x.subtract(y);
+            case '*': return x.multiply(y);
+            default: return x.divide(y, MathContext.DECIMAL128).stripTrailingZeros();
+        }
+    }
+
+    private static String ltrim(String text) {
+        int start = 0;
+        while (start < text.length() && text.charAt(start) == ' ') {
+            start++;
+        }
+        return text.substring(start);
+    }
+
+    private static String rtrim(String text) {
+        int end = text.length();
+        while (end > 0 && text.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return text.substring(0, end);
+    }
+
+    /**
+     * Oracle date format elements used by the CTL files, as a DateTimeFormatter pattern
+     */
+    private static String javaDatePattern(String oracleFormat) {
+        return oracleFormat.toUpperCase(Locale.ROOT)
+                .replace("YYYY", "uuuu")
+                .replace("DD", "dd");
+    }
+}
@@ -0,0 +1,237 @@
+package com.abc.sbse.os.ts.csp.alsentity.ale.mapper;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Decodes fields of a fixed-length line in place, for the record line mappers
+ *
+ * Positions are the CTL POSITION(start:end) columns, 1-based and inclusive,
+ * exactly as the Range columns of a FixedLengthTokenizer. As with a non-strict
+ * FixedLengthTokenizer followed by FieldSet.readString, fields are trimmed and
+ * a field past the end of a short line is empty. Numbers and dates are read
+ * straight from the line's chars, so only String fields allocate.
+ */
+public final class FixedLengthFields {
+
+    private static final String[] SINGLE_CHARS = new String[256];
+    static {
+        for (int i = 0; i < SINGLE_CHARS.length; i++) {
+            SINGLE_CHARS[i] = String.valueOf((char) i);
+        }
+    }
+
+    // REPLACE(:DT, '00000000', '19000101') default of the CTL files
+    public static final LocalDate DEFAULT_DATE = LocalDate.of(1900, 1, 1);
+
+    private static final int FIRST_YEAR = 1900;
+    private static final int YEARS = 300;
+    private static final LocalDate[] DATE_CACHE = new LocalDate[YEARS * 12 * 31];
+
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private FixedLengthFields() {
+    }
+
+    /**
+     * Trimmed text of a field, or "" when blank; single characters come from a shared table
+     */
+    public static String text(String line, int start, int end) {
+        int s = first(line, start, end);
+        int e = last(line, s, end);
+        if (s == e) {
+            return "";
+        }
+        if (e - s == 1 && line.charAt(s) < SINGLE_CHARS.length) {
+            return SINGLE_CHARS[line.charAt(s)];
+        }
+        return line.substring(s, e);
+    }
+
+    /**
+     * True if the field is blank or past the end of the line
+     */
+    public static boolean isBlank(String line, int start, int end) {
+        int s = first(line, start, end);
+        return s == last(line, s, end);
+    }
+
+    /**
+     * Decimal value of a field, or null when blank
+     *
+     * @throws NumberFormatException if the field is not a number, as new BigDecimal would throw
+     */
+    public static BigDecimal decimal(String line, int start, int end) {
+        return decimal(line, start, end, 0);
+    }
+
+    /**
+     * Decimal value of a field with the point moved left, for DECODE(:X, :X, (:X / 100)) style
+     * fields (scale 2), or null when blank
+     *
+     * @throws NumberFormatException if the field is not a number, as new BigDecimal would throw
+     */
+    public static BigDecimal decimal(String line, int start, int end, int scale) {
+        int s = first(line, start, end);
+        int e = last(line, s, end);
+        if (s == e) {
+            return null;
+        }
+        int i = s;
+        boolean negative = false;
+        char c = line.charAt(i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+        }
+        long unscaled = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        boolean anyDigit = false;
+        for (; i < e; i++) {
+            c = line.charAt(i);
+            if (c >= '0' && c <= '9') {
+                anyDigit = true;
+                unscaled = unscaled * 10 + (c - '0');
+                if (unscaled != 0 && ++digits > MAX_LONG_DIGITS) {
+                    return slowDecimal(line, s, e, scale);
+                }
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                return slowDecimal(line, s, e, scale);  // Exponent, stray characters - BigDecimal decides
+            }
+        }
+        if (!anyDigit) {
+            throw new NumberFormatException("Not a number: \"" + line.substring(s, e) + "\"");
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, Math.max(fractionDigits, 0) + scale);
+    }
+
+    private static BigDecimal slowDecimal(String line, int s, int e, int scale) {
+        BigDecimal value = new BigDecimal(line.substring(s, e));
+        return scale == 0 ? value : value.movePointLeft(scale);
+    }
+
+    /**
+     * Integer value of a field, or null when blank
+     *
+     * @throws NumberFormatException if the field is not a whole number
+     */
+    public static Integer integer(String line, int start, int end) {
+        int s = first(line, start, end);
+        int e = last(line, s, end);
+        if (s == e) {
+            return null;
+        }
+        int i = s;
+        boolean negative = false;
+        char c = line.charAt(i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+        }
+        if (i == e || e - i > 9) {
+            return Integer.valueOf(line.substring(s, e));  // Sign only or too long for the fast path
+        }
+        int value = 0;
+        for (; i < e; i++) {
+            int digit = line.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Not a whole number: \"" + line.substring(s, e) + "\"");
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * yyyyMMdd date of a field, or null when blank
+     * A day past the end of its month resolves to the last day of the month,
+     * as DateTimeFormatter.ofPattern("yyyyMMdd") does.
+     *
+     * @param zerosAsDefault true to read "00000000" as 01/01/1900, as the CTL REPLACE does
+     * @throws DateTimeParseException if the field is not a yyyyMMdd date
+     */
+    public static LocalDate date(String line, int start, int end, boolean zerosAsDefault) {
+        int s = first(line, start, end);
+        int e = last(line, s, end);
+        if (s == e) {
+            return null;
+        }
+        int value = e - s == 8 ? digits(line, s, e) : -1;
+        if (value == 0 && zerosAsDefault) {
+            return DEFAULT_DATE;
+        }
+        LocalDate date = value < 0 ? null : toDate(value / 10000, (value / 100) % 100, value % 100);
+        if (date == null) {
+            throw new DateTimeParseException("Text '" + line.substring(s, e) + "' is not a yyyyMMdd date",
+                    line.substring(s, e), 0);
+        }
+        return date;
+    }
+
+    /**
+     * Cached date for a year, month and day, or null if they are not a date
+     * Dates are cached by calendar slot, so repeated values (the extract date in
+     * particular) cost no allocation after the first row.
+     */
+    private static LocalDate toDate(int year, int month, int day) {
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > 31) {
+            return null;
+        }
+        if (year < FIRST_YEAR || year >= FIRST_YEAR + YEARS) {
+            return resolve(year, month, day);
+        }
+        int slot = ((year - FIRST_YEAR) * 12 + (month - 1)) * 31 + (day - 1);
+        LocalDate cached = DATE_CACHE[slot];
+        if (cached == null) {
+            cached = resolve(year, month, day);
+            DATE_CACHE[slot] = cached;
+        }
+        return cached;
+    }
+
+    private static LocalDate resolve(int year, int month, int day) {
+        LocalDate first = LocalDate.of(year, month, 1);
+        return first.withDayOfMonth(Math.min(day, first.lengthOfMonth()));
+    }
+
+    /**
+     * Value of a run of ASCII digits, or -1 if any character is not a digit
+     */
+    private static int digits(String line, int s, int e) {
+        int value = 0;
+        for (int i = s; i < e; i++) {
+            int digit = line.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Index of the first non-blank char of the field, clipped to the line
+     */
+    private static int first(String line, int start, int end) {
+        int s = Math.min(start - 1, line.length());
+        int e = Math.min(end, line.length());
+        while (s < e && line.charAt(s) <= ' ') s++;
+        return s;
+    }
+
+    /**
+     * Index just after the last non-blank char of the field, clipped to the line
+     */
+    private static int last(String line, int s, int end) {
+        int e = Math.min(end, line.length());
+        while (e > s && line.charAt(e - 1) <= ' ') e--;
+        return e;
+    }
+}
@@ -0,0 +1,320 @@
+package com.abc.sbse.os.ts.csp.alsentity.ale.util;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.springframework.batch.item.database.ItemPreparedStatementSetter;
+
+/**
+ * ItemPreparedStatementSetter that binds a record's properties to "?" parameters by index
+ *
+ * Built once at startup from the writer's named-parameter SQL. Each :name is
+ * replaced by "?" and its getter is resolved, with the same property naming as
+ * BeanPropertyItemSqlParameterSourceProvider, into a generated accessor and a
+ * setter for the getter's declared type. Writing an item is then one accessor
+ * call and one typed PreparedStatement call per column, with no reflection,
+ * no parameter source per item, no SQL parsing per chunk and no parameter
+ * metadata lookups for null values.
+ *
+ * Use getSql() as the writer's SQL in place of the named-parameter SQL:
+ *   IndexedItemPreparedStatementSetter<E9Record> setter = IndexedItemPreparedStatementSetter.forNamedSql(E9Record.class, sql);
+ *   writer.setSql(setter.getSql());
+ *   writer.setItemPreparedStatementSetter(setter);
+ */
+public final class IndexedItemPreparedStatementSetter<T> implements ItemPreparedStatementSetter<T> {
+
+    private final Class<T> type;
+    private final String sql;
+    private final List<String> parameterNames;
+    private final ColumnBinder[] binders;
+
+    private IndexedItemPreparedStatementSetter(Class<T> type, String sql, List<String> parameterNames,
+                                               ColumnBinder[] binders) {
+        this.type = type;
+        this.sql = sql;
+        this.parameterNames = parameterNames;
+        this.binders = binders;
+    }
+
+    /**
+     * Build the setter for an INSERT, REPLACE or MERGE written with :property parameters
+     *
+     * @param type record class whose getters supply the parameters
+     * @param namedSql SQL with :name parameters; quoted literals and comments are left alone
+     * @throws IllegalArgumentException if a parameter has no readable property on the record class
+     */
+    public static <T> IndexedItemPreparedStatementSetter<T> forNamedSql(Class<T> type, String namedSql) {
+        List<String> names = new ArrayList<>();
+        String sql = toPositionalSql(namedSql, names);
+
+        Map<String, Method> getters = readableProperties(type);
+        ColumnBinder[] binders = new ColumnBinder[names.size()];
+        for (int i = 0; i < names.size(); i++) {
+            Method getter = getters.get(names.get(i));
+            if (getter == null) {
+                throw new IllegalArgumentException("No readable property '" + names.get(i) + "' on "
+                        + type.getName() + " for parameter " + (i + 1) + " of: " + namedSql);
+            }
+            binders[i] = binder(i + 1, getter.getReturnType(), accessor(getter));
+        }
+        return new IndexedItemPreparedStatementSetter<>(type, sql, Collections.unmodifiableList(names), binders);
+    }
+
+    /**
+     * SQL with every named parameter replaced by "?", for JdbcBatchItemWriter.setSql
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Property bound to each "?", in order
+     */
+    public List<String> getParameterNames() {
+        return parameterNames;
+    }
+
+    @Override
+    public void setValues(T item, PreparedStatement ps) throws SQLException {
+        for (ColumnBinder binder : binders) {
+            binder.bind(item, ps);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "IndexedItemPreparedStatementSetter[" + type.getSimpleName() + ", " + binders.length + " columns]";
+    }
+
+    /**
+     * Binds one column of an item
+     */
+    @FunctionalInterface
+    private interface ColumnBinder {
+        void bind(Object item, PreparedStatement ps) throws SQLException;
+    }
+
+    /**
+     * Typed binder for a property, with a typed null so the driver is never asked for parameter metadata
+     */
+    private static ColumnBinder binder(int index, Class<?> propertyType, Function<Object, Object> get) {
+        if (propertyType == String.class) {
+            return (item, ps) -> {
+                String value = (String) get.apply(item);
+                if (value == null) {
+                    ps.setNull(index, Types.VARCHAR);
+                } else {
+                    ps.setString(index, value);
+                }
+            };
+        }
+        if (propertyType == BigDecimal.class) {
+            return (item, ps) -> {
+                BigDecimal value = (BigDecimal) get.apply(item);
+                if (value == null) {
+                    ps.setNull(index, Types.NUMERIC);
+                } else {
+                    ps.setBigDecimal(index, value);
+                }
+            };
+        }
+        if (propertyType == Integer.class || propertyType == int.class) {
+            return (item, ps) -> {
+                Integer value = (Integer) get.apply(item);
+                if (value == null) {
+                    ps.setNull(index, Types.INTEGER);
+                } else {
+                    ps.setInt(index, value);
+                }
+            };
+        }
+        if (propertyType == Long.class || propertyType == long.class) {
+            return (item, ps) -> {
+                Long value = (Long) get.apply(item);
+                if (value == null) {
+                    ps.setNull(index, Types.BIGINT);
+                } else {
+                    ps.setLong(index, value);
+                }
+            };
+        }
+        if (propertyType == LocalDate.class) {
+            return (item, ps) -> {
+                LocalDate value = (LocalDate) get.apply(item);
+                if (value == null) {
+                    ps.setNull(index, Types.DATE);
+                } else {
+                    ps.setDate(index, java.sql.Date.valueOf(value));
+                }
+            };
+        }
+        if (propertyType == LocalDateTime.class) {
+            return (item, ps) -> {
+                LocalDateTime value = (LocalDateTime) get.apply(item);
+                if (value == null) {
+                    ps.setNull(index, Types.TIMESTAMP);
+                } else {
+                    ps.setTimestamp(index, Timestamp.valueOf(value));
+                }
+            };
+        }
+        if (propertyType == java.sql.Date.class) {
+            return (item, ps) -> {
+                java.sql.Date value = (java.sql.Date) get.apply(item);
+                if (value == null) {
+                    ps.setNull(index, Types.DATE);
+                } else {
+                    ps.setDate(index, value);
+                }
+            };
+        }
+        if (java.util.Date.class.isAssignableFrom(propertyType)) {
+            // As StatementCreatorUtils binds an untyped java.util.Date
+            return (item, ps) -> {
+                java.util.Date value = (java.util.Date) get.apply(item);
+                if (value == null) {
+                    ps.setNull(index, Types.TIMESTAMP);
+                } else if (value instanceof Timestamp) {
+                    ps.setTimestamp(index, (Timestamp) value);
+                } else {
+                    ps.setTimestamp(index, new Timestamp(value.getTime()));
+                }
+            };
+        }
+        if (propertyType == Boolean.class || propertyType == boolean.class) {
+            return (item, ps) -> {
+                Boolean value = (Boolean) get.apply(item);
+                if (value == null) {
+                    ps.setNull(index, Types.BOOLEAN);
+                } else {
+                    ps.setBoolean(index, value);
+                }
+            };
+        }
+        return (item, ps) -> {
+            Object value = get.apply(item);
+            if (value == null) {
+                ps.setNull(index, Types.NULL);
+            } else {
+                ps.setObject(index, value);
+            }
+        };
+    }
+
+    /**
+     * Getters by property name, named as java.beans (and so BeanPropertySqlParameterSource) names them
+     */
+    private static Map<String, Method> readableProperties(Class<?> type) {
+        Map<String, Method> getters = new HashMap<>();
+        try {
+            for (PropertyDescriptor descriptor : Introspector.getBeanInfo(type).getPropertyDescriptors()) {
+                if (descriptor.getReadMethod() != null) {
+                    getters.put(descriptor.getName(), descriptor.getReadMethod());
+                }
+            }
+        } catch (IntrospectionException e) {
+            throw new IllegalArgumentException("Unable to introspect " + type.getName(), e);
+        }
+        return getters;
+    }
+
+    /**
+     * Generated Function calling the getter directly, so each call can be inlined like hand-written code
+     */
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> accessor(Method getter) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle handle = lookup.unreflect(getter);
+            MethodType instantiated = MethodType.methodType(
+                    handle.type().wrap().returnType(), getter.getDeclaringClass());
+            CallSite site = LambdaMetafactory.metafactory(lookup, "apply",
+                    MethodType.methodType(Function.class),
+                    MethodType.methodType(Object.class, Object.class),
+                    handle, instantiated);
+            return (Function<Object, Object>) site.getTarget().invoke();
+        } catch (Throwable e) {
+            // Getter not reachable for a generated accessor - call it through its method handle instead
+            try {
+                MethodHandle handle = MethodHandles.publicLookup().unreflect(getter)
+                        .asType(MethodType.methodType(Object.class, Object.class));
+                return item -> {
+                    try {
+                        return handle.invokeExact(item);
+                    } catch (RuntimeException | Error ex) {
+                        throw ex;
+                    } catch (Throwable ex) {
+                        throw new IllegalStateException("Unable to read " + getter.getName(), ex);
+                    }
+                };
+            } catch (IllegalAccessException ex) {
+                throw new IllegalArgumentException("Getter " + getter + " is not accessible", ex);
+            }
+        }
+    }
+
+    /**
+     * Replace each :name parameter with "?", collecting the names in order
+     * Quoted literals, quoted identifiers, comments and "::" casts are copied
+     * unchanged, as NamedParameterUtils leaves them.
+     */
+    static String toPositionalSql(String namedSql, List<String> names) {
+        StringBuilder sql = new StringBuilder(namedSql.length());
+        int length = namedSql.length();
+        int i = 0;
+        while (i < length) {
+            char c = namedSql.charAt(i);
+            if (c == '\'' || c == '"') {
+                int end = namedSql.indexOf(c, i + 1);
+                end = end < 0 ? length : end + 1;
+                sql.append(namedSql, i, end);
+                i = end;
+            } else if (c == '-' && i + 1 < length && namedSql.charAt(i + 1) == '-') {
+                int end = namedSql.indexOf('\n', i);
+                end = end < 0 ? length : end + 1;
+                sql.append(namedSql, i, end);
+                i = end;
+            } else if (c == '/' && i + 1 < length && namedSql.charAt(i + 1) == '*') {
+                int end = namedSql.indexOf("*/", i + 2);
+                end = end < 0 ? length : end + 2;
+                sql.append(namedSql, i, end);
+                i = end;
+            } else if (c == ':' && i + 1 < length && namedSql.charAt(i + 1) == ':') {
+                sql.append("::");
+                i += 2;
+            } else if (c == ':' && i + 1 < length && Character.isJavaIdentifierStart(namedSql.charAt(i + 1))) {
+                int end = i + 2;
+                while (end < length && Character.isJavaIdentifierPart(namedSql.charAt(end))) {
+                    end++;
+                }
+                names.add(namedSql.substring(i + 1, end));
+                sql.append('?');
+                i = end;
+            } else {
+                sql.append(c);
+                i++;
+            }
+        }
+        return sql.toString();
+    }
+}
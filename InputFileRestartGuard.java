@@ -0,0 +1,68 @@
+package com.abc.sbse.os.ts.csp.alsentity.ale.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.item.ExecutionContext;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Stops a restarted file load from resuming over a different input file
+ *
+ * A restarted load step resumes its reader at the line count saved with the last
+ * committed chunk. That count only means something for the file the first run read,
+ * so the first run records the file's size and modification time in the step
+ * execution context, and a restart fails before reading if either has changed.
+ * A replaced file is loaded by a new job instance instead of a restart.
+ */
+@Slf4j
+public class InputFileRestartGuard implements StepExecutionListener {
+
+    static final String FINGERPRINT_KEY = "inputFile.fingerprint";
+
+    private final Path file;
+
+    public InputFileRestartGuard(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        ExecutionContext context = stepExecution.getExecutionContext();
+        String current = fingerprint();
+        if (!context.containsKey(FINGERPRINT_KEY)) {
+            context.putString(FINGERPRINT_KEY, current);
+            return;
+        }
+        String previous = context.getString(FINGERPRINT_KEY);
+        if (!previous.equals(current)) {
+            throw new IllegalStateException("Input file " + file + " changed since step " + stepExecution.getStepName()
+                    + " first ran (" + previous + ", now " + current
+                    + "); load the new file as a new job instance instead of restarting");
+        }
+        log.info("Step {} resumes {} after its last committed chunk", stepExecution.getStepName(), file);
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        return null;
+    }
+
+    /**
+     * Size and modification time of the file, or missing
+     */
+    private String fingerprint() {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return attributes.size() + " bytes, modified " + attributes.lastModifiedTime();
+        } catch (IOException e) {
+            return "missing";
+        }
+    }
+}
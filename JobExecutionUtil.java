@@ -9,6 +9,8 @@ import gov.irs.sbse.os.ts.csp.alsentity.ale.service.MaterializedViewService;
 import org.springframework.batch.core.JobExecution;
 import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
@@ -32,6 +34,10 @@ public class JobExecutionUtil {
     private List<String> tables;
     private String priorSnapshotDate;
     private String prefix;
+    private int maxConcurrentRestores = 4;
+    private boolean restoreNologging;
+    private final Map<String, SnapshotRestorer.Method> restoreMethods = new LinkedHashMap<>();
+    private List<SnapshotRestorer.Timing> restoreTimings = Collections.emptyList();
     
     /**
      * Private constructor - use the builder() method to create instances
@@ -108,6 +114,50 @@ public class JobExecutionUtil {
         return this;
     }
     
+    /**
+     * Set the most snapshot tables to restore at once
+     * 
+     * @param maxConcurrentRestores Restores to run at once, each on its own session (default 4)
+     * @return This JobExecutionUtil for method chaining
+     */
+    public JobExecutionUtil withMaxConcurrentRestores(int maxConcurrentRestores) {
+        this.maxConcurrentRestores = maxConcurrentRestores;
+        return this;
+    }
+    
+    /**
+     * Make the TRUNCATE and direct-path INSERT restores NOLOGGING while they insert
+     * 
+     * @param restoreNologging Whether to switch the table to NOLOGGING for the insert (default false)
+     * @return This JobExecutionUtil for method chaining
+     */
+    public JobExecutionUtil withNologging(boolean restoreNologging) {
+        this.restoreNologging = restoreNologging;
+        return this;
+    }
+    
+    /**
+     * Restore a table with another method than TRUNCATE and direct-path INSERT
+     * EXCHANGE and RENAME use up the snapshot; see SnapshotRestorer.
+     * 
+     * @param table The table name
+     * @param method The restore method
+     * @return This JobExecutionUtil for method chaining
+     */
+    public JobExecutionUtil withRestoreMethod(String table, SnapshotRestorer.Method method) {
+        this.restoreMethods.put(table, method);
+        return this;
+    }
+    
+    /**
+     * Get how long each table took to restore in the last execute
+     * 
+     * @return The restore timing of each table
+     */
+    public List<SnapshotRestorer.Timing> getRestoreTimings() {
+        return restoreTimings;
+    }
+    
     /**
      * Execute a job with validation and snapshot restoration
      * 
@@ -123,42 +173,29 @@ public class JobExecutionUtil {
         // Get unique tables (remove duplicates)
         List<String> uniqueTables = tables.stream().distinct().collect(Collectors.toList());
         
-        // Validate and restore prior-day snapshot tables
+        // Validate all prior-day snapshot tables with one dictionary query
+        List<String> snapshotTables = uniqueTables.stream()
+                // Handle tables with DIAL. prefix
+                .map(table -> table.startsWith("DIAL.") ? table.substring("DIAL.".length()) : table)
+                .map(this::snapshotTableName)
+                .collect(Collectors.toList());
         EntityRepository destRepo = entityRepos.get(Constants.DEST_REPO_KEY);
-        for (String table : uniqueTables) {
-            // Handle tables with DIAL. prefix
-            if (table.startsWith("DIAL.")) {
-                table = table.substring("DIAL.".length());
-            }
-            
-            // Format the prior snapshot table name
-            String priorSnapshotTableName = String.format("%s_%s_%s", table, prefix, Constants.PRE_SNAPSHOT, priorSnapshotDate);
-            
-            // Check if the prior snapshot exists
-            String checkSQL = "SELECT COUNT(*) FROM all_tables WHERE table_name = '" + priorSnapshotTableName.toUpperCase() + "'";
-            Integer snapshotCount = destRepo.queryForObject(checkSQL, Integer.class);
-            
-            if (snapshotCount == null || snapshotCount == 0) {
-                throw new Exception("Required prior-day snapshot table " + priorSnapshotTableName + " does not exist.");
-            }
-        }
+        SnapshotRestorer restorer = new SnapshotRestorer(destRepo.getJdbcTemplate(), dbSnapshotService, Constants.DEST_REPO_KEY)
+                .maxConcurrentRestores(maxConcurrentRestores)
+                .nologging(restoreNologging);
+        restoreMethods.forEach(restorer::method);
+        restorer.validate(snapshotTables);
         
-        // Restore prior snapshots
+        // Restore prior snapshots in parallel
+        Map<String, String> restoreTables = new LinkedHashMap<>();
         for (String table : uniqueTables) {
             // Skip tables that should be ignored
             if ("ICSZIPS".equalsIgnoreCase(table) || "TINCURPART".equalsIgnoreCase(table) || table.startsWith("DIAL.")) {
                 continue;
             }
-            
-            // Format snapshot table name
-            String snapshotTable = String.format("%s_%s_%s", table, prefix, Constants.PRE_SNAPSHOT, priorSnapshotDate);
-            
-            // Restore snapshot
-            boolean restored = dbSnapshotService.restoreSnapshotByDate(Constants.DEST_REPO_KEY, table, priorSnapshotDate, snapshotTable);
-            if (!restored) {
-                throw new Exception("Prior snapshot restoration failed for table " + table);
-            }
+            restoreTables.put(table, snapshotTableName(table));
         }
+        restoreTimings = restorer.restore(restoreTables, priorSnapshotDate);
         
         // Execute the job
         try {
@@ -174,4 +211,11 @@ public class JobExecutionUtil {
             throw e;
         }
     }
+    
+    /**
+     * Format the prior snapshot table name of a table
+     */
+    private String snapshotTableName(String table) {
+        return String.format("%s_%s_%s", table, prefix, Constants.PRE_SNAPSHOT, priorSnapshotDate);
+    }
 }
@@ -0,0 +1,81 @@
+package com.abc.sbse.os.ts.csp.alsentity.ale.util;
+
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.JobLauncher;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Launches a job as a restart of its last instance when that instance failed or was stopped
+ *
+ * A new set of parameters makes a new job instance, which runs every step again from
+ * the start: the staging table is truncated and the whole file is read again. Launched
+ * with its previous parameters, the failed instance skips the steps that completed and
+ * the load step resumes its reader after the last chunk it committed, so a run that
+ * failed near the end of the file only reads the rest of it.
+ *
+ * The last instance is restarted when its last execution FAILED or STOPPED. A completed
+ * or missing instance gets a new instance from the job's incrementer. An execution left
+ * STARTED or UNKNOWN by a killed JVM is refused: it has to be marked FAILED in the job
+ * repository first, as Spring Batch cannot tell it from one still running.
+ *
+ * Usage:
+ *   JobExecution execution = JobRestartUtil.runOrRestart(jobLauncher, jobExplorer, processE9Job, true);
+ */
+@Slf4j
+public final class JobRestartUtil {
+
+    private JobRestartUtil() {
+    }
+
+    /**
+     * Runs the job, restarting its last instance if that failed and restartFailed is set
+     *
+     * @param restartFailed false always starts a new instance, as after replacing the input file
+     */
+    public static JobExecution runOrRestart(JobLauncher jobLauncher, JobExplorer jobExplorer, Job job,
+                                            boolean restartFailed) throws Exception {
+        JobParameters parameters = restartFailed ? restartParameters(jobExplorer, job) : null;
+        if (parameters == null) {
+            parameters = new JobParametersBuilder(jobExplorer).getNextJobParameters(job).toJobParameters();
+            log.info("Starting {} as a new instance with {}", job.getName(), parameters);
+        }
+        return jobLauncher.run(job, parameters);
+    }
+
+    /**
+     * Parameters of the job's last instance when it can be restarted, otherwise null
+     */
+    public static JobParameters restartParameters(JobExplorer jobExplorer, Job job) {
+        JobInstance instance = jobExplorer.getLastJobInstance(job.getName());
+        if (instance == null) {
+            return null;
+        }
+        JobExecution last = jobExplorer.getLastJobExecution(instance);
+        if (last == null) {
+            return null;
+        }
+        BatchStatus status = last.getStatus();
+        if (status == BatchStatus.FAILED || status == BatchStatus.STOPPED) {
+            if (!job.isRestartable()) {
+                log.warn("{} instance {} ended {} but the job is not restartable; starting a new instance",
+                        job.getName(), instance.getInstanceId(), status);
+                return null;
+            }
+            log.info("Restarting {} instance {} after execution {} ended {}", job.getName(),
+                    instance.getInstanceId(), last.getId(), status);
+            return last.getJobParameters();
+        }
+        if (status.isRunning() || status == BatchStatus.UNKNOWN) {
+            throw new IllegalStateException(job.getName() + " execution " + last.getId() + " is " + status
+                    + "; mark it FAILED in the job repository if its JVM is gone, then run again to restart it");
+        }
+        return null;
+    }
+}
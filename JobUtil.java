@@ -10,6 +10,8 @@ import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.batch.core.JobExecution;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
@@ -29,6 +31,10 @@ public class JobUtil {
     private List<String> tables;
     private String priorSnapshotDate;
     private String prefix;
+    private int maxConcurrentRestores = 4;
+    private boolean restoreNologging;
+    private final Map<String, SnapshotRestorer.Method> restoreMethods = new LinkedHashMap<>();
+    private List<SnapshotRestorer.Timing> restoreTimings = Collections.emptyList();
     
     private JobUtil(Map<String, EntityRepository> entityRepos, 
                    DatabaseSnapshotService dbSnapshotService, 
@@ -79,6 +85,38 @@ public class JobUtil {
         return this;
     }
     
+    /**
+     * Set the most snapshot tables to restore at once (default 4)
+     */
+    public JobUtil withMaxConcurrentRestores(int maxConcurrentRestores) {
+        this.maxConcurrentRestores = maxConcurrentRestores;
+        return this;
+    }
+    
+    /**
+     * Make the TRUNCATE and direct-path INSERT restores NOLOGGING while they insert
+     */
+    public JobUtil withNologging(boolean restoreNologging) {
+        this.restoreNologging = restoreNologging;
+        return this;
+    }
+    
+    /**
+     * Restore a table with another method than TRUNCATE and direct-path INSERT
+     * EXCHANGE and RENAME use up the snapshot; see SnapshotRestorer.
+     */
+    public JobUtil withRestoreMethod(String table, SnapshotRestorer.Method method) {
+        this.restoreMethods.put(table, method);
+        return this;
+    }
+    
+    /**
+     * Get how long each table took to restore in the last execute
+     */
+    public List<SnapshotRestorer.Timing> getRestoreTimings() {
+        return restoreTimings;
+    }
+    
     /**
      * Execute the job with proper setup and cleanup
      * 
@@ -93,34 +131,28 @@ public class JobUtil {
         
         List<String> uniqueTables = tables.stream().distinct().collect(Collectors.toList());
         
-        // Validate and restore prior-day snapshot tables
+        // Validate all prior-day snapshot tables with one dictionary query
+        List<String> snapshotTables = uniqueTables.stream()
+                .map(table -> table.startsWith("DIAL.") ? table.substring("DIAL.".length()) : table)
+                .map(this::snapshotTableName)
+                .collect(Collectors.toList());
         EntityRepository destRepo = entityRepos.get(Constants.DEST_REPO_KEY);
-        for (String table : uniqueTables) {
-            if (table.startsWith("DIAL.")) {
-                table = table.substring("DIAL.".length());
-            }
-            String priorSnapshotTableName = String.format("%s_%s_%s_%s", table, prefix, Constants.PRE_SNAPSHOT, priorSnapshotDate);
-            String checkSQL = "SELECT COUNT(*) FROM ALL_TABLES WHERE TABLE_NAME='" + priorSnapshotTableName.toUpperCase() + "'";
-            Integer snapshotCount = destRepo.queryForObject(checkSQL, Integer.class);
-            if (snapshotCount == null || snapshotCount == 0) {
-                throw new Exception("Required prior-day snapshot table " + priorSnapshotTableName + " does not exist.");
-            }
-        }
+        SnapshotRestorer restorer = new SnapshotRestorer(destRepo.getJdbcTemplate(), dbSnapshotService, Constants.DEST_REPO_KEY)
+                .maxConcurrentRestores(maxConcurrentRestores)
+                .nologging(restoreNologging);
+        restoreMethods.forEach(restorer::method);
+        restorer.validate(snapshotTables);
         
-        // Restore prior snapshots
+        // Restore prior snapshots in parallel
+        Map<String, String> restoreTables = new LinkedHashMap<>();
         for (String table : uniqueTables) {
             // Skip restore these tables due to they are not existed
             if ("ICSZIP5".equalsIgnoreCase(table) || "TINSUMMARY".equalsIgnoreCase(table) || table.startsWith("DIAL.")) {
                 continue;
             }
-            
-            String snapshotTable = String.format("%s_%s_%s_%s", table, prefix, Constants.PRE_SNAPSHOT, priorSnapshotDate);
-            
-            boolean restored = dbSnapshotService.restoreSnapshotByDate(Constants.DEST_REPO_KEY, table, priorSnapshotDate, snapshotTable);
-            if (!restored) {
-                throw new Exception("Prior snapshot restoration failed for table " + table);
-            }
+            restoreTables.put(table, snapshotTableName(table));
         }
+        restoreTimings = restorer.restore(restoreTables, priorSnapshotDate);
         
         // Execute the job
         T jobExecution = jobRunner.call();
@@ -128,4 +160,8 @@ public class JobUtil {
         
         return jobExecution;
     }
+    
+    private String snapshotTableName(String table) {
+        return String.format("%s_%s_%s_%s", table, prefix, Constants.PRE_SNAPSHOT, priorSnapshotDate);
+    }
 }
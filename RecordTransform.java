@@ -0,0 +1,239 @@
+package com.abc.sbse.os.ts.csp.alsentity.ale.mapper;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.batch.item.ItemProcessor;
+
+/**
+ * Column rules applied to each record before it is inserted, in place of the
+ * whole-table UPDATEs that ran over the staging table after the load
+ *
+ * Each rule sets one field to a FieldExpression over the record's fields, named as
+ * the staging columns (:TAXPRD, :DT_DOO), and matched to the record's properties
+ * ignoring case and underscores. Rules run in the order they are added and each sees
+ * the fields set by the rules before it, as a sequence of UPDATE ... SET col = expr
+ * WHERE cond steps does when written as one rule per step:
+ *
+ *   RecordTransform.forType(S1Record.class)
+ *           .set("TIMEDEF", "CASE WHEN :TIMEDEF IS NULL AND :TYPE = 'S' THEN 'D' ELSE :TIMEDEF END")
+ *           .set("TIMEDEF", "NVL(:TIMEDEF, 'T')")
+ *           .build();
+ *
+ * Field readers and writers are bound once when the transform is built, and a field
+ * or expression that does not compile fails the build, so a bad rule stops the job
+ * at startup rather than on the first record.
+ */
+public final class RecordTransform<T> implements ItemProcessor<T, T> {
+
+    private final Class<T> type;
+    private final List<Rule> rules;
+
+    private RecordTransform(Class<T> type, List<Rule> rules) {
+        this.type = type;
+        this.rules = rules;
+    }
+
+    /**
+     * Starts the rules of a record type
+     */
+    public static <T> Builder<T> forType(Class<T> type) {
+        return new Builder<>(type);
+    }
+
+    /**
+     * Applies the rules to the record in place and returns it
+     */
+    @Override
+    public T process(T record) {
+        for (Rule rule : rules) {
+            try {
+                rule.apply(record);
+            } catch (Throwable e) {
+                throw new IllegalArgumentException("Unable to apply " + rule + " to " + type.getSimpleName(), e);
+            }
+        }
+        return record;
+    }
+
+    /**
+     * Number of rules, for logging
+     */
+    public int size() {
+        return rules.size();
+    }
+
+    @Override
+    public String toString() {
+        return type.getSimpleName() + " rules " + rules;
+    }
+
+    private static final class Rule {
+        final String column;
+        final FieldExpression expression;
+        final MethodHandle setter;
+        final Class<?> fieldType;
+
+        Rule(String column, FieldExpression expression, MethodHandle setter, Class<?> fieldType) {
+            this.column = column;
+            this.expression = expression;
+            this.setter = setter;
+            this.fieldType = fieldType;
+        }
+
+        void apply(Object record) throws Throwable {
+            Object value = convert(expression.evaluate(record), fieldType);
+            setter.invokeExact(record, value);
+        }
+
+        @Override
+        public String toString() {
+            return column + " = " + expression;
+        }
+    }
+
+    /**
+     * An expression value as a value of the field's type
+     */
+    private static Object convert(Object value, Class<?> fieldType) {
+        if (value == null) {
+            if (fieldType.isPrimitive()) {
+                throw new IllegalArgumentException("NULL for a " + fieldType + " field");
+            }
+            return null;
+        }
+        if (fieldType == String.class) {
+            return value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : value.toString();
+        }
+        if (fieldType == LocalDate.class) {
+            if (value instanceof LocalDate) {
+                return value;
+            }
+            throw new IllegalArgumentException("Not a date: " + value);
+        }
+        BigDecimal number = value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString().trim());
+        if (fieldType == BigDecimal.class) {
+            return number;
+        }
+        if (fieldType == Integer.class || fieldType == int.class) {
+            return number.intValueExact();
+        }
+        if (fieldType == Long.class || fieldType == long.class) {
+            return number.longValueExact();
+        }
+        throw new IllegalArgumentException("Unsupported field type " + fieldType.getName());
+    }
+
+    /**
+     * Collects the rules of a record type, compiling each as it is added
+     */
+    public static final class Builder<T> {
+        private final Class<T> type;
+        private final Map<String, PropertyDescriptor> properties = new HashMap<>();
+        private final Map<String, FieldExpression.Evaluator> readers = new HashMap<>();
+        private final List<Rule> rules = new ArrayList<>();
+
+        private Builder(Class<T> type) {
+            this.type = type;
+            try {
+                for (PropertyDescriptor property : Introspector.getBeanInfo(type, Object.class).getPropertyDescriptors()) {
+                    properties.put(key(property.getName()), property);
+                }
+            } catch (IntrospectionException e) {
+                throw new IllegalArgumentException("Unable to read the properties of " + type.getName(), e);
+            }
+        }
+
+        /**
+         * Adds a rule setting the column's field to the expression
+         */
+        public Builder<T> set(String column, String expression) {
+            PropertyDescriptor property = property(column);
+            if (property.getWriteMethod() == null) {
+                throw new IllegalArgumentException(type.getSimpleName() + "." + property.getName() + " has no setter");
+            }
+            Class<?> fieldType = property.getPropertyType();
+            convertible(fieldType, column);
+            MethodHandle setter;
+            try {
+                setter = MethodHandles.publicLookup().unreflect(property.getWriteMethod())
+                        .asType(MethodType.methodType(void.class, Object.class, Object.class));
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("Unable to bind the setter of " + column, e);
+            }
+            rules.add(new Rule(column.toUpperCase(Locale.ROOT),
+                    FieldExpression.compile(expression, this::reader), setter, fieldType));
+            return this;
+        }
+
+        public RecordTransform<T> build() {
+            return new RecordTransform<>(type, new ArrayList<>(rules));
+        }
+
+        private FieldExpression.Evaluator reader(String column) {
+            String key = key(column);
+            FieldExpression.Evaluator reader = readers.get(key);
+            if (reader != null) {
+                return reader;
+            }
+            PropertyDescriptor property = property(column);
+            if (property.getReadMethod() == null) {
+                throw new IllegalArgumentException(type.getSimpleName() + "." + property.getName() + " has no getter");
+            }
+            convertible(property.getPropertyType(), column);
+            final MethodHandle getter;
+            try {
+                getter = MethodHandles.publicLookup().unreflect(property.getReadMethod())
+                        .asType(MethodType.methodType(Object.class, Object.class));
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("Unable to bind the getter of " + column, e);
+            }
+            reader = record -> {
+                try {
+                    return FieldExpression.value(getter.invokeExact(record));
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            };
+            readers.put(key, reader);
+            return reader;
+        }
+
+        private PropertyDescriptor property(String column) {
+            PropertyDescriptor property = properties.get(key(column));
+            if (property == null) {
+                throw new IllegalArgumentException(type.getSimpleName() + " has no field for column " + column);
+            }
+            return property;
+        }
+
+        private void convertible(Class<?> fieldType, String column) {
+            if (fieldType != String.class && fieldType != BigDecimal.class && fieldType != LocalDate.class
+                    && fieldType != Integer.class && fieldType != int.class
+                    && fieldType != Long.class && fieldType != long.class) {
+                throw new IllegalArgumentException("Column " + column + " is a " + fieldType.getName()
+                        + "; rules support text, number and date fields");
+            }
+        }
+
+        /**
+         * TAXPRD, taxPrd and TAX_PRD name the same field
+         */
+        private static String key(String name) {
+            return name.replace("_", "").toLowerCase(Locale.ROOT);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.abc.sbse.os.ts.csp.alsentity.ale.config;
 
+import java.nio.file.Paths;
+
 import javax.sql.DataSource;
 
 import org.springframework.batch.core.Job;
@@ -9,13 +11,9 @@ import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.step.builder.StepBuilder;
-import org.springframework.batch.item.database.BeanPropertyItemSqlParameterSourceProvider;
 import org.springframework.batch.item.database.JdbcBatchItemWriter;
 import org.springframework.batch.item.file.FlatFileItemReader;
 import org.springframework.batch.item.file.LineMapper;
-import org.springframework.batch.item.file.mapping.DefaultLineMapper;
-import org.springframework.batch.item.file.transform.FixedLengthTokenizer;
-import org.springframework.batch.item.file.transform.Range;
 import org.springframework.batch.repeat.RepeatStatus;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -27,7 +25,10 @@ import org.springframework.transaction.PlatformTransactionManager;
 
 import com.abc.sbse.os.ts.csp.alsentity.ale.data.S1Record;
 import com.abc.sbse.os.ts.csp.alsentity.ale.listener.JobCompletionNotificationListener;
-import com.abc.sbse.os.ts.csp.alsentity.ale.mapper.S1RecordFieldSetMapper;
+import com.abc.sbse.os.ts.csp.alsentity.ale.mapper.RecordTransform;
+import com.abc.sbse.os.ts.csp.alsentity.ale.mapper.S1RecordLineMapper;
+import com.abc.sbse.os.ts.csp.alsentity.ale.util.IndexedItemPreparedStatementSetter;
+import com.abc.sbse.os.ts.csp.alsentity.ale.util.InputFileRestartGuard;
 
 /**
  * Configuration for loading S1 data files into database
@@ -49,10 +50,13 @@ public class S1LoadConfiguration {
     /**
      * Creates a reader for S1 data files
      * Configures according to the CTL file specifications
+     * The line count is saved with each chunk so a restart resumes after the last committed chunk
      */
     @Bean
     public FlatFileItemReader<S1Record> S1Reader() {
         FlatFileItemReader<S1Record> reader = new FlatFileItemReader<>();
+        reader.setName("S1Reader");
+        reader.setSaveState(true);
         reader.setResource(new FileSystemResource(S1_FILE_PATH));
         reader.setLineMapper(S1LineMapper());
         reader.setStrict(false); // Allow for recovery on parsing errors
@@ -64,54 +68,7 @@ public class S1LoadConfiguration {
      */
     @Bean
     public LineMapper<S1Record> S1LineMapper() {
-        DefaultLineMapper<S1Record> lineMapper = new DefaultLineMapper<>();
-        lineMapper.setLineTokenizer(S1FixedLengthTokenizer());
-        lineMapper.setFieldSetMapper(S1FieldSetMapper());
-        return lineMapper;
-    }
-
-    /**
-     * Configures the fixed length tokenizer according to the CTL file
-     */
-    @Bean
-    public FixedLengthTokenizer S1FixedLengthTokenizer() {
-        FixedLengthTokenizer tokenizer = new FixedLengthTokenizer();
-        tokenizer.setStrict(false); // Allow for flexibility in line length
-        
-        // Define field names as specified in CTL file
-        tokenizer.setNames(
-            "OUTPUTCD", "AREA", "TYPE", "CODE", "CDNAME",
-            "EXTRDT", "TIMEDEF", "ACTIVE", "MGR", "CLERK",
-            "PROF", "PARA", "DISP", "CTRSDEF"
-        );
-
-        // Set column ranges exactly as defined in CTL file
-        tokenizer.setColumns(
-            new Range(1, 2),    // OUTPUTCD
-            new Range(3, 6),    // AREA
-            new Range(7, 7),    // TYPE
-            new Range(8, 10),   // CODE
-            new Range(11, 45),  // CDNAME
-            new Range(46, 53),  // EXTRDT
-            new Range(54, 54),  // TIMEDEF
-            new Range(55, 55),  // ACTIVE
-            new Range(56, 56),  // MGR
-            new Range(57, 57),  // CLERK
-            new Range(58, 58),  // PROF
-            new Range(59, 59),  // PARA
-            new Range(60, 60),  // DISP
-            new Range(61, 61)   // CTRSDEF
-        );
-        
-        return tokenizer;
-    }
-
-    /**
-     * Creates field set mapper for S1 records
-     */
-    @Bean
-    public S1RecordFieldSetMapper S1FieldSetMapper() {
-        return new S1RecordFieldSetMapper();
+        return new S1RecordLineMapper();
     }
 
     /**
@@ -120,17 +77,19 @@ public class S1LoadConfiguration {
     @Bean
     public JdbcBatchItemWriter<S1Record> S1Writer() {
         JdbcBatchItemWriter<S1Record> writer = new JdbcBatchItemWriter<>();
-        writer.setItemSqlParameterSourceProvider(new BeanPropertyItemSqlParameterSourceProvider<>());
         writer.setDataSource(dataSource);
         
         // SQL insert statement with all fields from the S1 record
-        writer.setSql("INSERT INTO S1TMP (" +
+        IndexedItemPreparedStatementSetter<S1Record> setter = IndexedItemPreparedStatementSetter.forNamedSql(S1Record.class,
+                "INSERT INTO S1TMP (" +
                 "OUTPUTCD, AREA, TYPE, CODE, CDNAME, EXTRDT, " +
                 "TIMEDEF, ACTIVE, MGR, CLERK, PROF, PARA, DISP, CTRSDEF" +
                 ") VALUES (" +
                 ":outputCd, :area, :type, :code, :cdName, :extractDt, " +
                 ":timeDef, :active, :mgr, :clerk, :prof, :para, :disp, :ctrsDef" +
                 ")");
+        writer.setSql(setter.getSql());
+        writer.setItemPreparedStatementSetter(setter);
         
         return writer;
     }
@@ -147,17 +106,38 @@ public class S1LoadConfiguration {
                 }, transactionManager).build();
     }
 
+    /**
+     * TIMEDEF and CTRSDEF rules of the former update steps, applied before insert in the order the
+     * steps ran. The CTRSDEF = 3 rule sees TIMEDEF already set, so it matches no record, as
+     * updateCtrsDefStep matched no row.
+     */
+    @Bean
+    public RecordTransform<S1Record> S1ColumnRules() {
+        return RecordTransform.forType(S1Record.class)
+                .set("TIMEDEF", "CASE WHEN :TIMEDEF IS NULL AND :CODE BETWEEN '301' AND '308' AND :TYPE = 'S' " +
+                        "THEN 'D' ELSE :TIMEDEF END")
+                .set("TIMEDEF", "NVL(:TIMEDEF, 'T')")
+                .set("CTRSDEF", "CASE WHEN :TIMEDEF IS NULL AND :CODE BETWEEN '301' AND '308' AND :TYPE = 'S' " +
+                        "THEN 3 ELSE :CTRSDEF END")
+                .set("CTRSDEF", "NVL(:CTRSDEF, '1')")
+                .build();
+    }
+
     /**
      * Step to load S1 data file into table
+     * A restart of a failed load resumes after the last committed chunk of the same file
      */
     @Bean(name = "loadS1FileToTableStep")
     public Step loadS1FileToTableStep(JobRepository jobRepository, PlatformTransactionManager transactionManager,
                                     FlatFileItemReader<S1Record> S1Reader, 
+                                    RecordTransform<S1Record> S1ColumnRules,
                                     JdbcBatchItemWriter<S1Record> S1Writer) {
         return new StepBuilder("loadS1FileToTableStep", jobRepository)
                 .<S1Record, S1Record>chunk(5000, transactionManager)
                 .reader(S1Reader)
+                .processor(S1ColumnRules)
                 .writer(S1Writer)
+                .listener(new InputFileRestartGuard(Paths.get(S1_FILE_PATH)))
                 .build();
     }
 
@@ -6,6 +6,7 @@ import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
 import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
 import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.job.flow.Flow;
 import org.springframework.batch.core.launch.JobLauncher;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
 import org.springframework.batch.core.repository.JobRepository;
@@ -23,6 +24,7 @@ import com.abc.sbse.os.ts.csp.alsentity.ale.batch.commontasklet.CreateLogLoadRec
 import com.abc.sbse.os.ts.csp.alsentity.ale.batch.commontasklet.SqlRunnerTasklet;
 import com.abc.sbse.os.ts.csp.alsentity.ale.batch.commontasklet.ValidationTasklet;
 import com.abc.sbse.os.ts.csp.alsentity.ale.listener.JobCompletionNotificationListener;
+import com.abc.sbse.os.ts.csp.alsentity.ale.util.StepGraph;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -38,6 +40,9 @@ public class S1ProcessorConfig {
     @Value("${LOGDIR:./logs}")
     private String logDir;
 
+    @Value("${MAX_DB_SESSIONS:4}")
+    private int maxDbSessions;
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
@@ -50,6 +55,7 @@ public class S1ProcessorConfig {
 
     /**
      * Main processing job definition that orchestrates the entire flow
+     * TIMEDEF and CTRSDEF are set as S1TMP is loaded, see S1LoadConfiguration.S1ColumnRules
      */
     @Bean(name = "processS1Job")
     public Job processS1Job(JobRepository jobRepository,
@@ -58,25 +64,23 @@ public class S1ProcessorConfig {
                            Step importS1JobStep,
                            Step validateS1LoadStep,
                            Step deleteFromEntcodeStep,
-                           Step updateTimeDefStep,
-                           Step updateDefaultTimeDefStep,
-                           Step updateCtrsDefStep,
-                           Step updateDefaultCtrsDefStep,
                            Step mergeIntoEntcodeStep,
                            Step createLogLoadRecordS1Step) {
+        Flow flow = StepGraph.named("processS1Job")
+                .step(truncateS1TmpStep).writes("S1TMP")
+                .step(importS1JobStep).writes("S1TMP")
+                .barrier(validateS1LoadStep)
+                .step(deleteFromEntcodeStep).writes("ENTCODE")
+                .step(mergeIntoEntcodeStep).reads("S1TMP").writes("ENTCODE")
+                .barrier(createLogLoadRecordS1Step)
+                .maxConcurrentSessions(maxDbSessions)
+                .build();
+
         return new JobBuilder("processS1Job", jobRepository)
                 .incrementer(new RunIdIncrementer())
                 .listener(listener)
-                .start(truncateS1TmpStep)
-                .next(importS1JobStep)
-                .next(validateS1LoadStep)
-                .next(deleteFromEntcodeStep)
-                .next(updateTimeDefStep)
-                .next(updateDefaultTimeDefStep)
-                .next(updateCtrsDefStep)
-                .next(updateDefaultCtrsDefStep)
-                .next(mergeIntoEntcodeStep)
-                .next(createLogLoadRecordS1Step)
+                .start(flow)
+                .end()
                 .build();
     }
 
@@ -123,56 +127,6 @@ public class S1ProcessorConfig {
                 .build();
     }
 
-    /**
-     * Step to update TIMEDEF in S1TMP table for special code ranges
-     */
-    @Bean
-    public Step updateTimeDefStep(JobRepository jobRepository, PlatformTransactionManager transactionManager) {
-        return new StepBuilder("updateTimeDefStep", jobRepository)
-                .tasklet(new SqlRunnerTasklet(jdbcTemplate,
-                        "UPDATE S1TMP set TIMEDEF = 'D' WHERE TIMEDEF IS NULL " +
-                        "and code between '301' and '308' and Type = 'S'"
-                ), transactionManager)
-                .build();
-    }
-
-    /**
-     * Step to update default TIMEDEF in S1TMP table
-     */
-    @Bean
-    public Step updateDefaultTimeDefStep(JobRepository jobRepository, PlatformTransactionManager transactionManager) {
-        return new StepBuilder("updateDefaultTimeDefStep", jobRepository)
-                .tasklet(new SqlRunnerTasklet(jdbcTemplate,
-                        "UPDATE S1TMP set TIMEDEF = 'T' WHERE TIMEDEF is null"
-                ), transactionManager)
-                .build();
-    }
-
-    /**
-     * Step to update CTRSDEF in S1TMP table for special code ranges
-     */
-    @Bean
-    public Step updateCtrsDefStep(JobRepository jobRepository, PlatformTransactionManager transactionManager) {
-        return new StepBuilder("updateCtrsDefStep", jobRepository)
-                .tasklet(new SqlRunnerTasklet(jdbcTemplate,
-                        "UPDATE S1TMP set CTRSDEF = 3 WHERE TIMEDEF IS NULL " +
-                        "and code between '301' and '308' and Type = 'S'"
-                ), transactionManager)
-                .build();
-    }
-
-    /**
-     * Step to update default CTRSDEF in S1TMP table
-     */
-    @Bean
-    public Step updateDefaultCtrsDefStep(JobRepository jobRepository, PlatformTransactionManager transactionManager) {
-        return new StepBuilder("updateDefaultCtrsDefStep", jobRepository)
-                .tasklet(new SqlRunnerTasklet(jdbcTemplate,
-                        "UPDATE S1TMP set CTRSDEF = '1' WHERE CTRSDEF is null"
-                ), transactionManager)
-                .build();
-    }
-
     /**
      * Step to merge S1TMP data into ENTCODE table
      */
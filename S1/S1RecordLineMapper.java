@@ -0,0 +1,97 @@
+package com.abc.sbse.os.ts.csp.alsentity.ale.mapper;
+
+import static com.abc.sbse.os.ts.csp.alsentity.ale.mapper.FixedLengthFields.text;
+
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.util.function.Consumer;
+
+import org.springframework.batch.item.file.LineMapper;
+import org.springframework.validation.BindException;
+
+import com.abc.sbse.os.ts.csp.alsentity.ale.data.S1Record;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Maps lines of the fixed-length S1 file to S1Record objects
+ * Reads each field straight from the line at its CTL position, with the data
+ * type conversions and default values of the load file CTL, in place of a
+ * FixedLengthTokenizer and FieldSetMapper.
+ */
+@Slf4j
+public class S1RecordLineMapper implements LineMapper<S1Record> {
+
+    @Override
+    public S1Record mapLine(String line, int lineNumber) throws BindException {
+        S1Record record = new S1Record();
+
+        try {
+            // Map String fields directly
+            record.setOutputCd(text(line, 1, 2));
+            record.setCode(text(line, 8, 10));
+            record.setCdName(text(line, 11, 45));
+
+            // Map BigDecimal fields
+            mapBigDecimalField(line, 3, 6, "AREA", record::setArea);
+            mapBigDecimalField(line, 61, 61, "CTRSDEF", record::setCtrsDef);
+
+            // Special handling for TYPE with REPLACE logic as per CTL file
+            String type = text(line, 7, 7);
+            if (!type.isEmpty()) {
+                if (type.equals("1")) {
+                    record.setType("C");
+                } else if (type.equals("2")) {
+                    record.setType("S");
+                } else {
+                    record.setType(type);
+                }
+            }
+
+            // Map EXTRACTDT field
+            try {
+                record.setExtractDt(FixedLengthFields.date(line, 46, 53, false));
+            } catch (DateTimeException e) {
+                log.warn("Invalid date format for field {}: {}", "EXTRDT", e.getMessage());
+            }
+
+            // Map TIMEDEF field
+            record.setTimeDef(text(line, 54, 54));
+
+            // Map fields with NVL logic
+            record.setActive(nvl(text(line, 55, 55), "Y"));
+            record.setMgr(nvl(text(line, 56, 56), "F"));
+            record.setClerk(nvl(text(line, 57, 57), "F"));
+            record.setProf(nvl(text(line, 58, 58), "T"));
+            record.setPara(nvl(text(line, 59, 59), "T"));
+            record.setDisp(nvl(text(line, 60, 60), "N"));
+
+        } catch (Exception e) {
+            log.error("Error mapping line {} to S1Record: {}", lineNumber, e.getMessage(), e);
+            throw new BindException(record, "S1Record");
+        }
+
+        return record;
+    }
+
+    /**
+     * Maps a BigDecimal field with null handling
+     */
+    private void mapBigDecimalField(String line, int start, int end, String fieldName, Consumer<BigDecimal> setter) {
+        try {
+            BigDecimal value = FixedLengthFields.decimal(line, start, end);
+            if (value != null) {
+                setter.accept(value);
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Invalid number format for field {}: {}", fieldName, e.getMessage());
+        }
+    }
+
+    /**
+     * NVL logic - a blank field takes the default value
+     */
+    private static String nvl(String value, String defaultValue) {
+        return value.isEmpty() ? defaultValue : value;
+    }
+}
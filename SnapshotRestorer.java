@@ -0,0 +1,362 @@
+package gov.irs.sbse.os.ts.csp.alsentity.ale.util;
+
+import gov.irs.sbse.os.ts.csp.alsentity.ale.service.DatabaseSnapshotService;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Validates and restores a job's prior snapshot tables in bulk
+ *
+ * All snapshots are checked with one ALL_TABLES query, and every missing one is
+ * reported together. The tables are then restored in parallel, maxConcurrentRestores
+ * at a time. Each restore uses one session and times itself. The timings are logged
+ * slowest first and returned to the caller.
+ *
+ * How each table is restored:
+ *   DIRECT_PATH - TRUNCATE, then a direct-path (APPEND hint) INSERT ... SELECT from
+ *                 the snapshot (default). The table's columns are listed by name on
+ *                 both sides, so the snapshot's column order doesn't matter; a
+ *                 snapshot missing one of them fails the restore.
+ *                 With nologging set, the table is made NOLOGGING for the insert and
+ *                 LOGGING again after it.
+ *   EXCHANGE    - exchanges the table's only partition with the snapshot. The snapshot
+ *                 is left holding the table's old rows.
+ *   RENAME      - swaps the names of the table and the snapshot. The snapshot is left
+ *                 holding the table's old rows, and the indexes, constraints and grants
+ *                 go with each table's rows.
+ *   SERVICE     - DatabaseSnapshotService.restoreSnapshotByDate.
+ * EXCHANGE and RENAME use up the snapshot, so a rerun can't restore from it again.
+ * Use them only for tables whose snapshot is taken again before each run. If a method
+ * fails, the table is restored again with SERVICE.
+ *
+ * The JdbcTemplate must connect to the schema the service restores into, i.e. the
+ * repository named by repoKey.
+ *
+ * Usage:
+ *   EntityRepository destRepo = entityRepos.get(Constants.DEST_REPO_KEY);
+ *   List<SnapshotRestorer.Timing> timings = new SnapshotRestorer(destRepo.getJdbcTemplate(), dbSnapshotService, Constants.DEST_REPO_KEY)
+ *           .maxConcurrentRestores(4)
+ *           .method("ENTMOD", SnapshotRestorer.Method.EXCHANGE)
+ *           .restore(snapshotTables, priorSnapshotDate);
+ */
+@Slf4j
+public class SnapshotRestorer {
+
+    /**
+     * How a table is put back to its snapshot
+     */
+    public enum Method {
+        DIRECT_PATH,
+        EXCHANGE,
+        RENAME,
+        SERVICE
+    }
+
+    /**
+     * How one table was restored and how long it took
+     */
+    public static final class Timing {
+        private final String table;
+        private final Method method;
+        private final long rows;
+        private final long elapsedMillis;
+
+        Timing(String table, Method method, long rows, long elapsedMillis) {
+            this.table = table;
+            this.method = method;
+            this.rows = rows;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        public Method getMethod() {
+            return method;
+        }
+
+        /**
+         * @return rows inserted, or -1 when the method does not report them
+         */
+        public long getRows() {
+            return rows;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+
+    private static final Pattern TABLE_NAME = Pattern.compile("[A-Za-z][A-Za-z0-9_$#]{0,127}");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabaseSnapshotService dbSnapshotService;
+    private final String repoKey;
+    private final Map<String, Method> methods = new HashMap<>();
+    private int maxConcurrentRestores = 4;
+    private boolean nologging;
+
+    /**
+     * @param jdbcTemplate template of the repository named by repoKey
+     * @param dbSnapshotService service for the SERVICE method and fallback
+     * @param repoKey repository the service restores into
+     */
+    public SnapshotRestorer(JdbcTemplate jdbcTemplate, DatabaseSnapshotService dbSnapshotService, String repoKey) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dbSnapshotService = dbSnapshotService;
+        this.repoKey = repoKey;
+    }
+
+    /**
+     * Most tables to restore at once, each holding one session
+     */
+    public SnapshotRestorer maxConcurrentRestores(int maxConcurrentRestores) {
+        if (maxConcurrentRestores < 1) {
+            throw new IllegalArgumentException("maxConcurrentRestores must be at least 1: " + maxConcurrentRestores);
+        }
+        this.maxConcurrentRestores = maxConcurrentRestores;
+        return this;
+    }
+
+    /**
+     * Make DIRECT_PATH restores NOLOGGING while they insert
+     */
+    public SnapshotRestorer nologging(boolean nologging) {
+        this.nologging = nologging;
+        return this;
+    }
+
+    /**
+     * Restore the table with the given method instead of DIRECT_PATH
+     */
+    public SnapshotRestorer method(String table, Method method) {
+        methods.put(table.toUpperCase(Locale.ROOT), method);
+        return this;
+    }
+
+    /**
+     * Check that every snapshot table exists, with one dictionary query
+     *
+     * @param snapshotTables snapshot table names
+     * @throws Exception naming every snapshot that does not exist
+     */
+    public void validate(Collection<String> snapshotTables) throws Exception {
+        Set<String> required = new LinkedHashSet<>();
+        for (String snapshotTable : snapshotTables) {
+            required.add(checkName(snapshotTable).toUpperCase(Locale.ROOT));
+        }
+        if (required.isEmpty()) {
+            return;
+        }
+        String sql = "SELECT TABLE_NAME FROM ALL_TABLES WHERE TABLE_NAME IN ("
+                + String.join(", ", Collections.nCopies(required.size(), "?")) + ")";
+        Set<String> missing = new LinkedHashSet<>(required);
+        missing.removeAll(jdbcTemplate.queryForList(sql, String.class, required.toArray()));
+        if (!missing.isEmpty()) {
+            throw new Exception("Required prior-day snapshot table" + (missing.size() == 1 ? " " : "s ")
+                    + String.join(", ", missing) + (missing.size() == 1 ? " does" : " do") + " not exist.");
+        }
+    }
+
+    /**
+     * Restore each table from its snapshot, in parallel
+     *
+     * @param snapshotTables snapshot table of each table to restore
+     * @param snapshotDate snapshot date for the SERVICE method, in format MMddyyyy
+     * @return timing of each table, in the order given
+     * @throws Exception the first restore failure, after all restores have finished
+     */
+    public List<Timing> restore(Map<String, String> snapshotTables, String snapshotDate) throws Exception {
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(maxConcurrentRestores, Math.max(1, snapshotTables.size())),
+                runnable -> new Thread(runnable, "snapshot-restore-" + threads.incrementAndGet()));
+        long start = System.currentTimeMillis();
+        List<Future<Timing>> restores = new ArrayList<>();
+        try {
+            for (Map.Entry<String, String> entry : snapshotTables.entrySet()) {
+                restores.add(pool.submit(() -> restore(entry.getKey(), entry.getValue(), snapshotDate)));
+            }
+            List<Timing> timings = new ArrayList<>();
+            Exception failure = null;
+            for (Future<Timing> restore : restores) {
+                try {
+                    timings.add(restore.get());
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            log.info("Restored {} snapshot tables in {} ms: {}", timings.size(), System.currentTimeMillis() - start,
+                    timings.stream()
+                            .sorted(Comparator.comparingLong(Timing::getElapsedMillis).reversed())
+                            .map(timing -> timing.getTable() + " " + timing.getMethod() + " " + timing.getElapsedMillis() + " ms")
+                            .collect(Collectors.joining(", ")));
+            return timings;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Timing restore(String table, String snapshotTable, String snapshotDate) throws Exception {
+        Method method = methods.getOrDefault(table.toUpperCase(Locale.ROOT), Method.DIRECT_PATH);
+        long start = System.currentTimeMillis();
+        long rows = -1;
+        if (method != Method.SERVICE) {
+            try {
+                rows = restoreWith(method, checkName(table), checkName(snapshotTable));
+            } catch (Exception e) {
+                log.warn("{} restore of {} from {} failed, restoring with the snapshot service: {}",
+                        method, table, snapshotTable, e.getMessage());
+                method = Method.SERVICE;
+            }
+        }
+        if (method == Method.SERVICE
+                && !dbSnapshotService.restoreSnapshotByDate(repoKey, table, snapshotDate, snapshotTable)) {
+            throw new Exception("Prior snapshot restoration failed for table " + table);
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        log.info("Restored {} from {} with {} in {} ms{}", table, snapshotTable, method, elapsed,
+                rows >= 0 ? " (" + rows + " rows)" : "");
+        return new Timing(table, method, rows, elapsed);
+    }
+
+    /**
+     * Restores the table on one connection and returns the rows inserted, or -1
+     */
+    private long restoreWith(Method method, String table, String snapshotTable) {
+        return jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                switch (method) {
+                    case EXCHANGE:
+                        List<String> partitions = new ArrayList<>(queryColumns(connection,
+                                "SELECT TABLE_NAME, PARTITION_NAME FROM USER_TAB_PARTITIONS WHERE TABLE_NAME = ?",
+                                table).getOrDefault(table.toUpperCase(Locale.ROOT), Collections.emptySet()));
+                        if (partitions.size() != 1) {
+                            throw new IllegalStateException(table + " has " + partitions.size()
+                                    + " partitions; EXCHANGE needs exactly one");
+                        }
+                        statement.execute("ALTER TABLE " + table + " EXCHANGE PARTITION " + partitions.get(0)
+                                + " WITH TABLE " + snapshotTable + " INCLUDING INDEXES WITHOUT VALIDATION");
+                        return -1L;
+                    case RENAME:
+                        String swap = (table.length() > 120 ? table.substring(0, 120) : table) + "_SWAP";
+                        statement.execute("ALTER TABLE " + table + " RENAME TO " + swap);
+                        try {
+                            statement.execute("ALTER TABLE " + snapshotTable + " RENAME TO " + table);
+                        } catch (SQLException e) {
+                            // DDL is not rolled back, so put the table's name back before the fallback
+                            statement.execute("ALTER TABLE " + swap + " RENAME TO " + table);
+                            throw e;
+                        }
+                        statement.execute("ALTER TABLE " + swap + " RENAME TO " + snapshotTable);
+                        return -1L;
+                    default:
+                        String columns = insertColumns(connection, table, snapshotTable);
+                        statement.execute("TRUNCATE TABLE " + table);
+                        if (nologging) {
+                            statement.execute("ALTER TABLE " + table + " NOLOGGING");
+                        }
+                        try {
+                            long rows = statement.executeUpdate(
+                                    "INSERT /*+ APPEND */ INTO " + table + " (" + columns + ") SELECT " + columns
+                                            + " FROM " + snapshotTable);
+                            connection.commit();
+                            return rows;
+                        } finally {
+                            if (nologging) {
+                                statement.execute("ALTER TABLE " + table + " LOGGING");
+                            }
+                        }
+                }
+            } catch (RuntimeException | SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+    }
+
+    /**
+     * The table's stored columns, quoted and comma separated, after checking the snapshot has each of them
+     */
+    private static String insertColumns(Connection connection, String table, String snapshotTable) throws SQLException {
+        Map<String, Set<String>> columns = queryColumns(connection,
+                "SELECT TABLE_NAME, COLUMN_NAME FROM USER_TAB_COLS WHERE TABLE_NAME IN (?, ?)"
+                        + " AND HIDDEN_COLUMN = 'NO' AND VIRTUAL_COLUMN = 'NO' ORDER BY COLUMN_ID",
+                table, snapshotTable);
+        Set<String> tableColumns = columns.getOrDefault(table.toUpperCase(Locale.ROOT), Collections.emptySet());
+        Set<String> snapshotColumns = columns.getOrDefault(snapshotTable.toUpperCase(Locale.ROOT), Collections.emptySet());
+        if (tableColumns.isEmpty()) {
+            throw new IllegalStateException("No columns found for " + table);
+        }
+        Set<String> missing = new LinkedHashSet<>(tableColumns);
+        missing.removeAll(snapshotColumns);
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException(snapshotTable + " has no column " + String.join(", ", missing)
+                    + " of " + table);
+        }
+        return tableColumns.stream().map(column -> "\"" + column + "\"").collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Runs a two-column dictionary query on the restore's own connection, grouping the
+     * second column by the first
+     */
+    private static Map<String, Set<String>> queryColumns(Connection connection, String sql, String... tables)
+            throws SQLException {
+        Map<String, Set<String>> values = new LinkedHashMap<>();
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            for (int i = 0; i < tables.length; i++) {
+                ps.setString(i + 1, tables[i].toUpperCase(Locale.ROOT));
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    values.computeIfAbsent(rs.getString(1), key -> new LinkedHashSet<>()).add(rs.getString(2));
+                }
+            }
+        }
+        return values;
+    }
+
+    private static String checkName(String table) {
+        if (!TABLE_NAME.matcher(table).matches()) {
+            throw new IllegalArgumentException("Invalid table name: " + table);
+        }
+        return table;
+    }
+}
@@ -0,0 +1,201 @@
+package com.abc.sbse.os.ts.csp.alsentity.ale.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.job.builder.FlowBuilder;
+import org.springframework.batch.core.job.flow.Flow;
+import org.springframework.batch.core.job.flow.support.SimpleFlow;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Step graph of a processing job, declared with the tables each step reads and writes
+ *
+ * Steps are added in the order the job ran them one after another. A step depends on
+ * every earlier step it conflicts with: one writes a table the other reads or writes.
+ * A barrier step, such as load validation or the LOGLOAD record, depends on every
+ * earlier step and every later step depends on it. Each step is placed one level
+ * after the latest step it depends on; the steps of a level run as a split and the
+ * levels run in sequence, so steps on disjoint tables run side by side and
+ * conflicting steps keep their order.
+ *
+ * Every step of a split holds a database session while it runs, so the split runs no
+ * more than maxConcurrentSessions steps at a time; the rest wait for a free slot.
+ *
+ * Usage:
+ *   Flow flow = StepGraph.named("processE9Job")
+ *           .step(truncateE9TmpStep).writes("E9TMP")
+ *           .barrier(validateE9LoadStep)
+ *           .step(truncateCnte2Step).writes("CNTE2")
+ *           .maxConcurrentSessions(4)
+ *           .build();
+ *   new JobBuilder("processE9Job", jobRepository).start(flow).end().build();
+ */
+@Slf4j
+public class StepGraph {
+
+    private final String name;
+    private final List<Node> nodes = new ArrayList<>();
+    private int maxConcurrentSessions = 1;
+
+    private StepGraph(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Starts the graph of the named job
+     */
+    public static StepGraph named(String name) {
+        return new StepGraph(name);
+    }
+
+    /**
+     * Adds a step after the steps added so far; declare its tables with reads and writes
+     */
+    public StepGraph step(Step step) {
+        nodes.add(new Node(step, false));
+        return this;
+    }
+
+    /**
+     * Adds a step that runs after all earlier steps and before all later ones
+     */
+    public StepGraph barrier(Step step) {
+        nodes.add(new Node(step, true));
+        return this;
+    }
+
+    /**
+     * Tables the last added step reads
+     */
+    public StepGraph reads(String... tables) {
+        lastNode().reads.addAll(normalize(tables));
+        return this;
+    }
+
+    /**
+     * Tables the last added step writes, including truncate, insert, update, merge and index builds
+     */
+    public StepGraph writes(String... tables) {
+        lastNode().writes.addAll(normalize(tables));
+        return this;
+    }
+
+    /**
+     * Most steps to run at once within a level, each holding one database session
+     */
+    public StepGraph maxConcurrentSessions(int maxConcurrentSessions) {
+        if (maxConcurrentSessions < 1) {
+            throw new IllegalArgumentException("maxConcurrentSessions must be at least 1: " + maxConcurrentSessions);
+        }
+        this.maxConcurrentSessions = maxConcurrentSessions;
+        return this;
+    }
+
+    /**
+     * Levels of the graph, each the steps that run together, in the order they run
+     */
+    public List<List<Step>> getLevels() {
+        List<List<Step>> levels = new ArrayList<>();
+        int[] levelOf = new int[nodes.size()];
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            int level = 0;
+            for (int j = 0; j < i; j++) {
+                if (node.barrier || nodes.get(j).barrier || conflicts(nodes.get(j), node)) {
+                    level = Math.max(level, levelOf[j] + 1);
+                }
+            }
+            levelOf[i] = level;
+            if (level == levels.size()) {
+                levels.add(new ArrayList<>());
+            }
+            levels.get(level).add(node.step);
+        }
+        return levels;
+    }
+
+    /**
+     * Builds the flow to start the job with
+     */
+    public Flow build() {
+        if (nodes.isEmpty()) {
+            throw new IllegalStateException("Step graph " + name + " has no steps");
+        }
+        List<List<Step>> levels = getLevels();
+
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor(name + "-");
+        taskExecutor.setConcurrencyLimit(maxConcurrentSessions);
+
+        FlowBuilder<SimpleFlow> job = new FlowBuilder<>(name);
+        for (int i = 0; i < levels.size(); i++) {
+            List<Step> level = levels.get(i);
+            log.info("{} level {}: {}", name, i + 1,
+                    level.stream().map(Step::getName).collect(Collectors.joining(", ")));
+
+            Flow levelFlow;
+            if (level.size() == 1) {
+                levelFlow = new FlowBuilder<SimpleFlow>(name + ".level" + (i + 1)).start(level.get(0)).build();
+            } else {
+                Flow[] branches = level.stream()
+                        .map(step -> new FlowBuilder<SimpleFlow>(step.getName() + ".flow").start(step).build())
+                        .toArray(Flow[]::new);
+                levelFlow = new FlowBuilder<SimpleFlow>(name + ".level" + (i + 1))
+                        .split(taskExecutor)
+                        .add(branches)
+                        .build();
+            }
+            if (i == 0) {
+                job.start(levelFlow);
+            } else {
+                job.next(levelFlow);
+            }
+        }
+        return job.build();
+    }
+
+    private Node lastNode() {
+        if (nodes.isEmpty()) {
+            throw new IllegalStateException("Add a step before declaring its tables");
+        }
+        return nodes.get(nodes.size() - 1);
+    }
+
+    private static boolean conflicts(Node earlier, Node later) {
+        return !Collections.disjoint(earlier.writes, later.reads)
+                || !Collections.disjoint(earlier.writes, later.writes)
+                || !Collections.disjoint(earlier.reads, later.writes);
+    }
+
+    /**
+     * Upper case table names without the schema, so als.ENT and ENT are the same table
+     */
+    private static Set<String> normalize(String... tables) {
+        Set<String> names = new LinkedHashSet<>();
+        for (String table : tables) {
+            String trimmed = table.trim();
+            names.add(trimmed.substring(trimmed.lastIndexOf('.') + 1).toUpperCase(Locale.ROOT));
+        }
+        return names;
+    }
+
+    private static final class Node {
+        final Step step;
+        final boolean barrier;
+        final Set<String> reads = new LinkedHashSet<>();
+        final Set<String> writes = new LinkedHashSet<>();
+
+        Node(Step step, boolean barrier) {
+            this.step = step;
+            this.barrier = barrier;
+        }
+    }
+}
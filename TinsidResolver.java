@@ -0,0 +1,328 @@
+package com.abc.sbse.os.ts.csp.alsentity.ale.service;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+/**
+ * In-memory (TIN, tin type, FILESOURCECD) to TINSID lookup over ENT
+ *
+ * Replaces the correlated "SELECT tinsid FROM ENT WHERE ... and rownum = 1"
+ * UPDATEs the E3, E9 and EA loads run over their whole staging table: ENT is
+ * read once into an open-addressing table and the loaders stamp the id on each
+ * row before it is inserted.
+ *
+ * The table is off-heap (one direct buffer of 16-byte slots holding the packed
+ * key and the TINSID), so 20M+ ENT rows cost no GC work and no per-entry
+ * objects. Keys are packed as TIN * 100 + tin type * 10 + FILESOURCECD; the
+ * few ENT rows that do not fit that shape are kept in a small on-heap map. As
+ * with rownum = 1, the first ENT row read for a key wins.
+ *
+ * Lookups are lock-free. refresh() picks up ENT rows inserted since the last
+ * load (TINSID comes from a sequence) and publishes a new table, so a job that
+ * adds ENT rows earlier in the run is seen by the loads after it. Rows updated or
+ * deleted in place (a TIN or type corrected on an existing TINSID) are caught by
+ * a hash sum of the rows already held, and make refresh() read ENT in full. Two
+ * different sets of rows with the same sum would go unnoticed.
+ */
+public class TinsidResolver {
+
+    /** Returned by resolve when ENT has no row for the key */
+    public static final long NOT_FOUND = -1L;
+
+    private static final int SLOT_BYTES = 16;          // packed key + 1, TINSID
+    private static final int MAX_SLOTS = 1 << 26;      // 1 GiB, slot offsets stay within an int
+    private static final double MAX_LOAD = 0.7;
+    private static final long MAX_PACKED_TIN = 1_000_000_000_000_000L;
+    private static final int FETCH_SIZE = 10000;
+
+    private final DataSource dataSource;
+    private final String tinTypeColumn;
+    private volatile Table table;
+
+    /**
+     * Table contents, replaced as a whole on refresh
+     */
+    private static final class Table {
+        final ByteBuffer slots;
+        final int mask;
+        final Map<String, Long> unpacked;
+        int size;
+        long highTinsid;
+        long entRows;
+        long entHash;
+
+        Table(int capacity) {
+            this.slots = ByteBuffer.allocateDirect(capacity * SLOT_BYTES).order(ByteOrder.nativeOrder());
+            this.mask = capacity - 1;
+            this.unpacked = new HashMap<>();
+        }
+    }
+
+    private TinsidResolver(DataSource dataSource, String tinTypeColumn) {
+        if (!tinTypeColumn.matches("\\w+")) {
+            throw new IllegalArgumentException("Invalid ENT tin type column: " + tinTypeColumn);
+        }
+        this.dataSource = dataSource;
+        this.tinTypeColumn = tinTypeColumn;
+    }
+
+    /**
+     * Read ENT into a new resolver
+     *
+     * @param dataSource connections for the als schema
+     * @param tinTypeColumn the ENT column matched against the staging TINTYPE -
+     *                      TINIT for E3, TINTT for E9 and EA
+     */
+    public static TinsidResolver load(DataSource dataSource, String tinTypeColumn) throws SQLException {
+        TinsidResolver resolver = new TinsidResolver(dataSource, tinTypeColumn);
+        resolver.table = resolver.readEnt(null);
+        return resolver;
+    }
+
+    /**
+     * Bring the table up to date with ENT
+     * Rows above the highest TINSID already loaded are added to a copy of the
+     * table. If any row at or below it has changed or gone since the last read,
+     * ENT is read again in full.
+     *
+     * @return change in the number of keys held
+     */
+    public synchronized int refresh() throws SQLException {
+        int before = size();
+        table = readEnt(table);
+        return size() - before;
+    }
+
+    /**
+     * TINSID of the first ENT row for the key
+     *
+     * @return the TINSID, or NOT_FOUND
+     */
+    public long resolve(long tin, int tinType, int fileSource) {
+        Table t = table;
+        if (tin < 0 || tin >= MAX_PACKED_TIN || tinType < 0 || tinType > 9 || fileSource < 0 || fileSource > 9) {
+            Long tinsid = t.unpacked.get(tin + "|" + tinType + "|" + fileSource);
+            return tinsid == null ? NOT_FOUND : tinsid;
+        }
+        long stored = (tin * 100 + tinType * 10 + fileSource) + 1;
+        ByteBuffer slots = t.slots;
+        int slot = hash(stored) & t.mask;
+        while (true) {
+            long key = slots.getLong(slot * SLOT_BYTES);
+            if (key == stored) {
+                return slots.getLong(slot * SLOT_BYTES + 8);
+            }
+            if (key == 0) {
+                return NOT_FOUND;
+            }
+            slot = (slot + 1) & t.mask;
+        }
+    }
+
+    /**
+     * TINSID of the first ENT row for key columns read as BigDecimal
+     *
+     * @return the TINSID, or NOT_FOUND if ENT has none or a column is NULL or not a whole number
+     */
+    public long resolve(BigDecimal tin, BigDecimal tinType, BigDecimal fileSource) {
+        if (tin == null || tinType == null || fileSource == null) {
+            return NOT_FOUND;
+        }
+        try {
+            return resolve(tin.longValueExact(), tinType.intValueExact(), fileSource.intValueExact());
+        } catch (ArithmeticException e) {
+            return NOT_FOUND;
+        }
+    }
+
+    /**
+     * Number of distinct keys held
+     */
+    public int size() {
+        Table t = table;
+        return t.size + t.unpacked.size();
+    }
+
+    /**
+     * Bytes of direct memory held by the table
+     */
+    public long getOffHeapBytes() {
+        return table.slots.capacity();
+    }
+
+    /**
+     * ENT column matched against the staging TINTYPE
+     */
+    public String getTinTypeColumn() {
+        return tinTypeColumn;
+    }
+
+    /**
+     * Read ENT rows above current's highest TINSID into a copy of current,
+     * or all of ENT into a new table when current is null or its rows have changed
+     *
+     * @return the new table, or current itself when nothing has changed
+     */
+    private Table readEnt(Table current) throws SQLException {
+        Connection conn = null;
+        Statement countStmt = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+
+        try {
+            conn = dataSource.getConnection();
+
+            // Hash sums of all rows and of the rows current already holds, to see changes in place
+            String rowHash = "ORA_HASH(TIN || '|' || " + tinTypeColumn + " || '|' || TINFS || '|' || TINSID)";
+            countStmt = conn.createStatement();
+            rs = countStmt.executeQuery("SELECT COUNT(*), NVL(MAX(TINSID), 0), NVL(SUM(" + rowHash + "), 0), " +
+                "NVL(SUM(CASE WHEN TINSID <= " + (current == null ? -1L : current.highTinsid) +
+                " THEN " + rowHash + " END), 0) FROM ENT");
+            rs.next();
+            long entRows = rs.getLong(1);
+            long highTinsid = rs.getLong(2);
+            long entHash = rs.getLong(3);
+            long heldHash = rs.getLong(4);
+            rs.close();
+            rs = null;
+
+            if (current != null && entRows == current.entRows && highTinsid == current.highTinsid
+                    && entHash == current.entHash) {
+                return current;
+            }
+            boolean incremental = current != null && entRows > current.entRows && highTinsid > current.highTinsid
+                && heldHash == current.entHash;
+            long newRows = incremental ? entRows - current.entRows : entRows;
+
+            Table next = new Table(capacityFor((incremental ? current.size + current.unpacked.size() : 0) + newRows));
+            if (incremental) {
+                copy(current, next);
+            }
+
+            ps = conn.prepareStatement(
+                "SELECT TIN, " + tinTypeColumn + ", TINFS, TINSID FROM ENT" +
+                (incremental ? " WHERE TINSID > ?" : ""));
+            ps.setFetchSize(FETCH_SIZE);
+            if (incremental) {
+                ps.setLong(1, current.highTinsid);
+            }
+            rs = ps.executeQuery();
+            while (rs.next()) {
+                long tin = rs.getLong(1);
+                boolean tinNull = rs.wasNull();
+                int tinType = rs.getInt(2);
+                boolean tinTypeNull = rs.wasNull();
+                int fileSource = rs.getInt(3);
+                boolean fileSourceNull = rs.wasNull();
+                long tinsid = rs.getLong(4);
+                if (tinNull || tinTypeNull || fileSourceNull || rs.wasNull()) {
+                    continue;  // NULL never matches the staging columns
+                }
+                if (put(next, tin, tinType, fileSource, tinsid) && next.size > (next.mask + 1) * MAX_LOAD) {
+                    next = grow(next);  // ENT gained rows between the count and the read
+                }
+            }
+
+            next.entRows = entRows;
+            next.highTinsid = highTinsid;
+            next.entHash = entHash;
+            return next;
+        } finally {
+            if (rs != null) try { rs.close(); } catch (Exception e) { /* ignore */ }
+            if (ps != null) try { ps.close(); } catch (Exception e) { /* ignore */ }
+            if (countStmt != null) try { countStmt.close(); } catch (Exception e) { /* ignore */ }
+            if (conn != null) try { conn.close(); } catch (Exception e) { /* ignore */ }
+        }
+    }
+
+    /**
+     * Add a key unless it is already held, so the first row read wins
+     *
+     * @return true if a slot of the packed table was filled
+     */
+    private static boolean put(Table t, long tin, int tinType, int fileSource, long tinsid) {
+        if (tin < 0 || tin >= MAX_PACKED_TIN || tinType < 0 || tinType > 9 || fileSource < 0 || fileSource > 9) {
+            t.unpacked.putIfAbsent(tin + "|" + tinType + "|" + fileSource, tinsid);
+            return false;
+        }
+        return putPacked(t, (tin * 100 + tinType * 10 + fileSource) + 1, tinsid);
+    }
+
+    private static boolean putPacked(Table t, long stored, long tinsid) {
+        ByteBuffer slots = t.slots;
+        int slot = hash(stored) & t.mask;
+        while (true) {
+            long key = slots.getLong(slot * SLOT_BYTES);
+            if (key == 0) {
+                slots.putLong(slot * SLOT_BYTES + 8, tinsid);
+                slots.putLong(slot * SLOT_BYTES, stored);
+                t.size++;
+                return true;
+            }
+            if (key == stored) {
+                return false;
+            }
+            slot = (slot + 1) & t.mask;
+        }
+    }
+
+    /**
+     * Re-insert every key of from into to, keeping their TINSIDs
+     */
+    private static void copy(Table from, Table to) {
+        ByteBuffer slots = from.slots;
+        for (int slot = 0; slot <= from.mask; slot++) {
+            long key = slots.getLong(slot * SLOT_BYTES);
+            if (key != 0) {
+                putPacked(to, key, slots.getLong(slot * SLOT_BYTES + 8));
+            }
+        }
+        to.unpacked.putAll(from.unpacked);
+    }
+
+    /**
+     * Copy of t with twice the slots
+     */
+    private static Table grow(Table t) {
+        if ((t.mask + 1) >= MAX_SLOTS) {
+            throw new IllegalStateException("ENT has too many rows for the resolver: " + t.size);
+        }
+        Table bigger = new Table((t.mask + 1) << 1);
+        copy(t, bigger);
+        return bigger;
+    }
+
+    /**
+     * Smallest power of two that keeps entries under MAX_LOAD, plus growth room
+     */
+    private static int capacityFor(long entries) {
+        long needed = (long) ((entries + entries / 16 + 1024) / MAX_LOAD) + 1;
+        if (needed > MAX_SLOTS) {
+            throw new IllegalStateException("ENT has too many rows for the resolver: " + entries);
+        }
+        int capacity = Integer.highestOneBit((int) needed);
+        return capacity < needed ? capacity << 1 : capacity;
+    }
+
+    /**
+     * 64-bit finalizer from MurmurHash3, folded to an int
+     */
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb93e53fe1a85L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
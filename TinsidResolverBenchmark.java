@@ -0,0 +1,173 @@
+package com.abc.sbse.os.ts.csp.alsentity.ale.service;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import javax.sql.DataSource;
+
+/**
+ * TinsidResolverBenchmark - Footprint and lookup rate of TinsidResolver over a
+ * synthetic ENT, with a HashMap<Long, Long> of the same keys for comparison
+ *
+ * Usage: java TinsidResolverBenchmark [entRows] [lookups]
+ * Defaults to 20,000,000 ENT rows and 50,000,000 lookups, one in five a miss.
+ * ENT is served by a stub DataSource, so the load time is the resolver's own
+ * work and not a database fetch. Run with a heap large enough for the HashMap
+ * (for example -Xmx4g); the resolver itself needs only its direct buffer.
+ */
+public class TinsidResolverBenchmark {
+
+    private static final int DEFAULT_ROWS = 20_000_000;
+    private static final int DEFAULT_LOOKUPS = 50_000_000;
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws Exception {
+        int entRows = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ROWS;
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_LOOKUPS;
+
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        TinsidResolver resolver = TinsidResolver.load(stubEnt(entRows), "TINTT");
+        long elapsed = System.nanoTime() - start;
+        long retained = usedHeap() - heapBefore;
+        System.out.printf("TinsidResolver: %,d keys loaded in %.2f s, %,d MB off-heap (%.1f bytes/key), %,d MB heap%n",
+            resolver.size(), elapsed / 1e9, resolver.getOffHeapBytes() / (1024 * 1024),
+            resolver.getOffHeapBytes() / (double) resolver.size(), Math.max(0, retained) / (1024 * 1024));
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            SplittableRandom random = new SplittableRandom(round);
+            long checksum = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < lookups; i++) {
+                int row = random.nextInt(entRows + entRows / 4);  // rows past entRows are misses
+                checksum += resolver.resolve(tin(row), tinType(row), fileSource(row));
+            }
+            elapsed = System.nanoTime() - start;
+            System.out.printf("  round %d: %,d lookups in %.2f s, %,.0f lookups/s (checksum %d)%n",
+                round, lookups, elapsed / 1e9, lookups / (elapsed / 1e9), checksum);
+        }
+        resolver = null;
+
+        heapBefore = usedHeap();
+        start = System.nanoTime();
+        Map<Long, Long> map = new HashMap<>();
+        for (int row = 0; row < entRows; row++) {
+            map.putIfAbsent(tin(row) * 100 + tinType(row) * 10 + fileSource(row), 1_000_000L + row);
+        }
+        elapsed = System.nanoTime() - start;
+        retained = usedHeap() - heapBefore;
+        System.out.printf("HashMap<Long, Long>: %,d keys loaded in %.2f s, %,d MB heap (%.1f bytes/key)%n",
+            map.size(), elapsed / 1e9, retained / (1024 * 1024), retained / (double) map.size());
+
+        SplittableRandom random = new SplittableRandom(1);
+        long checksum = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            int row = random.nextInt(entRows + entRows / 4);
+            Long tinsid = map.get(tin(row) * 100 + tinType(row) * 10 + fileSource(row));
+            checksum += tinsid == null ? TinsidResolver.NOT_FOUND : tinsid;
+        }
+        elapsed = System.nanoTime() - start;
+        System.out.printf("  %,d lookups in %.2f s, %,.0f lookups/s (checksum %d)%n",
+            lookups, elapsed / 1e9, lookups / (elapsed / 1e9), checksum);
+    }
+
+    // Synthetic ENT row n: distinct 9-digit TINs spread over the range, tin types 0-2, sources 1-3
+    private static long tin(int row) {
+        return 100_000_000L + (row * 37L) % 899_999_999L;
+    }
+
+    private static int tinType(int row) {
+        return row % 3;
+    }
+
+    private static int fileSource(int row) {
+        return 1 + row % 3;
+    }
+
+    /**
+     * DataSource whose ENT holds rows 0..entRows-1, TINSID 1,000,000 + row
+     */
+    private static DataSource stubEnt(int entRows) {
+        Connection conn = (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+            (proxy, method, methodArgs) -> {
+                switch (method.getName()) {
+                    case "createStatement":
+                    case "prepareStatement":
+                        return statement(entRows);
+                    default:
+                        return null;
+                }
+            });
+        return (DataSource) Proxy.newProxyInstance(
+            DataSource.class.getClassLoader(), new Class<?>[] {DataSource.class},
+            (proxy, method, methodArgs) -> "getConnection".equals(method.getName()) ? conn : null);
+    }
+
+    private static PreparedStatement statement(int entRows) {
+        return (PreparedStatement) Proxy.newProxyInstance(
+            PreparedStatement.class.getClassLoader(), new Class<?>[] {PreparedStatement.class},
+            (proxy, method, methodArgs) -> {
+                if (!"executeQuery".equals(method.getName())) {
+                    return null;
+                }
+                boolean count = methodArgs != null && ((String) methodArgs[0]).startsWith("SELECT COUNT");
+                return count ? countResult(entRows) : entResult(entRows);
+            });
+    }
+
+    private static ResultSet countResult(int entRows) {
+        boolean[] read = new boolean[1];
+        return (ResultSet) Proxy.newProxyInstance(
+            ResultSet.class.getClassLoader(), new Class<?>[] {ResultSet.class},
+            (proxy, method, methodArgs) -> {
+                switch (method.getName()) {
+                    case "next":
+                        boolean first = !read[0];
+                        read[0] = true;
+                        return first;
+                    case "getLong":
+                        return (Integer) methodArgs[0] == 1 ? (long) entRows : 1_000_000L + entRows - 1;
+                    default:
+                        return null;
+                }
+            });
+    }
+
+    /**
+     * ENT rows in TIN, tin type, TINFS, TINSID column order
+     */
+    private static ResultSet entResult(int entRows) {
+        int[] row = {-1};
+        return (ResultSet) Proxy.newProxyInstance(
+            ResultSet.class.getClassLoader(), new Class<?>[] {ResultSet.class},
+            (proxy, method, methodArgs) -> {
+                switch (method.getName()) {
+                    case "next":
+                        return ++row[0] < entRows;
+                    case "getLong":
+                        return (Integer) methodArgs[0] == 1 ? tin(row[0]) : 1_000_000L + row[0];
+                    case "getInt":
+                        return (Integer) methodArgs[0] == 2 ? tinType(row[0]) : fileSource(row[0]);
+                    case "wasNull":
+                        return false;
+                    default:
+                        return null;
+                }
+            });
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,57 @@
+package com.abc.sbse.os.ts.csp.alsentity.ale.config;
+
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+import com.abc.sbse.os.ts.csp.alsentity.ale.service.TinsidResolver;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Shared ENT TINSID lookup for the loads that stamp CASESID and EASID
+ * ENT is read on first use and brought up to date at the start of each load
+ * step, so ENT rows merged by an earlier job in the same run are resolved.
+ */
+@Configuration
+@Slf4j
+public class TinsidResolverConfiguration {
+
+    /**
+     * TIN, TINTT, TINFS to TINSID, as matched by the E9 and EA loads
+     */
+    @Bean
+    @Lazy
+    public TinsidResolver entTinsidResolver(DataSource dataSource) throws SQLException {
+        long start = System.currentTimeMillis();
+        TinsidResolver resolver = TinsidResolver.load(dataSource, "TINTT");
+        log.info("Read {} ENT keys for TINSID lookup in {} ms ({} MB off-heap)",
+                resolver.size(), System.currentTimeMillis() - start, resolver.getOffHeapBytes() / (1024 * 1024));
+        return resolver;
+    }
+
+    /**
+     * Step listener that refreshes the lookup before a load step reads its file
+     */
+    @Bean
+    public StepExecutionListener entTinsidRefreshListener(@Lazy TinsidResolver entTinsidResolver) {
+        return new StepExecutionListener() {
+            @Override
+            public void beforeStep(StepExecution stepExecution) {
+                try {
+                    int added = entTinsidResolver.refresh();
+                    log.info("TINSID lookup for {} holds {} ENT keys ({} added since last read)",
+                            stepExecution.getStepName(), entTinsidResolver.size(), added);
+                } catch (SQLException e) {
+                    throw new IllegalStateException("Unable to read ENT for TINSID lookup", e);
+                }
+            }
+        };
+    }
+}
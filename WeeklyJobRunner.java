@@ -3,6 +3,7 @@ package com.abc.sbse.os.ts.csp.alsentity.ale.util;
 import com.abc.sbse.os.ts.csp.alsentity.ale.Constants;
 import com.abc.sbse.os.ts.csp.alsentity.ale.service.BatchRunJobService;
 import com.abc.sbse.os.ts.csp.alsentity.ale.service.DatabaseSnapshotService;
+import com.abc.sbse.os.ts.csp.alsentity.ale.service.LoadCountService;
 import com.abc.sbse.os.ts.csp.alsentity.ale.service.LogLoadService;
 import com.abc.sbse.os.ts.csp.alsentity.ale.service.MaterializedViewService;
 import com.abc.sbse.os.ts.csp.alsentity.ale.repository.EntityRepository;
@@ -45,6 +46,9 @@ public class WeeklyJobRunner implements CommandLineRunner {
     @Autowired
     private LogLoadService logLoadService;
     
+    @Autowired
+    private LoadCountService loadCountService;
+    
     @Autowired
     private JdbcTemplate jdbcTemplate;
     
@@ -94,8 +98,8 @@ public class WeeklyJobRunner implements CommandLineRunner {
                                             log.info("Executing S1 job...");
                                             batchRunJobService.runS1Job();
                                             
-                                            // Get record count after job execution
-                                            int recordCount = getRecordCountForJob(jobCode);
+                                            // Get record count from the job's own write counts, or its table while it has no import job
+                                            int recordCount = loadCountService.getRecordCount(jobCode, getTableNameForWeeklyJobCode(jobCode));
                                             
                                             // Log job execution to LOGLOAD table
                                             logLoadService.saveLogLoad(jobCode, priorSnapshotDate, recordCount);
@@ -113,8 +117,8 @@ public class WeeklyJobRunner implements CommandLineRunner {
                                             log.info("Executing E1 job...");
                                             batchRunJobService.runE1Job();
                                             
-                                            // Get record count after job execution
-                                            int recordCount = getRecordCountForJob(jobCode);
+                                            // Get record count from the job's own write counts, or its table while it has no import job
+                                            int recordCount = loadCountService.getRecordCount(jobCode, getTableNameForWeeklyJobCode(jobCode));
                                             
                                             // Log job execution to LOGLOAD table
                                             logLoadService.saveLogLoad(jobCode, priorSnapshotDate, recordCount);
@@ -132,8 +136,8 @@ public class WeeklyJobRunner implements CommandLineRunner {
                                             log.info("Executing E2 job...");
                                             batchRunJobService.runE2Job();
                                             
-                                            // Get record count after job execution
-                                            int recordCount = getRecordCountForJob(jobCode);
+                                            // Get record count from the job's own write counts, or its table while it has no import job
+                                            int recordCount = loadCountService.getRecordCount(jobCode, getTableNameForWeeklyJobCode(jobCode));
                                             
                                             // Log job execution to LOGLOAD table
                                             logLoadService.saveLogLoad(jobCode, priorSnapshotDate, recordCount);
@@ -151,8 +155,8 @@ public class WeeklyJobRunner implements CommandLineRunner {
                                             log.info("Executing E3 job for weekly run...");
                                             batchRunJobService.runE3Job(false);
                                             
-                                            // Get record count after job execution
-                                            int recordCount = getRecordCountForJob(jobCode);
+                                            // Get record count from the job's own write counts, or its table while it has no import job
+                                            int recordCount = loadCountService.getRecordCount(jobCode, getTableNameForWeeklyJobCode(jobCode));
                                             
                                             // Log job execution to LOGLOAD table
                                             logLoadService.saveLogLoad(jobCode, priorSnapshotDate, recordCount);
@@ -170,8 +174,8 @@ public class WeeklyJobRunner implements CommandLineRunner {
                                             log.info("Executing E4 job...");
                                             batchRunJobService.runE4Job();
                                             
-                                            // Get record count after job execution
-                                            int recordCount = getRecordCountForJob(jobCode);
+                                            // Get record count from the job's own write counts, or its table while it has no import job
+                                            int recordCount = loadCountService.getRecordCount(jobCode, getTableNameForWeeklyJobCode(jobCode));
                                             
                                             // Log job execution to LOGLOAD table
                                             logLoadService.saveLogLoad(jobCode, priorSnapshotDate, recordCount);
@@ -189,8 +193,8 @@ public class WeeklyJobRunner implements CommandLineRunner {
                                             log.info("Executing EA job...");
                                             batchRunJobService.runEAJob();
                                             
-                                            // Get record count after job execution
-                                            int recordCount = getRecordCountForJob(jobCode);
+                                            // Get record count from the job's own write counts, or its table while it has no import job
+                                            int recordCount = loadCountService.getRecordCount(jobCode, getTableNameForWeeklyJobCode(jobCode));
                                             
                                             // Log job execution to LOGLOAD table
                                             logLoadService.saveLogLoad(jobCode, priorSnapshotDate, recordCount);
@@ -208,8 +212,8 @@ public class WeeklyJobRunner implements CommandLineRunner {
                                             log.info("Executing E9 job...");
                                             batchRunJobService.runE9Job();
                                             
-                                            // Get record count after job execution
-                                            int recordCount = getRecordCountForJob(jobCode);
+                                            // Get record count from the job's own write counts, or its table while it has no import job
+                                            int recordCount = loadCountService.getRecordCount(jobCode, getTableNameForWeeklyJobCode(jobCode));
                                             
                                             // Log job execution to LOGLOAD table
                                             logLoadService.saveLogLoad(jobCode, priorSnapshotDate, recordCount);
@@ -242,33 +246,6 @@ public class WeeklyJobRunner implements CommandLineRunner {
         log.info("All weekly jobs completed");
     }
     
-    /**
-     * Gets the record count for a specific job by querying the appropriate table
-     * 
-     * @param jobCode the job code (e.g., "S1", "E1", etc.)
-     * @return the record count for the job, or 0 if it couldn't be determined
-     */
-    private int getRecordCountForJob(String jobCode) {
-        try {
-            // Determine which table to query based on job code
-            String tableName = getTableNameForWeeklyJobCode(jobCode);
-            if (tableName == null || tableName.isEmpty()) {
-                log.warning("Could not determine table name for job code: " + jobCode);
-                return 0;
-            }
-            
-            // Execute a count query on the appropriate table
-            String sql = "SELECT COUNT(*) FROM " + tableName;
-            Integer count = jdbcTemplate.queryForObject(sql, Integer.class);
-            
-            return count != null ? count : 0;
-        } catch (Exception e) {
-            log.warning("Error getting record count for job " + jobCode + ": " + e.getMessage());
-            // Return a default value in case of error
-            return 0;
-        }
-    }
-
     /**
      * Maps weekly job codes to their primary table names for counting records
      * 
@@ -0,0 +1,366 @@
+package gov.irs.sbse.os.ts.csp.alsentity.ale.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs the weekly jobs side by side where their tables allow
+ *
+ * Jobs are added in the order they ran one after another, each with the tables it
+ * touches (Constants.WEEKLY_JOB_TABLES). A job waits for every earlier job that shares
+ * a table with it, for the jobs named with after(), and, if it is a barrier, for every
+ * earlier job; later jobs wait for a barrier. Jobs with no such conflict run at the
+ * same time, up to maxConcurrentJobs at once (default 1, which runs the jobs one after
+ * another in the order added).
+ *
+ * The limit counts jobs, not database sessions. A running job holds one session for
+ * its load and up to its restore concurrency (JobUtil.withMaxConcurrentRestores) while
+ * it restores its snapshots, so keep maxConcurrentJobs times (restores + 1) within the
+ * sessions the schema allows.
+ *
+ * A failed job is reported and does not stop the jobs after it, as in the sequential
+ * run. When all jobs are done the report gives each job's time and the critical path:
+ * the chain of waiting jobs with the longest total time, which bounds the run however
+ * many jobs run at once.
+ *
+ * Usage:
+ *   WeeklyJobScheduler.Report report = WeeklyJobScheduler.named("weekly")
+ *           .job("E1", Constants.WEEKLY_JOB_TABLES.get("E1"))
+ *           .job("E9", Constants.WEEKLY_JOB_TABLES.get("E9")).after("E1")
+ *           .job("E6", Constants.WEEKLY_JOB_TABLES.get("E6")).barrier()
+ *           .maxConcurrentJobs(3)
+ *           .run(jobCode -> runJobByCode(jobCode));
+ */
+@Slf4j
+public class WeeklyJobScheduler {
+
+    /**
+     * Work done for each job on a pool thread
+     */
+    public interface JobTask {
+        void run(String jobCode) throws Exception;
+    }
+
+    /**
+     * Outcome of one job in the run
+     */
+    public static final class Result {
+        private final String jobCode;
+        private final Throwable error;
+        private final long startMillis;
+        private final long elapsedMillis;
+
+        Result(String jobCode, Throwable error, long startMillis, long elapsedMillis) {
+            this.jobCode = jobCode;
+            this.error = error;
+            this.startMillis = startMillis;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public String getJobCode() {
+            return jobCode;
+        }
+
+        public boolean isSucceeded() {
+            return error == null;
+        }
+
+        /**
+         * @return the exception thrown by the task, or null
+         */
+        public Throwable getError() {
+            return error;
+        }
+
+        /**
+         * @return when the job started, in milliseconds after the run started
+         */
+        public long getStartMillis() {
+            return startMillis;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+
+    /**
+     * Results of a run with its critical path
+     */
+    public static final class Report {
+        private final Map<String, Result> results;
+        private final List<String> criticalPath;
+        private final long criticalPathMillis;
+        private final long elapsedMillis;
+
+        Report(Map<String, Result> results, List<String> criticalPath, long criticalPathMillis, long elapsedMillis) {
+            this.results = results;
+            this.criticalPath = criticalPath;
+            this.criticalPathMillis = criticalPathMillis;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        /**
+         * @return result for every job, in the order added
+         */
+        public Map<String, Result> getResults() {
+            return results;
+        }
+
+        /**
+         * @return the jobs of the critical path, first to last
+         */
+        public List<String> getCriticalPath() {
+            return criticalPath;
+        }
+
+        /**
+         * @return the summed job times along the critical path
+         */
+        public long getCriticalPathMillis() {
+            return criticalPathMillis;
+        }
+
+        /**
+         * @return wall time of the whole run
+         */
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+
+    private final String name;
+    private final List<Node> nodes = new ArrayList<>();
+    private int maxConcurrentJobs = 1;
+
+    private WeeklyJobScheduler(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Starts the schedule of the named run
+     */
+    public static WeeklyJobScheduler named(String name) {
+        return new WeeklyJobScheduler(name);
+    }
+
+    /**
+     * Adds a job after the jobs added so far, with the tables it reads or writes
+     */
+    public WeeklyJobScheduler job(String jobCode, Collection<String> tables) {
+        if (find(jobCode) != null) {
+            throw new IllegalArgumentException("Job " + jobCode + " is already in " + name);
+        }
+        Node node = new Node(jobCode);
+        if (tables != null) {
+            for (String table : tables) {
+                String trimmed = table.trim();
+                node.tables.add(trimmed.substring(trimmed.lastIndexOf('.') + 1).toUpperCase(Locale.ROOT));
+            }
+        }
+        nodes.add(node);
+        return this;
+    }
+
+    /**
+     * Makes the last added job wait for earlier jobs it shares no table with
+     */
+    public WeeklyJobScheduler after(String... jobCodes) {
+        Node node = lastNode();
+        for (String jobCode : jobCodes) {
+            Node prerequisite = find(jobCode);
+            if (prerequisite == null || nodes.indexOf(prerequisite) >= nodes.indexOf(node)) {
+                throw new IllegalArgumentException("Job " + node.jobCode + " can only wait for a job added before it: "
+                        + jobCode);
+            }
+            node.after.add(jobCode);
+        }
+        return this;
+    }
+
+    /**
+     * Makes the last added job run after all earlier jobs and before all later ones
+     */
+    public WeeklyJobScheduler barrier() {
+        lastNode().barrier = true;
+        return this;
+    }
+
+    /**
+     * Most jobs to run at once (default 1)
+     */
+    public WeeklyJobScheduler maxConcurrentJobs(int maxConcurrentJobs) {
+        if (maxConcurrentJobs < 1) {
+            throw new IllegalArgumentException("maxConcurrentJobs must be at least 1: " + maxConcurrentJobs);
+        }
+        this.maxConcurrentJobs = maxConcurrentJobs;
+        return this;
+    }
+
+    /**
+     * Jobs each job waits for, in the order added
+     */
+    public Map<String, Set<String>> getPrerequisites() {
+        Map<String, Set<String>> prerequisites = new LinkedHashMap<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            Set<String> waitsFor = new LinkedHashSet<>();
+            for (int j = 0; j < i; j++) {
+                Node earlier = nodes.get(j);
+                if (node.barrier || earlier.barrier || node.after.contains(earlier.jobCode)
+                        || !Collections.disjoint(earlier.tables, node.tables)) {
+                    waitsFor.add(earlier.jobCode);
+                }
+            }
+            prerequisites.put(node.jobCode, waitsFor);
+        }
+        return prerequisites;
+    }
+
+    /**
+     * Runs every job once, each as soon as the jobs it waits for have finished
+     */
+    public Report run(JobTask task) throws InterruptedException {
+        Map<String, Set<String>> prerequisites = getPrerequisites();
+        prerequisites.forEach((jobCode, waitsFor) ->
+                log.info("{} job {} waits for {}", name, jobCode, waitsFor.isEmpty() ? "nothing" : waitsFor));
+
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(maxConcurrentJobs,
+                runnable -> new Thread(runnable, name + "-" + threads.incrementAndGet()));
+        CompletionService<Result> completions = new ExecutorCompletionService<>(pool);
+
+        long runStart = System.currentTimeMillis();
+        Map<String, Result> finished = new LinkedHashMap<>();
+        Set<String> waiting = new LinkedHashSet<>(prerequisites.keySet());
+        int running = 0;
+        try {
+            while (!waiting.isEmpty() || running > 0) {
+                for (String jobCode : new ArrayList<>(waiting)) {
+                    if (running < maxConcurrentJobs && finished.keySet().containsAll(prerequisites.get(jobCode))) {
+                        waiting.remove(jobCode);
+                        running++;
+                        log.info("{} starting job {}", name, jobCode);
+                        completions.submit(() -> {
+                            long start = System.currentTimeMillis();
+                            Throwable error = null;
+                            try {
+                                task.run(jobCode);
+                            } catch (Exception | Error e) {
+                                error = e;
+                            }
+                            return new Result(jobCode, error, start - runStart, System.currentTimeMillis() - start);
+                        });
+                    }
+                }
+                Result result = take(completions);
+                running--;
+                finished.put(result.getJobCode(), result);
+                if (result.isSucceeded()) {
+                    log.info("{} job {} finished in {} ms", name, result.getJobCode(), result.getElapsedMillis());
+                } else {
+                    log.error("{} job {} failed after {} ms", name, result.getJobCode(), result.getElapsedMillis(),
+                            result.getError());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (String jobCode : prerequisites.keySet()) {
+            results.put(jobCode, finished.get(jobCode));
+        }
+        Report report = criticalPath(prerequisites, results, System.currentTimeMillis() - runStart);
+        log.info("{} finished in {} ms; critical path {} takes {} ms", name, report.getElapsedMillis(),
+                report.getCriticalPath().stream()
+                        .map(jobCode -> jobCode + " (" + results.get(jobCode).getElapsedMillis() + " ms)")
+                        .collect(Collectors.joining(" -> ")),
+                report.getCriticalPathMillis());
+        return report;
+    }
+
+    /**
+     * Longest chain of waiting jobs by their run times
+     */
+    private static Report criticalPath(Map<String, Set<String>> prerequisites, Map<String, Result> results,
+                                       long elapsedMillis) {
+        Map<String, Long> pathMillis = new LinkedHashMap<>();
+        Map<String, String> pathPrevious = new LinkedHashMap<>();
+        String last = null;
+        for (Map.Entry<String, Set<String>> entry : prerequisites.entrySet()) {
+            long before = 0;
+            String previous = null;
+            for (String prerequisite : entry.getValue()) {
+                if (pathMillis.get(prerequisite) > before) {
+                    before = pathMillis.get(prerequisite);
+                    previous = prerequisite;
+                }
+            }
+            String jobCode = entry.getKey();
+            pathMillis.put(jobCode, before + results.get(jobCode).getElapsedMillis());
+            pathPrevious.put(jobCode, previous);
+            if (last == null || pathMillis.get(jobCode) > pathMillis.get(last)) {
+                last = jobCode;
+            }
+        }
+
+        List<String> path = new ArrayList<>();
+        for (String jobCode = last; jobCode != null; jobCode = pathPrevious.get(jobCode)) {
+            path.add(0, jobCode);
+        }
+        return new Report(results, path, last == null ? 0 : pathMillis.get(last), elapsedMillis);
+    }
+
+    private static Result take(CompletionService<Result> completions) throws InterruptedException {
+        try {
+            return completions.take().get();
+        } catch (ExecutionException e) {
+            // The task catches everything it throws, so this is not expected
+            throw new IllegalStateException("Weekly job task failed unexpectedly", e.getCause());
+        }
+    }
+
+    private Node lastNode() {
+        if (nodes.isEmpty()) {
+            throw new IllegalStateException("Add a job before declaring what it waits for");
+        }
+        return nodes.get(nodes.size() - 1);
+    }
+
+    private Node find(String jobCode) {
+        for (Node node : nodes) {
+            if (node.jobCode.equals(jobCode)) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    private static final class Node {
+        final String jobCode;
+        final Set<String> tables = new LinkedHashSet<>();
+        final Set<String> after = new LinkedHashSet<>();
+        boolean barrier;
+
+        Node(String jobCode) {
+            this.jobCode = jobCode;
+        }
+    }
+}
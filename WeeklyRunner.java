@@ -1,15 +1,24 @@
 
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.JobLauncher;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -24,6 +33,25 @@ public class WeeklyRunner {
     
     private static final String DEFAULT_PRIOR_SNAPSHOT_DATE = "03302025"; // Default value
     
+    // Ordering the shared tables in Constants.WEEKLY_JOB_TABLES don't show:
+    // E9 and EA stamp TINSIDs, and E3 resolves ACTSIDs, from the ENT rows E1 loads
+    private static final Map<String, List<String>> WEEKLY_JOB_PREREQUISITES = Map.of(
+            "E3", Arrays.asList("E1"),
+            "E9", Arrays.asList("E1"),
+            "EA", Arrays.asList("E1"));
+    
+    // Month-end archive and no-segment jobs read the whole week's results, so they run alone and last
+    private static final Set<String> WEEKLY_BARRIER_JOBS = new HashSet<>(Arrays.asList("E6", "NOSEG5"));
+    
+    // Weekly jobs to run at once; 1 runs them one after another in Constants.WEEKLY_JOB_CODES order.
+    // This counts jobs, not sessions: each running job also holds up to JobUtil's restore concurrency (4) while it restores.
+    @Value("${MAX_CONCURRENT_WEEKLY_JOBS:1}")
+    private int maxConcurrentJobs;
+    
+    // Restore the snapshot tables NOLOGGING; the restored rows can't be recovered from redo
+    @Value("${SNAPSHOT_RESTORE_NOLOGGING:false}")
+    private boolean restoreNologging;
+    
     // Method to get the appropriate prior snapshot date
     private String getPriorSnapshotDate() {
         return (injectedPriorSnapshotDate != null) ? injectedPriorSnapshotDate : DEFAULT_PRIOR_SNAPSHOT_DATE;
@@ -50,21 +78,34 @@ public class WeeklyRunner {
     @Autowired
     private JdbcTemplate jdbcTemplate;
     
+    @Autowired
+    private JobLauncher jobLauncher;
+    
+    @Autowired
+    private JobExplorer jobExplorer;
+    
+    @Autowired
+    @Qualifier("processS1Job")
+    private Job processS1Job;
+    
+    @Autowired
+    @Qualifier("processE9Job")
+    private Job processE9Job;
+    
+    @Autowired
+    @Qualifier("processEAJob")
+    private Job processEAJob;
+    
+    // Restart a failed S1, E9 or EA instance from its last committed chunk; false always starts a new one
+    @Value("${WEEKLY_RESTART_FAILED:true}")
+    private boolean restartFailed;
+    
     /**
      * Run S1 job
      */
     public void runS1Job() {
-        List<String> tables = Constants.WEEKLY_JOB_TABLES.get("S1");
         try {
-            JobUtil.builder(entityRepos, dbSnapshotService, materializedViewService)
-                .forJob("S1")
-                .forTables(tables)
-                .forPrefix(Constants.WEEKLY)
-                .withPriorSnapshotDate(getPriorSnapshotDate())
-                .execute(() -> {
-                    batchRunJobService.runS1Job();
-                    return null;
-                });
+            runWeeklyJob("S1");
             System.out.println("Job launch for job code S1 completed successfully");
         } catch (Exception e) {
             System.out.println("Error in job execution for job code S1: " + e.getMessage());
@@ -83,6 +124,7 @@ public class WeeklyRunner {
                 .forTables(tables)
                 .forPrefix(Constants.WEEKLY)
                 .withPriorSnapshotDate(getPriorSnapshotDate())
+                .withNologging(restoreNologging)
                 .execute(() -> {
                     batchRunJobService.runE1Job();
                     return null;
@@ -105,6 +147,7 @@ public class WeeklyRunner {
                 .forTables(tables)
                 .forPrefix(Constants.WEEKLY)
                 .withPriorSnapshotDate(getPriorSnapshotDate())
+                .withNologging(restoreNologging)
                 .execute(() -> {
                     batchRunJobService.runE2Job();
                     return null;
@@ -127,6 +170,7 @@ public class WeeklyRunner {
                 .forTables(tables)
                 .forPrefix(Constants.WEEKLY)
                 .withPriorSnapshotDate(getPriorSnapshotDate())
+                .withNologging(restoreNologging)
                 .execute(() -> {
                     batchRunJobService.runE4Job();
                     return null;
@@ -149,6 +193,7 @@ public class WeeklyRunner {
                 .forTables(tables)
                 .forPrefix(Constants.WEEKLY)
                 .withPriorSnapshotDate(getPriorSnapshotDate())
+                .withNologging(restoreNologging)
                 .execute(() -> {
                     batchRunJobService.runE3Job(false);
                     return null;
@@ -164,17 +209,8 @@ public class WeeklyRunner {
      * Run EA job
      */
     public void runEAJob() {
-        List<String> tables = Constants.WEEKLY_JOB_TABLES.get("EA");
         try {
-            JobUtil.builder(entityRepos, dbSnapshotService, materializedViewService)
-                .forJob("EA")
-                .forTables(tables)
-                .forPrefix(Constants.WEEKLY)
-                .withPriorSnapshotDate(getPriorSnapshotDate())
-                .execute(() -> {
-                    batchRunJobService.runEAJob();
-                    return null;
-                });
+            runWeeklyJob("EA");
             System.out.println("Job launch for job code EA completed successfully");
         } catch (Exception e) {
             System.out.println("Error in job execution for job code EA: " + e.getMessage());
@@ -186,17 +222,8 @@ public class WeeklyRunner {
      * Run E9 job
      */
     public void runE9Job() {
-        List<String> tables = Constants.WEEKLY_JOB_TABLES.get("E9");
         try {
-            JobUtil.builder(entityRepos, dbSnapshotService, materializedViewService)
-                .forJob("E9")
-                .forTables(tables)
-                .forPrefix(Constants.WEEKLY)
-                .withPriorSnapshotDate(getPriorSnapshotDate())
-                .execute(() -> {
-                    batchRunJobService.runE9Job();
-                    return null;
-                });
+            runWeeklyJob("E9");
             System.out.println("Job launch for job code E9 completed successfully");
         } catch (Exception e) {
             System.out.println("Error in job execution for job code E9: " + e.getMessage());
@@ -221,6 +248,7 @@ public class WeeklyRunner {
                 .forTables(tables)
                 .forPrefix(Constants.WEEKLY)
                 .withPriorSnapshotDate(getPriorSnapshotDate())
+                .withNologging(restoreNologging)
                 .execute(() -> {
                     batchRunJobService.runE6Job();
                     batchRunJobService.runMArchivJob(eowstartdt, eowenddt, rpymnth);
@@ -246,6 +274,7 @@ public class WeeklyRunner {
                 .forTables(tables)
                 .forPrefix(Constants.WEEKLY)
                 .withPriorSnapshotDate(getPriorSnapshotDate())
+                .withNologging(restoreNologging)
                 .execute(() -> {
                     batchRunJobService.runNosegJob();
                     batchRunJobService.runNosegOpenJob();
@@ -259,30 +288,90 @@ public class WeeklyRunner {
     }
     
     /**
-     * Run all weekly jobs
+     * Run all weekly jobs, side by side where their tables allow (see WeeklyJobScheduler)
      */
     public void runAllWeeklyJobs() {
+        WeeklyJobScheduler scheduler = WeeklyJobScheduler.named("weekly")
+                .maxConcurrentJobs(maxConcurrentJobs);
         for (String jobCode : Constants.WEEKLY_JOB_CODES) {
-            List<String> tables = Constants.WEEKLY_JOB_TABLES.get(jobCode);
-            try {
-                System.out.println("Starting execution of weekly job: " + jobCode);
-                
-                JobUtil.builder(entityRepos, dbSnapshotService, materializedViewService)
-                    .forJob(jobCode)
-                    .forTables(tables)
-                    .forPrefix(Constants.WEEKLY)
-                    .withPriorSnapshotDate(getPriorSnapshotDate())
-                    .execute(() -> {
-                        runJobByCode(jobCode);
-                        return null;
-                    });
-                
-                System.out.println("Job launch for job code " + jobCode + " completed successfully");
-            } catch (Exception e) {
-                System.out.println("Failed to execute job code " + jobCode + ": " + e.getMessage());
-                e.printStackTrace();
+            scheduler.job(jobCode, Constants.WEEKLY_JOB_TABLES.get(jobCode));
+            if (WEEKLY_JOB_PREREQUISITES.containsKey(jobCode)) {
+                scheduler.after(WEEKLY_JOB_PREREQUISITES.get(jobCode).toArray(new String[0]));
+            }
+            if (WEEKLY_BARRIER_JOBS.contains(jobCode)) {
+                scheduler.barrier();
             }
         }
+        
+        try {
+            scheduler.run(jobCode -> {
+                System.out.println("Starting execution of weekly job: " + jobCode);
+                try {
+                    runWeeklyJob(jobCode);
+                    System.out.println("Job launch for job code " + jobCode + " completed successfully");
+                } catch (Exception e) {
+                    System.out.println("Failed to execute job code " + jobCode + ": " + e.getMessage());
+                    e.printStackTrace();
+                    throw e;
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.out.println("Weekly jobs interrupted: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Run a weekly job after restoring its prior snapshots, or restart its failed instance
+     * 
+     * S1, E9 and EA launch through JobRestartUtil. A restart carries on from the last
+     * chunk the failed run committed, on the tables as that run left them, so the
+     * snapshots are not restored over them first.
+     */
+    private void runWeeklyJob(String jobCode) throws Exception {
+        Job job = restartableJob(jobCode);
+        if (job != null && restartFailed && JobRestartUtil.restartParameters(jobExplorer, job) != null) {
+            System.out.println("Restarting failed " + job.getName() + " for job code " + jobCode
+                    + " without restoring its snapshots");
+            checkCompleted(JobRestartUtil.runOrRestart(jobLauncher, jobExplorer, job, true));
+            return;
+        }
+        JobUtil.builder(entityRepos, dbSnapshotService, materializedViewService)
+            .forJob(jobCode)
+            .forTables(Constants.WEEKLY_JOB_TABLES.get(jobCode))
+            .forPrefix(Constants.WEEKLY)
+            .withPriorSnapshotDate(getPriorSnapshotDate())
+            .withNologging(restoreNologging)
+            .execute(() -> {
+                runJobByCode(jobCode);
+                return null;
+            });
+    }
+    
+    /**
+     * Job launched through JobRestartUtil for the job code, or null
+     */
+    private Job restartableJob(String jobCode) {
+        switch (jobCode) {
+            case "S1":
+                return processS1Job;
+            case "E9":
+                return processE9Job;
+            case "EA":
+                return processEAJob;
+            default:
+                return null;
+        }
+    }
+    
+    /**
+     * Fail the weekly job when its batch job did not complete, so the next run restarts it
+     */
+    private void checkCompleted(JobExecution execution) {
+        if (execution.getStatus() != BatchStatus.COMPLETED) {
+            throw new IllegalStateException(execution.getJobInstance().getJobName() + " execution "
+                    + execution.getId() + " ended " + execution.getStatus());
+        }
     }
     
     /**
@@ -291,7 +380,9 @@ public class WeeklyRunner {
     private void runJobByCode(String jobCode) throws Exception {
         switch (jobCode) {
             case "S1":
-                batchRunJobService.runS1Job();
+            case "E9":
+            case "EA":
+                checkCompleted(JobRestartUtil.runOrRestart(jobLauncher, jobExplorer, restartableJob(jobCode), false));
                 break;
             case "E1":
                 batchRunJobService.runE1Job();
@@ -305,12 +396,6 @@ public class WeeklyRunner {
             case "E3":
                 batchRunJobService.runE3Job(false);
                 break;
-            case "EA":
-                batchRunJobService.runEAJob();
-                break;
-            case "E9":
-                batchRunJobService.runE9Job();
-                break;
             case "E6":
                 String today = DateUtil.getCurrentDateMonthDayYear();
                 String rpymnth = DateUtil.getReportMonth(today);
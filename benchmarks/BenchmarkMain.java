@@ -0,0 +1,159 @@
+package com.abc.sbse.os.ts.csp.alsentity.ale.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * BenchmarkMain - Runs the ETL benchmark suites with the GC profiler, writes
+ * time and allocation per record to a results file, and compares them with the
+ * baseline results file
+ *
+ * Usage: java -cp benchmarks.jar com.abc.sbse.os.ts.csp.alsentity.ale.benchmark.BenchmarkMain [include regex...]
+ * Runs every suite in the module when no pattern is given. Settings are system
+ * properties:
+ *   benchmark.baseline        baseline file (benchmarks/baseline.tsv)
+ *   benchmark.results         results file written by this run (target/benchmark-results.tsv)
+ *   benchmark.timeTolerance   fraction slower than the baseline allowed (0.15)
+ *   benchmark.allocTolerance  fraction more allocation than the baseline allowed (0.05)
+ *   benchmark.writeBaseline   true to replace the baseline with this run
+ * Exits with 1 when a benchmark regressed past either tolerance, so a build can
+ * run it as a gate. Time is only comparable on the machine the baseline was
+ * taken on; bytes per record is comparable on any machine with the same JDK.
+ */
+public class BenchmarkMain {
+
+    private static final String ALLOC_NORM = "gc.alloc.rate.norm";
+    // Allowance in bytes per record, so a rounding difference on a small figure is not a regression
+    private static final double ALLOC_SLACK = 8.0;
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        Path baselineFile = Paths.get(System.getProperty("benchmark.baseline", "benchmarks/baseline.tsv"));
+        Path resultsFile = Paths.get(System.getProperty("benchmark.results", "target/benchmark-results.tsv"));
+        double timeTolerance = Double.parseDouble(System.getProperty("benchmark.timeTolerance", "0.15"));
+        double allocTolerance = Double.parseDouble(System.getProperty("benchmark.allocTolerance", "0.05"));
+        boolean writeBaseline = Boolean.getBoolean("benchmark.writeBaseline");
+
+        ChainedOptionsBuilder options = new OptionsBuilder().addProfiler(GCProfiler.class);
+        for (String include : args) {
+            options.include(include);
+        }
+        Collection<RunResult> runs = new Runner(options.build()).run();
+
+        Map<String, double[]> current = new LinkedHashMap<>();
+        for (RunResult run : runs) {
+            Result<?> alloc = null;
+            for (Map.Entry<String, Result> secondary : run.getSecondaryResults().entrySet()) {
+                if (secondary.getKey().endsWith(ALLOC_NORM)) {
+                    alloc = secondary.getValue();
+                }
+            }
+            current.put(key(run.getParams()), new double[] {
+                run.getPrimaryResult().getScore(), alloc == null ? Double.NaN : alloc.getScore()});
+        }
+
+        write(resultsFile, current);
+        System.out.println("Results written to " + resultsFile);
+        if (writeBaseline) {
+            write(baselineFile, current);
+            System.out.println("Baseline written to " + baselineFile);
+            return;
+        }
+        if (!Files.exists(baselineFile)) {
+            System.out.println("No baseline at " + baselineFile + ", nothing to compare");
+            return;
+        }
+
+        Map<String, double[]> baseline = read(baselineFile);
+        int regressions = 0;
+        System.out.printf("%n%-72s %12s %12s %8s %12s %12s %8s%n", "Benchmark",
+            "base ns", "ns", "change", "base B", "B", "change");
+        for (Map.Entry<String, double[]> entry : current.entrySet()) {
+            double[] base = baseline.get(entry.getKey());
+            double[] now = entry.getValue();
+            if (base == null) {
+                System.out.printf("%-72s %12s %12.1f %8s %12s %12.1f %8s%n", entry.getKey(),
+                    "-", now[0], "new", "-", now[1], "new");
+                continue;
+            }
+            boolean slower = now[0] > base[0] * (1 + timeTolerance);
+            boolean heavier = now[1] > base[1] * (1 + allocTolerance) + ALLOC_SLACK;
+            System.out.printf("%-72s %12.1f %12.1f %7.1f%% %12.1f %12.1f %7.1f%%%s%n", entry.getKey(),
+                base[0], now[0], change(base[0], now[0]), base[1], now[1], change(base[1], now[1]),
+                slower || heavier ? "  REGRESSION" : "");
+            if (slower || heavier) {
+                regressions++;
+            }
+        }
+
+        if (regressions > 0) {
+            System.out.println(regressions + " benchmark(s) regressed against " + baselineFile);
+            System.exit(1);
+        }
+        System.out.println("No regressions against " + baselineFile);
+    }
+
+    /**
+     * Benchmark name without the package, with its parameters, e.g.
+     * RecordLineMapperBenchmark.mapLine:entity=E9
+     */
+    private static String key(BenchmarkParams params) {
+        String benchmark = params.getBenchmark();
+        StringBuilder key = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1));
+        for (String name : params.getParamsKeys()) {
+            key.append(':').append(name).append('=').append(params.getParam(name));
+        }
+        return key.toString();
+    }
+
+    private static double change(double base, double now) {
+        return base == 0 ? 0 : (now - base) * 100.0 / base;
+    }
+
+    private static void write(Path file, Map<String, double[]> results) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("# benchmark\tns/record\tbytes/record (" + ALLOC_NORM + ")");
+            writer.newLine();
+            writer.write("# " + System.getProperty("java.vm.name") + " " + System.getProperty("java.version")
+                + ", " + System.getProperty("os.name") + " " + System.getProperty("os.arch")
+                + ", " + Runtime.getRuntime().availableProcessors() + " cpus");
+            writer.newLine();
+            for (Map.Entry<String, double[]> entry : results.entrySet()) {
+                writer.write(String.format("%s\t%.1f\t%.1f", entry.getKey(), entry.getValue()[0], entry.getValue()[1]));
+                writer.newLine();
+            }
+        }
+    }
+
+    private static Map<String, double[]> read(Path file) throws IOException {
+        Map<String, double[]> results = new LinkedHashMap<>();
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        for (String line : lines) {
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\t");
+            results.put(fields[0], new double[] {Double.parseDouble(fields[1]), Double.parseDouble(fields[2])});
+        }
+        return results;
+    }
+}
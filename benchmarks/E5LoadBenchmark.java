@@ -0,0 +1,155 @@
+package com.abc.sbse.os.ts.csp.alsentity.ale.benchmark;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.batch.item.file.LineMapper;
+
+import com.example.batch.config.E5BatchConfiguration;
+import com.example.batch.model.E5Record;
+import com.example.batch.processor.E5ItemProcessor;
+
+/**
+ * E5LoadBenchmark - Cost per record of the two E5 read paths and the E5 processor
+ *
+ *   springLineMapper  the FixedLengthTokenizer and BeanWrapperFieldSetMapper of
+ *                     E5BatchConfiguration.e5LineMapper
+ *   itemProcessor     E5ItemProcessor on records mapped once at setup. It rewrites
+ *                     the indicators in place, so later invocations see the T and
+ *                     F it wrote, which take the same compares as the raw codes
+ *   dailyLoadDecode   FixedWidthDecoder.load of DailyLoad with the binder compiled
+ *                     from ProcessE5Entity.E5_LAYOUT, over an E5.dat of the same
+ *                     lines, so it includes the file read. The statement is a stub
+ *                     that hashes every bound value and the commits do nothing, so
+ *                     it is the decode and bind cost without the database
+ *
+ * The DailyLoad classes are in the default package, which a packaged benchmark
+ * cannot import, so the layout and binder are read and load is looked up once
+ * at setup.
+ *
+ *   java -jar benchmarks.jar E5LoadBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class E5LoadBenchmark {
+
+    static final int BATCH = 10_000;
+
+    private String[] lines;
+    private LineMapper<E5Record> lineMapper;
+    private E5ItemProcessor processor;
+    private E5Record[] mapped;
+
+    private Path workDir;
+    private Path datFile;
+    private Object decoder;
+    private Object binder;
+    private Object rejects;
+    private Connection conn;
+    private PreparedStatement ps;
+    private MethodHandle load;
+    private long boundHash;
+
+    @Setup
+    public void setUp() throws Throwable {
+        lines = SyntheticRecords.lines(SyntheticRecords.E5, BATCH, SyntheticRecords.SEED).toArray(new String[0]);
+        lineMapper = new E5BatchConfiguration().e5LineMapper();
+        processor = new E5ItemProcessor();
+        mapped = new E5Record[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            mapped[i] = lineMapper.mapLine(lines[i], i + 1);
+        }
+
+        workDir = Files.createTempDirectory("e5bench");
+        datFile = SyntheticRecords.writeFile(SyntheticRecords.E5, BATCH, SyntheticRecords.SEED,
+                workDir.resolve("E5.dat"));
+
+        Class<?> entity = Class.forName("ProcessE5Entity");
+        Field layoutField = entity.getDeclaredField("E5_LAYOUT");
+        layoutField.setAccessible(true);
+        Object layout = layoutField.get(null);
+        Field binderField = entity.getDeclaredField("E5TMP_BINDER");
+        binderField.setAccessible(true);
+        binder = binderField.get(null);
+
+        Class<?> decoderType = Class.forName("FixedWidthDecoder");
+        Class<?> binderType = Class.forName("FixedWidthDecoder$RowBinder");
+        Class<?> rejectType = Class.forName("FixedWidthDecoder$RejectHandler");
+        int recordLength = (Integer) layout.getClass().getMethod("getRecordLength").invoke(layout);
+        decoder = decoderType.getConstructor(int.class).newInstance(recordLength);
+        Method loadMethod = decoderType.getMethod("load", Path.class, Connection.class, PreparedStatement.class,
+                binderType, int.class, int.class, rejectType);
+        load = MethodHandles.lookup().unreflect(loadMethod);
+
+        // Every set call feeds the hash, so the bound values cannot be dropped
+        ps = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[] {PreparedStatement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("set")) {
+                        boundHash = boundHash * 31 + String.valueOf(args[1]).hashCode();
+                    }
+                    return null;
+                });
+        conn = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, (proxy, method, args) -> null);
+        // The synthetic file has no bad lines
+        rejects = Proxy.newProxyInstance(rejectType.getClassLoader(), new Class<?>[] {rejectType},
+                (proxy, method, args) -> {
+                    throw new IllegalStateException("Rejected line " + args[0] + ": " + args[2]);
+                });
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(workDir.resolve("E5.dat"));
+        Files.deleteIfExists(workDir);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void springLineMapper(Blackhole blackhole) throws Exception {
+        for (int i = 0; i < lines.length; i++) {
+            blackhole.consume(lineMapper.mapLine(lines[i], i + 1));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void itemProcessor(Blackhole blackhole) {
+        for (E5Record record : mapped) {
+            blackhole.consume(processor.process(record));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long dailyLoadDecode() throws Throwable {
+        long records = (long) load.invoke(decoder, datFile, conn, ps, binder, BATCH, BATCH, rejects);
+        return records + boundHash;
+    }
+}
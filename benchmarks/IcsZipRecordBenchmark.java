@@ -0,0 +1,50 @@
+package com.abc.sbse.os.ts.csp.alsentity.ale.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.abc.ics.model.IcsZipRecord;
+
+/**
+ * IcsZipRecordBenchmark - Cost per record of IcsZipRecord.fromPipeDelimitedString
+ * on lines in the format toPipeDelimitedString writes
+ *
+ *   java -jar benchmarks.jar IcsZipRecordBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class IcsZipRecordBenchmark {
+
+    static final int BATCH = 10_000;
+
+    private String[] lines;
+
+    @Setup
+    public void setUp() {
+        lines = SyntheticRecords.icsZipLines(BATCH, SyntheticRecords.SEED).toArray(new String[0]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void fromPipeDelimitedString(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(IcsZipRecord.fromPipeDelimitedString(line));
+        }
+    }
+}
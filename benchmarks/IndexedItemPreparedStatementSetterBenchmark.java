@@ -0,0 +1,176 @@
+package com.abc.sbse.os.ts.csp.alsentity.ale.util;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.batch.item.database.BeanPropertyItemSqlParameterSourceProvider;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import com.abc.sbse.os.ts.csp.alsentity.ale.data.E9Record;
+
+/**
+ * IndexedItemPreparedStatementSetterBenchmark - JMH comparison of binding one
+ * chunk of E9 records with IndexedItemPreparedStatementSetter and with the
+ * BeanPropertyItemSqlParameterSourceProvider path JdbcBatchItemWriter used before
+ *
+ * The provider path is the per-item work of NamedParameterJdbcTemplate.batchUpdate:
+ * a BeanPropertySqlParameterSource per item, the value and SQL type arrays
+ * built from the parsed SQL, and StatementCreatorUtils binding each value.
+ * The parsed SQL is built once, as the template's cache would hold it.
+ * Both bind into the same no-op PreparedStatement, so the difference is the
+ * binding work and not the driver. One item in four has null dates and a null
+ * CASESID, as unmatched E9 rows do.
+ *
+ * Each invocation binds one 5000 item chunk, the E9 step's commit interval, so
+ * the score is time per item and gc.alloc.rate.norm is bytes per item.
+ *
+ *   java -jar benchmarks.jar IndexedItemPreparedStatementSetterBenchmark -prof gc
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class IndexedItemPreparedStatementSetterBenchmark {
+
+    // The E9Writer statement
+    private static final String SQL = "INSERT INTO E9TMP (" +
+            "OUTPUTCD, TIN, FILESOURCECD, TINTYPE, ASGMNTNUM, TXPVRNUMTRLCD, TXPVRMCTRLCD, " +
+            "ENTCASECD, ENTSUBCASECD, CYCTOUCHCNT, TOUCHCNT, INPUTHRS, TOTALCASEHRS, " +
+            "CASEIDCD, INVITENSTATECD, INVITEMTYPECD, INVITEMCTRLID, NDSUBCASECD, RCPTEXT, " +
+            "CASESTATUS, ENTMODDISPCD, ENTMODCLSNGCD, ENTEXTRACTDT, RPTENDINGDT, LATESTTOUCHDT, " +
+            "INVITEMCLSDT, CASEROCLOSEDDT, CASEHOSTCLSDT, INITCONTCTDT, INITCONTCTDUDT, CASESID" +
+            ") VALUES (" +
+            ":outputCd, :tin, :fileSourceCd, :tinType, :asgmntNum, :txpVrNumTrlCd, :txpVrMCtrlCd, " +
+            ":entCaseCd, :entSubCaseCd, :cycTouchCnt, :touchCnt, :inputHrs, :totalCaseHrs, " +
+            ":caseIdCd, :invItenStateCd, :invItemTypeCd, :invItemCtrlId, :ndSubCaseCd, :rcpText, " +
+            ":caseStatus, :entModDispCd, :entModClsngCd, :entExtractDt, :rptEndingDt, :latestTouchDt, " +
+            ":invItemClsDt, :caseRoClosedDt, :caseHostClsDt, :initContCtDt, :initContCtDuDt, :caseSid" +
+            ")";
+
+    static final int CHUNK_SIZE = 5000;
+
+    private List<E9Record> chunk;
+    private PreparedStatement ps;
+    private Blackhole sink;
+
+    private IndexedItemPreparedStatementSetter<E9Record> indexedSetter;
+    private BeanPropertyItemSqlParameterSourceProvider<E9Record> provider;
+    private ParsedSql parsedSql;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        sink = blackhole;
+        indexedSetter = IndexedItemPreparedStatementSetter.forNamedSql(E9Record.class, SQL);
+        provider = new BeanPropertyItemSqlParameterSourceProvider<>();
+        parsedSql = NamedParameterUtils.parseSqlStatement(SQL);
+        ps = noOpStatement();
+
+        chunk = new ArrayList<>(CHUNK_SIZE);
+        for (int i = 0; i < CHUNK_SIZE; i++) {
+            chunk.add(record(i));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK_SIZE)
+    public void indexedSetter() throws SQLException {
+        for (E9Record item : chunk) {
+            indexedSetter.setValues(item, ps);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK_SIZE)
+    public void beanPropertyProvider() throws SQLException {
+        for (E9Record item : chunk) {
+            SqlParameterSource source = provider.createSqlParameterSource(item);
+            Object[] values = NamedParameterUtils.buildValueArray(parsedSql, source, null);
+            int[] types = NamedParameterUtils.buildSqlTypeArray(parsedSql, source);
+            for (int i = 0; i < values.length; i++) {
+                StatementCreatorUtils.setParameterValue(ps, i + 1, types[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * PreparedStatement that hands every bound value to the blackhole and does nothing else
+     */
+    private PreparedStatement noOpStatement() {
+        return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {PreparedStatement.class}, (proxy, method, args) -> {
+                    if (args != null && args.length > 1) {
+                        sink.consume(args[1]);
+                    }
+                    Class<?> returnType = method.getReturnType();
+                    if (returnType == boolean.class) {
+                        return false;
+                    }
+                    if (returnType == int.class) {
+                        return 0;
+                    }
+                    return null;
+                });
+    }
+
+    private static E9Record record(int i) {
+        boolean unmatched = i % 4 == 3;
+        LocalDate date = LocalDate.of(2025, 1, 1).plusDays(i % 365);
+
+        E9Record record = new E9Record();
+        record.setOutputCd("E9");
+        record.setEntExtractDt(date);
+        record.setRptEndingDt(unmatched ? null : date.minusDays(7));
+        record.setTin(BigDecimal.valueOf(100000000L + i));
+        record.setFileSourceCd(BigDecimal.valueOf(i % 3));
+        record.setTinType(BigDecimal.valueOf(1 + i % 3));
+        record.setAsgmntNum(BigDecimal.valueOf(21000000L + i % 5000));
+        record.setTxpVrNumTrlCd("TAXPAYER NAME " + i);
+        record.setTxpVrMCtrlCd("NAME");
+        record.setEntCaseCd("201");
+        record.setEntSubCaseCd("000");
+        record.setCycTouchCnt(BigDecimal.valueOf(i % 99));
+        record.setTouchCnt(BigDecimal.valueOf(i % 9999));
+        record.setLatestTouchDt(unmatched ? null : date);
+        record.setInputHrs(BigDecimal.valueOf(i % 1000, 1));
+        record.setTotalCaseHrs(BigDecimal.valueOf(i % 10000, 1));
+        record.setCaseIdCd("A");
+        record.setInvItenStateCd("O");
+        record.setInvItemTypeCd("1");
+        record.setInvItemCtrlId(String.valueOf(i));
+        record.setNdSubCaseCd("00");
+        record.setRcpText("RECEIPT");
+        record.setCaseStatus("1");
+        record.setEntModDispCd("00");
+        record.setEntModClsngCd("00");
+        record.setInvItemClsDt(unmatched ? null : date);
+        record.setCaseRoClosedDt(unmatched ? null : date);
+        record.setCaseHostClsDt(unmatched ? null : date);
+        record.setInitContCtDt(unmatched ? null : date);
+        record.setInitContCtDuDt(unmatched ? null : date);
+        record.setCaseSid(unmatched ? null : String.valueOf(500000000L + i));
+        return record;
+    }
+}
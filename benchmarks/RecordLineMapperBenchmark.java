@@ -0,0 +1,86 @@
+package com.abc.sbse.os.ts.csp.alsentity.ale.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.batch.item.file.LineMapper;
+
+import com.abc.sbse.os.ts.csp.alsentity.ale.benchmark.SyntheticRecords.Layout;
+import com.abc.sbse.os.ts.csp.alsentity.ale.mapper.E9RecordLineMapper;
+import com.abc.sbse.os.ts.csp.alsentity.ale.mapper.EARecordLineMapper;
+import com.abc.sbse.os.ts.csp.alsentity.ale.mapper.S1RecordLineMapper;
+import com.example.e1processor.E1RecordLineMapper;
+
+/**
+ * RecordLineMapperBenchmark - Cost per record of mapping E1, E9, EA and S1
+ * extract lines into their records, the read side of every load step
+ *
+ * Each invocation maps one batch of synthetic lines, so the score is time per
+ * record and gc.alloc.rate.norm is bytes allocated per record.
+ *
+ *   java -jar benchmarks.jar RecordLineMapperBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class RecordLineMapperBenchmark {
+
+    static final int BATCH = 10_000;
+
+    @Param({"E1", "E9", "EA", "S1"})
+    public String entity;
+
+    private LineMapper<?> mapper;
+    private String[] lines;
+
+    @Setup
+    public void setUp() {
+        Layout layout;
+        switch (entity) {
+            case "E1":
+                layout = SyntheticRecords.E1;
+                mapper = new E1RecordLineMapper();
+                break;
+            case "E9":
+                layout = SyntheticRecords.E9;
+                mapper = new E9RecordLineMapper();
+                break;
+            case "EA":
+                layout = SyntheticRecords.EA;
+                mapper = new EARecordLineMapper();
+                break;
+            case "S1":
+                layout = SyntheticRecords.S1;
+                mapper = new S1RecordLineMapper();
+                break;
+            default:
+                throw new IllegalArgumentException("No line mapper for " + entity);
+        }
+        List<String> generated = SyntheticRecords.lines(layout, BATCH, SyntheticRecords.SEED);
+        lines = generated.toArray(new String[0]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void mapLine(Blackhole blackhole) throws Exception {
+        for (int i = 0; i < lines.length; i++) {
+            blackhole.consume(mapper.mapLine(lines[i], i + 1));
+        }
+    }
+}
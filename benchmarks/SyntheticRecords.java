@@ -0,0 +1,242 @@
+package com.abc.sbse.os.ts.csp.alsentity.ale.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * SyntheticRecords - Deterministic extract lines for the benchmark suites,
+ * generated from the POSITION clauses of the load CTL files
+ *
+ * Each layout is a list of "start-end kind" columns, 1-based and inclusive as in
+ * the CTL. Columns not listed are left as spaces, as the gaps in the extracts are.
+ * The kinds give each column the shape the extracts have:
+ *   =XY  the literal XY (the OUTPUTCD of every record)
+ *   X    free text, a word or two padded with spaces
+ *   C    a code filling the column, blank one time in ten
+ *   N    a zero-padded number
+ *   M    a zero-padded number, blank one time in ten
+ *   D    a yyyyMMdd date, 00000000 one time in ten and blank one time in twenty
+ *   P    a yyyyMM period, 000000 one time in ten
+ *   F    a one character flag or indicator
+ * The same seed always gives the same lines, so runs compare like with like.
+ */
+public final class SyntheticRecords {
+
+    public static final long SEED = 20250311L;
+
+    // loadE1.ctl
+    public static final Layout E1 = new Layout("E1", 690,
+        "1-2 =E1", "3-10 D", "11-18 D", "19-27 N", "28-28 F", "29-29 F", "30-37 N", "38-38 F",
+        "39-73 X", "74-108 X", "109-112 C", "113-147 X", "148-169 X", "170-171 C", "172-183 N",
+        "184-186 C", "187-189 C", "190-191 C", "192-198 M", "199-214 N", "215-222 D", "223-230 D",
+        "231-232 M", "233-236 M", "237-244 D", "245-250 M", "251-256 M", "257-257 F", "258-258 F",
+        "259-262 C", "263-266 C", "267-267 F", "268-271 C", "272-272 F", "273-280 C", "281-284 C",
+        "285-286 C", "287-288 C", "289-296 D", "297-297 F", "298-301 C", "302-305 C", "306-309 C",
+        "310-317 D", "318-319 C", "320-321 C", "322-323 C", "324-326 C", "327-329 C", "330-335 C",
+        "336-339 C", "340-343 N", "344-351 D", "352-359 D", "360-365 M", "366-368 C", "369-376 D",
+        "377-377 F", "378-381 M", "382-389 D", "390-395 M", "396-396 F", "397-404 D", "405-410 M",
+        "411-445 X", "446-446 F", "447-447 F", "448-453 C", "454-466 M", "467-470 C", "471-471 F",
+        "472-487 X", "488-504 X", "505-512 D", "513-520 D", "521-524 M", "525-525 F", "526-526 F",
+        "527-576 X", "577-626 X", "627-634 D", "635-640 M", "641-642 C", "643-647 C", "648-648 F",
+        "649-656 D", "657-667 M", "668-678 M", "679-686 N", "687-690 C");
+
+    // loadE9.ctl
+    public static final Layout E9 = new Layout("E9", 171,
+        "1-2 =E9", "3-10 D", "11-18 D", "19-27 N", "28-28 N", "29-29 N", "30-37 N", "38-72 X",
+        "73-76 C", "77-79 C", "80-82 C", "83-84 M", "85-88 M", "89-96 D", "97-102 M", "103-108 M",
+        "109-109 F", "110-110 F", "111-118 D", "119-119 F", "120-127 C", "128-130 C", "131-133 C",
+        "134-134 F", "135-142 D", "143-150 D", "151-152 C", "153-155 C", "156-163 D", "164-171 D");
+
+    // loadEA.ctl
+    public static final Layout EA = new Layout("EA", 74,
+        "1-2 =EA", "3-10 D", "11-19 N", "20-20 N", "21-21 N", "22-23 M", "24-29 P", "30-37 C",
+        "38-45 N", "46-46 F", "47-54 D", "55-62 D", "63-65 C", "66-68 C", "69-71 C", "72-73 C",
+        "74-74 F");
+
+    // loadS1.ctl
+    public static final Layout S1 = new Layout("S1", 61,
+        "1-2 =S1", "3-6 N", "7-7 F", "8-10 C", "11-45 X", "46-53 D", "54-54 F", "55-55 F",
+        "56-56 F", "57-57 F", "58-58 F", "59-59 F", "60-60 F", "61-61 N");
+
+    // loadE5.ctl; the INTEGER EXTERNAL columns are always present in the E5 extract
+    public static final Layout E5 = new Layout("E5", 206,
+        "1-2 =E5", "3-10 N", "11-45 X", "46-47 C", "48-48 F", "49-49 F", "50-50 F", "51-51 F",
+        "52-52 F", "53-53 F", "54-54 F", "55-55 F", "56-56 F", "57-64 D", "65-72 D", "73-82 C",
+        "83-107 X", "108-110 N", "111-117 N", "118-124 N", "125-132 N", "133-137 C", "142-186 X",
+        "187-187 F", "188-190 C", "191-194 N", "195-198 N", "199-202 N", "203-206 N");
+
+    private static final String[] WORDS = {
+        "SMITH", "JOHNSON", "WILLIAMS", "BROWN", "JONES", "GARCIA", "MILLER", "DAVIS",
+        "RODRIGUEZ", "MARTINEZ", "HERNANDEZ", "LOPEZ", "GONZALEZ", "WILSON", "ANDERSON",
+        "MAIN ST", "OAK AVE", "PARK RD", "HOLDINGS LLC", "TRUST", "INC", "AND", "ESTATE OF"
+    };
+    private static final String CODE_CHARS = "ABCDEFGHJKLMNPQRSTUVWXYZ0123456789";
+    private static final String FLAGS = "YNTF01 ";
+
+    private SyntheticRecords() {
+    }
+
+    /**
+     * Lines of the layout, count of them from the given seed
+     */
+    public static List<String> lines(Layout layout, int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            lines.add(layout.line(random));
+        }
+        return lines;
+    }
+
+    /**
+     * Writes count lines of the layout to file, as an extract would arrive
+     */
+    public static Path writeFile(Layout layout, int count, long seed, Path file) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < count; i++) {
+                writer.write(layout.line(random));
+                writer.newLine();
+            }
+        }
+        return file;
+    }
+
+    /**
+     * ICS zip lines in the IcsZipRecord.toPipeDelimitedString format
+     */
+    public static List<String> icsZipLines(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            char alphaBeg = (char) ('A' + random.nextInt(26));
+            char alphaEnd = (char) (alphaBeg + random.nextInt('Z' - alphaBeg + 1));
+            lines.add(String.format("%d|%05d|%02d|%08d|%s|%s|%s|%s|%d|",
+                    10 + random.nextInt(90), random.nextInt(100000), 5 + random.nextInt(10),
+                    21000000 + random.nextInt(90000), alphaBeg, alphaEnd,
+                    code(random, 2), code(random, 3), random.nextInt(2)));
+        }
+        return lines;
+    }
+
+    private static String code(SplittableRandom random, int width) {
+        char[] chars = new char[width];
+        for (int i = 0; i < width; i++) {
+            chars[i] = CODE_CHARS.charAt(random.nextInt(CODE_CHARS.length()));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Column layout of one fixed-length extract
+     */
+    public static final class Layout {
+
+        private final String name;
+        private final int recordLength;
+        private final int[] starts;
+        private final int[] ends;
+        private final String[] kinds;
+
+        Layout(String name, int recordLength, String... columns) {
+            this.name = name;
+            this.recordLength = recordLength;
+            this.starts = new int[columns.length];
+            this.ends = new int[columns.length];
+            this.kinds = new String[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                String[] parts = columns[i].split("[- ]", 3);
+                starts[i] = Integer.parseInt(parts[0]);
+                ends[i] = Integer.parseInt(parts[1]);
+                kinds[i] = parts[2];
+                if (starts[i] < 1 || ends[i] > recordLength || ends[i] < starts[i]) {
+                    throw new IllegalArgumentException(name + " column out of range: " + columns[i]);
+                }
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getRecordLength() {
+            return recordLength;
+        }
+
+        String line(SplittableRandom random) {
+            char[] line = new char[recordLength];
+            Arrays.fill(line, ' ');
+            for (int i = 0; i < kinds.length; i++) {
+                String value = value(kinds[i], ends[i] - starts[i] + 1, random);
+                value.getChars(0, Math.min(value.length(), ends[i] - starts[i] + 1), line, starts[i] - 1);
+            }
+            return new String(line);
+        }
+
+        private static String value(String kind, int width, SplittableRandom random) {
+            if (kind.charAt(0) == '=') {
+                return kind.substring(1);
+            }
+            switch (kind.charAt(0)) {
+                case 'X':
+                    StringBuilder text = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+                    if (random.nextBoolean()) {
+                        text.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+                    }
+                    return text.toString();
+                case 'C':
+                    return random.nextInt(10) == 0 ? "" : code(random, width);
+                case 'M':
+                    if (random.nextInt(10) == 0) {
+                        return "";
+                    }
+                    return digits(width, random);
+                case 'N':
+                    return digits(width, random);
+                case 'D':
+                    int dateRoll = random.nextInt(20);
+                    if (dateRoll == 0) {
+                        return "";
+                    }
+                    if (dateRoll < 3) {
+                        return "00000000";
+                    }
+                    return String.format("%04d%02d%02d", 2015 + random.nextInt(11),
+                            1 + random.nextInt(12), 1 + random.nextInt(28));
+                case 'P':
+                    if (random.nextInt(10) == 0) {
+                        return "000000";
+                    }
+                    return String.format("%04d%02d", 2015 + random.nextInt(11), 1 + random.nextInt(12));
+                case 'F':
+                    return String.valueOf(FLAGS.charAt(random.nextInt(FLAGS.length())));
+                default:
+                    throw new IllegalArgumentException("Unknown column kind " + kind);
+            }
+        }
+
+        private static String digits(int width, SplittableRandom random) {
+            // Mostly small values, zero-padded to the column as the extracts are
+            int significant = 1 + random.nextInt(Math.min(width, 9));
+            long bound = 1;
+            for (int i = 0; i < significant; i++) {
+                bound *= 10;
+            }
+            String value = Long.toString(random.nextLong(bound));
+            if (value.length() >= width) {
+                return value.substring(0, width);
+            }
+            char[] padded = new char[width];
+            Arrays.fill(padded, 0, width - value.length(), '0');
+            value.getChars(0, value.length(), padded, width - value.length());
+            return new String(padded);
+        }
+    }
+}
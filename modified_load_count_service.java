@@ -0,0 +1,236 @@
+package com.abc.sbse.os.ts.csp.alsentity.ale.service;
+
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobInstance;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Service for the record counts written to the LOGLOAD table
+ *
+ * The count of a load comes from what the load itself reports instead of a
+ * SELECT COUNT(*) of its tables afterwards. A load that is not a Spring Batch job
+ * records its count with recordLoadCount. For the others the count is the sum of the
+ * step write counts of the last instance of import<jobCode>Job, read from the batch
+ * metadata tables; the executions of a restarted instance are added together, since
+ * the rows written before the failure stay committed.
+ *
+ * Loads with neither, like the E3, E7 and E8 daily loads and the E2, E3 and E4 weekly
+ * loads, have no import job yet. Their callers pass the table the runners counted
+ * before, and it is still counted with SELECT COUNT(*) until the load reports its own
+ * count.
+ *
+ * With loadcount.verify set, a write count is checked against the staging table:
+ *   none       - no check (default)
+ *   dictionary - NUM_ROWS in USER_TABLES, as current as the table's last stats gather
+ *   sample     - SELECT COUNT(*) ... SAMPLE (loadcount.verify.sample-percent), scaled up
+ * A count off by more than loadcount.verify.tolerance is logged; it never fails the job.
+ */
+@Service
+public class LoadCountService {
+
+    private static final Logger log = Logger.getLogger(LoadCountService.class.getName());
+
+    private static final Pattern TABLE_NAME = Pattern.compile("[A-Za-z][A-Za-z0-9_$#]{0,127}");
+
+    @Autowired
+    private JobExplorer jobExplorer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${loadcount.verify:none}")
+    private String verifyMode;
+
+    @Value("${loadcount.verify.sample-percent:1}")
+    private double samplePercent;
+
+    @Value("${loadcount.verify.tolerance:0.05}")
+    private double tolerance;
+
+    // Counts reported by loads that are not Spring Batch jobs, by job code
+    private final Map<String, Integer> recordedCounts = new ConcurrentHashMap<>();
+
+    /**
+     * Record the count of a load that does not run as a Spring Batch job
+     *
+     * @param jobCode the job code (e.g., E8, E7, etc.)
+     * @param recordCount number of records the load wrote
+     */
+    public void recordLoadCount(String jobCode, int recordCount) {
+        recordedCounts.put(jobCode, recordCount);
+    }
+
+    /**
+     * Get the record count of the job's last load, verified if loadcount.verify is set
+     *
+     * @param jobCode the job code (e.g., E5, E3, etc.)
+     * @return the records written by the load, or 0 if it couldn't be determined
+     */
+    public int getRecordCount(String jobCode) {
+        return getRecordCount(jobCode, null);
+    }
+
+    /**
+     * Get the record count of the job's last load, counting the table if the load
+     * reports none
+     *
+     * @param jobCode the job code (e.g., E5, E3, etc.)
+     * @param countTable table to count when the job has neither a recorded count nor an
+     *                   import job instance, or null to return 0 then
+     * @return the records written by the load, or 0 if it couldn't be determined
+     */
+    public int getRecordCount(String jobCode, String countTable) {
+        Integer recorded = recordedCounts.remove(jobCode);
+        if (recorded == null && countTable != null && !hasInstance(importJobName(jobCode))) {
+            return countRows(jobCode, countTable);
+        }
+        int recordCount = recorded != null ? recorded : getWriteCount(importJobName(jobCode));
+        verify(jobCode, stagingTable(jobCode), recordCount);
+        return recordCount;
+    }
+
+    /**
+     * Get the write count of the job's last instance, if that completed
+     *
+     * @param jobName the Spring Batch job name
+     * @return the items written by all executions of the instance, or 0 if it didn't complete
+     */
+    public int getWriteCount(String jobName) {
+        try {
+            JobInstance instance = jobExplorer.getLastJobInstance(jobName);
+            if (instance == null) {
+                log.warning("No instance of " + jobName + " to take the record count from");
+                return 0;
+            }
+            List<JobExecution> executions = jobExplorer.getJobExecutions(instance);
+            JobExecution last = jobExplorer.getLastJobExecution(instance);
+            if (last == null || last.getStatus() != BatchStatus.COMPLETED) {
+                log.warning("Last execution of " + jobName + " did not complete; record count is 0");
+                return 0;
+            }
+            long writeCount = 0;
+            for (JobExecution execution : executions) {
+                writeCount += getWriteCount(execution);
+            }
+            return (int) writeCount;
+        } catch (Exception e) {
+            log.warning("Error getting write count for " + jobName + ": " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Count all rows of the table, as the runners did for every load before
+     *
+     * @param jobCode the job code, for the log
+     * @param tableName the table to count
+     * @return the table's row count, or 0 if it couldn't be counted
+     */
+    public int countRows(String jobCode, String tableName) {
+        if (!TABLE_NAME.matcher(tableName).matches()) {
+            log.warning("Not counting " + jobCode + " records in invalid table name " + tableName);
+            return 0;
+        }
+        try {
+            Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + tableName, Integer.class);
+            return count != null ? count : 0;
+        } catch (Exception e) {
+            log.warning("Error counting records of " + tableName + " for job " + jobCode + ": " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Get the items written by all steps of a job execution
+     * Partition steps (step:partitionN) are left out, as their manager step's count includes them.
+     *
+     * @param execution the job execution
+     * @return the sum of its step write counts
+     */
+    public static long getWriteCount(JobExecution execution) {
+        long writeCount = 0;
+        for (StepExecution step : execution.getStepExecutions()) {
+            if (step.getStepName().indexOf(':') < 0) {
+                writeCount += step.getWriteCount();
+            }
+        }
+        return writeCount;
+    }
+
+    /**
+     * Check the count against the table as loadcount.verify says, logging a mismatch
+     *
+     * @param jobCode the job code, for the log
+     * @param tableName the table the load wrote
+     * @param recordCount the count to check
+     */
+    public void verify(String jobCode, String tableName, int recordCount) {
+        if (verifyMode == null || "none".equalsIgnoreCase(verifyMode)) {
+            return;
+        }
+        if (!TABLE_NAME.matcher(tableName).matches()) {
+            log.warning("Not verifying " + jobCode + " count against invalid table name " + tableName);
+            return;
+        }
+        try {
+            Long tableCount;
+            if ("dictionary".equalsIgnoreCase(verifyMode)) {
+                tableCount = jdbcTemplate.queryForObject(
+                        "SELECT NUM_ROWS FROM USER_TABLES WHERE TABLE_NAME = ?", Long.class, tableName.toUpperCase());
+            } else if ("sample".equalsIgnoreCase(verifyMode)) {
+                Long sampled = jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM " + tableName + " SAMPLE (" + samplePercent + ")", Long.class);
+                tableCount = sampled == null ? null : Math.round(sampled * 100 / samplePercent);
+            } else {
+                log.warning("Unknown loadcount.verify mode: " + verifyMode);
+                return;
+            }
+            if (tableCount == null) {
+                log.warning("No " + verifyMode + " row count for " + tableName + " to verify " + jobCode + " against");
+            } else if (Math.abs(tableCount - recordCount) > tolerance * Math.max(tableCount, recordCount)) {
+                log.warning("Record count " + recordCount + " for job " + jobCode + " differs from "
+                        + verifyMode + " count " + tableCount + " of " + tableName);
+            } else {
+                log.info("Record count " + recordCount + " for job " + jobCode + " matches "
+                        + verifyMode + " count " + tableCount + " of " + tableName);
+            }
+        } catch (Exception e) {
+            log.warning("Error verifying record count for job " + jobCode + ": " + e.getMessage());
+        }
+    }
+
+    private boolean hasInstance(String jobName) {
+        try {
+            return jobExplorer.getLastJobInstance(jobName) != null;
+        } catch (Exception e) {
+            log.warning("Error looking up " + jobName + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Spring Batch job that loads the job's extract, e.g. importE5Job
+     */
+    private static String importJobName(String jobCode) {
+        return "import" + jobCode + "Job";
+    }
+
+    /**
+     * Staging table the job's extract is loaded into, e.g. E5TMP
+     */
+    private static String stagingTable(String jobCode) {
+        return jobCode + "TMP";
+    }
+}
@@ -0,0 +1,76 @@
+-- =====================================================
+-- SQL PERFORMANCE HISTORY
+-- One row per statement run by SqlRunnerTasklet
+-- =====================================================
+
+-- 1. History table
+CREATE TABLE SQL_PERF_HISTORY (
+    RUN_TS              TIMESTAMP       NOT NULL,
+    JOB_NAME            VARCHAR2(100)   NOT NULL,
+    STEP_NAME           VARCHAR2(100)   NOT NULL,
+    STMT_NO             NUMBER(4)       NOT NULL,
+    JOB_EXECUTION_ID    NUMBER(19),
+    STEP_EXECUTION_ID   NUMBER(19),
+    SQL_ID              VARCHAR2(13),
+    PLAN_HASH_VALUE     NUMBER,
+    SQL_TEXT            VARCHAR2(4000),
+    ELAPSED_MS          NUMBER(12),
+    ROWS_AFFECTED       NUMBER(12),
+    LOGICAL_READS       NUMBER(19),
+    PHYSICAL_READS      NUMBER(19),
+    REDO_SIZE           NUMBER(19),
+    CPU_CS              NUMBER(12)
+);
+
+CREATE INDEX SQL_PERF_HISTORY_IX ON SQL_PERF_HISTORY (JOB_NAME, STEP_NAME, STMT_NO, RUN_TS);
+
+-- The batch schema reads its own session statistics (run as a DBA)
+-- GRANT SELECT ON v_$mystat TO <batch schema>;
+-- GRANT SELECT ON v_$statname TO <batch schema>;
+-- GRANT SELECT ON v_$session TO <batch schema>;
+-- GRANT SELECT ON v_$sql TO <batch schema>;
+
+-- 2. Regression report: latest run of each statement against its previous 7 runs
+--    Flags a plan hash change, or elapsed time (over a second) or logical reads over twice the median
+CREATE OR REPLACE VIEW V_SQL_PERF_REGRESSIONS AS
+WITH ranked AS (
+    SELECT
+        h.*,
+        ROW_NUMBER() OVER (PARTITION BY JOB_NAME, STEP_NAME, STMT_NO ORDER BY RUN_TS DESC) AS run_rank
+    FROM SQL_PERF_HISTORY h
+),
+baseline AS (
+    SELECT
+        JOB_NAME, STEP_NAME, STMT_NO,
+        MEDIAN(ELAPSED_MS) AS median_elapsed_ms,
+        MEDIAN(LOGICAL_READS) AS median_logical_reads,
+        MAX(PLAN_HASH_VALUE) KEEP (DENSE_RANK FIRST ORDER BY RUN_TS DESC) AS prior_plan_hash
+    FROM ranked
+    WHERE run_rank BETWEEN 2 AND 8
+    GROUP BY JOB_NAME, STEP_NAME, STMT_NO
+)
+SELECT
+    l.RUN_TS,
+    l.JOB_NAME,
+    l.STEP_NAME,
+    l.STMT_NO,
+    l.SQL_ID,
+    b.prior_plan_hash,
+    l.PLAN_HASH_VALUE,
+    b.median_elapsed_ms,
+    l.ELAPSED_MS,
+    b.median_logical_reads,
+    l.LOGICAL_READS,
+    CASE
+        WHEN l.PLAN_HASH_VALUE <> b.prior_plan_hash THEN 'PLAN_CHANGED'
+        WHEN l.ELAPSED_MS > GREATEST(2 * b.median_elapsed_ms, 1000) THEN 'SLOWER'
+        WHEN l.LOGICAL_READS > 2 * b.median_logical_reads THEN 'MORE_READS'
+    END AS regression,
+    SUBSTR(l.SQL_TEXT, 1, 200) AS sql_text
+FROM ranked l
+JOIN baseline b
+  ON b.JOB_NAME = l.JOB_NAME AND b.STEP_NAME = l.STEP_NAME AND b.STMT_NO = l.STMT_NO
+WHERE l.run_rank = 1
+  AND (l.PLAN_HASH_VALUE <> b.prior_plan_hash
+       OR l.ELAPSED_MS > GREATEST(2 * b.median_elapsed_ms, 1000)
+       OR l.LOGICAL_READS > 2 * b.median_logical_reads);